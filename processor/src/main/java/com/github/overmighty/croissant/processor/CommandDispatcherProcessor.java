@@ -0,0 +1,479 @@
+package com.github.overmighty.croissant.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates a {@code CommandDispatcher} for every command class that has an
+ * executor method, as a class named {@code <command class>$CroissantDispatcher}
+ * in the package of the command class.
+ * <p>
+ * The generated dispatcher calls the executor method directly, and describes
+ * its parameters to the command framework based on their types and on the
+ * {@code Optional}, {@code Default}, {@code Rest}, {@code Flag} and
+ * {@code Option} annotations, and passes on the {@code Cooldown} or
+ * {@code RateLimit} of the executor method, so that the command framework does
+ * not have to inspect command classes using reflection when commands are
+ * constructed.
+ * <p>
+ * Dispatchers cannot be generated for command classes or executor methods
+ * that are private, or that are declared in a private class, nor for generic or
+ * local command classes. Those command classes fall back to runtime detection
+ * of their executor method, and a warning is reported for them.
+ * <p>
+ * The processor also lists the command classes annotated with {@code Indexed}
+ * in the {@value #INDEX_RESOURCE_NAME} resource file, which is read by
+ * {@code CommandIndex}.
+ */
+@SupportedAnnotationTypes({
+    CommandDispatcherProcessor.COMMAND_EXECUTOR,
+    CommandDispatcherProcessor.INDEXED
+})
+public class CommandDispatcherProcessor extends AbstractProcessor {
+
+    static final String COMMAND_EXECUTOR =
+        "com.github.overmighty.croissant.command.CommandExecutor";
+    static final String INDEXED = "com.github.overmighty.croissant.command.Indexed";
+    static final String INDEX_RESOURCE_NAME = "META-INF/croissant/commands";
+
+    private static final String GENERATED_DISPATCHER_SUFFIX = "$CroissantDispatcher";
+    private static final String CROISSANT_COMMAND =
+        "com.github.overmighty.croissant.command.CroissantCommand";
+    private static final String COMMAND_DISPATCHER =
+        "com.github.overmighty.croissant.command.CommandDispatcher";
+    private static final String ASYNC = "com.github.overmighty.croissant.command.Async";
+    private static final String COOLDOWN = "com.github.overmighty.croissant.command.Cooldown";
+    private static final String RATE_LIMIT = "com.github.overmighty.croissant.command.RateLimit";
+    private static final String OPTIONAL =
+        "com.github.overmighty.croissant.command.argument.Optional";
+    private static final String DEFAULT =
+        "com.github.overmighty.croissant.command.argument.Default";
+    private static final String REST = "com.github.overmighty.croissant.command.argument.Rest";
+    private static final String FLAG = "com.github.overmighty.croissant.command.argument.Flag";
+    private static final String OPTION =
+        "com.github.overmighty.croissant.command.argument.Option";
+
+    // Sorted, so that the generated index does not depend on the order in
+    // which classes are compiled
+    private final Set<String> indexedClasses = new TreeSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Elements elements = super.processingEnv.getElementUtils();
+        TypeElement executorAnnotation = elements.getTypeElement(COMMAND_EXECUTOR);
+        TypeElement indexedAnnotation = elements.getTypeElement(INDEXED);
+
+        if (executorAnnotation == null) {
+            return false;
+        }
+
+        if (indexedAnnotation != null) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(indexedAnnotation)) {
+                if (this.validateIndexed((TypeElement) element)) {
+                    this.indexedClasses.add(elements.getBinaryName((TypeElement) element)
+                        .toString());
+                }
+            }
+        }
+
+        if (roundEnv.processingOver()) {
+            this.writeIndex();
+            return false;
+        }
+
+        Map<TypeElement, List<ExecutableElement>> executors = new LinkedHashMap<>();
+
+        for (Element element : roundEnv.getElementsAnnotatedWith(executorAnnotation)) {
+            if (element.getKind() == ElementKind.METHOD) {
+                executors.computeIfAbsent((TypeElement) element.getEnclosingElement(),
+                    type -> new ArrayList<>()).add((ExecutableElement) element);
+            }
+        }
+
+        for (Map.Entry<TypeElement, List<ExecutableElement>> entry : executors.entrySet()) {
+            TypeElement commandClass = entry.getKey();
+            List<ExecutableElement> methods = entry.getValue();
+
+            if (methods.size() > 1) {
+                this.error(methods.get(1), "Command has more than one executor method");
+            } else if (this.validate(commandClass, methods.get(0))) {
+                this.generate(commandClass, methods.get(0));
+            }
+        }
+
+        // Not claiming the annotation, which is also read at runtime
+        return false;
+    }
+
+    private boolean validate(TypeElement commandClass, ExecutableElement executor) {
+        Types types = super.processingEnv.getTypeUtils();
+        TypeElement croissantCommand =
+            super.processingEnv.getElementUtils().getTypeElement(CROISSANT_COMMAND);
+
+        if (croissantCommand != null && !types.isSubtype(types.erasure(commandClass.asType()),
+            types.erasure(croissantCommand.asType()))) {
+            this.error(executor, "Executor method must be declared in a subclass of " +
+                CROISSANT_COMMAND);
+            return false;
+        }
+
+        if (executor.getParameters().isEmpty()) {
+            this.error(executor, "Executor method must take the command sender as first " +
+                "parameter");
+            return false;
+        }
+
+        if (this.hasAnnotation(executor, COOLDOWN) && this.hasAnnotation(executor, RATE_LIMIT)) {
+            this.error(executor, "Executor method cannot have both a cooldown and a rate limit");
+            return false;
+        }
+
+        for (VariableElement param : executor.getParameters()) {
+            String typeName = this.typeName(param.asType());
+
+            if (this.hasAnnotation(param, FLAG) && !typeName.equals("boolean") &&
+                !typeName.equals("java.lang.Boolean")) {
+                this.error(param, "Flag parameters must be of the boolean type");
+                return false;
+            }
+
+            if (this.hasAnnotation(param, OPTION) && !this.hasAnnotation(param, FLAG) &&
+                !this.hasAnnotation(param, DEFAULT) && param.asType().getKind().isPrimitive()) {
+                this.error(param, "Option parameters without a default value must be of a " +
+                    "non-primitive type");
+                return false;
+            }
+        }
+
+        if (executor.getModifiers().contains(Modifier.PRIVATE)) {
+            this.warning(executor, "Cannot generate the dispatcher of a private executor " +
+                "method, it will be detected at runtime");
+            return false;
+        }
+
+        if (!commandClass.getTypeParameters().isEmpty()) {
+            this.warning(executor, "Cannot generate the dispatcher of a generic command class, " +
+                "its executor method will be detected at runtime");
+            return false;
+        }
+
+        for (Element element = commandClass; element instanceof TypeElement;
+             element = element.getEnclosingElement()) {
+            TypeElement type = (TypeElement) element;
+
+            if (type.getModifiers().contains(Modifier.PRIVATE) ||
+                type.getNestingKind() == NestingKind.LOCAL ||
+                type.getNestingKind() == NestingKind.ANONYMOUS) {
+                this.warning(executor, "Cannot generate the dispatcher of a command class that " +
+                    "is not accessible from its package, its executor method will be detected " +
+                    "at runtime");
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private boolean validateIndexed(TypeElement commandClass) {
+        Types types = super.processingEnv.getTypeUtils();
+        TypeElement croissantCommand =
+            super.processingEnv.getElementUtils().getTypeElement(CROISSANT_COMMAND);
+
+        if (commandClass.getKind() != ElementKind.CLASS || (croissantCommand != null &&
+            !types.isSubtype(types.erasure(commandClass.asType()),
+                types.erasure(croissantCommand.asType())))) {
+            this.error(commandClass, "Indexed classes must be subclasses of " +
+                CROISSANT_COMMAND);
+            return false;
+        }
+
+        if (commandClass.getModifiers().contains(Modifier.ABSTRACT) ||
+            (commandClass.getNestingKind() == NestingKind.MEMBER &&
+                !commandClass.getModifiers().contains(Modifier.STATIC))) {
+            this.error(commandClass, "Indexed command classes must be concrete top-level or " +
+                "static nested classes");
+            return false;
+        }
+
+        for (Element element : commandClass.getEnclosedElements()) {
+            if (element.getKind() == ElementKind.CONSTRUCTOR &&
+                ((ExecutableElement) element).getParameters().isEmpty()) {
+                return true;
+            }
+        }
+
+        this.error(commandClass, "Indexed command classes must have a constructor that does " +
+            "not take any parameters");
+        return false;
+    }
+
+    private void writeIndex() {
+        if (this.indexedClasses.isEmpty()) {
+            return;
+        }
+
+        try {
+            FileObject resource = super.processingEnv.getFiler()
+                .createResource(StandardLocation.CLASS_OUTPUT, "", INDEX_RESOURCE_NAME);
+
+            try (PrintWriter out = new PrintWriter(new OutputStreamWriter(
+                resource.openOutputStream(), StandardCharsets.UTF_8))) {
+                for (String className : this.indexedClasses) {
+                    out.println(className);
+                }
+            }
+        } catch (IOException e) {
+            this.messager().printMessage(Diagnostic.Kind.ERROR, "Could not write the command " +
+                "index: " + e.getMessage());
+        }
+    }
+
+    private void generate(TypeElement commandClass, ExecutableElement executor) {
+        Elements elements = super.processingEnv.getElementUtils();
+        PackageElement packageElement = elements.getPackageOf(commandClass);
+        String packageName = packageElement.getQualifiedName().toString();
+        String binaryName = elements.getBinaryName(commandClass).toString();
+        String simpleBinaryName = packageName.isEmpty() ? binaryName :
+            binaryName.substring(packageName.length() + 1);
+        String dispatcherName = simpleBinaryName + GENERATED_DISPATCHER_SUFFIX;
+        String commandName = commandClass.getQualifiedName().toString();
+        List<? extends VariableElement> params = executor.getParameters();
+
+        StringBuilder parameterTypes = new StringBuilder();
+        StringBuilder parameterFlags = new StringBuilder();
+        StringBuilder defaultValues = new StringBuilder();
+        StringBuilder parameterNames = new StringBuilder();
+        StringBuilder arguments = new StringBuilder();
+
+        for (int i = 0; i < params.size(); i++) {
+            VariableElement param = params.get(i);
+            String separator = i == 0 ? "" : ", ";
+            String defaultValue = this.getAnnotationValue(param, DEFAULT);
+            String name = this.getAnnotationValue(param, FLAG);
+
+            if (name == null) {
+                name = this.getAnnotationValue(param, OPTION);
+            }
+
+            parameterTypes.append(separator).append(this.typeName(param.asType()))
+                .append(".class");
+            parameterFlags.append(separator).append(this.parameterFlags(param));
+            defaultValues.append(separator).append(defaultValue == null ? "null" :
+                elements.getConstantExpression(defaultValue));
+            parameterNames.append(separator).append(name == null ? "null" :
+                elements.getConstantExpression(name));
+            arguments.append(i == 0 ? "" : ",").append("\n            (")
+                .append(this.boxedTypeName(param.asType())).append(") args[").append(i)
+                .append("]");
+        }
+
+        String call = "command." + executor.getSimpleName() + "(" + arguments + "\n        )";
+        int rateLimitPermits = 0;
+        long rateLimitPeriod = 0;
+
+        if (this.hasAnnotation(executor, COOLDOWN)) {
+            rateLimitPermits = 1;
+            rateLimitPeriod = TimeUnit.SECONDS.toNanos(
+                (Long) this.getAnnotationValue(executor, COOLDOWN, "seconds"));
+        } else if (this.hasAnnotation(executor, RATE_LIMIT)) {
+            rateLimitPermits = (Integer) this.getAnnotationValue(executor, RATE_LIMIT, "permits");
+            rateLimitPeriod = TimeUnit.valueOf(((VariableElement) this.getAnnotationValue(
+                executor, RATE_LIMIT, "per")).getSimpleName().toString()).toNanos(1);
+        }
+
+        try {
+            Writer writer = super.processingEnv.getFiler().createSourceFile(
+                packageName.isEmpty() ? dispatcherName : packageName + "." + dispatcherName,
+                commandClass
+            ).openWriter();
+
+            try (PrintWriter out = new PrintWriter(writer)) {
+                if (!packageName.isEmpty()) {
+                    out.println("package " + packageName + ";");
+                    out.println();
+                }
+
+                out.println("/**");
+                out.println(" * Dispatcher of {@link " + commandName + "}, generated by the " +
+                    "Croissant annotation processor.");
+                out.println(" */");
+                out.println("public final class " + dispatcherName);
+                out.println("    extends " + COMMAND_DISPATCHER + "<" + commandName + "> {");
+                out.println();
+                out.println("    public " + dispatcherName + "() {");
+                out.println("        super(");
+                out.println("            " + commandName + ".class,");
+                out.println("            \"" + executor.getSimpleName() + "\",");
+                out.println("            new Class<?>[] { " + parameterTypes + " },");
+                out.println("            new int[] { " + parameterFlags + " },");
+                out.println("            new String[] { " + defaultValues + " },");
+                out.println("            new String[] { " + parameterNames + " },");
+                out.println("            " + executor.isVarArgs() + ",");
+                out.println("            " + this.hasAnnotation(executor, ASYNC) + ",");
+                out.println("            " + rateLimitPermits + ",");
+                out.println("            " + rateLimitPeriod + "L");
+                out.println("        );");
+                out.println("    }");
+                out.println();
+                out.println("    @Override");
+                out.println("    public Object dispatch(" + commandName + " command, " +
+                    "Object[] args) throws Throwable {");
+
+                if (executor.getReturnType().getKind() == TypeKind.VOID) {
+                    out.println("        " + call + ";");
+                    out.println("        return null;");
+                } else {
+                    out.println("        return " + call + ";");
+                }
+
+                out.println("    }");
+                out.println();
+                out.println("}");
+            }
+        } catch (IOException e) {
+            this.error(executor, "Could not write the dispatcher of command class " +
+                commandName + ": " + e.getMessage());
+        }
+    }
+
+    private String parameterFlags(VariableElement param) {
+        List<String> flags = new ArrayList<>();
+
+        if (this.hasAnnotation(param, OPTIONAL)) {
+            flags.add("OPTIONAL");
+        }
+
+        if (this.hasAnnotation(param, REST)) {
+            flags.add("REST");
+        }
+
+        if (this.hasAnnotation(param, FLAG)) {
+            flags.add("FLAG");
+        } else if (this.hasAnnotation(param, OPTION)) {
+            flags.add("OPTION");
+        }
+
+        return flags.isEmpty() ? "0" : String.join(" | ", flags);
+    }
+
+    /**
+     * Returns the source code name of the erasure of the given type, without
+     * type annotations.
+     */
+    private String typeName(TypeMirror type) {
+        TypeMirror erasure = super.processingEnv.getTypeUtils().erasure(type);
+
+        switch (erasure.getKind()) {
+            case ARRAY:
+                return this.typeName(((ArrayType) erasure).getComponentType()) + "[]";
+            case DECLARED:
+                return ((TypeElement) ((DeclaredType) erasure).asElement()).getQualifiedName()
+                    .toString();
+            default:
+                return erasure.getKind().name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private String boxedTypeName(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return super.processingEnv.getTypeUtils().boxedClass((PrimitiveType) type)
+                .getQualifiedName().toString();
+        }
+
+        return this.typeName(type);
+    }
+
+    private AnnotationMirror getAnnotation(Element element, String annotationName) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+
+            if (annotationType.getQualifiedName().contentEquals(annotationName)) {
+                return annotation;
+            }
+        }
+
+        return null;
+    }
+
+    private boolean hasAnnotation(Element element, String annotationName) {
+        return this.getAnnotation(element, annotationName) != null;
+    }
+
+    private String getAnnotationValue(Element element, String annotationName) {
+        Object value = this.getAnnotationValue(element, annotationName, "value");
+        return value == null ? null : String.valueOf(value);
+    }
+
+    private Object getAnnotationValue(Element element, String annotationName,
+                                      String valueName) {
+        AnnotationMirror annotation = this.getAnnotation(element, annotationName);
+
+        if (annotation == null) {
+            return null;
+        }
+
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+            super.processingEnv.getElementUtils().getElementValuesWithDefaults(annotation)
+                .entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(valueName)) {
+                return entry.getValue().getValue();
+            }
+        }
+
+        return null;
+    }
+
+    private void error(Element element, String message) {
+        this.messager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    private void warning(Element element, String message) {
+        this.messager().printMessage(Diagnostic.Kind.WARNING, message, element);
+    }
+
+    private Messager messager() {
+        return super.processingEnv.getMessager();
+    }
+
+}
@@ -0,0 +1,5 @@
+/**
+ * Provides an annotation processor that generates the
+ * {@code CommandDispatcher}s of Croissant command classes at compile time.
+ */
+package com.github.overmighty.croissant.processor;
@@ -0,0 +1,287 @@
+package com.github.overmighty.croissant.processor;
+
+import com.github.overmighty.croissant.command.CommandDispatcher;
+import com.github.overmighty.croissant.command.CommandIndex;
+import com.github.overmighty.croissant.command.CroissantCommand;
+import org.bukkit.command.Command;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URISyntaxException;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+class CommandDispatcherProcessorTest {
+
+    @TempDir
+    Path output;
+
+    private final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+
+    private static String classPath() {
+        try {
+            // The Croissant and Bukkit classes that sources are compiled against
+            return String.join(File.pathSeparator,
+                Paths.get(CroissantCommand.class.getProtectionDomain().getCodeSource()
+                    .getLocation().toURI()).toString(),
+                Paths.get(Command.class.getProtectionDomain().getCodeSource()
+                    .getLocation().toURI()).toString());
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private boolean compile(String className, String source) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        StandardJavaFileManager fileManager =
+            compiler.getStandardFileManager(this.diagnostics, null, null);
+        fileManager.setLocation(StandardLocation.CLASS_OUTPUT,
+            Collections.singletonList(this.output.toFile()));
+        fileManager.setLocation(StandardLocation.SOURCE_OUTPUT,
+            Collections.singletonList(this.output.toFile()));
+
+        JavaFileObject file = new SimpleJavaFileObject(URI.create("string:///" +
+            className.replace('.', '/') + ".java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+
+        JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, this.diagnostics,
+            Arrays.asList("-classpath", classPath()), null,
+            Collections.singletonList(file));
+        task.setProcessors(Collections.singletonList(new CommandDispatcherProcessor()));
+
+        boolean success = task.call();
+        fileManager.close();
+        return success;
+    }
+
+    private boolean hasDiagnostic(Diagnostic.Kind kind, String message) {
+        return this.diagnostics.getDiagnostics().stream().anyMatch(diagnostic ->
+            diagnostic.getKind() == kind && diagnostic.getMessage(null).contains(message));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    @DisplayName("Test dispatcher generation for a command class: expect direct call")
+    void testGenerationExpectDirectCall() throws Throwable {
+        Assertions.assertTrue(this.compile("test.PayCommand", String.join("\n",
+            "package test;",
+            "import com.github.overmighty.croissant.command.CommandExecutor;",
+            "import com.github.overmighty.croissant.command.CroissantCommand;",
+            "import com.github.overmighty.croissant.command.argument.Default;",
+            "import com.github.overmighty.croissant.command.argument.Optional;",
+            "import org.bukkit.command.CommandSender;",
+            "public class PayCommand extends CroissantCommand {",
+            "    public PayCommand() { super(\"pay\"); }",
+            "    @CommandExecutor",
+            "    int run(CommandSender sender, String name, @Default(\"1\\\"\") int amount,",
+            "            @Optional String... reasons) {",
+            "        return amount + reasons.length;",
+            "    }",
+            "}"
+        )), this.diagnostics.getDiagnostics().toString());
+
+        String generated = new String(Files.readAllBytes(
+            this.output.resolve("test/PayCommand$CroissantDispatcher.java")), "UTF-8");
+        Assertions.assertTrue(generated.contains("new String[] { null, null, \"1\\\"\", null }"));
+        Assertions.assertTrue(generated.contains("new int[] { 0, 0, 0, OPTIONAL }"));
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[] { this.output.toUri().toURL() },
+            this.getClass().getClassLoader())) {
+            CroissantCommand command = (CroissantCommand) loader.loadClass("test.PayCommand")
+                .getConstructor().newInstance();
+            CommandDispatcher<CroissantCommand> dispatcher = (CommandDispatcher<CroissantCommand>)
+                loader.loadClass("test.PayCommand$CroissantDispatcher").getConstructor()
+                    .newInstance();
+
+            Object result = dispatcher.dispatch(command,
+                new Object[] { null, "Steve", 5, new String[] { "rent" } });
+            Assertions.assertEquals(6, result);
+        }
+    }
+
+    @Test
+    @DisplayName("Test dispatcher generation with two executor methods: expect error")
+    void testTwoExecutorMethodsExpectError() throws IOException {
+        Assertions.assertFalse(this.compile("test.TwoExecutorsCommand", String.join("\n",
+            "package test;",
+            "import com.github.overmighty.croissant.command.CommandExecutor;",
+            "import com.github.overmighty.croissant.command.CroissantCommand;",
+            "import org.bukkit.command.CommandSender;",
+            "public class TwoExecutorsCommand extends CroissantCommand {",
+            "    public TwoExecutorsCommand() { super(\"two\"); }",
+            "    @CommandExecutor void a(CommandSender sender) { }",
+            "    @CommandExecutor void b(CommandSender sender) { }",
+            "}"
+        )));
+        Assertions.assertTrue(this.hasDiagnostic(Diagnostic.Kind.ERROR,
+            "more than one executor method"));
+    }
+
+    @Test
+    @DisplayName("Test dispatcher generation with a non-boolean flag: expect error")
+    void testNonBooleanFlagExpectError() throws IOException {
+        Assertions.assertFalse(this.compile("test.FlagCommand", String.join("\n",
+            "package test;",
+            "import com.github.overmighty.croissant.command.CommandExecutor;",
+            "import com.github.overmighty.croissant.command.CroissantCommand;",
+            "import com.github.overmighty.croissant.command.argument.Flag;",
+            "import org.bukkit.command.CommandSender;",
+            "public class FlagCommand extends CroissantCommand {",
+            "    public FlagCommand() { super(\"flag\"); }",
+            "    @CommandExecutor void run(CommandSender sender, @Flag(\"s\") int silent) { }",
+            "}"
+        )));
+        Assertions.assertTrue(this.hasDiagnostic(Diagnostic.Kind.ERROR,
+            "must be of the boolean type"));
+    }
+
+    @Test
+    @DisplayName("Test dispatcher generation with a primitive option without default: expect error")
+    void testPrimitiveOptionWithoutDefaultExpectError() throws IOException {
+        Assertions.assertFalse(this.compile("test.OptionCommand", String.join("\n",
+            "package test;",
+            "import com.github.overmighty.croissant.command.CommandExecutor;",
+            "import com.github.overmighty.croissant.command.CroissantCommand;",
+            "import com.github.overmighty.croissant.command.argument.Option;",
+            "import org.bukkit.command.CommandSender;",
+            "public class OptionCommand extends CroissantCommand {",
+            "    public OptionCommand() { super(\"option\"); }",
+            "    @CommandExecutor void run(CommandSender sender, @Option(\"radius\") int r) { }",
+            "}"
+        )));
+        Assertions.assertTrue(this.hasDiagnostic(Diagnostic.Kind.ERROR,
+            "must be of a non-primitive type"));
+    }
+
+    @Test
+    @DisplayName("Test dispatcher generation with a rate limit: expect limit passed on")
+    void testRateLimitExpectLimitPassedOn() throws IOException {
+        Assertions.assertTrue(this.compile("test.LimitedCommand", String.join("\n",
+            "package test;",
+            "import com.github.overmighty.croissant.command.CommandExecutor;",
+            "import com.github.overmighty.croissant.command.CroissantCommand;",
+            "import com.github.overmighty.croissant.command.RateLimit;",
+            "import org.bukkit.command.CommandSender;",
+            "import java.util.concurrent.TimeUnit;",
+            "public class LimitedCommand extends CroissantCommand {",
+            "    public LimitedCommand() { super(\"limited\"); }",
+            "    @RateLimit(permits = 3, per = TimeUnit.MINUTES)",
+            "    @CommandExecutor void run(CommandSender sender) { }",
+            "}"
+        )), this.diagnostics.getDiagnostics().toString());
+
+        String generated = new String(Files.readAllBytes(
+            this.output.resolve("test/LimitedCommand$CroissantDispatcher.java")), "UTF-8");
+        Assertions.assertTrue(generated.contains("            3,\n            60000000000L\n"));
+    }
+
+    @Test
+    @DisplayName("Test dispatcher generation with a cooldown and a rate limit: expect error")
+    void testCooldownAndRateLimitExpectError() throws IOException {
+        Assertions.assertFalse(this.compile("test.LimitedCommand", String.join("\n",
+            "package test;",
+            "import com.github.overmighty.croissant.command.CommandExecutor;",
+            "import com.github.overmighty.croissant.command.Cooldown;",
+            "import com.github.overmighty.croissant.command.CroissantCommand;",
+            "import com.github.overmighty.croissant.command.RateLimit;",
+            "import org.bukkit.command.CommandSender;",
+            "public class LimitedCommand extends CroissantCommand {",
+            "    public LimitedCommand() { super(\"limited\"); }",
+            "    @Cooldown(seconds = 5)",
+            "    @RateLimit(permits = 3)",
+            "    @CommandExecutor void run(CommandSender sender) { }",
+            "}"
+        )));
+        Assertions.assertTrue(this.hasDiagnostic(Diagnostic.Kind.ERROR,
+            "both a cooldown and a rate limit"));
+    }
+
+    @Test
+    @DisplayName("Test dispatcher generation for a private command class: expect fallback")
+    void testPrivateCommandClassExpectFallback() throws IOException {
+        Assertions.assertTrue(this.compile("test.OuterCommand", String.join("\n",
+            "package test;",
+            "import com.github.overmighty.croissant.command.CommandExecutor;",
+            "import com.github.overmighty.croissant.command.CroissantCommand;",
+            "import org.bukkit.command.CommandSender;",
+            "public class OuterCommand {",
+            "    private static class InnerCommand extends CroissantCommand {",
+            "        InnerCommand() { super(\"inner\"); }",
+            "        @CommandExecutor void run(CommandSender sender) { }",
+            "    }",
+            "}"
+        )));
+        Assertions.assertTrue(this.hasDiagnostic(Diagnostic.Kind.WARNING,
+            "detected at runtime"));
+        Assertions.assertFalse(new File(this.output.toFile(),
+            "test/OuterCommand$InnerCommand$CroissantDispatcher.class").exists());
+    }
+
+    @Test
+    @DisplayName("Test command index generation: expect indexed command classes listed")
+    void testIndexGenerationExpectIndexedClassesListed() throws IOException {
+        Assertions.assertTrue(this.compile("test.IndexedCommands", String.join("\n",
+            "package test;",
+            "import com.github.overmighty.croissant.command.CroissantCommand;",
+            "import com.github.overmighty.croissant.command.Indexed;",
+            "public class IndexedCommands {",
+            "    @Indexed public static class HomeCommand extends CroissantCommand {",
+            "        HomeCommand() { super(\"home\"); }",
+            "    }",
+            "    public static class SubCommand extends CroissantCommand {",
+            "        SubCommand() { super(\"sub\"); }",
+            "    }",
+            "}"
+        )), this.diagnostics.getDiagnostics().toString());
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[] { this.output.toUri().toURL() },
+            this.getClass().getClassLoader())) {
+            CommandIndex index = CommandIndex.load(loader);
+            Assertions.assertEquals(Collections.singletonList("test.IndexedCommands$HomeCommand"),
+                index.getClassNames());
+
+            List<CroissantCommand> commands = index.instantiate();
+            Assertions.assertEquals(1, commands.size());
+            Assertions.assertEquals("home", commands.get(0).getName());
+        }
+    }
+
+    @Test
+    @DisplayName("Test command index generation without a no-arg constructor: expect error")
+    void testIndexedClassWithoutNoArgConstructorExpectError() throws IOException {
+        Assertions.assertFalse(this.compile("test.NamedCommand", String.join("\n",
+            "package test;",
+            "import com.github.overmighty.croissant.command.CroissantCommand;",
+            "import com.github.overmighty.croissant.command.Indexed;",
+            "@Indexed public class NamedCommand extends CroissantCommand {",
+            "    public NamedCommand(String name) { super(name); }",
+            "}"
+        )));
+        Assertions.assertTrue(this.hasDiagnostic(Diagnostic.Kind.ERROR,
+            "constructor that does not take any parameters"));
+    }
+
+}
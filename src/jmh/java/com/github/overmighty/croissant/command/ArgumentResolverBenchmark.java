@@ -0,0 +1,113 @@
+package com.github.overmighty.croissant.command;
+
+import com.github.overmighty.croissant.command.argument.ArgumentCursor;
+import com.github.overmighty.croissant.command.argument.ArgumentResolver;
+import com.github.overmighty.croissant.command.argument.BuiltInArgumentType;
+import com.github.overmighty.croissant.command.argument.CommandLine;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.World;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Parameter;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the argument resolver of each {@link BuiltInArgumentType}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ArgumentResolverBenchmark {
+
+    private static final String PLAYER_NAME = "Player0";
+
+    @Param({ "PLAYER", "OFFLINE_PLAYER", "WORLD", "STRING", "ENUM", "BOOLEAN", "BYTE", "SHORT",
+        "INTEGER", "LONG", "FLOAT", "DOUBLE" })
+    private BuiltInArgumentType type;
+
+    private ArgumentResolver<?> resolver;
+    private Parameter parameter;
+    private String value;
+    private CommandSender sender;
+    private ArgumentCursor cursor;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        BenchmarkServer.getHandler();
+        BenchmarkServer.createPlayer(PLAYER_NAME);
+        BenchmarkServer.createWorld("world");
+        this.resolver = this.type.getArgumentType().getResolver();
+        this.parameter = Parameters.class.getDeclaredMethod("run", Player.class,
+            OfflinePlayer.class, World.class, String.class, TimeUnit.class, boolean.class,
+            byte.class, short.class, int.class, long.class, float.class, double.class)
+            .getParameters()[this.type.ordinal()];
+        this.value = this.valueFor(this.type);
+        this.sender = BenchmarkServer.createSender();
+        this.cursor = ArgumentCursor.acquire(CommandLine.parse("", 0, false), 0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.cursor.release();
+    }
+
+    private String valueFor(BuiltInArgumentType type) {
+        switch (type) {
+            case PLAYER:
+                return PLAYER_NAME;
+            case OFFLINE_PLAYER:
+                return UUID.nameUUIDFromBytes(PLAYER_NAME.getBytes()).toString();
+            case WORLD:
+                return "world";
+            case STRING:
+                return "croissant";
+            case ENUM:
+                return "MILLISECONDS";
+            case BOOLEAN:
+                return "true";
+            case FLOAT:
+            case DOUBLE:
+                return "12.5";
+            default:
+                return "42";
+        }
+    }
+
+    @Benchmark
+    public Object resolve() {
+        return this.resolver.resolve(this.cursor.argument(this.parameter, this.value,
+            this.sender));
+    }
+
+    /**
+     * Declares a parameter of the type of each built-in argument type, in the
+     * order of their declaration.
+     */
+    @SuppressWarnings("unused")
+    static class Parameters {
+
+        void run(Player player, OfflinePlayer offlinePlayer, World world, String string,
+                 TimeUnit enumConstant, boolean bool, byte b, short s, int i, long l, float f,
+                 double d) {
+        }
+
+    }
+
+}
@@ -0,0 +1,162 @@
+package com.github.overmighty.croissant.command;
+
+import com.github.overmighty.croissant.TestServer;
+import com.github.overmighty.croissant.command.argument.PlayerIndex;
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.mockito.Mockito;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sets up the mocked server of the tests for benchmarks.
+ * <p>
+ * Calling a Mockito mock takes microseconds, which is much more than the
+ * command framework code being measured, so the mocked server is wrapped in a
+ * dynamic proxy that answers player and world lookups itself, and online
+ * players are dynamic proxies as well.
+ */
+final class BenchmarkServer {
+
+    private static final Map<String, Player> playersByName = new ConcurrentHashMap<>();
+    private static final Map<UUID, Player> playersById = new ConcurrentHashMap<>();
+    private static final Map<String, World> worlds = new ConcurrentHashMap<>();
+    private static volatile List<Player> onlinePlayers = Collections.emptyList();
+    private static volatile Thread mainThread;
+
+    private BenchmarkServer() {
+    }
+
+    private static synchronized void install() {
+        if (Bukkit.getServer() != null) {
+            return;
+        }
+
+        Server mockedServer = new TestServer().getMockedServer();
+        Bukkit.setServer((Server) Proxy.newProxyInstance(Server.class.getClassLoader(),
+            new Class<?>[] { Server.class }, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getOnlinePlayers":
+                        return onlinePlayers;
+                    case "getPlayerExact":
+                        return playersByName.get((String) args[0]);
+                    case "getPlayer":
+                    case "getOfflinePlayer":
+                        if (args[0] instanceof UUID) {
+                            return playersById.get((UUID) args[0]);
+                        }
+
+                        return playersByName.get((String) args[0]);
+                    case "getWorld":
+                        return args[0] instanceof String ? worlds.get((String) args[0]) : null;
+                    case "getWorlds":
+                        return new ArrayList<>(worlds.values());
+                    case "isPrimaryThread":
+                        return Thread.currentThread() == mainThread;
+                    default:
+                        return method.invoke(mockedServer, args);
+                }
+            }));
+    }
+
+    /**
+     * Returns the command handler of the tests, setting up the server and the
+     * mocked plugin first if needed.
+     */
+    static CommandHandler getHandler() {
+        install();
+        return new TestCommand("benchmark").getHandler();
+    }
+
+    /**
+     * Makes the given thread the main server thread.
+     */
+    static void setMainThread(Thread thread) {
+        mainThread = thread;
+    }
+
+    /**
+     * Returns a command sender that is not a player, such as the console.
+     */
+    static CommandSender createSender() {
+        return Mockito.mock(CommandSender.class, Mockito.withSettings().stubOnly());
+    }
+
+    /**
+     * Returns a player that can be looked up by name or unique ID, but that is
+     * not online.
+     */
+    static Player createPlayer(String name) {
+        UUID uniqueId = UUID.nameUUIDFromBytes(name.getBytes());
+        Player player = (Player) Proxy.newProxyInstance(Player.class.getClassLoader(),
+            new Class<?>[] { Player.class }, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getName":
+                    case "getDisplayName":
+                    case "toString":
+                        return name;
+                    case "getUniqueId":
+                        return uniqueId;
+                    case "canSee":
+                    case "isOnline":
+                        return true;
+                    case "hashCode":
+                        return uniqueId.hashCode();
+                    case "equals":
+                        return proxy == args[0];
+                    default:
+                        return null;
+                }
+            });
+
+        playersByName.put(name, player);
+        playersById.put(uniqueId, player);
+        return player;
+    }
+
+    /**
+     * Replaces the online players with players named {@code Player0} to
+     * {@code Player<count - 1>}, firing quit and join events to the player
+     * index.
+     *
+     * @return the online players
+     */
+    static List<Player> setOnlinePlayers(int count) {
+        List<Player> players = new ArrayList<>(count);
+
+        for (Player player : onlinePlayers) {
+            PlayerIndex.getInstance().onPlayerQuit(new PlayerQuitEvent(player, ""));
+        }
+
+        for (int i = 0; i < count; i++) {
+            Player player = createPlayer("Player" + i);
+            players.add(player);
+            PlayerIndex.getInstance().onPlayerJoin(new PlayerJoinEvent(player, ""));
+        }
+
+        onlinePlayers = Collections.unmodifiableList(players);
+        return players;
+    }
+
+    /**
+     * Returns a world that can be looked up by name.
+     */
+    static World createWorld(String name) {
+        World world = Mockito.mock(World.class, Mockito.withSettings().stubOnly());
+        Mockito.when(world.getName()).thenReturn(name);
+        worlds.put(name, world);
+        return world;
+    }
+
+}
@@ -0,0 +1,251 @@
+package com.github.overmighty.croissant.command;
+
+import com.github.overmighty.croissant.command.argument.Default;
+import com.github.overmighty.croissant.command.argument.Flag;
+import com.github.overmighty.croissant.command.argument.Option;
+import com.github.overmighty.croissant.command.argument.Optional;
+import com.github.overmighty.croissant.command.argument.Rest;
+import org.bukkit.command.CommandSender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link CroissantCommand#execute(CommandSender, String, String[])}
+ * for each kind of executor method parameter, and through nested subcommands.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CommandExecutionBenchmark {
+
+    private static final String[] REGULAR_ARGS = { "regular", "croissant", "123", "true" };
+    private static final String[] OPTIONAL_ARGS = { "optional", "croissant" };
+    private static final String[] DEFAULT_ARGS = { "default", "croissant" };
+    private static final String[] VARARGS_ARGS = { "varargs", "1", "2", "3", "4", "5" };
+    private static final String[] REST_ARGS = { "rest", "a", "croissant", "for", "breakfast" };
+    private static final String[] NAMED_ARGS = { "named", "croissant", "-s", "--radius=5" };
+    private static final String[] NESTED_ARGS = { "a", "b", "c", "croissant" };
+
+    private CommandSender sender;
+    private RootCommand command;
+    private RootCommand cachedCommand;
+
+    @Setup
+    public void setup() {
+        CommandHandler handler = BenchmarkServer.getHandler();
+        this.sender = BenchmarkServer.createSender();
+        this.command = new RootCommand();
+
+        this.command.addSubcommand(new RegularCommand());
+        this.command.addSubcommand(new OptionalCommand());
+        this.command.addSubcommand(new DefaultCommand());
+        this.command.addSubcommand(new VarArgsCommand());
+        this.command.addSubcommand(new RestCommand());
+        this.command.addSubcommand(new FlagOptionCommand());
+
+        CroissantCommand a = new NamedCommand("a");
+        CroissantCommand b = new NamedCommand("b");
+        b.addSubcommand(new LeafCommand());
+        a.addSubcommand(b);
+        this.command.addSubcommand(a);
+
+        this.command.setHandler(handler);
+
+        this.cachedCommand = new RootCommand();
+        this.cachedCommand.addSubcommand(new RegularCommand());
+        this.cachedCommand.getSubcommands().get("regular").setArgumentCacheSize(16);
+        this.cachedCommand.setHandler(handler);
+    }
+
+    private int execute(String[] args) {
+        this.command.execute(this.sender, "bench", args);
+        return this.command.sink;
+    }
+
+    @Benchmark
+    public int cachedRegular() {
+        this.cachedCommand.execute(this.sender, "bench", REGULAR_ARGS);
+        return this.cachedCommand.sink;
+    }
+
+    @Benchmark
+    public int regular() {
+        return this.execute(REGULAR_ARGS);
+    }
+
+    @Benchmark
+    public int optional() {
+        return this.execute(OPTIONAL_ARGS);
+    }
+
+    @Benchmark
+    public int defaultValue() {
+        return this.execute(DEFAULT_ARGS);
+    }
+
+    @Benchmark
+    public int varArgs() {
+        return this.execute(VARARGS_ARGS);
+    }
+
+    @Benchmark
+    public int rest() {
+        return this.execute(REST_ARGS);
+    }
+
+    @Benchmark
+    public int flagsAndOptions() {
+        return this.execute(NAMED_ARGS);
+    }
+
+    @Benchmark
+    public int nestedSubcommands() {
+        return this.execute(NESTED_ARGS);
+    }
+
+    static class RootCommand extends CroissantCommand {
+
+        private int sink;
+
+        RootCommand() {
+            super("bench");
+        }
+
+    }
+
+    static class NamedCommand extends CroissantCommand {
+
+        NamedCommand(String name) {
+            super(name);
+        }
+
+    }
+
+    /**
+     * A subcommand that adds a value derived from its arguments to the root
+     * command's sink, so that the executor method cannot be optimized away.
+     */
+    abstract static class SinkCommand extends CroissantCommand {
+
+        SinkCommand(String name) {
+            super(name);
+        }
+
+        void consume(int value) {
+            CroissantCommand command = this;
+
+            while (command.getParent() != null) {
+                command = command.getParent();
+            }
+
+            ((RootCommand) command).sink += value;
+        }
+
+    }
+
+    static class RegularCommand extends SinkCommand {
+
+        RegularCommand() {
+            super("regular");
+        }
+
+        @CommandExecutor
+        void run(CommandSender sender, String string, int integer, boolean bool) {
+            super.consume(string.length() + integer + (bool ? 1 : 0));
+        }
+
+    }
+
+    static class OptionalCommand extends SinkCommand {
+
+        OptionalCommand() {
+            super("optional");
+        }
+
+        @CommandExecutor
+        void run(CommandSender sender, String string, @Optional Integer integer) {
+            super.consume(string.length() + (integer == null ? 0 : integer));
+        }
+
+    }
+
+    static class DefaultCommand extends SinkCommand {
+
+        DefaultCommand() {
+            super("default");
+        }
+
+        @CommandExecutor
+        void run(CommandSender sender, String string, @Default("10") int integer) {
+            super.consume(string.length() + integer);
+        }
+
+    }
+
+    static class FlagOptionCommand extends SinkCommand {
+
+        FlagOptionCommand() {
+            super("named");
+        }
+
+        @CommandExecutor
+        void run(CommandSender sender, String string, @Flag("s") boolean silent,
+                 @Option("radius") @Default("10") int radius) {
+            super.consume(string.length() + (silent ? 1 : 0) + radius);
+        }
+
+    }
+
+    static class VarArgsCommand extends SinkCommand {
+
+        VarArgsCommand() {
+            super("varargs");
+        }
+
+        @CommandExecutor
+        void run(CommandSender sender, Integer... integers) {
+            super.consume(integers.length);
+        }
+
+    }
+
+    static class RestCommand extends SinkCommand {
+
+        RestCommand() {
+            super("rest");
+        }
+
+        @CommandExecutor
+        void run(CommandSender sender, @Rest String rest) {
+            super.consume(rest.length());
+        }
+
+    }
+
+    static class LeafCommand extends SinkCommand {
+
+        LeafCommand() {
+            super("c");
+        }
+
+        @CommandExecutor
+        void run(CommandSender sender, String string) {
+            super.consume(string.length());
+        }
+
+    }
+
+}
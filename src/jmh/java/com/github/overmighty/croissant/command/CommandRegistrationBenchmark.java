@@ -0,0 +1,191 @@
+package com.github.overmighty.croissant.command;
+
+import com.github.overmighty.croissant.processor.CommandDispatcherProcessor;
+import com.github.overmighty.croissant.util.ServerUtil;
+import org.bukkit.Bukkit;
+import org.bukkit.command.Command;
+import org.bukkit.command.SimpleCommandMap;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures the registration of the commands of a plugin at startup, end to
+ * end, through {@link CommandHandler#registerAll(CommandIndex)}: reading the
+ * command index, loading and constructing the indexed command classes, finding
+ * their dispatchers, compiling their execution plans and registering them.
+ * <p>
+ * The indexed command classes take a few arguments each, and are compiled
+ * once per trial, with or without the annotation processor, so that their
+ * dispatchers are either generated or detected using reflection. Each
+ * iteration loads them with a new class loader, like a plugin being enabled
+ * for the first time, as dispatchers are cached per class.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 20)
+@Measurement(iterations = 20)
+@Fork(1)
+@State(Scope.Thread)
+public class CommandRegistrationBenchmark {
+
+    // The mocked plugin has no name to use as the fallback prefix
+    private static final String FALLBACK_PREFIX = "croissant";
+
+    @Param({ "100", "1000", "5000" })
+    private int commandCount;
+
+    @Param({ "generated", "reflective" })
+    private String dispatchers;
+
+    private Path classes;
+    private CommandHandler handler;
+    private URLClassLoader classLoader;
+
+    private static String classPath() throws URISyntaxException {
+        // The Croissant and Bukkit classes that commands are compiled against
+        return String.join(File.pathSeparator,
+            Paths.get(CroissantCommand.class.getProtectionDomain().getCodeSource()
+                .getLocation().toURI()).toString(),
+            Paths.get(Command.class.getProtectionDomain().getCodeSource()
+                .getLocation().toURI()).toString());
+    }
+
+    private static JavaFileObject commandSource(int index) {
+        String source = String.join("\n",
+            "package bench;",
+            "import com.github.overmighty.croissant.command.CommandExecutor;",
+            "import com.github.overmighty.croissant.command.CroissantCommand;",
+            "import com.github.overmighty.croissant.command.Indexed;",
+            "import com.github.overmighty.croissant.command.argument.Default;",
+            "import com.github.overmighty.croissant.command.argument.Flag;",
+            "import com.github.overmighty.croissant.command.argument.Optional;",
+            "import org.bukkit.command.CommandSender;",
+            "@Indexed public class Command" + index + " extends CroissantCommand {",
+            "    public Command" + index + "() { super(\"command-" + index + "\"); }",
+            "    @CommandExecutor",
+            "    void run(CommandSender sender, String name, @Default(\"1\") int amount,",
+            "             @Flag(\"s\") boolean silent, @Optional String... reasons) {",
+            "    }",
+            "}"
+        );
+
+        return new SimpleJavaFileObject(URI.create("string:///bench/Command" + index + ".java"),
+            JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException, URISyntaxException {
+        // Constructing a test command sets up the mocked server and plugin
+        new TestCommand("benchmark");
+        this.classes = Files.createTempDirectory("croissant-registration");
+
+        List<JavaFileObject> sources = new ArrayList<>(this.commandCount);
+
+        for (int i = 0; i < this.commandCount; i++) {
+            sources.add(commandSource(i));
+        }
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+
+        try (StandardJavaFileManager fileManager =
+                 compiler.getStandardFileManager(null, null, null)) {
+            fileManager.setLocation(StandardLocation.CLASS_OUTPUT,
+                Collections.singletonList(this.classes.toFile()));
+            fileManager.setLocation(StandardLocation.SOURCE_OUTPUT,
+                Collections.singletonList(this.classes.toFile()));
+
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null,
+                Arrays.asList("-classpath", classPath()), null, sources);
+            // The processor also writes the command index, which the
+            // reflective variant needs as well
+            task.setProcessors(Collections.singletonList(new CommandDispatcherProcessor()));
+
+            if (!task.call()) {
+                throw new IllegalStateException("Could not compile benchmark commands");
+            }
+        }
+
+        if (this.dispatchers.equals("reflective")) {
+            for (int i = 0; i < this.commandCount; i++) {
+                Files.delete(this.classes.resolve("bench/Command" + i +
+                    "$CroissantDispatcher.class"));
+            }
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setupIteration() throws IOException {
+        ((SimpleCommandMap) ServerUtil.getCommandMap()).clearCommands();
+        // Handlers keep track of the commands they registered, and the mocked
+        // plugin manager of the handlers that were registered as listeners
+        Mockito.clearInvocations(Bukkit.getPluginManager());
+        this.handler = new CommandHandler();
+        this.closeClassLoader();
+        this.classLoader = new URLClassLoader(new URL[] { this.classes.toUri().toURL() },
+            this.getClass().getClassLoader());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        this.closeClassLoader();
+
+        try (Stream<Path> files = Files.walk(this.classes)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private void closeClassLoader() throws IOException {
+        if (this.classLoader != null) {
+            this.classLoader.close();
+            this.classLoader = null;
+        }
+    }
+
+    @Benchmark
+    public List<CroissantCommand> registerAll() {
+        return this.handler.registerAll(FALLBACK_PREFIX, CommandIndex.load(this.classLoader));
+    }
+
+}
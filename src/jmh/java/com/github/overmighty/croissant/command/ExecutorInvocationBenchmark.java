@@ -0,0 +1,113 @@
+package com.github.overmighty.croissant.command;
+
+import org.bukkit.command.CommandSender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the invocation of command executor methods through
+ * {@link Method#invoke(Object, Object...)} with their invocation through an
+ * {@link ExecutorInvoker}, and with the spreading {@link MethodHandle} that
+ * an {@code ExecutorInvoker} falls back to when it cannot generate an invoker,
+ * so that all three are measured in the same run.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ExecutorInvocationBenchmark {
+
+    private BenchmarkCommand command;
+    private Method executor;
+    private ExecutorInvoker invoker;
+    private MethodHandle spreader;
+    private Method returningExecutor;
+    private ExecutorInvoker returningInvoker;
+    private Object[] args;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        this.command = new BenchmarkCommand();
+        this.executor = BenchmarkCommand.class.getDeclaredMethod("run", CommandSender.class,
+            String.class, int.class, boolean.class);
+        this.executor.setAccessible(true);
+        this.invoker = new ExecutorInvoker(this.executor);
+        this.spreader = MethodHandles.lookup().unreflect(this.executor)
+            .asSpreader(Object[].class, this.executor.getParameterCount())
+            .asType(MethodType.methodType(Object.class, CroissantCommand.class, Object[].class));
+        this.returningExecutor = BenchmarkCommand.class.getDeclaredMethod("runReturning",
+            CommandSender.class, String.class, int.class, boolean.class);
+        this.returningExecutor.setAccessible(true);
+        this.returningInvoker = new ExecutorInvoker(this.returningExecutor);
+        this.args = new Object[] { null, "croissant", 123, true };
+    }
+
+    @Benchmark
+    public int reflection() throws ReflectiveOperationException {
+        this.executor.invoke(this.command, this.args);
+        return this.command.sum;
+    }
+
+    @Benchmark
+    public int invoker() throws Throwable {
+        this.invoker.invoke(this.command, this.args);
+        return this.command.sum;
+    }
+
+    @Benchmark
+    public Object methodHandle() throws Throwable {
+        // Returns null, like ExecutorInvoker does for void executor methods
+        return (Object) this.spreader.invokeExact((CroissantCommand) this.command, this.args);
+    }
+
+    @Benchmark
+    public Object reflectionReturning() throws ReflectiveOperationException {
+        return this.returningExecutor.invoke(this.command, this.args);
+    }
+
+    @Benchmark
+    public Object invokerReturning() throws Throwable {
+        return this.returningInvoker.invoke(this.command, this.args);
+    }
+
+    static class BenchmarkCommand extends CroissantCommand {
+
+        private final CompletionStage<Integer> result = CompletableFuture.completedFuture(0);
+        private int sum;
+
+        BenchmarkCommand() {
+            super("benchmark");
+        }
+
+        @CommandExecutor
+        void run(CommandSender sender, String string, int integer, boolean bool) {
+            this.sum += string.length() + integer + (bool ? 1 : 0);
+        }
+
+        CompletionStage<Integer> runReturning(CommandSender sender, String string, int integer,
+                                              boolean bool) {
+            this.run(sender, string, integer, bool);
+            return this.result;
+        }
+
+    }
+
+}
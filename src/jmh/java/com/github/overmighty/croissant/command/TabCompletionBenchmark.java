@@ -0,0 +1,109 @@
+package com.github.overmighty.croissant.command;
+
+import org.bukkit.command.CommandSender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the completion of player name arguments with a varying number of
+ * online players, by the console and by a player, on the main thread and on
+ * several asynchronous tab-completion threads while the main thread executes
+ * the same command.
+ * <p>
+ * The visibility of players can only be checked on the main thread, so the
+ * asynchronous completions of a player only measure how fast they are left to
+ * the main thread.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TabCompletionBenchmark {
+
+    private static final String[] COMPLETE_ARGS = { "Player1" };
+    private static final String[] EXECUTE_ARGS = { "Player1" };
+
+    @Param({ "10", "100", "1000" })
+    private int onlinePlayers;
+
+    @Param({ "console", "player" })
+    private String senderType;
+
+    private CommandSender sender;
+    private MessageCommand command;
+
+    @Setup
+    public void setup() {
+        CommandHandler handler = BenchmarkServer.getHandler();
+        BenchmarkServer.setOnlinePlayers(this.onlinePlayers);
+        this.sender = this.senderType.equals("player") ? BenchmarkServer.createPlayer("Viewer")
+            : BenchmarkServer.createSender();
+        this.command = new MessageCommand();
+        this.command.setHandler(handler);
+    }
+
+    @Benchmark
+    public List<String> tabComplete(MainThread mainThread) {
+        return this.command.tabComplete(this.sender, "message", COMPLETE_ARGS);
+    }
+
+    @Benchmark
+    @Group("concurrent")
+    @GroupThreads(3)
+    public List<String> concurrentTabComplete() {
+        return this.command.tabComplete(this.sender, "message", COMPLETE_ARGS);
+    }
+
+    @Benchmark
+    @Group("concurrent")
+    @GroupThreads(1)
+    public int concurrentExecute(MainThread mainThread) {
+        this.command.execute(this.sender, "message", EXECUTE_ARGS);
+        return this.command.sink;
+    }
+
+    /**
+     * Makes the benchmark threads that use it the main server thread.
+     */
+    @State(Scope.Thread)
+    public static class MainThread {
+
+        @Setup
+        public void setup() {
+            BenchmarkServer.setMainThread(Thread.currentThread());
+        }
+
+    }
+
+    static class MessageCommand extends CroissantCommand {
+
+        private volatile int sink;
+
+        MessageCommand() {
+            super("message");
+        }
+
+        @CommandExecutor
+        void run(CommandSender sender, String target) {
+            this.sink = target.length();
+        }
+
+    }
+
+}
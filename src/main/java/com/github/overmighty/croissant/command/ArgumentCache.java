@@ -0,0 +1,144 @@
+package com.github.overmighty.croissant.command;
+
+import org.bukkit.command.BlockCommandSender;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.ConsoleCommandSender;
+import org.bukkit.entity.Player;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded, least recently used cache of the resolved arguments of a
+ * {@link CroissantCommand}, so that identical calls, such as the ones of
+ * command blocks that run every tick, skip argument resolution.
+ * <p>
+ * Entries are keyed by the kind of command sender and the raw arguments, and
+ * are only valid for the execution plan that they were resolved with: the
+ * cache is cleared when the plan changes. Only plans whose argument types are
+ * all pure are cached (see {@link ExecutionPlan#isCacheable()}).
+ */
+final class ArgumentCache {
+
+    private final int maxSize;
+    private final Map<Key, Object[]> entries;
+    private ExecutionPlan plan;
+
+    ArgumentCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<Key, Object[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Object[]> eldest) {
+                return this.size() > ArgumentCache.this.maxSize;
+            }
+        };
+    }
+
+    int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Copies the cached arguments of a call into an array of executor method
+     * arguments, after the command sender.
+     *
+     * @return {@code true} if the arguments were cached
+     */
+    synchronized boolean fill(ExecutionPlan plan, Key key, Object[] executorArgs) {
+        if (this.plan != plan) {
+            this.entries.clear();
+            this.plan = plan;
+            return false;
+        }
+
+        Object[] resolved = this.entries.get(key);
+
+        if (resolved == null) {
+            return false;
+        }
+
+        for (int i = 0; i < resolved.length; i++) {
+            Object value = resolved[i];
+            // Varargs arrays are the only mutable values that pure resolvers
+            // produce
+            executorArgs[i + 1] = value instanceof Object[] ? ((Object[]) value).clone() : value;
+        }
+
+        return true;
+    }
+
+    /**
+     * Caches the arguments of a call that were resolved with the given plan.
+     */
+    synchronized void put(ExecutionPlan plan, Key key, Object[] executorArgs) {
+        if (this.plan != plan) {
+            this.entries.clear();
+            this.plan = plan;
+        }
+
+        Object[] resolved = Arrays.copyOfRange(executorArgs, 1, executorArgs.length);
+
+        for (int i = 0; i < resolved.length; i++) {
+            if (resolved[i] instanceof Object[]) {
+                resolved[i] = ((Object[]) resolved[i]).clone();
+            }
+        }
+
+        this.entries.put(key, resolved);
+    }
+
+    synchronized int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * The key of a call: the kind of command sender and the raw arguments.
+     */
+    static final class Key {
+
+        private final int senderKind;
+        private final String[] args;
+        private final int hash;
+
+        Key(CommandSender sender, String[] args) {
+            this.senderKind = senderKind(sender);
+            this.args = args;
+            this.hash = 31 * this.senderKind + Arrays.hashCode(args);
+        }
+
+        private static int senderKind(CommandSender sender) {
+            if (sender instanceof Player) {
+                return 1;
+            } else if (sender instanceof BlockCommandSender) {
+                return 2;
+            } else if (sender instanceof ConsoleCommandSender) {
+                return 3;
+            }
+
+            return 0;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof Key)) {
+                return false;
+            }
+
+            Key key = (Key) o;
+            return this.hash == key.hash && this.senderKind == key.senderKind &&
+                Arrays.equals(this.args, key.args);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+    }
+
+}
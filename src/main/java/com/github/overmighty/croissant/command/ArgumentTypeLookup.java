@@ -0,0 +1,112 @@
+package com.github.overmighty.croissant.command;
+
+import com.github.overmighty.croissant.command.argument.ArgumentType;
+import com.google.common.primitives.Primitives;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * A snapshot of the {@link ArgumentTypeRegistry} of a {@link CommandHandler},
+ * which finds the {@link ArgumentType} bound to an executor method parameter
+ * type. Results are cached per parameter type in a map that is built lazily
+ * along with the snapshot, and dropped when the registry replaces it.
+ * <p>
+ * The argument type bound to the parameter type itself is used if there is
+ * one. Otherwise, the superclasses of the parameter type are searched from the
+ * closest to the farthest, and then its interfaces are searched breadth-first:
+ * the interfaces directly implemented by the parameter type come first, in
+ * declaration order, followed by the ones directly implemented by each of its
+ * superclasses, and then by the superinterfaces of those interfaces, level by
+ * level. Each interface is only searched once. Primitive types are replaced
+ * with their wrapper class.
+ */
+final class ArgumentTypeLookup {
+
+    private final Map<Class<?>, ArgumentType> argumentTypes;
+    private Map<Class<?>, ArgumentType> cache;
+
+    /**
+     * Constructs a new {@code ArgumentTypeLookup}.
+     *
+     * @param argumentTypes the immutable snapshot of argument types
+     */
+    ArgumentTypeLookup(Map<Class<?>, ArgumentType> argumentTypes) {
+        this.argumentTypes = argumentTypes;
+    }
+
+    /**
+     * Returns the immutable snapshot of argument types that this lookup
+     * searches.
+     *
+     * @return the snapshot of argument types
+     */
+    Map<Class<?>, ArgumentType> getArgumentTypes() {
+        return argumentTypes;
+    }
+
+    /**
+     * Returns the argument type bound to the given parameter type or to the
+     * closest of its supertypes in the snapshot of argument types.
+     *
+     * @param paramType the parameter type
+     * @return the argument type, or {@code null} if there is none
+     */
+    synchronized ArgumentType find(Class<?> paramType) {
+        // Lookups only happen when execution plans are compiled, so most
+        // snapshots never need a cache
+        if (this.cache == null) {
+            this.cache = new HashMap<>();
+        }
+
+        if (this.cache.containsKey(paramType)) {
+            return this.cache.get(paramType);
+        }
+
+        ArgumentType argType = search(this.argumentTypes, Primitives.wrap(paramType));
+        this.cache.put(paramType, argType);
+        return argType;
+    }
+
+    private static ArgumentType search(Map<Class<?>, ArgumentType> argumentTypes,
+                                       Class<?> paramType) {
+        for (Class<?> type = paramType; type != null; type = type.getSuperclass()) {
+            ArgumentType argType = argumentTypes.get(type);
+
+            if (argType != null) {
+                return argType;
+            }
+        }
+
+        Queue<Class<?>> queue = new ArrayDeque<>();
+        Set<Class<?>> visited = new HashSet<>();
+
+        for (Class<?> type = paramType; type != null; type = type.getSuperclass()) {
+            Collections.addAll(queue, type.getInterfaces());
+        }
+
+        while (!queue.isEmpty()) {
+            Class<?> type = queue.remove();
+
+            if (!visited.add(type)) {
+                continue;
+            }
+
+            ArgumentType argType = argumentTypes.get(type);
+
+            if (argType != null) {
+                return argType;
+            }
+
+            Collections.addAll(queue, type.getInterfaces());
+        }
+
+        return null;
+    }
+
+}
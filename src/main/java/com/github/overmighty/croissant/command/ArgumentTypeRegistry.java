@@ -0,0 +1,287 @@
+package com.github.overmighty.croissant.command;
+
+import com.github.overmighty.croissant.command.argument.ArgumentType;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * The argument types of a {@link CommandHandler}, mapped by the type of
+ * executor method parameter to which they are bound.
+ * <p>
+ * The registry holds an immutable snapshot of its argument types, which is
+ * replaced atomically every time an argument type is registered or
+ * unregistered. Reading argument types, which happens on asynchronous
+ * tab-completion threads, therefore never locks, and never observes a
+ * partially modified registry. Registering or unregistering argument types
+ * copies the whole snapshot, and should only be done when the plugin is
+ * enabled, or rarely.
+ * <p>
+ * Snapshots are backed by an {@link IdentityHashMap}, since classes are only
+ * ever equal to themselves.
+ */
+public final class ArgumentTypeRegistry {
+
+    private final AtomicReference<ArgumentTypeLookup> snapshot =
+        new AtomicReference<>(new ArgumentTypeLookup(Collections.emptyMap()));
+    private final Map<Class<?>, ArgumentType> mapView = new MapView();
+
+    ArgumentTypeRegistry() {
+    }
+
+    /**
+     * Returns an immutable snapshot of the registry's argument types. The
+     * snapshot is not affected by later changes made to the registry.
+     *
+     * @return the registry's current argument types
+     */
+    @SuppressWarnings("WeakerAccess")
+    public Map<Class<?>, ArgumentType> snapshot() {
+        return this.snapshot.get().getArgumentTypes();
+    }
+
+    /**
+     * Returns the registry's current snapshot as an {@link ArgumentTypeLookup},
+     * which caches the argument types found for parameter types until the
+     * snapshot is replaced.
+     *
+     * @return the registry's current snapshot
+     */
+    ArgumentTypeLookup lookup() {
+        return this.snapshot.get();
+    }
+
+    /**
+     * Returns the argument type bound to the given parameter type itself.
+     *
+     * @param paramType the parameter type
+     * @return the argument type bound to the parameter type, or {@code null}
+     *         if there is none
+     */
+    @SuppressWarnings("unused")
+    public ArgumentType get(Class<?> paramType) {
+        return this.snapshot().get(paramType);
+    }
+
+    /**
+     * Binds an argument type to a parameter type, replacing the argument type
+     * that was bound to it, if any.
+     *
+     * @param paramType the parameter type
+     * @param argType   the argument type to bind to the parameter type
+     * @return the argument type that was previously bound to the parameter
+     *         type, or {@code null} if there was none
+     */
+    @SuppressWarnings("WeakerAccess")
+    public ArgumentType register(Class<?> paramType, ArgumentType argType) {
+        Objects.requireNonNull(paramType, "paramType");
+        Objects.requireNonNull(argType, "argType");
+        return this.update(paramType, argumentTypes -> {
+            Map<Class<?>, ArgumentType> updated = new IdentityHashMap<>(argumentTypes);
+            updated.put(paramType, argType);
+            return Collections.unmodifiableMap(updated);
+        });
+    }
+
+    /**
+     * Unbinds the argument type bound to a parameter type, if there is one.
+     *
+     * @param paramType the parameter type
+     * @return the argument type that was bound to the parameter type, or
+     *         {@code null} if there was none
+     */
+    @SuppressWarnings("WeakerAccess")
+    public ArgumentType unregister(Class<?> paramType) {
+        return this.update(paramType, argumentTypes -> {
+            if (!argumentTypes.containsKey(paramType)) {
+                return argumentTypes;
+            }
+
+            Map<Class<?>, ArgumentType> updated = new IdentityHashMap<>(argumentTypes);
+            updated.remove(paramType);
+            return Collections.unmodifiableMap(updated);
+        });
+    }
+
+    /**
+     * Unbinds all argument types.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public void clear() {
+        this.snapshot.set(new ArgumentTypeLookup(Collections.emptyMap()));
+    }
+
+    private ArgumentType update(Class<?> paramType,
+                                UnaryOperator<Map<Class<?>, ArgumentType>> function) {
+        ArgumentTypeLookup current;
+        Map<Class<?>, ArgumentType> updated;
+
+        do {
+            current = this.snapshot.get();
+            updated = function.apply(current.getArgumentTypes());
+        } while (updated != current.getArgumentTypes() &&
+            !this.snapshot.compareAndSet(current, new ArgumentTypeLookup(updated)));
+
+        return current.getArgumentTypes().get(paramType);
+    }
+
+    /**
+     * Returns a modifiable view of the registry as a map. Changes made to the
+     * map are made to the registry, and reading the map reads the registry's
+     * current snapshot.
+     *
+     * @return a map view of the registry
+     */
+    Map<Class<?>, ArgumentType> asMap() {
+        return this.mapView;
+    }
+
+    private final class MapView extends AbstractMap<Class<?>, ArgumentType> {
+
+        private final EntrySet entrySet = new EntrySet();
+
+        @Override
+        public int size() {
+            return ArgumentTypeRegistry.this.snapshot().size();
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return ArgumentTypeRegistry.this.snapshot().containsKey(key);
+        }
+
+        @Override
+        public ArgumentType get(Object key) {
+            return ArgumentTypeRegistry.this.snapshot().get(key);
+        }
+
+        @Override
+        public ArgumentType put(Class<?> key, ArgumentType value) {
+            return ArgumentTypeRegistry.this.register(key, value);
+        }
+
+        @Override
+        public ArgumentType remove(Object key) {
+            if (!(key instanceof Class)) {
+                return null;
+            }
+
+            return ArgumentTypeRegistry.this.unregister((Class<?>) key);
+        }
+
+        @Override
+        public void clear() {
+            ArgumentTypeRegistry.this.clear();
+        }
+
+        @SuppressWarnings("NullableProblems")
+        @Override
+        public Set<Entry<Class<?>, ArgumentType>> entrySet() {
+            return entrySet;
+        }
+
+    }
+
+    private final class EntrySet extends AbstractSet<Map.Entry<Class<?>, ArgumentType>> {
+
+        @Override
+        public int size() {
+            return ArgumentTypeRegistry.this.snapshot().size();
+        }
+
+        @SuppressWarnings("NullableProblems")
+        @Override
+        public Iterator<Map.Entry<Class<?>, ArgumentType>> iterator() {
+            // Iterating over the snapshot that is current when the iteration
+            // starts, removals are made to the registry
+            Iterator<Map.Entry<Class<?>, ArgumentType>> iterator =
+                ArgumentTypeRegistry.this.snapshot().entrySet().iterator();
+
+            return new Iterator<Map.Entry<Class<?>, ArgumentType>>() {
+                private Class<?> lastKey;
+
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public Map.Entry<Class<?>, ArgumentType> next() {
+                    Map.Entry<Class<?>, ArgumentType> entry = iterator.next();
+                    this.lastKey = entry.getKey();
+                    return new WriteThroughEntry(entry.getKey(), entry.getValue());
+                }
+
+                @Override
+                public void remove() {
+                    if (this.lastKey == null) {
+                        throw new IllegalStateException();
+                    }
+
+                    ArgumentTypeRegistry.this.unregister(this.lastKey);
+                    this.lastKey = null;
+                }
+            };
+        }
+
+    }
+
+    private final class WriteThroughEntry implements Map.Entry<Class<?>, ArgumentType> {
+
+        private final Class<?> key;
+        private ArgumentType value;
+
+        WriteThroughEntry(Class<?> key, ArgumentType value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public Class<?> getKey() {
+            return this.key;
+        }
+
+        @Override
+        public ArgumentType getValue() {
+            return this.value;
+        }
+
+        @Override
+        public ArgumentType setValue(ArgumentType value) {
+            ArgumentType previous = this.value;
+            ArgumentTypeRegistry.this.register(this.key, value);
+            this.value = value;
+            return previous;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Map.Entry)) {
+                return false;
+            }
+
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) obj;
+            return this.key == entry.getKey() && Objects.equals(this.value, entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return this.key.hashCode() ^ Objects.hashCode(this.value);
+        }
+
+        @Override
+        public String toString() {
+            return this.key + "=" + this.value;
+        }
+
+    }
+
+}
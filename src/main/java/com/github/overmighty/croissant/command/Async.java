@@ -0,0 +1,30 @@
+package com.github.overmighty.croissant.command;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * A command executor method annotated with {@code Async} is called off the main
+ * server thread, so that commands that perform blocking operations, such as
+ * database queries, do not hold up the server tick.
+ * <p>
+ * Command arguments are still resolved on the main server thread, before the
+ * executor method is handed over to the asynchronous executor of the command's
+ * {@link CommandHandler} (see {@link CommandHandler#getAsyncExecutor()}). Most
+ * of the Bukkit API must not be used from an asynchronous executor method:
+ * {@link com.github.overmighty.croissant.util.ServerUtil#callOnMainThread(java.util.concurrent.Callable)}
+ * can be used to go back to the main server thread in order to use it.
+ * <p>
+ * Asynchronous executions of a command issued by a player are cancelled when
+ * the player leaves the server: the thread running the executor method is
+ * interrupted, and the {@link java.util.concurrent.CompletionStage} returned by
+ * the executor method, if any, is cancelled.
+ *
+ * @see CommandExecutor
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Async {
+}
@@ -0,0 +1,263 @@
+package com.github.overmighty.croissant.command;
+
+import com.github.overmighty.croissant.Croissant;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import java.lang.reflect.Method;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+/**
+ * Keeps track of the pending asynchronous executions of the commands of a
+ * {@link CommandHandler}: the executions of {@link Async} executor methods, and
+ * the {@link CompletionStage}s returned by executor methods.
+ * <p>
+ * Pending executions of a command issued by a player are cancelled when the
+ * player leaves the server. This listener is registered separately from the
+ * command handler, which can only be registered on Paper servers.
+ */
+final class AsyncExecutions implements Listener {
+
+    private static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private final CommandHandler handler;
+    private final Set<PendingExecution> pending = ConcurrentHashMap.newKeySet();
+    private volatile ExecutorService executorService;
+
+    AsyncExecutions(CommandHandler handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * Creates the default executor service: a virtual thread per task executor
+     * if the JVM supports virtual threads (Java 21 and above), and a bounded
+     * thread pool otherwise.
+     */
+    private static ExecutorService createDefaultExecutorService() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            // Virtual threads are not available
+        }
+
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "Croissant Async Command Thread #" +
+                threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS,
+            TimeUnit.SECONDS, new LinkedBlockingQueue<>(DEFAULT_QUEUE_CAPACITY), threadFactory);
+        // Not keeping idle threads alive, so that they do not outlive the plugin
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    ExecutorService getExecutorService() {
+        ExecutorService executorService = this.executorService;
+
+        if (executorService == null) {
+            synchronized (this) {
+                executorService = this.executorService;
+
+                if (executorService == null) {
+                    executorService = createDefaultExecutorService();
+                    this.executorService = executorService;
+                }
+            }
+        }
+
+        return executorService;
+    }
+
+    void setExecutorService(ExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
+    int getPendingCount() {
+        return this.pending.size();
+    }
+
+    /**
+     * Calls the executor method of a command with the given arguments, using
+     * the executor service.
+     *
+     * @param command the command to execute
+     * @param alias   the alias of the command that was used
+     * @param sender  the command sender that issued the command call
+     * @param args    the arguments to pass to the executor method, which must
+     *                not be reused by the caller
+     */
+    void submit(CroissantCommand command, String alias, CommandSender sender, Object[] args) {
+        PendingExecution execution = new PendingExecution(command, alias, sender);
+        this.pending.add(execution);
+
+        try {
+            execution.task = this.getExecutorService().submit(() -> execution.run(args));
+        } catch (RejectedExecutionException e) {
+            execution.finish();
+            sender.sendMessage(this.handler.getAsyncQueueFullMessage());
+        }
+    }
+
+    /**
+     * Keeps track of a {@link CompletionStage} returned by the executor method
+     * of a command until it completes.
+     *
+     * @param command the command that was executed
+     * @param alias   the alias of the command that was used
+     * @param sender  the command sender that issued the command call
+     * @param stage   the stage returned by the executor method
+     */
+    void track(CroissantCommand command, String alias, CommandSender sender,
+               CompletionStage<?> stage) {
+        PendingExecution execution = new PendingExecution(command, alias, sender);
+        this.pending.add(execution);
+        execution.await(stage);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        UUID playerId = event.getPlayer().getUniqueId();
+
+        for (PendingExecution execution : this.pending) {
+            if (playerId.equals(execution.senderId)) {
+                execution.cancel();
+            }
+        }
+    }
+
+    private final class PendingExecution {
+
+        private final CroissantCommand command;
+        private final String alias;
+        private final UUID senderId;
+        private final AtomicBoolean finished = new AtomicBoolean();
+        private volatile Future<?> task;
+        private volatile CompletionStage<?> stage;
+        private volatile boolean cancelled;
+
+        PendingExecution(CroissantCommand command, String alias, CommandSender sender) {
+            this.command = command;
+            this.alias = alias;
+            this.senderId = sender instanceof Player ? ((Player) sender).getUniqueId() : null;
+        }
+
+        void run(Object[] args) {
+            // The sender may have left while the task was queued, in which case
+            // cancelling the task can race with a worker thread picking it up
+            if (this.cancelled) {
+                this.finish();
+                return;
+            }
+
+            Object result;
+
+            try {
+                result = this.command.invokeExecutor(args);
+            } catch (Throwable e) {
+                this.report(e);
+                this.finish();
+                return;
+            }
+
+            if (result instanceof CompletionStage) {
+                this.await((CompletionStage<?>) result);
+            } else {
+                this.finish();
+            }
+        }
+
+        void await(CompletionStage<?> stage) {
+            this.stage = stage;
+
+            if (this.cancelled) {
+                // The execution was cancelled before the stage was returned
+                this.cancelStage(stage);
+            }
+
+            stage.whenComplete((result, e) -> {
+                if (e != null) {
+                    this.report(e);
+                }
+
+                this.finish();
+            });
+        }
+
+        void cancel() {
+            this.cancelled = true;
+            Future<?> task = this.task;
+            CompletionStage<?> stage = this.stage;
+
+            if (task != null) {
+                task.cancel(true);
+            }
+
+            if (stage != null) {
+                this.cancelStage(stage);
+            }
+
+            // The task may never run if it was cancelled while still queued
+            this.finish();
+        }
+
+        /**
+         * Cancels a stage returned by the executor method if it is also a
+         * {@link Future}. Other stages cannot be cancelled, and may not support
+         * {@link CompletionStage#toCompletableFuture()}.
+         */
+        private void cancelStage(CompletionStage<?> stage) {
+            if (stage instanceof Future) {
+                ((Future<?>) stage).cancel(true);
+            }
+        }
+
+        void finish() {
+            if (this.finished.compareAndSet(false, true)) {
+                AsyncExecutions.this.pending.remove(this);
+            }
+        }
+
+        private void report(Throwable e) {
+            if (e instanceof CompletionException && e.getCause() != null) {
+                e = e.getCause();
+            }
+
+            if (this.cancelled || e instanceof CancellationException) {
+                return;
+            }
+
+            Croissant.getPlugin().getLogger().log(Level.SEVERE, "Unhandled exception executing " +
+                "command '" + this.alias + "' in plugin " +
+                this.command.getPlugin().getDescription().getFullName(), e);
+        }
+
+    }
+
+}
@@ -0,0 +1,156 @@
+package com.github.overmighty.croissant.command;
+
+import com.github.overmighty.croissant.command.argument.ArgumentType;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * The arguments of a command call that are being resolved concurrently by
+ * {@link com.github.overmighty.croissant.command.argument.AsyncArgumentResolver}s.
+ * <p>
+ * While they are pending, these arguments are represented by
+ * {@link #PENDING} in the array of executor method arguments, or by
+ * {@code null} in varargs arrays.
+ */
+final class AsyncResolution {
+
+    /**
+     * The placeholder of an argument that is being resolved asynchronously in
+     * the array of executor method arguments.
+     */
+    static final Object PENDING = new Object();
+
+    private final List<PendingArgument> arguments = new ArrayList<>();
+
+    /**
+     * Adds the future of an argument that is being resolved.
+     *
+     * @param slot    the slot of the argument
+     * @param element the index of the argument in the slot's varargs array, or
+     *                {@code -1} if the slot is not a varargs slot
+     * @param value   the raw value of the argument
+     * @param future  the future of the resolved argument
+     */
+    void add(ParameterSlot slot, int element, String value, CompletableFuture<?> future) {
+        this.arguments.add(new PendingArgument(slot, element, value, future));
+    }
+
+    boolean isEmpty() {
+        return this.arguments.isEmpty();
+    }
+
+    /**
+     * Returns a future that is completed when all arguments are resolved.
+     */
+    CompletableFuture<Void> all() {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[this.arguments.size()];
+
+        for (int i = 0; i < futures.length; i++) {
+            futures[i] = this.arguments.get(i).future;
+        }
+
+        return CompletableFuture.allOf(futures);
+    }
+
+    void cancel() {
+        for (PendingArgument argument : this.arguments) {
+            argument.future.cancel(true);
+        }
+    }
+
+    /**
+     * Stores the resolved arguments in an array of executor method arguments,
+     * once they are all completed.
+     *
+     * @param executorArgs the array of executor method arguments
+     * @return the types and raw values of the arguments that could not be
+     *         resolved, in the order of the executor method parameters
+     */
+    List<Failure> fill(Object[] executorArgs) {
+        List<Failure> failures = new ArrayList<>(0);
+
+        for (PendingArgument argument : this.arguments) {
+            Object resolved;
+            Throwable cause = null;
+
+            try {
+                resolved = argument.future.join();
+            } catch (CompletionException e) {
+                resolved = null;
+                cause = e.getCause() == null ? e : e.getCause();
+            } catch (CancellationException e) {
+                resolved = null;
+                cause = e;
+            }
+
+            int index = argument.slot.getIndex();
+
+            if (resolved == null) {
+                failures.add(new Failure(argument.slot.getArgumentType(), argument.value, cause));
+            } else if (argument.element < 0) {
+                executorArgs[index] = resolved;
+            } else {
+                Array.set(executorArgs[index], argument.element, resolved);
+            }
+        }
+
+        return failures;
+    }
+
+    private static final class PendingArgument {
+
+        private final ParameterSlot slot;
+        private final int element;
+        private final String value;
+        private final CompletableFuture<?> future;
+
+        private PendingArgument(ParameterSlot slot, int element, String value,
+                                CompletableFuture<?> future) {
+            this.slot = slot;
+            this.element = element;
+            this.value = value;
+            this.future = future;
+        }
+
+    }
+
+    /**
+     * An argument that could not be resolved.
+     */
+    static final class Failure {
+
+        private final ArgumentType type;
+        private final String value;
+        private final Throwable cause;
+
+        private Failure(ArgumentType type, String value, Throwable cause) {
+            this.type = type;
+            this.value = value;
+            this.cause = cause;
+        }
+
+        ArgumentType getType() {
+            return type;
+        }
+
+        String getValue() {
+            return value;
+        }
+
+        /**
+         * Returns the exception that the resolver completed the argument with,
+         * or {@code null} if the resolver completed it with {@code null}
+         * because the raw value is invalid.
+         */
+        Throwable getCause() {
+            return cause;
+        }
+
+    }
+
+}
@@ -0,0 +1,404 @@
+package com.github.overmighty.croissant.command;
+
+import com.github.overmighty.croissant.Croissant;
+import com.github.overmighty.croissant.command.argument.CommandLine;
+import com.github.overmighty.croissant.util.ServerUtil;
+import org.bukkit.Bukkit;
+import org.bukkit.command.CommandException;
+import org.bukkit.command.CommandSender;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A command script being executed by a {@link CommandHandler}, line by line,
+ * over several server ticks.
+ * <p>
+ * Lines are read from the script on an asynchronous task, into a bounded
+ * queue of {@value #BUFFERED_TICKS} ticks' worth of lines, so that the script
+ * is never held in memory as a whole and a slow reader never stalls the main
+ * server thread, which only executes the lines that were read. Empty lines and lines starting with
+ * {@code #} are skipped, and a leading slash is ignored. Commands registered
+ * by the command handler are looked up in its own alias index and executed
+ * directly; other commands, including commands of other plugins that are
+ * prefixed with their plugin's name, are dispatched through the server.
+ * <p>
+ * A line fails if its command is unknown, if its arguments are invalid, or if
+ * its command throws an exception. Failures are sent to the command sender
+ * that runs the script as they happen, and the first
+ * {@value #MAX_RECORDED_FAILURES} are recorded. The script keeps running
+ * after a failure.
+ *
+ * @see CommandHandler#executeBatch(CommandSender, java.io.Reader)
+ */
+public final class CommandBatch {
+
+    /**
+     * The maximum number of failures that are kept in memory.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final int MAX_RECORDED_FAILURES = 100;
+    private static final int PROGRESS_INTERVAL_TICKS = 20;
+    private static final int BUFFERED_TICKS = 4;
+
+    private final CommandHandler handler;
+    private final CommandSender sender;
+    private final BufferedReader reader;
+    private final Executor readExecutor;
+    private final int linesPerTick;
+    private final BlockingQueue<String> lines;
+    private final AtomicBoolean reading = new AtomicBoolean();
+    // Written by the reading task once it has queued the last line
+    private volatile boolean endOfScript;
+    private volatile IOException readException;
+    private final List<Failure> failures = new ArrayList<>();
+    private final CompletableFuture<CommandBatch> completion = new CompletableFuture<>();
+    // Only written by the main server thread, but read from any thread
+    private volatile long lineCount;
+    private volatile long failureCount;
+    private int ticks;
+    private BukkitTask task;
+
+    CommandBatch(CommandHandler handler, CommandSender sender, BufferedReader reader,
+                 Executor readExecutor, int linesPerTick) {
+        this.handler = handler;
+        this.sender = sender;
+        this.reader = reader;
+        this.readExecutor = readExecutor;
+        this.linesPerTick = linesPerTick;
+        this.lines = new ArrayBlockingQueue<>(linesPerTick * BUFFERED_TICKS);
+    }
+
+    /**
+     * Schedules the execution of the script, starting during the next server
+     * tick.
+     */
+    void start() {
+        this.requestRead();
+        this.task = Bukkit.getScheduler().runTaskTimer(Croissant.getPlugin(), () -> {
+            if (!this.tick()) {
+                this.task.cancel();
+            }
+        }, 1L, 1L);
+    }
+
+    /**
+     * Executes the next lines of the script.
+     *
+     * @return {@code false} once the script is over
+     */
+    boolean tick() {
+        if (this.completion.isDone()) {
+            return false;
+        }
+
+        this.requestRead();
+
+        for (int i = 0; i < this.linesPerTick; i++) {
+            // Read before polling, as the last line is queued before the end
+            // of the script is marked
+            boolean endOfScript = this.endOfScript;
+            String line = this.lines.poll();
+
+            if (line == null) {
+                if (endOfScript) {
+                    this.finish(this.readException);
+                    return false;
+                }
+
+                // The reading task is behind, the next lines are executed
+                // during a later tick
+                break;
+            }
+
+            this.lineCount++;
+            this.executeLine(line);
+        }
+
+        this.requestRead();
+
+        if (++this.ticks % PROGRESS_INTERVAL_TICKS == 0) {
+            this.sender.sendMessage("Command script: " + this.lineCount + " lines executed, " +
+                this.failureCount + " failed");
+        }
+
+        return true;
+    }
+
+    private void executeLine(String line) {
+        String commandLine = line.trim();
+
+        if (commandLine.startsWith("#")) {
+            return;
+        }
+
+        if (commandLine.startsWith("/")) {
+            commandLine = commandLine.substring(1).trim();
+        }
+
+        if (commandLine.isEmpty()) {
+            return;
+        }
+
+        String reason;
+
+        try {
+            reason = this.dispatch(commandLine);
+        } catch (CommandException e) {
+            Throwable cause = e.getCause() == null ? e : e.getCause();
+            reason = cause.toString();
+        } catch (RuntimeException e) {
+            // A failing line must not stop the rest of the tick's lines
+            reason = e.toString();
+        }
+
+        if (reason != null) {
+            this.fail(line, reason);
+        }
+    }
+
+    /**
+     * Executes a command line.
+     *
+     * @return the reason why the line failed, or {@code null} if it did not
+     */
+    private String dispatch(String commandLine) {
+        CommandLine tokens = CommandLine.parse(commandLine, 0, false);
+        String label = tokens.get(0);
+        CroissantCommand command = this.findRegisteredCommand(label);
+
+        if (command == null) {
+            if (ServerUtil.getCommandMap().getCommand(label) == null) {
+                return "Unknown command";
+            }
+
+            // Commands of other plugins return false when they reject their
+            // arguments, and have sent their usage message already
+            return Bukkit.dispatchCommand(this.sender, commandLine) ? null : "Invalid usage";
+        }
+
+        return command.execute(this.sender, label, tokens, 1).getFailureReason();
+    }
+
+    /**
+     * Returns the command registered by the command handler that a label
+     * refers to, if any. Labels can be prefixed with the fallback prefix that
+     * a command was registered with, but other plugins can register commands
+     * with the same name under their own prefix.
+     */
+    private CroissantCommand findRegisteredCommand(String label) {
+        int colon = label.indexOf(':');
+
+        if (colon < 0) {
+            return this.handler.getRegisteredCommand(label);
+        }
+
+        CroissantCommand command = this.handler.getRegisteredCommand(label.substring(colon + 1));
+        return command != null && ServerUtil.getCommandMap().getCommand(label) == command ?
+            command : null;
+    }
+
+    private void fail(String line, String reason) {
+        this.failureCount++;
+        this.sender.sendMessage("Command script line " + this.lineCount + " failed (" + reason +
+            "): " + line);
+
+        synchronized (this.failures) {
+            if (this.failures.size() < MAX_RECORDED_FAILURES) {
+                this.failures.add(new Failure(this.lineCount, line, reason));
+            }
+        }
+    }
+
+    /**
+     * Starts reading the next lines of the script on the read executor, unless
+     * they are already being read or the queue of read lines is full.
+     */
+    private void requestRead() {
+        if (this.endOfScript || this.lines.remainingCapacity() == 0 ||
+            !this.reading.compareAndSet(false, true)) {
+            return;
+        }
+
+        this.readExecutor.execute(this::readLines);
+    }
+
+    private void readLines() {
+        try {
+            while (!this.completion.isDone() && this.lines.remainingCapacity() > 0) {
+                String line = this.reader.readLine();
+
+                if (line == null) {
+                    this.closeReader();
+                    return;
+                }
+
+                this.lines.add(line);
+            }
+
+            if (this.completion.isDone()) {
+                this.closeReader();
+            }
+        } catch (IOException e) {
+            this.readException = e;
+            this.closeReader();
+        } finally {
+            this.reading.set(false);
+        }
+
+        if (this.completion.isDone() && !this.endOfScript) {
+            // Cancelled while this task was stopping
+            this.requestClose();
+        }
+    }
+
+    /**
+     * Closes the reader on the read executor, once it is not being read.
+     */
+    private void requestClose() {
+        if (!this.endOfScript && this.reading.compareAndSet(false, true)) {
+            this.readExecutor.execute(this::readLines);
+        }
+    }
+
+    private void closeReader() {
+        try {
+            this.reader.close();
+        } catch (IOException e) {
+            if (this.readException == null) {
+                this.readException = e;
+            }
+        }
+
+        this.endOfScript = true;
+    }
+
+    private void finish(IOException exception) {
+        if (exception != null) {
+            this.sender.sendMessage("Command script could not be read: " + exception);
+            this.completion.completeExceptionally(exception);
+            return;
+        }
+
+        this.sender.sendMessage("Command script done: " + this.lineCount + " lines executed, " +
+            this.failureCount + " failed");
+        this.completion.complete(this);
+    }
+
+    /**
+     * Stops the execution of the script after the current tick, if it is not
+     * over yet. The completion stage of the script is cancelled.
+     */
+    @SuppressWarnings("unused")
+    public void cancel() {
+        if (this.completion.cancel(false)) {
+            // The reader is closed by the reading task, which may be blocked
+            // reading it, or by a new one if none is running
+            this.requestClose();
+        }
+    }
+
+    /**
+     * Returns the number of lines of the script that were executed so far,
+     * including skipped and failed lines.
+     *
+     * @return the number of executed lines
+     */
+    @SuppressWarnings("WeakerAccess")
+    public long getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Returns the number of lines of the script that failed so far.
+     *
+     * @return the number of failed lines
+     */
+    @SuppressWarnings("WeakerAccess")
+    public long getFailureCount() {
+        return failureCount;
+    }
+
+    /**
+     * Returns the first {@value #MAX_RECORDED_FAILURES} failures of the
+     * script.
+     *
+     * @return an unmodifiable copy of the recorded failures
+     */
+    @SuppressWarnings("WeakerAccess")
+    public List<Failure> getFailures() {
+        synchronized (this.failures) {
+            return Collections.unmodifiableList(new ArrayList<>(this.failures));
+        }
+    }
+
+    /**
+     * Returns a completion stage that is completed with this batch once the
+     * whole script has been executed, or exceptionally if the script could
+     * not be read.
+     *
+     * @return the completion stage of the script's execution
+     */
+    @SuppressWarnings("WeakerAccess")
+    public CompletionStage<CommandBatch> getCompletion() {
+        return completion;
+    }
+
+    /**
+     * A line of a command script that failed.
+     */
+    public static final class Failure {
+
+        private final long lineNumber;
+        private final String line;
+        private final String reason;
+
+        Failure(long lineNumber, String line, String reason) {
+            this.lineNumber = lineNumber;
+            this.line = line;
+            this.reason = reason;
+        }
+
+        /**
+         * Returns the number of the line, starting from 1.
+         *
+         * @return the line number
+         */
+        @SuppressWarnings("unused")
+        public long getLineNumber() {
+            return lineNumber;
+        }
+
+        /**
+         * Returns the line as it was read from the script.
+         *
+         * @return the line
+         */
+        @SuppressWarnings("unused")
+        public String getLine() {
+            return line;
+        }
+
+        /**
+         * Returns why the line failed.
+         *
+         * @return the reason of the failure
+         */
+        @SuppressWarnings("unused")
+        public String getReason() {
+            return reason;
+        }
+
+    }
+
+}
@@ -0,0 +1,221 @@
+package com.github.overmighty.croissant.command;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+
+/**
+ * Calls the executor method of a command class, and describes its parameters
+ * to the command framework.
+ * <p>
+ * Dispatchers are generated at compile time by the Croissant annotation
+ * processor ({@code croissant-processor}), as a class named
+ * {@code <command class>$CroissantDispatcher} in the package of the command
+ * class, which calls the executor method directly instead of through
+ * reflection. When a command is constructed, the generated dispatcher of its
+ * class is used if there is one. Otherwise, the command falls back to
+ * detecting its executor method at runtime using reflection.
+ * <p>
+ * This class is not meant to be extended by hand.
+ *
+ * @param <C> the command class
+ */
+public abstract class CommandDispatcher<C extends CroissantCommand> {
+
+    /**
+     * Parameter flag for parameters annotated with
+     * {@link com.github.overmighty.croissant.command.argument.Optional}.
+     */
+    protected static final int OPTIONAL = 1;
+    /**
+     * Parameter flag for parameters annotated with
+     * {@link com.github.overmighty.croissant.command.argument.Rest}.
+     */
+    protected static final int REST = 1 << 1;
+    /**
+     * Parameter flag for parameters annotated with
+     * {@link com.github.overmighty.croissant.command.argument.Flag}.
+     */
+    protected static final int FLAG = 1 << 2;
+    /**
+     * Parameter flag for parameters annotated with
+     * {@link com.github.overmighty.croissant.command.argument.Option}.
+     */
+    protected static final int OPTION = 1 << 3;
+
+    private final Class<C> commandClass;
+    private final String executorName;
+    private final Class<?>[] parameterTypes;
+    private final int[] parameterFlags;
+    private final String[] defaultValues;
+    private final String[] parameterNames;
+    private final boolean varArgs;
+    private final boolean async;
+    private final int rateLimitPermits;
+    private final long rateLimitPeriod;
+    private volatile Method executor;
+    private volatile Parameter[] parameters;
+
+    /**
+     * Constructs a new {@code CommandDispatcher}.
+     *
+     * @param commandClass   the command class
+     * @param executorName   the name of the executor method
+     * @param parameterTypes the declared parameter types of the executor
+     *                       method, including the command sender parameter
+     * @param parameterFlags the flags of each parameter of the executor method
+     * @param defaultValues  the value of the
+     *                       {@link com.github.overmighty.croissant.command.argument.Default}
+     *                       annotation of each parameter of the executor
+     *                       method, or {@code null} for parameters without one
+     * @param parameterNames the name of the
+     *                       {@link com.github.overmighty.croissant.command.argument.Flag}
+     *                       or
+     *                       {@link com.github.overmighty.croissant.command.argument.Option}
+     *                       that each parameter of the executor method
+     *                       represents, or {@code null} for other parameters
+     * @param varArgs        if the executor method takes varargs
+     * @param async            if the executor method is annotated with
+     *                         {@link Async}
+     * @param rateLimitPermits the number of calls allowed per period by the
+     *                         {@link Cooldown} or {@link RateLimit} annotation
+     *                         of the executor method, or {@code 0} if it has
+     *                         neither
+     * @param rateLimitPeriod  the period of the executor method's cooldown or
+     *                         rate limit in nanoseconds
+     */
+    protected CommandDispatcher(Class<C> commandClass, String executorName,
+                                Class<?>[] parameterTypes, int[] parameterFlags,
+                                String[] defaultValues, String[] parameterNames,
+                                boolean varArgs, boolean async, int rateLimitPermits,
+                                long rateLimitPeriod) {
+        this.commandClass = commandClass;
+        this.executorName = executorName;
+        this.parameterTypes = parameterTypes;
+        this.parameterFlags = parameterFlags;
+        this.defaultValues = defaultValues;
+        this.parameterNames = parameterNames;
+        this.varArgs = varArgs;
+        this.async = async;
+        this.rateLimitPermits = rateLimitPermits;
+        this.rateLimitPeriod = rateLimitPeriod;
+    }
+
+    CommandDispatcher(Class<C> commandClass, Method executor, int[] parameterFlags,
+                      String[] defaultValues, String[] parameterNames, boolean async) {
+        this(commandClass, executor.getName(), executor.getParameterTypes(), parameterFlags,
+            defaultValues, parameterNames, executor.isVarArgs(), async, 0, 0);
+        this.executor = executor;
+        this.parameters = executor.getParameters();
+    }
+
+    /**
+     * Calls the executor method of a command.
+     *
+     * @param command the command
+     * @param args    the arguments to pass to the executor method, starting with
+     *                the command sender
+     * @return the value returned by the executor method, or {@code null} if it
+     *         does not return anything
+     * @throws Throwable anything thrown by the executor method
+     */
+    public abstract Object dispatch(C command, Object[] args) throws Throwable;
+
+    int getParameterCount() {
+        return this.parameterTypes.length;
+    }
+
+    /**
+     * Returns the type of a parameter of the executor method, or its component
+     * type if it is a varargs parameter.
+     */
+    Class<?> getParameterType(int index) {
+        Class<?> type = this.parameterTypes[index];
+        return this.isVarArgs(index) ? type.getComponentType() : type;
+    }
+
+    boolean isVarArgs(int index) {
+        return this.varArgs && index == this.parameterTypes.length - 1;
+    }
+
+    boolean isOptional(int index) {
+        return (this.parameterFlags[index] & OPTIONAL) != 0;
+    }
+
+    boolean isRest(int index) {
+        return (this.parameterFlags[index] & REST) != 0;
+    }
+
+    boolean isFlag(int index) {
+        return (this.parameterFlags[index] & FLAG) != 0;
+    }
+
+    boolean isOption(int index) {
+        return (this.parameterFlags[index] & OPTION) != 0;
+    }
+
+    String getDefaultValue(int index) {
+        return this.defaultValues[index];
+    }
+
+    /**
+     * Returns the name of the flag or option that a parameter of the executor
+     * method represents, or {@code null} if it is not a flag nor an option.
+     */
+    String getParameterName(int index) {
+        return this.parameterNames[index];
+    }
+
+    boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * Returns a new rate limiter enforcing the {@link Cooldown} or
+     * {@link RateLimit} annotation of the executor method, or {@code null} if
+     * it has neither.
+     */
+    RateLimiter createRateLimiter() {
+        return this.rateLimitPermits == 0 ? null :
+            new RateLimiter(this.rateLimitPermits, this.rateLimitPeriod, System::nanoTime);
+    }
+
+    /**
+     * Returns the executor method. The executor methods of generated
+     * dispatchers are looked up using reflection the first time that they are
+     * needed.
+     */
+    Method getExecutor() {
+        Method executor = this.executor;
+
+        if (executor == null) {
+            try {
+                executor = this.commandClass.getDeclaredMethod(this.executorName,
+                    this.parameterTypes);
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException("Dispatcher of command class " +
+                    this.commandClass.getName() + " is out of date", e);
+            }
+
+            this.executor = executor;
+        }
+
+        return executor;
+    }
+
+    /**
+     * Returns a parameter of the executor method. The parameters of generated
+     * dispatchers are looked up the first time that they are needed, which is
+     * when an argument resolver or completer is called.
+     */
+    Parameter getParameter(int index) {
+        Parameter[] parameters = this.parameters;
+
+        if (parameters == null) {
+            parameters = this.getExecutor().getParameters();
+            this.parameters = parameters;
+        }
+
+        return parameters[index];
+    }
+
+}
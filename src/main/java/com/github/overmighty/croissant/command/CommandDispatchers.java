@@ -0,0 +1,62 @@
+package com.github.overmighty.croissant.command;
+
+/**
+ * Finds the {@link CommandDispatcher} of command classes, and caches it per
+ * class, since dispatchers do not hold any state specific to a command
+ * instance.
+ */
+final class CommandDispatchers {
+
+    private static final String GENERATED_DISPATCHER_SUFFIX = "$CroissantDispatcher";
+    private static final ClassValue<CommandDispatcher<?>> DISPATCHERS =
+        new ClassValue<CommandDispatcher<?>>() {
+            @SuppressWarnings("unchecked")
+            @Override
+            protected CommandDispatcher<?> computeValue(Class<?> type) {
+                Class<? extends CroissantCommand> commandClass =
+                    (Class<? extends CroissantCommand>) type;
+                CommandDispatcher<?> dispatcher = findGeneratedDispatcher(commandClass);
+                return dispatcher == null ? ReflectiveDispatcher.of(commandClass) : dispatcher;
+            }
+        };
+
+    private CommandDispatchers() {
+    }
+
+    /**
+     * Returns the dispatcher of the given command class: its generated
+     * dispatcher if it has one, or a {@link ReflectiveDispatcher} otherwise.
+     *
+     * @param commandClass the command class
+     * @return the command class's dispatcher, or {@code null} if the class
+     *         does not have an executor method
+     */
+    @SuppressWarnings("unchecked")
+    static CommandDispatcher<CroissantCommand> of(Class<? extends CroissantCommand> commandClass) {
+        return (CommandDispatcher<CroissantCommand>) DISPATCHERS.get(commandClass);
+    }
+
+    private static CommandDispatcher<?> findGeneratedDispatcher(Class<?> commandClass) {
+        Class<?> dispatcherClass;
+
+        try {
+            dispatcherClass = Class.forName(commandClass.getName() + GENERATED_DISPATCHER_SUFFIX,
+                true, commandClass.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            // The command class was not compiled with the annotation processor
+            return null;
+        }
+
+        if (!CommandDispatcher.class.isAssignableFrom(dispatcherClass)) {
+            return null;
+        }
+
+        try {
+            return (CommandDispatcher<?>) dispatcherClass.getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot instantiate generated dispatcher of command " +
+                "class " + commandClass.getName(), e);
+        }
+    }
+
+}
@@ -21,8 +21,12 @@ import java.lang.annotation.Target;
  * parameters (see {@link CommandHandler#getArgumentTypes()}). If there is no
  * {@code ArgumentType} bound to the parameter's type, the framework will look
  * for an {@code ArgumentType} bound to one of the superclasses of the parameter's
- * type when resolving or completing the argument represented by the parameter.
- * If an {@code ArgumentType} could still not be found, an exception will be
+ * type, from the closest to the farthest, and then to one of its interfaces,
+ * breadth-first, when resolving or completing the argument represented by the
+ * parameter. This means that an {@code ArgumentType} bound to
+ * {@link org.bukkit.entity.Entity} can be used for a parameter of the
+ * {@link org.bukkit.entity.Player} type, for example. If an
+ * {@code ArgumentType} could still not be found, an exception will be
  * thrown. Be aware that when encountering a primitive data type, the framework
  * will look for an {@code ArgumentType} bound to the wrapper class for that
  * type, instead of looking for one bound to the primitive data type itself.
@@ -34,6 +38,16 @@ import java.lang.annotation.Target;
  * {@link com.github.overmighty.croissant.command.argument.Optional} or
  * {@link com.github.overmighty.croissant.command.argument.Default}.
  * <p>
+ * Parameters annotated with
+ * {@link com.github.overmighty.croissant.command.argument.Flag} or
+ * {@link com.github.overmighty.croissant.command.argument.Option} represent
+ * named arguments instead, which can be provided in any position, such as
+ * {@code -s} or {@code --radius=5}, and are not counted as regular arguments.
+ * <p>
+ * Parameters of an {@link Enum} type annotated with
+ * {@link com.github.overmighty.croissant.command.argument.IgnoreCase} accept
+ * the names of the enum's constants regardless of case.
+ * <p>
  * Executor methods may also take varargs. In this case, each remaining argument
  * provided by the command sender will be resolved into the varargs parameter's
  * component type and put into an array, which will be passed to the method.
@@ -42,7 +56,15 @@ import java.lang.annotation.Target;
  * types is wanted, the wrapper class for it, for example {@link Boolean} for
  * {@code boolean}, {@link Integer} for {@code int}, or {@link Double} for
  * {@code double}, must be used.
+ * <p>
+ * Executor methods are called on the main server thread, unless they are
+ * annotated with {@link Async}. An executor method may return a
+ * {@link java.util.concurrent.CompletionStage}, which the command's
+ * {@link CommandHandler} keeps track of until it completes: exceptions that it
+ * completes with are logged, and it is cancelled if the player who called the
+ * command leaves the server before it completes.
  *
+ * @see Async
  * @see CroissantCommand
  */
 @Retention(RetentionPolicy.RUNTIME)
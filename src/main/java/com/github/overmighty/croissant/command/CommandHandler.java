@@ -3,43 +3,100 @@ package com.github.overmighty.croissant.command;
 import com.destroystokyo.paper.event.server.AsyncTabCompleteEvent;
 import com.github.overmighty.croissant.Croissant;
 import com.github.overmighty.croissant.command.argument.ArgumentType;
+import com.github.overmighty.croissant.command.argument.AsyncArgumentCompleter;
 import com.github.overmighty.croissant.command.argument.BuiltInArgumentType;
+import com.github.overmighty.croissant.command.argument.CommandLine;
+import com.github.overmighty.croissant.command.argument.CompletionSink;
+import com.github.overmighty.croissant.command.argument.PlayerIndex;
+import com.github.overmighty.croissant.command.argument.StreamingArgumentCompleter;
 import com.github.overmighty.croissant.util.ServerUtil;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 
-import java.util.Arrays;
-import java.util.HashMap;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
 
 /**
  * Handles {@link CroissantCommand}s.
  */
 public class CommandHandler implements Listener {
 
-    private final Map<Class<?>, ArgumentType> argumentTypes = new HashMap<>();
+    private final ArgumentTypeRegistry argumentTypes = new ArgumentTypeRegistry();
+    private final AsyncExecutions asyncExecutions = new AsyncExecutions(this);
+    private final Set<CroissantCommand> commands = ConcurrentHashMap.newKeySet();
+    private final List<CroissantCommand> registeredCommands = new ArrayList<>();
+    // Built from the registered commands when needed, null when out of date
+    private volatile SubcommandTrie registeredCommandIndex = SubcommandTrie.EMPTY;
     private String playerOnlyMessage = ChatColor.RED + "This command can only be run by players.";
     private String usageMessagePrefix = ChatColor.RED + "Usage: ";
+    private String asyncQueueFullMessage = ChatColor.RED +
+        "The server is too busy to run this command, please try again later.";
+    private String rateLimitedMessage = ChatColor.RED +
+        "You must wait {seconds} second(s) before using this command again.";
     private boolean playerCompleterEnabled = true;
+    private volatile long completionDeadline = 100;
+    private volatile int completionLimit = 100;
+    private volatile boolean fuzzyCompletionEnabled;
+    private volatile boolean usageRankingEnabled;
+    private final UsageCounts usageCounts = new UsageCounts(TimeUnit.DAYS.toNanos(7),
+        System::nanoTime, task ->
+            Bukkit.getScheduler().runTaskAsynchronously(Croissant.getPlugin(), task));
+    private int batchLinesPerTick = 100;
 
     /**
-     * Constructs a new {@code CommandHandler}. Its map of argument types will
+     * Constructs a new {@code CommandHandler}. Its argument type registry will
      * be initialized to contain all constants of the
      * {@link BuiltInArgumentType} enum.
      */
     public CommandHandler() {
         for (BuiltInArgumentType type : BuiltInArgumentType.values()) {
-            this.argumentTypes.put(type.getParameterType(), type.getArgumentType());
+            this.argumentTypes.register(type.getParameterType(), type.getArgumentType());
         }
 
+        Bukkit.getPluginManager().registerEvents(this.asyncExecutions, Croissant.getPlugin());
+        PlayerIndex.getInstance().enable();
+
         if (ServerUtil.isAsyncTabCompletionSupported()) {
             Bukkit.getPluginManager().registerEvents(this, Croissant.getPlugin());
         }
     }
 
+    /**
+     * Returns the command handler's argument type registry, which binds
+     * argument types to the types of executor method parameters. Commands that
+     * are handled by this command handler take changes made to the registry
+     * into account the next time they are executed or tab-completed.
+     *
+     * @return the command handler's argument type registry
+     */
+    @SuppressWarnings("WeakerAccess")
+    public ArgumentTypeRegistry getArgumentTypeRegistry() {
+        return argumentTypes;
+    }
+
     /**
      * Returns the command handler's argument types, mapped by the type of
      * executor method parameter to which they are bound. New entries
@@ -47,12 +104,18 @@ public class CommandHandler implements Listener {
      * for more parameter types. Existing entries can be replaced, if a
      * {@link BuiltInArgumentType} doesn't meet your needs for example, and they
      * can also be deleted, in order to remove support for a parameter type.
+     * Commands that are handled by this command handler take changes made to
+     * the map into account the next time they are executed or tab-completed.
+     * <p>
+     * The returned map is a view of the command handler's
+     * {@link ArgumentTypeRegistry}: changes made to the map are made to the
+     * registry, and each read of the map reads the registry's current snapshot.
      *
      * @return the command handler's argument types
      */
     @SuppressWarnings("WeakerAccess")
     public Map<Class<?>, ArgumentType> getArgumentTypes() {
-        return argumentTypes;
+        return this.argumentTypes.asMap();
     }
 
     /**
@@ -105,6 +168,103 @@ public class CommandHandler implements Listener {
         this.usageMessagePrefix = usageMessagePrefix;
     }
 
+    /**
+     * Returns the message to send to command senders when an {@link Async}
+     * command that they called cannot be run because the asynchronous
+     * executor of this command handler rejected it, which happens when the
+     * queue of the default bounded thread pool is full.
+     *
+     * @return the command handler's async queue full message
+     */
+    @SuppressWarnings("WeakerAccess")
+    public String getAsyncQueueFullMessage() {
+        return asyncQueueFullMessage;
+    }
+
+    /**
+     * Sets the message to send to command senders when an {@link Async}
+     * command that they called cannot be run because the asynchronous
+     * executor of this command handler rejected it.
+     *
+     * @param asyncQueueFullMessage the command handler's async queue full
+     *                              message
+     */
+    @SuppressWarnings("unused")
+    public void setAsyncQueueFullMessage(String asyncQueueFullMessage) {
+        this.asyncQueueFullMessage = asyncQueueFullMessage;
+    }
+
+    /**
+     * Returns the message to send to command senders when they call a command
+     * more often than its {@link Cooldown} or {@link RateLimit} allows.
+     * Occurrences of {@code {seconds}} are replaced with the number of seconds
+     * until the command sender can call the command again.
+     *
+     * @return the command handler's rate limited message
+     */
+    @SuppressWarnings("WeakerAccess")
+    public String getRateLimitedMessage() {
+        return rateLimitedMessage;
+    }
+
+    /**
+     * Sets the message to send to command senders when they call a command
+     * more often than its {@link Cooldown} or {@link RateLimit} allows.
+     * Occurrences of {@code {seconds}} are replaced with the number of seconds
+     * until the command sender can call the command again.
+     *
+     * @param rateLimitedMessage the command handler's rate limited message
+     */
+    @SuppressWarnings("unused")
+    public void setRateLimitedMessage(String rateLimitedMessage) {
+        this.rateLimitedMessage = rateLimitedMessage;
+    }
+
+    /**
+     * Returns the executor service that calls the executor methods of
+     * {@link Async} commands that are handled by this command handler.
+     * <p>
+     * Unless another one was set, a virtual thread per task executor is used if
+     * the server runs on Java 21 or above, and a bounded pool of daemon threads
+     * otherwise. The default executor service is created when it is first
+     * used.
+     *
+     * @return the command handler's asynchronous executor
+     */
+    @SuppressWarnings("WeakerAccess")
+    public ExecutorService getAsyncExecutor() {
+        return this.asyncExecutions.getExecutorService();
+    }
+
+    /**
+     * Sets the executor service that calls the executor methods of
+     * {@link Async} commands that are handled by this command handler. The
+     * command handler does not shut the executor service down.
+     *
+     * @param asyncExecutor the command handler's asynchronous executor
+     */
+    @SuppressWarnings("unused")
+    public void setAsyncExecutor(ExecutorService asyncExecutor) {
+        this.asyncExecutions.setExecutorService(asyncExecutor);
+    }
+
+    /**
+     * Returns the amount of asynchronous command executions of this command
+     * handler that are pending: {@link Async} executor methods that are queued
+     * or running, and {@link java.util.concurrent.CompletionStage}s returned by
+     * executor methods that are not completed yet.
+     *
+     * @return the amount of pending asynchronous command executions
+     */
+    @SuppressWarnings("unused")
+    public int getPendingAsyncExecutions() {
+        return this.asyncExecutions.getPendingCount();
+    }
+
+    AsyncExecutions getAsyncExecutions() {
+        return this.asyncExecutions;
+    }
+
     /**
      * Returns {@code true} if {@link BuiltInArgumentType#PLAYER}'s
      * {@code ArgumentCompleter} is enabled for commands that are handled by
@@ -137,6 +297,238 @@ public class CommandHandler implements Listener {
         this.playerCompleterEnabled = playerCompleterEnabled;
     }
 
+    /**
+     * Returns the maximum number of milliseconds to wait for the completions
+     * of an {@link AsyncArgumentCompleter}.
+     *
+     * @return the command handler's completion deadline
+     */
+    @SuppressWarnings("unused")
+    public long getCompletionDeadline() {
+        return completionDeadline;
+    }
+
+    /**
+     * Sets the maximum number of milliseconds to wait for the completions of
+     * an {@link AsyncArgumentCompleter}, for commands that are handled by this
+     * command handler. When the deadline passes, the completer's future is
+     * cancelled and no completions are suggested for the argument.
+     * <p>
+     * The deadline only applies to tab-completion requests handled off the
+     * main server thread, such as Paper's asynchronous tab-completion. On the
+     * main thread, only completions that are already available are suggested,
+     * so that the server never waits for an asynchronous completer. A future
+     * that is not done yet is left running if the command caches completions
+     * (see {@link CroissantCommand#setCompletionCacheExpiry(long)}), and its
+     * completions are suggested on the command sender's next keystroke.
+     * Otherwise, it is cancelled.
+     * <p>
+     * By default, this property is set to {@code 100}.
+     *
+     * @param completionDeadline the command handler's completion deadline
+     * @throws IllegalArgumentException if the deadline is negative
+     */
+    @SuppressWarnings("unused")
+    public void setCompletionDeadline(long completionDeadline) {
+        if (completionDeadline < 0) {
+            throw new IllegalArgumentException("Completion deadline cannot be negative");
+        }
+
+        this.completionDeadline = completionDeadline;
+    }
+
+    /**
+     * Returns the maximum amount of completions that a
+     * {@link StreamingArgumentCompleter} can suggest for an argument.
+     *
+     * @return the command handler's completion limit
+     */
+    @SuppressWarnings("WeakerAccess")
+    public int getCompletionLimit() {
+        return completionLimit;
+    }
+
+    /**
+     * Sets the maximum amount of completions that a
+     * {@link StreamingArgumentCompleter} can suggest for an argument, for
+     * commands that are handled by this command handler. Only the first
+     * completions in alphabetical order are suggested. The built-in completers
+     * of player, world and enum arguments are streaming completers.
+     * <p>
+     * By default, this property is set to {@code 100}.
+     *
+     * @param completionLimit the command handler's completion limit
+     * @throws IllegalArgumentException if the limit is not positive
+     */
+    @SuppressWarnings("unused")
+    public void setCompletionLimit(int completionLimit) {
+        if (completionLimit <= 0) {
+            throw new IllegalArgumentException("Completion limit must be positive");
+        }
+
+        this.completionLimit = completionLimit;
+    }
+
+    /**
+     * Returns {@code true} if fuzzy completion is enabled for commands that
+     * are handled by this command handler.
+     *
+     * @return if fuzzy completion is enabled
+     */
+    @SuppressWarnings("WeakerAccess")
+    public boolean isFuzzyCompletionEnabled() {
+        return fuzzyCompletionEnabled;
+    }
+
+    /**
+     * Sets if fuzzy completion is enabled for commands that are handled by
+     * this command handler. When it is, subcommand aliases and the constants
+     * of {@link BuiltInArgumentType#ENUM} arguments that contain the argument
+     * or nearly start with it are suggested as well, best matches first, and
+     * the completion sinks given to {@link StreamingArgumentCompleter}s are
+     * fuzzy (see {@link CompletionSink#isFuzzy()}). Fuzzy completions are
+     * never cached.
+     * <p>
+     * By default, this property is set to {@code false}.
+     *
+     * @param fuzzyCompletionEnabled if fuzzy completion is enabled for
+     *                               commands that are handled by this command
+     *                               handler
+     */
+    @SuppressWarnings("unused")
+    public void setFuzzyCompletionEnabled(boolean fuzzyCompletionEnabled) {
+        this.fuzzyCompletionEnabled = fuzzyCompletionEnabled;
+    }
+
+    /**
+     * Returns {@code true} if completions are ranked by usage frequency for
+     * commands that are handled by this command handler.
+     *
+     * @return if usage ranking is enabled
+     */
+    @SuppressWarnings("WeakerAccess")
+    public boolean isUsageRankingEnabled() {
+        return usageRankingEnabled;
+    }
+
+    /**
+     * Sets if completions are ranked by usage frequency for commands that are
+     * handled by this command handler. When it is enabled, the values of the
+     * arguments of successfully resolved calls and the subcommand aliases used
+     * are counted, and completions are sorted by descending count, then in the
+     * order of their completer. Completions over the completion limit are
+     * dropped after ranking them, so {@link StreamingArgumentCompleter}s go
+     * through all matching values instead of stopping at the limit.
+     * <p>
+     * Counts are halved for every half-life that passes (see
+     * {@link #setUsageHalfLife(long)}), and can be kept between restarts with
+     * {@link #saveUsageCounts(Path)} and {@link #loadUsageCounts(Path)}. Only
+     * the most used values of each argument are counted, about a thousand,
+     * and counts are maintained off the main thread.
+     * <p>
+     * By default, this property is set to {@code false}.
+     *
+     * @param usageRankingEnabled if usage ranking is enabled for commands
+     *                            that are handled by this command handler
+     */
+    @SuppressWarnings("unused")
+    public void setUsageRankingEnabled(boolean usageRankingEnabled) {
+        this.usageRankingEnabled = usageRankingEnabled;
+    }
+
+    /**
+     * Returns the number of milliseconds after which usage counts are halved.
+     *
+     * @return the command handler's usage half-life
+     */
+    @SuppressWarnings("unused")
+    public long getUsageHalfLife() {
+        return TimeUnit.NANOSECONDS.toMillis(this.usageCounts.getHalfLife());
+    }
+
+    /**
+     * Sets the number of milliseconds after which usage counts are halved,
+     * so that values that stopped being used sink in the rankings.
+     * <p>
+     * By default, this property is set to 7 days.
+     *
+     * @param usageHalfLife the command handler's usage half-life
+     * @throws IllegalArgumentException if the half-life is not positive
+     */
+    @SuppressWarnings("unused")
+    public void setUsageHalfLife(long usageHalfLife) {
+        if (usageHalfLife <= 0) {
+            throw new IllegalArgumentException("Usage half-life must be positive");
+        }
+
+        this.usageCounts.setHalfLife(TimeUnit.MILLISECONDS.toNanos(usageHalfLife));
+    }
+
+    /**
+     * Saves the usage counts of the commands that are handled by this command
+     * handler to a file, replacing it, such as when the plugin is disabled.
+     *
+     * @param file the file to save the usage counts to
+     * @throws IOException if the file could not be written
+     */
+    @SuppressWarnings("unused")
+    public void saveUsageCounts(Path file) throws IOException {
+        this.usageCounts.save(file);
+    }
+
+    /**
+     * Adds the usage counts saved to a file by {@link #saveUsageCounts(Path)}
+     * to the current usage counts, such as when the plugin is enabled.
+     *
+     * @param file the file to load the usage counts from
+     * @throws IOException if the file could not be read
+     */
+    @SuppressWarnings("unused")
+    public void loadUsageCounts(Path file) throws IOException {
+        this.usageCounts.load(file);
+    }
+
+    UsageCounts getUsageCounts() {
+        return usageCounts;
+    }
+
+    /**
+     * Waits for the completions of an asynchronous completer until the
+     * completion deadline passes. On the main thread, the future is not waited
+     * for, and is left running if it is not done yet.
+     *
+     * @return the completions, or {@code null} if they are not available
+     */
+    List<String> awaitCompletions(CroissantCommand command,
+                                  CompletableFuture<List<String>> future) {
+        try {
+            if (Bukkit.isPrimaryThread()) {
+                return future.isDone() ? future.get() : null;
+            }
+
+            return future.get(this.completionDeadline, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | CancellationException e) {
+            return this.cancelCompletions(future);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return this.cancelCompletions(future);
+        } catch (ExecutionException e) {
+            this.logCompletionFailure(command, e.getCause());
+            return null;
+        }
+    }
+
+    void logCompletionFailure(CroissantCommand command, Throwable cause) {
+        Croissant.getPlugin().getLogger().log(Level.SEVERE, "Unhandled exception " +
+            "tab-completing command '" + command.getName() + "' in plugin " +
+            command.getPlugin().getDescription().getFullName(), cause);
+    }
+
+    private List<String> cancelCompletions(CompletableFuture<List<String>> future) {
+        future.cancel(false);
+        return null;
+    }
+
     /**
      * Registers a command to the server's command map and sets the command's
      * handler to this {@code CommandHandler}.
@@ -145,8 +537,186 @@ public class CommandHandler implements Listener {
      */
     @SuppressWarnings({ "unused", "WeakerAccess" })
     public void registerCommand(CroissantCommand command) {
-        ServerUtil.getCommandMap().register(Croissant.getPlugin().getName(), command);
+        this.registerCommand(Croissant.getPlugin().getName(), command);
+    }
+
+    void registerCommand(String fallbackPrefix, CroissantCommand command) {
+        ServerUtil.getCommandMap().register(fallbackPrefix, command);
         command.setHandler(this);
+        this.indexRegisteredCommands(Collections.singletonList(command));
+    }
+
+    /**
+     * Registers several commands to the server's command map, and sets the
+     * handler of each command to this {@code CommandHandler}. If players are
+     * online, the list of commands that the server sends to their client is
+     * updated once all commands have been registered (on 1.13+ servers), which
+     * is not done by {@link CommandHandler#registerCommand(CroissantCommand)}.
+     * Otherwise, this is equivalent to registering the commands one by one.
+     *
+     * @param commands the commands to register
+     */
+    @SuppressWarnings("WeakerAccess")
+    public void registerCommands(Collection<? extends CroissantCommand> commands) {
+        this.registerCommands(Croissant.getPlugin().getName(), commands);
+    }
+
+    void registerCommands(String fallbackPrefix, Collection<? extends CroissantCommand> commands) {
+        ServerUtil.getCommandMap().registerAll(fallbackPrefix, new ArrayList<>(commands));
+
+        for (CroissantCommand command : commands) {
+            command.setHandler(this);
+        }
+
+        this.indexRegisteredCommands(commands);
+        ServerUtil.updateCommands();
+    }
+
+    private synchronized void indexRegisteredCommands(
+        Collection<? extends CroissantCommand> commands) {
+        this.registeredCommands.addAll(commands);
+        this.registeredCommandIndex = null;
+    }
+
+    /**
+     * Returns the command registered by this command handler that has the
+     * given alias, ignoring case.
+     */
+    CroissantCommand getRegisteredCommand(String alias) {
+        SubcommandTrie index = this.registeredCommandIndex;
+
+        if (index == null) {
+            synchronized (this) {
+                index = this.registeredCommandIndex;
+
+                if (index == null) {
+                    index = SubcommandTrie.EMPTY.withAll(this.registeredCommands);
+                    this.registeredCommandIndex = index;
+                }
+            }
+        }
+
+        return index.get(alias);
+    }
+
+    /**
+     * Constructs and registers all commands of a command index, like
+     * {@link CommandHandler#registerCommands(Collection)}. For example,
+     * {@code registerAll(CommandIndex.load())} registers all {@link Indexed}
+     * command classes of the plugin that is using the library.
+     *
+     * @param index the command index
+     * @return the registered commands
+     * @throws IllegalStateException if a command class could not be loaded or
+     *                               constructed
+     */
+    @SuppressWarnings("unused")
+    public List<CroissantCommand> registerAll(CommandIndex index) {
+        return this.registerAll(Croissant.getPlugin().getName(), index);
+    }
+
+    List<CroissantCommand> registerAll(String fallbackPrefix, CommandIndex index) {
+        List<CroissantCommand> commands = index.instantiate();
+        this.registerCommands(fallbackPrefix, commands);
+        return commands;
+    }
+
+    /**
+     * Returns the number of lines of a command script that are executed per
+     * server tick by {@link CommandHandler#executeBatch(CommandSender, Reader)}.
+     * <p>
+     * By default, this property is set to {@code 100}.
+     *
+     * @return the number of lines executed per tick
+     */
+    @SuppressWarnings("WeakerAccess")
+    public int getBatchLinesPerTick() {
+        return batchLinesPerTick;
+    }
+
+    /**
+     * Sets the number of lines of a command script that are executed per
+     * server tick by {@link CommandHandler#executeBatch(CommandSender, Reader)}.
+     * Lower values spread scripts over more ticks, so that long scripts do not
+     * make the server fall behind 20 ticks per second.
+     *
+     * @param batchLinesPerTick the number of lines executed per tick
+     * @throws IllegalArgumentException if the number is not positive
+     */
+    @SuppressWarnings("unused")
+    public void setBatchLinesPerTick(int batchLinesPerTick) {
+        if (batchLinesPerTick <= 0) {
+            throw new IllegalArgumentException("Lines per tick must be positive");
+        }
+
+        this.batchLinesPerTick = batchLinesPerTick;
+    }
+
+    /**
+     * Executes a command script as a command sender, one line per command,
+     * starting during the next server tick and executing
+     * {@link CommandHandler#getBatchLinesPerTick()} lines per tick. Lines are
+     * read ahead of their execution on an asynchronous task, and the reader
+     * is closed once the script is over.
+     *
+     * @param sender the command sender to execute the script as
+     * @param reader the reader to read the script from
+     * @return the script's execution
+     * @see CommandBatch
+     */
+    @SuppressWarnings("WeakerAccess")
+    public CommandBatch executeBatch(CommandSender sender, Reader reader) {
+        BufferedReader bufferedReader = reader instanceof BufferedReader ?
+            (BufferedReader) reader : new BufferedReader(reader);
+        CommandBatch batch = new CommandBatch(this, sender, bufferedReader,
+            task -> Bukkit.getScheduler().runTaskAsynchronously(Croissant.getPlugin(), task),
+            this.batchLinesPerTick);
+        batch.start();
+        return batch;
+    }
+
+    /**
+     * Executes a UTF-8 command script file as a command sender, like
+     * {@link CommandHandler#executeBatch(CommandSender, Reader)}.
+     *
+     * @param sender the command sender to execute the script as
+     * @param path   the path of the script file
+     * @return the script's execution
+     * @throws IOException if the script file could not be opened
+     */
+    @SuppressWarnings("unused")
+    public CommandBatch executeBatch(CommandSender sender, Path path) throws IOException {
+        return this.executeBatch(sender, Files.newBufferedReader(path, StandardCharsets.UTF_8));
+    }
+
+    void addCommand(CroissantCommand command) {
+        this.commands.add(command);
+    }
+
+    void removeCommand(CroissantCommand command) {
+        this.commands.remove(command);
+    }
+
+    /**
+     * Returns a snapshot of the latencies recorded for each command and
+     * subcommand that is handled by this command handler. Latencies are
+     * recorded without locking, so this method can be called at any time and
+     * from any thread.
+     *
+     * @return the statistics of the command handler's commands, sorted by
+     *         command path
+     * @see CroissantCommand#getStatistics()
+     */
+    @SuppressWarnings("unused")
+    public List<CommandStatistics> getStatistics() {
+        List<CommandStatistics> statistics = new ArrayList<>(this.commands.size());
+
+        for (CroissantCommand command : this.commands) {
+            statistics.add(command.getStatistics());
+        }
+
+        statistics.sort(Comparator.comparing(CommandStatistics::getPath));
+        return statistics;
     }
 
     @EventHandler
@@ -156,11 +726,15 @@ public class CommandHandler implements Listener {
             return;
         }
 
-        // `.substring(1)` removes the slash at the start of the chat message
-        // A negative limit argument is used for the `split` method to prevent
-        // it from removing trailing empty strings
-        String[] splitBuffer = event.getBuffer().substring(1).split(" +", -1);
-        String commandAlias = splitBuffer[0];
+        // Starting after the slash at the start of the chat message, and
+        // keeping an empty last token if the buffer ends with a space
+        CommandLine line = CommandLine.parse(event.getBuffer(), 1, true);
+
+        if (line.size() < 2) {
+            return;
+        }
+
+        String commandAlias = line.get(0);
         Command command = Bukkit.getCommandMap().getCommand(commandAlias);
 
         if (!(command instanceof CroissantCommand)) {
@@ -173,10 +747,15 @@ public class CommandHandler implements Listener {
             return;
         }
 
-        // splitBuffer[0] is the command alias, all elements after it are command arguments
-        String[] args = Arrays.copyOfRange(splitBuffer, 1, splitBuffer.length);
+        // The first token is the command alias, all tokens after it are command arguments
+        List<String> completions = croissantCommand.tabComplete(event.getSender(), line, 1);
+
+        if (completions == null) {
+            // Left to the server, which completes the command on the main thread
+            return;
+        }
 
-        event.setCompletions(croissantCommand.tabComplete(event.getSender(), commandAlias, args));
+        event.setCompletions(completions);
         event.setHandled(true);
     }
 
@@ -0,0 +1,135 @@
+package com.github.overmighty.croissant.command;
+
+import com.github.overmighty.croissant.Croissant;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Constructor;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The list of {@link Indexed} command classes that the Croissant annotation
+ * processor generates at compile time, in the {@value #RESOURCE_NAME} resource
+ * file, so that commands can be discovered without scanning the classpath.
+ *
+ * @see CommandHandler#registerAll(CommandIndex)
+ */
+public final class CommandIndex {
+
+    /**
+     * The name of the resource file that lists the binary names of indexed
+     * command classes, one per line.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final String RESOURCE_NAME = "META-INF/croissant/commands";
+
+    private final ClassLoader classLoader;
+    private final List<String> classNames;
+
+    private CommandIndex(ClassLoader classLoader, List<String> classNames) {
+        this.classLoader = classLoader;
+        this.classNames = Collections.unmodifiableList(classNames);
+    }
+
+    /**
+     * Loads the command index of the Bukkit plugin that is using the library.
+     *
+     * @return the plugin's command index
+     * @throws IllegalStateException if the index could not be read
+     */
+    @SuppressWarnings("unused")
+    public static CommandIndex load() {
+        return load(Croissant.getPlugin().getClass().getClassLoader());
+    }
+
+    /**
+     * Loads the command index from all {@value #RESOURCE_NAME} resource files
+     * that can be found by the given class loader.
+     *
+     * @param classLoader the class loader to load the index and the command
+     *                    classes with
+     * @return the command index
+     * @throws IllegalStateException if the index could not be read
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static CommandIndex load(ClassLoader classLoader) {
+        Set<String> classNames = new LinkedHashSet<>();
+
+        try {
+            Enumeration<URL> resources = classLoader.getResources(RESOURCE_NAME);
+
+            while (resources.hasMoreElements()) {
+                readClassNames(resources.nextElement(), classNames);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read command index", e);
+        }
+
+        return new CommandIndex(classLoader, new ArrayList<>(classNames));
+    }
+
+    private static void readClassNames(URL resource, Set<String> classNames) throws IOException {
+        try (InputStream in = resource.openStream();
+             BufferedReader reader = new BufferedReader(new InputStreamReader(in,
+                 StandardCharsets.UTF_8))) {
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    classNames.add(line);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the binary names of the indexed command classes.
+     *
+     * @return an unmodifiable list of the names of the indexed command classes
+     */
+    @SuppressWarnings("unused")
+    public List<String> getClassNames() {
+        return classNames;
+    }
+
+    /**
+     * Constructs one instance of each indexed command class, using its
+     * constructor that does not take any parameters.
+     *
+     * @return the constructed commands, in index order
+     * @throws IllegalStateException if a command class could not be loaded or
+     *                               constructed
+     */
+    @SuppressWarnings("WeakerAccess")
+    public List<CroissantCommand> instantiate() {
+        List<CroissantCommand> commands = new ArrayList<>(this.classNames.size());
+
+        for (String className : this.classNames) {
+            try {
+                Class<? extends CroissantCommand> commandClass = Class.forName(className, true,
+                    this.classLoader).asSubclass(CroissantCommand.class);
+                Constructor<? extends CroissantCommand> constructor =
+                    commandClass.getDeclaredConstructor();
+                constructor.setAccessible(true);
+                commands.add(constructor.newInstance());
+            } catch (ReflectiveOperationException | ClassCastException e) {
+                throw new IllegalStateException("Could not construct indexed command class " +
+                    className, e);
+            }
+        }
+
+        return commands;
+    }
+
+}
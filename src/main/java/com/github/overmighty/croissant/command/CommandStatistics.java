@@ -0,0 +1,90 @@
+package com.github.overmighty.croissant.command;
+
+/**
+ * An immutable snapshot of the latencies recorded for a
+ * {@link CroissantCommand}.
+ * <p>
+ * The latencies of executions and tab-completions are measured from the call
+ * of {@link CroissantCommand#execute(org.bukkit.command.CommandSender, String, String[])}
+ * or {@link CroissantCommand#tabComplete(org.bukkit.command.CommandSender, String, String[])}
+ * on the root command, and are recorded for the subcommand that handled the
+ * call. Executions that failed because arguments could not be resolved are
+ * recorded separately from executions that called the executor method. The
+ * latencies of {@link Async} executions only include the time spent on the
+ * calling thread, not the time spent in the executor method.
+ *
+ * @see CommandHandler#getStatistics()
+ */
+public final class CommandStatistics {
+
+    private final String path;
+    private final LatencyHistogram executions;
+    private final LatencyHistogram tabCompletions;
+    private final LatencyHistogram resolutionFailures;
+
+    CommandStatistics(String path, LatencyHistogram executions, LatencyHistogram tabCompletions,
+                      LatencyHistogram resolutionFailures) {
+        this.path = path;
+        this.executions = executions;
+        this.tabCompletions = tabCompletions;
+        this.resolutionFailures = resolutionFailures;
+    }
+
+    /**
+     * Returns the names of the command and its parent commands, from the root
+     * command to the command, separated by spaces.
+     *
+     * @return the command's path
+     */
+    @SuppressWarnings("WeakerAccess")
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Returns the latencies of the executions that called the command's
+     * executor method.
+     *
+     * @return the histogram of the command's successful executions
+     */
+    @SuppressWarnings("WeakerAccess")
+    public LatencyHistogram getExecutions() {
+        return executions;
+    }
+
+    /**
+     * Returns the latencies of the command's tab-completions.
+     *
+     * @return the histogram of the command's tab-completions
+     */
+    @SuppressWarnings("WeakerAccess")
+    public LatencyHistogram getTabCompletions() {
+        return tabCompletions;
+    }
+
+    /**
+     * Returns the latencies of the executions that failed because command
+     * arguments were missing or could not be resolved.
+     *
+     * @return the histogram of the command's failed executions
+     */
+    @SuppressWarnings("WeakerAccess")
+    public LatencyHistogram getResolutionFailures() {
+        return resolutionFailures;
+    }
+
+    /**
+     * Returns the proportion of the command's executions that failed because
+     * command arguments were missing or could not be resolved.
+     *
+     * @return the failure rate, between {@code 0} and {@code 1}, or {@code 0}
+     *         if the command was never executed
+     */
+    @SuppressWarnings("unused")
+    public double getFailureRate() {
+        long failures = this.resolutionFailures.getCount();
+        long total = this.executions.getCount() + failures;
+        return total == 0 ? 0 : (double) failures / total;
+    }
+
+}
@@ -0,0 +1,141 @@
+package com.github.overmighty.croissant.command;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * A cache of the last completions suggested to each command sender by a
+ * {@link CroissantCommand}, so that typing more characters of an argument
+ * narrows down the previous completions instead of calling the argument
+ * completer again.
+ * <p>
+ * Each command sender has a single entry, keyed by the parameter slot of the
+ * completed argument, which identifies both the command and the argument. An
+ * entry can only be narrowed down by a value that extends the value that it
+ * was completed for, ignoring case, and expires after a fixed time since the
+ * completer was last called. Expired entries are removed in bulk once per
+ * sweep interval.
+ */
+final class CompletionCache {
+
+    private static final long SWEEP_INTERVAL = TimeUnit.MINUTES.toNanos(1);
+
+    private final ConcurrentMap<UUID, Entry> entries = new ConcurrentHashMap<>();
+    private final long expiry;
+    private final LongSupplier clock;
+    private final AtomicLong nextSweep;
+
+    /**
+     * Constructs a new {@code CompletionCache}.
+     *
+     * @param expiry the time in nanoseconds after which entries expire
+     * @param clock  the source of the current time in nanoseconds
+     */
+    CompletionCache(long expiry, LongSupplier clock) {
+        this.expiry = expiry;
+        this.clock = clock;
+        this.nextSweep = new AtomicLong(clock.getAsLong() + SWEEP_INTERVAL);
+    }
+
+    long getExpiry() {
+        return expiry;
+    }
+
+    /**
+     * Returns the completions of a value, narrowed down from the completions
+     * of a shorter value that were cached for the same command sender and
+     * slot.
+     *
+     * @param key   the unique ID of the command sender
+     * @param slot  the slot of the completed argument
+     * @param value the value to complete
+     * @return the completions, or {@code null} if they are not cached
+     */
+    List<String> get(UUID key, ParameterSlot slot, String value) {
+        Entry entry = this.entries.get(key);
+
+        if (entry == null || entry.slot != slot || this.clock.getAsLong() - entry.expiresAt >= 0 ||
+            !value.regionMatches(true, 0, entry.value, 0, entry.value.length())) {
+            return null;
+        }
+
+        List<String> completions = new ArrayList<>();
+
+        for (String completion : entry.completions) {
+            if (completion.regionMatches(true, 0, value, 0, value.length())) {
+                completions.add(completion);
+            }
+        }
+
+        if (completions.size() < entry.completions.length) {
+            // The next value is likely to extend this one
+            this.entries.replace(key, entry, new Entry(slot, value,
+                completions.toArray(new String[0]), entry.expiresAt));
+        }
+
+        return completions;
+    }
+
+    /**
+     * Caches the completions that a completer returned for a value.
+     *
+     * @param key         the unique ID of the command sender
+     * @param slot        the slot of the completed argument
+     * @param value       the completed value
+     * @param completions the completions
+     */
+    void put(UUID key, ParameterSlot slot, String value, List<String> completions) {
+        long now = this.clock.getAsLong();
+        this.sweepIfDue(now);
+        this.entries.put(key, new Entry(slot, value, completions.toArray(new String[0]),
+            now + this.expiry));
+    }
+
+    private void sweepIfDue(long now) {
+        long next = this.nextSweep.get();
+
+        if (now - next < 0 || !this.nextSweep.compareAndSet(next, now + SWEEP_INTERVAL)) {
+            return;
+        }
+
+        for (Map.Entry<UUID, Entry> entry : this.entries.entrySet()) {
+            if (now - entry.getValue().expiresAt >= 0) {
+                this.entries.remove(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Returns the number of command senders that currently have an entry.
+     */
+    int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * The completions of a value for an argument slot.
+     */
+    private static final class Entry {
+
+        private final ParameterSlot slot;
+        private final String value;
+        private final String[] completions;
+        private final long expiresAt;
+
+        private Entry(ParameterSlot slot, String value, String[] completions, long expiresAt) {
+            this.slot = slot;
+            this.value = value;
+            this.completions = completions;
+            this.expiresAt = expiresAt;
+        }
+
+    }
+
+}
@@ -0,0 +1,35 @@
+package com.github.overmighty.croissant.command;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Limits how often each command sender can call a command.
+ * <p>
+ * When a command class is annotated with {@code Cooldown}, the cooldown applies
+ * to every call of the command, including calls of its subcommands. When a
+ * command executor method is annotated with {@code Cooldown}, the cooldown
+ * applies only to the calls of that executor method.
+ * <p>
+ * The cooldown is enforced before command arguments are resolved, and only
+ * for command senders that are entities, such as players: the server console
+ * and command blocks are never limited. A class or a method cannot be annotated
+ * with both {@code Cooldown} and {@link RateLimit}.
+ *
+ * @see CommandHandler#getRateLimitedMessage()
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.TYPE, ElementType.METHOD })
+public @interface Cooldown {
+
+    /**
+     * Returns the number of seconds that a command sender must wait after
+     * calling the command before calling it again.
+     *
+     * @return the cooldown's duration in seconds
+     */
+    long seconds();
+
+}
@@ -3,34 +3,38 @@ package com.github.overmighty.croissant.command;
 import com.github.overmighty.croissant.Croissant;
 import com.github.overmighty.croissant.command.argument.Argument;
 import com.github.overmighty.croissant.command.argument.ArgumentCompleter;
+import com.github.overmighty.croissant.command.argument.ArgumentCursor;
 import com.github.overmighty.croissant.command.argument.ArgumentResolver;
 import com.github.overmighty.croissant.command.argument.ArgumentType;
+import com.github.overmighty.croissant.command.argument.AsyncArgumentCompleter;
+import com.github.overmighty.croissant.command.argument.AsyncArgumentResolver;
 import com.github.overmighty.croissant.command.argument.BuiltInArgumentType;
-import com.github.overmighty.croissant.command.argument.Default;
-import com.github.overmighty.croissant.command.argument.Optional;
-import com.github.overmighty.croissant.command.argument.Rest;
-import com.github.overmighty.croissant.util.CroissantUtil;
-import com.google.common.primitives.Primitives;
+import com.github.overmighty.croissant.command.argument.CommandLine;
+import com.github.overmighty.croissant.command.argument.CompletionSink;
+import com.github.overmighty.croissant.command.argument.StreamingArgumentCompleter;
+import com.github.overmighty.croissant.util.ServerUtil;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandException;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.PluginIdentifiableCommand;
+import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
-import org.bukkit.util.StringUtil;
 
 import java.lang.reflect.Array;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.lang.reflect.Parameter;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.Deque;
-import java.util.HashMap;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
 
 /**
  * A Bukkit plugin command.
@@ -46,63 +50,52 @@ import java.util.Map;
  * provided an unknown subcommand as first argument, therefore the command's
  * executor method must not take any command arguments. When a command sender
  * provides a known subcommand as first argument for the command, that
- * subcommand is called with the remaining arguments.
+ * subcommand is called with the remaining arguments. Subcommand aliases are
+ * case-insensitive.
  * <p>
  * Before a command can be called, it must be registered using
  * {@link CommandHandler#registerCommand(CroissantCommand)}. However, the
  * command must <em>not</em> be declared in the Bukkit plugin's plugin.yml file.
+ * <p>
+ * Command classes can be compiled with the Croissant annotation processor, so
+ * that their executor method is called through a generated
+ * {@link CommandDispatcher} instead of being detected at runtime using
+ * reflection.
+ * <p>
+ * How often each command sender can call a command can be limited by
+ * annotating the command's class or executor method with {@link Cooldown} or
+ * {@link RateLimit}.
  */
 public class CroissantCommand extends Command implements PluginIdentifiableCommand {
 
-    private final Map<String, CroissantCommand> subcommands = new HashMap<>();
+    private volatile SubcommandTrie subcommands = SubcommandTrie.EMPTY;
     private boolean playerOnly = false;
-    private Method executor;
+    private final CommandDispatcher<CroissantCommand> dispatcher;
+    private final RateLimiter commandLimiter;
+    private final RateLimiter executorLimiter;
+    private final LatencyRecorder executions = new LatencyRecorder();
+    private final LatencyRecorder tabCompletions = new LatencyRecorder();
+    private final LatencyRecorder resolutionFailures = new LatencyRecorder();
+    private volatile ArgumentCache argumentCache;
+    private volatile CompletionCache completionCache;
     private CommandHandler handler;
-    private int requiredArgs = 0;
+    private ExecutionPlan plan;
     private CroissantCommand parent;
+    private volatile String[] usageKeys;
 
     /**
      * Constructs a new {@code CroissantCommand}. The command's executor method
-     * will be automatically detected.
+     * will be automatically detected, unless the command's class has a
+     * generated {@link CommandDispatcher}.
      *
      * @param name the command's name
      */
     protected CroissantCommand(String name) {
         super(name);
-        this.detectExecutorMethod();
-
-        if (this.executor != null) {
-            this.detectRequiredArguments();
-        }
-    }
-
-    private void detectExecutorMethod() {
-        for (Method method : this.getClass().getDeclaredMethods()) {
-            if (method.isAnnotationPresent(CommandExecutor.class)) {
-                if (this.executor != null) {
-                    throw new IllegalStateException("Command has more than one executor method");
-                }
-
-                method.setAccessible(true);
-                this.executor = method;
-            }
-        }
-    }
-
-    private void detectRequiredArguments() {
-        Parameter[] params = this.executor.getParameters();
-
-        for (int i = 1; i < params.length; i++) {
-            Parameter param = params[i];
-            boolean optional = param.isAnnotationPresent(Optional.class) ||
-                param.isAnnotationPresent(Default.class);
-
-            if (optional) {
-                break;
-            }
-
-            this.requiredArgs++;
-        }
+        this.dispatcher = CommandDispatchers.of(this.getClass());
+        this.commandLimiter = RateLimiter.of(this.getClass());
+        this.executorLimiter = this.dispatcher == null ? null :
+            this.dispatcher.createRateLimiter();
     }
 
     /**
@@ -140,30 +133,130 @@ public class CroissantCommand extends Command implements PluginIdentifiableComma
     }
 
     /**
-     * Returns the command's subcommands, mapped by alias.
+     * Returns the maximum number of calls whose resolved arguments are cached
+     * by the command.
      *
-     * @return the command's subcommands
+     * @return the size of the command's argument cache, or {@code 0} if the
+     *         command does not cache arguments
+     */
+    @SuppressWarnings("unused")
+    public int getArgumentCacheSize() {
+        ArgumentCache cache = this.argumentCache;
+        return cache == null ? 0 : cache.getMaxSize();
+    }
+
+    /**
+     * Sets the maximum number of calls whose resolved arguments are cached by
+     * the command. When a command sender calls the command with the exact
+     * same arguments as a cached call made by the same kind of command sender
+     * (a player, a command block, the console or another kind), the cached
+     * arguments are passed to the executor method again instead of being
+     * resolved. This is meant for commands that are called with the same
+     * arguments over and over, by command blocks or functions for example.
+     * <p>
+     * Arguments are only cached if the argument types of all executor method
+     * parameters are pure (see {@link ArgumentType#isPure()}), so that
+     * commands that take players or worlds, for example, never use stale
+     * arguments. The least recently used calls are evicted first. Resolving
+     * the arguments of built-in types is about as fast as a cache lookup, so
+     * caching only pays off for commands that take arguments of custom types
+     * whose resolvers are expensive.
+     * <p>
+     * By default, this property is set to {@code 0}, which disables caching.
+     *
+     * @param size the size of the command's argument cache
+     * @throws IllegalArgumentException if the size is negative
+     */
+    @SuppressWarnings("unused")
+    public void setArgumentCacheSize(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Argument cache size cannot be negative");
+        }
+
+        this.argumentCache = size == 0 ? null : new ArgumentCache(size);
+    }
+
+    /**
+     * Returns the number of milliseconds for which the completions suggested
+     * to a command sender are cached by the command.
+     *
+     * @return the expiry of the command's completion cache, or {@code 0} if
+     *         the command does not cache completions
+     */
+    @SuppressWarnings("unused")
+    public long getCompletionCacheExpiry() {
+        CompletionCache cache = this.completionCache;
+        return cache == null ? 0 : TimeUnit.NANOSECONDS.toMillis(cache.getExpiry());
+    }
+
+    /**
+     * Sets the number of milliseconds for which the completions suggested to a
+     * player or another entity are cached by the command. While a player
+     * types an argument, every completion request whose value extends the
+     * value of the player's previous request for the same argument, ignoring
+     * case, narrows down the cached completions instead of calling the
+     * argument completer again. The completer is called again when the value
+     * is shortened or changed, when another argument is completed, or when
+     * the cached completions expire.
+     * <p>
+     * Completions are only correct if the completers of the command's argument
+     * types suggest all values that start with the argument, ignoring case, and
+     * nothing else. The expiry bounds how stale completions can be, for
+     * example after a player joins the server.
+     * <p>
+     * By default, this property is set to {@code 0}, which disables caching.
+     *
+     * @param expiry the expiry of the command's completion cache in
+     *               milliseconds
+     * @throws IllegalArgumentException if the expiry is negative
+     */
+    @SuppressWarnings("unused")
+    public void setCompletionCacheExpiry(long expiry) {
+        if (expiry < 0) {
+            throw new IllegalArgumentException("Completion cache expiry cannot be negative");
+        }
+
+        this.completionCache = expiry == 0 ? null :
+            new CompletionCache(TimeUnit.MILLISECONDS.toNanos(expiry), System::nanoTime);
+    }
+
+    /**
+     * Returns the command's subcommands, mapped by alias. The returned map
+     * cannot be modified: subcommands must be added using
+     * {@link CroissantCommand#addSubcommand(CroissantCommand)}.
+     *
+     * @return an unmodifiable map of the command's subcommands
      */
     @SuppressWarnings("unused")
     public Map<String, CroissantCommand> getSubcommands() {
-        return subcommands;
+        return this.subcommands.getSubcommands();
     }
 
     /**
      * Adds a subcommand to the command. Command senders will be able to call
      * the subcommand by typing {@code /<command> <subcommand> [arguments...]},
      * where {@code <command>} is an alias of the command and
-     * {@code <subcommand>} is an alias of the subcommand.
+     * {@code <subcommand>} is an alias of the subcommand. Aliases of existing
+     * subcommands that are equal to an alias of the subcommand, ignoring case,
+     * are replaced.
+     * <p>
+     * The subcommand's handler is set to the command's handler, if the command
+     * has one.
      *
      * @param subcommand the subcommand to add to the command
      */
     @SuppressWarnings("unused")
     public void addSubcommand(CroissantCommand subcommand) {
         subcommand.parent = this;
-        this.subcommands.put(subcommand.getName(), subcommand);
 
-        for (String alias : subcommand.getAliases()) {
-            this.subcommands.put(alias, subcommand);
+        synchronized (this) {
+            // Publishing a new immutable trie, which tab-completion threads can
+            // read without locking
+            this.subcommands = this.subcommands.with(subcommand);
+        }
+
+        if (this.handler != null) {
+            subcommand.setHandler(this.handler);
         }
     }
 
@@ -178,19 +271,52 @@ public class CroissantCommand extends Command implements PluginIdentifiableComma
     }
 
     /**
-     * Sets the command's command handler.
+     * Sets the command's command handler. The command's execution plan is
+     * compiled against the argument types of the command handler.
      *
      * @param handler the command's command handler
      */
     @SuppressWarnings("WeakerAccess")
     public void setHandler(CommandHandler handler) {
+        if (this.handler != null && this.handler != handler) {
+            this.handler.removeCommand(this);
+        }
+
         this.handler = handler;
+        this.plan = null;
+        // The command's path may have changed since it was last added
+        this.usageKeys = null;
 
-        for (CroissantCommand subcommand : this.subcommands.values()) {
+        if (this.handler != null) {
+            this.handler.addCommand(this);
+        }
+
+        if (this.dispatcher != null && this.handler != null) {
+            this.plan = ExecutionPlan.compile(this, this.dispatcher, this.handler);
+        }
+
+        for (CroissantCommand subcommand : this.subcommands.getSubcommands().values()) {
             subcommand.setHandler(this.handler);
         }
     }
 
+    /**
+     * Returns the command's execution plan, recompiling it first if the
+     * argument types of the command's handler changed since it was compiled.
+     *
+     * @return the command's execution plan
+     */
+    private ExecutionPlan getPlan() {
+        ExecutionPlan plan = this.plan;
+
+        if (plan == null || !plan.isCurrent(this.handler)) {
+            plan = ExecutionPlan.compile(this, this.dispatcher, this.handler);
+            this.plan = plan;
+        }
+
+        return plan;
+    }
+
     /**
      * Returns the command's parent command: the command of which it is a
      * subcommand.
@@ -203,6 +329,53 @@ public class CroissantCommand extends Command implements PluginIdentifiableComma
         return parent;
     }
 
+    /**
+     * Returns the names of the command and its parent commands, from the root
+     * command to the command, separated by spaces.
+     *
+     * @return the command's path
+     */
+    @SuppressWarnings("WeakerAccess")
+    public String getPath() {
+        return this.parent == null ? super.getName() : this.parent.getPath() + " " +
+            super.getName();
+    }
+
+    /**
+     * Returns the key under which the usage counts of an argument of the
+     * command are saved, which is built from the command's path once per
+     * argument instead of for every use. Keys built concurrently may be built
+     * twice, which is harmless.
+     *
+     * @param index the index of the argument's executor method parameter, or
+     *              {@link UsageCounts#SUBCOMMANDS}
+     * @return the usage key of the argument
+     */
+    String getUsageKey(int index) {
+        String[] keys = this.usageKeys;
+
+        if (keys == null || index >= keys.length || keys[index] == null) {
+            keys = keys == null ? new String[index + 1] :
+                Arrays.copyOf(keys, Math.max(keys.length, index + 1));
+            keys[index] = this.getPath() + '#' + index;
+            this.usageKeys = keys;
+        }
+
+        return keys[index];
+    }
+
+    /**
+     * Returns a snapshot of the latencies recorded for the command's executions
+     * and tab-completions.
+     *
+     * @return the command's statistics
+     */
+    @SuppressWarnings("WeakerAccess")
+    public CommandStatistics getStatistics() {
+        return new CommandStatistics(this.getPath(), this.executions.snapshot(),
+            this.tabCompletions.snapshot(), this.resolutionFailures.snapshot());
+    }
+
     /**
      * Sets the command's aliases. This method is a wrapper for
      * {@link Command#setAliases(List)} that takes varargs instead of a
@@ -242,127 +415,341 @@ public class CroissantCommand extends Command implements PluginIdentifiableComma
         }
     }
 
-    private boolean executeSubcommand(CommandSender sender, String[] args) {
-        String subcommandAlias = args[0];
-        String[] subcommandArgs = Arrays.copyOfRange(args, 1, args.length);
-        CroissantCommand subcommand = this.subcommands.get(subcommandAlias);
-        return subcommand.execute(sender, subcommandAlias, subcommandArgs);
-    }
+    /**
+     * Takes a token from a rate limiter for a command sender, or sends them the
+     * rate limited message of the command's handler if there is none left.
+     *
+     * @return if the command sender is allowed to go on with the command call
+     */
+    private boolean tryToAcquire(RateLimiter limiter, CommandSender sender) {
+        if (limiter == null || !(sender instanceof Entity)) {
+            return true;
+        }
 
-    private ArgumentType getArgumentType(Class<?> paramType) {
-        Class<?> superParamType = paramType;
-        ArgumentType argType;
+        long wait = limiter.tryAcquire(((Entity) sender).getUniqueId());
 
-        do {
-            argType = this.handler.getArgumentTypes().get(Primitives.wrap(superParamType));
-            superParamType = superParamType.getSuperclass();
-        } while (argType == null && superParamType != null);
+        if (wait == 0) {
+            return true;
+        }
 
-        if (argType == null) {
-            throw new IllegalStateException("Command handler of command '" + super.getLabel() +
-                "' has no argument type bound to " + paramType + " or any of its superclasses");
+        // Rounding up, so that senders are never told to wait 0 seconds
+        long seconds = (wait + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+        sender.sendMessage(this.handler.getRateLimitedMessage().replace("{seconds}",
+            Long.toString(seconds)));
+        return false;
+    }
+
+    private ExecutionStatus executeSubcommand(CommandSender sender, CroissantCommand subcommand,
+                                              ArgumentCursor cursor, long start) {
+        String subcommandAlias = cursor.next();
+        return subcommand.execute(sender, subcommandAlias, cursor, start);
+    }
+
+    /**
+     * Resolves a raw argument, or starts resolving it if the resolver is
+     * asynchronous and the call can resolve arguments asynchronously.
+     *
+     * @param element the index of the argument in the slot's varargs array, or
+     *                {@code -1} if the slot is not a varargs slot
+     * @return the resolved argument, {@link AsyncResolution#PENDING} if it is
+     *         being resolved, or {@code null} if it could not be resolved
+     */
+    private Object resolveValue(ArgumentResolver<?> resolver, ParameterSlot slot, int element,
+                                String value, CommandSender sender, ArgumentCursor cursor,
+                                AsyncResolution resolution) {
+        if (resolution == null || !(resolver instanceof AsyncArgumentResolver)) {
+            return resolver.resolve(cursor.argument(slot.getParameter(), value, sender));
         }
 
-        return argType;
+        // The resolver can retain the argument, so the cursor's reused
+        // argument cannot be passed to it
+        Argument argument = new Argument(slot.getParameter(), value, sender);
+        resolution.add(slot, element, value,
+            ((AsyncArgumentResolver<?>) resolver).resolveAsync(argument));
+        return AsyncResolution.PENDING;
     }
 
     @SuppressWarnings("unchecked")
-    private <T> T[] resolveVarArgs(Parameter param, Deque<String> args, CommandSender sender,
-                                   ArgumentResolver<?> resolver) {
-        Class<?> paramType = CroissantUtil.getParameterType(param);
-        T[] array = (T[]) Array.newInstance(Primitives.wrap(paramType), args.size());
+    private <T> T[] resolveVarArgs(ParameterSlot slot, ArgumentCursor cursor, CommandSender sender,
+                                   ArgumentResolver<?> resolver, AsyncResolution resolution) {
+        T[] array = (T[]) Array.newInstance(slot.getType(), cursor.remaining());
 
-        for (int i = 0; !args.isEmpty(); i++) {
-            array[i] = (T) resolver.resolve(new Argument(param, args.getFirst(), sender));
+        for (int i = 0; cursor.hasRemaining(); i++) {
+            Object resolved = this.resolveValue(resolver, slot, i, cursor.peek(), sender, cursor,
+                resolution);
 
-            if (array[i] == null) {
+            if (resolved == null) {
                 return null;
+            } else if (resolved != AsyncResolution.PENDING) {
+                array[i] = (T) resolved;
             }
 
-            args.pop();
+            cursor.skip();
         }
 
         return array;
     }
 
-    private String resolveRestToString(Deque<String> args) {
-        StringBuilder builder = new StringBuilder(args.pop());
+    private Object resolveArgument(CommandSender sender, String alias, ParameterSlot slot,
+                                   ArgumentCursor cursor, AsyncResolution resolution) {
+        ArgumentType argType = slot.getArgumentType();
+        ArgumentResolver<?> resolver = argType.getResolver();
+        Object resolved;
 
-        while (!args.isEmpty()) {
-            builder.append(" ").append(args.pop());
+        switch (slot.getKind()) {
+            case VARARGS:
+                resolved = this.resolveVarArgs(slot, cursor, sender, resolver, resolution);
+                break;
+            case REST:
+                resolved = cursor.joinRemaining();
+                break;
+            default:
+                resolved = this.resolveValue(resolver, slot, -1, cursor.peek(), sender, cursor,
+                    resolution);
+                break;
         }
 
-        return builder.toString();
-    }
+        if (resolved == null) {
+            this.sendResolutionError(sender, alias, argType, cursor.peek());
+        }
 
-    private Object resolveArgument(CommandSender sender, String alias, Parameter param,
-                                   Deque<String> args) {
-        Class<?> paramType = CroissantUtil.getParameterType(param);
-        ArgumentType argType = this.getArgumentType(paramType);
-        ArgumentResolver<?> resolver = argType.getResolver();
-        Object resolved;
+        cursor.skip();
+        return resolved;
+    }
 
-        if (param.isVarArgs()) {
-            resolved = this.resolveVarArgs(param, args, sender, resolver);
-        } else if (paramType == String.class && param.isAnnotationPresent(Rest.class)) {
-            resolved = this.resolveRestToString(args);
+    private void sendResolutionError(CommandSender sender, String alias, ArgumentType argType,
+                                     String value) {
+        if (argType.getErrorMessage() == null) {
+            this.sendUsage(sender, alias);
         } else {
-            resolved = resolver.resolve(new Argument(param, args.getFirst(), sender));
+            sender.sendMessage(argType.getErrorMessage().replace("{value}", value));
         }
+    }
 
-        if (resolved == null) {
-            if (argType.getErrorMessage() == null) {
+    /**
+     * Sends the error message of every argument that could not be resolved
+     * asynchronously, or the usage message once if an argument type has no
+     * error message. The exceptions thrown by resolvers are logged, and the
+     * usage message is sent once for them too, since the value itself may be
+     * valid.
+     */
+    private void sendResolutionErrors(CommandSender sender, String alias,
+                                      List<AsyncResolution.Failure> failures) {
+        boolean usageSent = false;
+
+        for (AsyncResolution.Failure failure : failures) {
+            if (failure.getCause() != null) {
+                Croissant.getPlugin().getLogger().log(Level.SEVERE, "Unhandled exception " +
+                    "resolving argument '" + failure.getValue() + "' of command '" + alias +
+                    "' in plugin " + this.getPlugin().getDescription().getFullName(),
+                    failure.getCause());
+            }
+
+            if (failure.getCause() == null && failure.getType().getErrorMessage() != null) {
+                this.sendResolutionError(sender, alias, failure.getType(), failure.getValue());
+            } else if (!usageSent) {
                 this.sendUsage(sender, alias);
-            } else {
-                sender.sendMessage(argType.getErrorMessage().replace("{value}", args.getFirst()));
+                usageSent = true;
             }
         }
+    }
+
+    /**
+     * Resolves the values of the options that were stored in the array of
+     * executor method arguments when the flags and options of the call were
+     * scanned, and sets the flags that were not provided to {@code false}.
+     */
+    private boolean resolveNamedArguments(NamedArgumentTable namedArgs, CommandSender sender,
+                                          String alias, ArgumentCursor cursor,
+                                          Object[] executorArgs, AsyncResolution resolution) {
+        for (ParameterSlot slot : namedArgs.getSlots()) {
+            int index = slot.getIndex();
+
+            if (slot.getKind() == ParameterSlot.Kind.FLAG) {
+                if (executorArgs[index] == null) {
+                    executorArgs[index] = Boolean.FALSE;
+                }
+
+                continue;
+            }
+
+            String value = executorArgs[index] == null ? slot.getDefaultValue() :
+                (String) executorArgs[index];
+
+            if (value == null) {
+                continue;
+            }
+
+            ArgumentType argType = slot.getArgumentType();
+            executorArgs[index] = this.resolveValue(argType.getResolver(), slot, -1, value,
+                sender, cursor, resolution);
 
-        if (!args.isEmpty()) {
-            args.pop();
+            if (executorArgs[index] == null) {
+                this.sendResolutionError(sender, alias, argType, value);
+                return false;
+            }
         }
 
-        return resolved;
+        return true;
     }
 
-    private Object[] makeExecutorArguments(CommandSender sender, String alias, Deque<String> args) {
-        Parameter[] params = this.executor.getParameters();
-        Object[] executorArgs = new Object[params.length];
+    private Object[] makeExecutorArguments(ExecutionPlan plan, CommandSender sender, String alias,
+                                           ArgumentCursor cursor, AsyncResolution resolution) {
+        Object[] executorArgs = cursor.executorArguments(plan.getParameterCount());
         executorArgs[0] = sender;
 
         // Resolving command arguments into executor method arguments
-        for (int i = 1; i < params.length; i++) {
-            Parameter param = params[i];
-
-            if (args.isEmpty()) {
-                if (param.isAnnotationPresent(Optional.class)) {
+        for (ParameterSlot slot : plan.getSlots()) {
+            if (!cursor.hasRemaining()) {
+                if (slot.isOptional()) {
                     break;
-                } else if (param.isAnnotationPresent(Default.class)) {
-                    args.push(param.getAnnotation(Default.class).value());
+                } else if (slot.getDefaultValue() != null) {
+                    cursor.push(slot.getDefaultValue());
+                } else {
+                    // A required argument follows an optional argument that was
+                    // provided, but it was not provided itself
+                    this.sendUsage(sender, alias);
+                    return null;
                 }
             }
 
-            executorArgs[i] = this.resolveArgument(sender, alias, param, args);
+            executorArgs[slot.getIndex()] = this.resolveArgument(sender, alias, slot, cursor,
+                resolution);
 
-            if (executorArgs[i] == null) {
+            if (executorArgs[slot.getIndex()] == null) {
                 // Argument could not be resolved
                 return null;
             }
         }
 
+        NamedArgumentTable namedArgs = plan.getNamedArguments();
+
+        if (namedArgs != null &&
+            !this.resolveNamedArguments(namedArgs, sender, alias, cursor, executorArgs,
+                resolution)) {
+            return null;
+        }
+
+        return executorArgs;
+    }
+
+    /**
+     * Resolves the arguments of a call, or takes them from the command's
+     * argument cache if the exact same call was cached. Arguments whose
+     * resolvers are asynchronous start being resolved if a resolution is
+     * given.
+     */
+    private Object[] resolveExecutorArguments(ExecutionPlan plan, CommandSender sender,
+                                              String alias, ArgumentCursor cursor,
+                                              AsyncResolution resolution) {
+        ArgumentCache cache = this.argumentCache;
+
+        if (cache == null || !plan.isCacheable()) {
+            return this.makeExecutorArguments(plan, sender, alias, cursor, resolution);
+        }
+
+        ArgumentCache.Key key = new ArgumentCache.Key(sender, cursor.copyRemaining());
+        Object[] executorArgs = cursor.executorArguments(plan.getParameterCount());
+
+        if (cache.fill(plan, key, executorArgs)) {
+            executorArgs[0] = sender;
+            return executorArgs;
+        }
+
+        executorArgs = this.makeExecutorArguments(plan, sender, alias, cursor, null);
+
+        if (executorArgs != null) {
+            cache.put(plan, key, executorArgs);
+        }
+
         return executorArgs;
     }
 
-    private void tryToInvokeExecutor(String alias, Object... params) {
+    Object invokeExecutor(Object[] params) throws Throwable {
+        return this.dispatcher.dispatch(this, params);
+    }
+
+    private void tryToInvokeExecutor(CommandSender sender, String alias, Object[] params) {
+        Object result;
+
         try {
-            this.executor.invoke(this, params);
-        } catch (IllegalAccessException e) {
-            throw new CommandException("Cannot access executor method of command '" + alias +
-                "' in plugin " + this.getPlugin().getDescription().getFullName(), e);
-        } catch (InvocationTargetException e) {
+            result = this.invokeExecutor(params);
+        } catch (Throwable e) {
             throw new CommandException("Unhandled exception executing command '" + alias +
                 "' in plugin " + this.getPlugin().getDescription().getFullName(), e);
         }
+
+        if (result instanceof CompletionStage) {
+            this.handler.getAsyncExecutions().track(this, alias, sender,
+                (CompletionStage<?>) result);
+        }
+    }
+
+    /**
+     * Waits for the arguments of a call that are resolved asynchronously, then
+     * calls the executor method on the main server thread, or submits it to
+     * the asynchronous executor of the command's handler if it is
+     * {@link Async}. The pending resolution counts as an asynchronous
+     * execution, which is cancelled if the command sender leaves the server.
+     */
+    private void awaitExecutorArguments(CommandSender sender, String alias,
+                                        AsyncResolution resolution, Object[] executorArgs,
+                                        ExecutionPlan plan, String[] usedValues, long start) {
+        CompletableFuture<Void> all = resolution.all();
+        this.handler.getAsyncExecutions().track(this, alias, sender, all);
+        all.whenComplete((result, e) -> ServerUtil.runOnMainThread(() -> {
+            if (all.isCancelled()) {
+                resolution.cancel();
+                return;
+            }
+
+            List<AsyncResolution.Failure> failures = resolution.fill(executorArgs);
+
+            if (!failures.isEmpty()) {
+                this.resolutionFailures.record(System.nanoTime() - start);
+                this.sendResolutionErrors(sender, alias, failures);
+                return;
+            }
+
+            this.recordUsage(plan, usedValues);
+
+            if (this.dispatcher.isAsync()) {
+                this.handler.getAsyncExecutions().submit(this, alias, sender, executorArgs);
+            } else {
+                this.tryToInvokeExecutor(sender, alias, executorArgs);
+            }
+        }));
+    }
+
+    /**
+     * Returns the raw values of the regular arguments of a call before they
+     * are resolved, to count their usage once they are.
+     */
+    private static String[] peekRegularArguments(ExecutionPlan plan, ArgumentCursor cursor) {
+        ParameterSlot[] slots = plan.getSlots();
+        String[] values = new String[Math.min(slots.length, cursor.remaining())];
+
+        for (int i = 0; i < values.length; i++) {
+            if (slots[i].getKind() == ParameterSlot.Kind.REGULAR) {
+                values[i] = cursor.peek(i);
+            }
+        }
+
+        return values;
+    }
+
+    private void recordUsage(ExecutionPlan plan, String[] usedValues) {
+        if (usedValues == null) {
+            return;
+        }
+
+        ParameterSlot[] slots = plan.getSlots();
+
+        for (int i = 0; i < usedValues.length; i++) {
+            if (usedValues[i] != null) {
+                this.handler.getUsageCounts().record(this, slots[i].getIndex(), usedValues[i]);
+            }
+        }
     }
 
     /**
@@ -376,85 +763,312 @@ public class CroissantCommand extends Command implements PluginIdentifiableComma
     @SuppressWarnings("NullableProblems")
     @Override
     public boolean execute(CommandSender sender, String alias, String[] args) {
+        // The server split the arguments on spaces, which breaks quoted ones
+        return this.execute(sender, alias, CommandLine.of(args, false), 0) !=
+            ExecutionStatus.INVALID_ARGUMENTS;
+    }
+
+    /**
+     * Executes the command with the tokens of a command line, starting at the
+     * given token.
+     *
+     * @return whether the call was executed, or why it was rejected
+     */
+    ExecutionStatus execute(CommandSender sender, String alias, CommandLine args, int from) {
+        long start = System.nanoTime();
+        ArgumentCursor cursor = ArgumentCursor.acquire(args, from);
+
+        try {
+            return this.execute(sender, alias, cursor, start);
+        } finally {
+            cursor.release();
+        }
+    }
+
+    /**
+     * Executes the command, recording the time elapsed since {@code start} in
+     * the statistics of the command that handles the call.
+     */
+    private ExecutionStatus execute(CommandSender sender, String alias, ArgumentCursor cursor,
+                                    long start) {
         if (this.playerOnly && !(sender instanceof Player)) {
             sender.sendMessage(this.handler.getPlayerOnlyMessage());
-            return true;
+            return ExecutionStatus.PLAYER_ONLY;
         }
 
         if (!super.testPermission(sender)) {
-            return true;
+            return ExecutionStatus.NO_PERMISSION;
         }
 
-        if (args.length > 0 && this.subcommands.containsKey(args[0])) {
-            return this.executeSubcommand(sender, args);
+        if (!this.tryToAcquire(this.commandLimiter, sender)) {
+            return ExecutionStatus.RATE_LIMITED;
         }
 
-        if (this.executor == null) {
-            return true;
+        if (cursor.hasRemaining()) {
+            CroissantCommand subcommand = this.subcommands.get(cursor.peek());
+
+            if (subcommand != null) {
+                if (this.handler.isUsageRankingEnabled()) {
+                    this.handler.getUsageCounts().record(this, UsageCounts.SUBCOMMANDS,
+                        cursor.peek());
+                }
+
+                return this.executeSubcommand(sender, subcommand, cursor, start);
+            }
         }
 
-        Deque<String> argsDeque = new ArrayDeque<>(Arrays.asList(args));
+        if (this.dispatcher == null) {
+            return ExecutionStatus.NOT_EXECUTABLE;
+        }
 
-        if (argsDeque.size() < this.requiredArgs) {
-            this.sendUsage(sender, alias);
-            return false;
+        if (!this.tryToAcquire(this.executorLimiter, sender)) {
+            return ExecutionStatus.RATE_LIMITED;
         }
 
-        Object[] executorArgs = this.makeExecutorArguments(sender, alias, argsDeque);
+        ExecutionPlan plan = this.getPlan();
+        NamedArgumentTable namedArgs = plan.getNamedArguments();
 
-        if (executorArgs == null) {
-            return false;
+        if (namedArgs != null) {
+            // Flags and options are not counted as regular arguments, and the
+            // values of options are resolved along with the other arguments
+            namedArgs.scan(cursor, cursor.executorArguments(plan.getParameterCount()),
+                cursor.getCommandLine().size());
         }
 
-        this.tryToInvokeExecutor(alias, executorArgs);
-        return true;
-    }
+        if (cursor.remaining() < plan.getRequiredArgs()) {
+            this.sendUsage(sender, alias);
+            this.resolutionFailures.record(System.nanoTime() - start);
+            return ExecutionStatus.INVALID_ARGUMENTS;
+        }
+
+        String[] usedValues = this.handler.isUsageRankingEnabled() ?
+            peekRegularArguments(plan, cursor) : null;
+        AsyncResolution resolution = plan.hasAsyncResolvers() ? new AsyncResolution() : null;
+        Object[] executorArgs = this.resolveExecutorArguments(plan, sender, alias, cursor,
+            resolution);
+
+        if (executorArgs == null) {
+            if (resolution != null) {
+                resolution.cancel();
+            }
 
-    private List<String> tabCompleteSubcommand(String value) {
-        List<String> completions = new ArrayList<>();
+            this.resolutionFailures.record(System.nanoTime() - start);
+            return ExecutionStatus.INVALID_ARGUMENTS;
+        }
 
-        for (String subcommandName : this.subcommands.keySet()) {
-            if (StringUtil.startsWithIgnoreCase(subcommandName, value)) {
-                completions.add(subcommandName);
+        try {
+            if (resolution != null && !resolution.isEmpty()) {
+                // The cursor's array of executor method arguments gets reused
+                this.awaitExecutorArguments(sender, alias, resolution, executorArgs.clone(),
+                    plan, usedValues, start);
+            } else if (this.dispatcher.isAsync()) {
+                this.recordUsage(plan, usedValues);
+                // The cursor's array of executor method arguments gets reused
+                this.handler.getAsyncExecutions().submit(this, alias, sender,
+                    executorArgs.clone());
+            } else {
+                this.recordUsage(plan, usedValues);
+                this.tryToInvokeExecutor(sender, alias, executorArgs);
             }
+        } finally {
+            this.executions.record(System.nanoTime() - start);
         }
 
-        completions.sort(String.CASE_INSENSITIVE_ORDER);
-        return completions;
+        return ExecutionStatus.EXECUTED;
     }
 
-    private List<String> tabCompleteSubcommandArgument(CommandSender sender, String[] args) {
-        String subcommandAlias = args[0];
+    private List<String> tabCompleteSubcommandArgument(CommandSender sender,
+                                                       ArgumentCursor cursor, long start) {
+        String subcommandAlias = cursor.next();
         CroissantCommand subcommand = this.subcommands.get(subcommandAlias);
 
         if (subcommand == null) {
+            this.tabCompletions.record(System.nanoTime() - start);
             return Collections.emptyList();
         }
 
-        String[] subcommandArgs = Arrays.copyOfRange(args, 1, args.length);
-        return subcommand.tabComplete(sender, subcommandAlias, subcommandArgs);
+        return subcommand.tabComplete(sender, cursor, start);
     }
 
-    private List<String> tabCompleteArgument(CommandSender sender, String[] args) {
-        Parameter[] executorParams = this.executor.getParameters();
-        // The executor method parameter that corresponds to the argument to complete
-        Parameter param;
+    private List<String> tabCompleteSubcommandAlias(String alias) {
+        List<String> completions;
+
+        if (!this.handler.isFuzzyCompletionEnabled()) {
+            // Already sorted by the trie
+            completions = this.subcommands.complete(alias);
+        } else {
+            CompletionSink sink = new CompletionSink(this.handler.getCompletionLimit(), true,
+                this.getRanking(UsageCounts.SUBCOMMANDS));
+            this.subcommands.getFuzzyIndex().complete(alias, sink);
+            // Already ranked by the sink, which dropped the least used matches
+            return sink.toList();
+        }
+
+        if (!this.handler.isUsageRankingEnabled()) {
+            return completions;
+        }
+
+        return this.handler.getUsageCounts().rank(this, UsageCounts.SUBCOMMANDS, completions);
+    }
+
+    private List<String> tabCompleteArgument(CommandSender sender, ArgumentCursor cursor) {
+        if (this.dispatcher == null || !cursor.hasRemaining()) {
+            return Collections.emptyList();
+        }
+
+        ExecutionPlan plan = this.getPlan();
+        NamedArgumentTable namedArgs = plan.getNamedArguments();
+
+        if (namedArgs != null) {
+            List<String> completions = this.tabCompleteNamedArgument(sender, namedArgs, cursor);
+
+            if (completions == null || !completions.isEmpty()) {
+                return completions;
+            }
+        }
+
+        ParameterSlot[] slots = plan.getSlots();
+        int argIndex = cursor.remaining() - 1;
+        // The executor method parameter slot that corresponds to the argument to complete
+        ParameterSlot slot;
 
-        if (args.length >= executorParams.length) {
-            param = executorParams[executorParams.length - 1];
-            boolean isRestAnnotatedString = param.getType() == String.class &&
-                param.isAnnotationPresent(Rest.class);
+        if (argIndex >= slots.length) {
+            boolean consumesRemainingArgs = slots.length > 0 &&
+                slots[slots.length - 1].getKind() != ParameterSlot.Kind.REGULAR;
 
-            if (!param.isVarArgs() && !isRestAnnotatedString) {
+            if (!consumesRemainingArgs) {
                 // Unexpected argument, cannot suggest completions
                 return Collections.emptyList();
             }
+
+            slot = slots[slots.length - 1];
         } else {
-            param = executorParams[args.length];
+            slot = slots[argIndex];
+        }
+
+        List<String> values = this.tabCompleteValue(sender, slot, cursor, cursor.last());
+        return toSuggestions(cursor.getCommandLine(), "", values);
+    }
+
+    /**
+     * Excludes the flags and options that were already provided from the
+     * remaining arguments, and suggests the ones that were not if the argument
+     * to complete starts with a dash, or values if it is an option.
+     */
+    private List<String> tabCompleteNamedArgument(CommandSender sender,
+                                                  NamedArgumentTable namedArgs,
+                                                  ArgumentCursor cursor) {
+        CommandLine line = cursor.getCommandLine();
+        int last = line.size() - 1;
+        long found = namedArgs.scan(cursor, null, last);
+        String token = line.get(last);
+
+        if (line.isQuoted(last) || !token.startsWith("-")) {
+            return Collections.emptyList();
+        }
+
+        int equals = token.indexOf('=');
+
+        if (equals < 0) {
+            return namedArgs.complete(token, found);
+        }
+
+        int index = namedArgs.indexOf(token);
+
+        if (index < 0) {
+            return Collections.emptyList();
+        }
+
+        List<String> values = this.tabCompleteValue(sender, namedArgs.getSlot(index), cursor,
+            token.substring(equals + 1));
+        return toSuggestions(line, token.substring(0, equals + 1), values);
+    }
+
+    /**
+     * Turns the completions of the value of the last argument into the text
+     * that the client suggests. Values are quoted if they contain spaces or
+     * quotes, or if the value being completed was quoted. The client only
+     * replaces the text after the last space that was typed, so only the part
+     * of each suggestion after that space is returned, and completions that do
+     * not start like the text typed before that space are dropped.
+     *
+     * @param line   the command line being completed
+     * @param prefix the text of the last argument before its value, such as
+     *               the name of an option followed by {@code =}
+     * @param values the completions of the value
+     */
+    private static List<String> toSuggestions(CommandLine line, String prefix,
+                                              List<String> values) {
+        if (values == null) {
+            return null;
+        }
+
+        String typed = line.getRest(line.size() - 1);
+        int replaced = typed.lastIndexOf(' ') + 1;
+        boolean quoted = typed.startsWith("\"", prefix.length());
+
+        if (replaced == 0 && !quoted && prefix.isEmpty() && !anyNeedsQuotes(values)) {
+            return values;
+        }
+
+        List<String> suggestions = new ArrayList<>(values.size());
+
+        for (String value : values) {
+            String suggestion = prefix + CommandLine.quote(value, quoted);
+
+            if (suggestion.regionMatches(true, 0, typed, 0, replaced)) {
+                suggestions.add(suggestion.substring(replaced));
+            }
+        }
+
+        return suggestions;
+    }
+
+    private static boolean anyNeedsQuotes(List<String> values) {
+        for (String value : values) {
+            if (value.indexOf(' ') >= 0 || value.indexOf('"') >= 0) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the comparator of the completions of an argument by usage count,
+     * for completion sinks to keep the most used ones, or {@code null} if
+     * usage ranking is disabled.
+     */
+    private Comparator<String> getRanking(int index) {
+        if (!this.handler.isUsageRankingEnabled()) {
+            return null;
         }
 
-        Class<?> paramType = CroissantUtil.getParameterType(param);
-        ArgumentCompleter completer = this.getArgumentType(paramType).getCompleter();
+        return this.handler.getUsageCounts().ranking(this, index);
+    }
+
+    private List<String> tabCompleteValue(CommandSender sender, ParameterSlot slot,
+                                          ArgumentCursor cursor, String value) {
+        List<String> completions = this.completeValue(sender, slot, cursor, value);
+
+        if (completions == null || !this.handler.isUsageRankingEnabled()) {
+            return completions;
+        }
+
+        // Completion sinks already ranked the completions they kept, but
+        // completers that return lists and cached completions did not
+        return this.handler.getUsageCounts().rank(this, slot.getIndex(), completions);
+    }
+
+    /**
+     * Completes the value of an argument.
+     *
+     * @return the completions, or {@code null} if they can only be computed on
+     *         the main server thread
+     */
+    private List<String> completeValue(CommandSender sender, ParameterSlot slot,
+                                       ArgumentCursor cursor, String value) {
+        ArgumentCompleter completer = slot.getArgumentType().getCompleter();
         ArgumentCompleter playerCompleter = BuiltInArgumentType.PLAYER
             .getArgumentType().getCompleter();
 
@@ -462,7 +1076,101 @@ public class CroissantCommand extends Command implements PluginIdentifiableComma
             return Collections.emptyList();
         }
 
-        return completer.complete(new Argument(param, args[args.length - 1], sender));
+        CompletionCache cache = this.completionCache;
+        UUID key = sender instanceof Entity ? ((Entity) sender).getUniqueId() : null;
+        List<String> completions = cache == null || key == null ? null :
+            cache.get(key, slot, value);
+
+        if (completions != null) {
+            return completions;
+        }
+
+        if (completer instanceof StreamingArgumentCompleter) {
+            CompletionSink sink = new CompletionSink(this.handler.getCompletionLimit(),
+                this.handler.isFuzzyCompletionEnabled(), this.getRanking(slot.getIndex()));
+            ((StreamingArgumentCompleter) completer).complete(
+                cursor.argument(slot.getParameter(), value, sender), sink);
+
+            if (sink.isMainThreadRequired()) {
+                return null;
+            }
+
+            completions = sink.toList();
+
+            if (sink.isTruncated() || sink.isFuzzy()) {
+                // Narrowing these completions down would miss the dropped ones,
+                // or the ones that do not start with the value
+                return completions;
+            }
+        } else {
+            completions = this.callCompleter(completer, slot, cursor, value, sender);
+        }
+
+        if (completions == null) {
+            // Completions that are not available are not cached
+            return Collections.emptyList();
+        }
+
+        if (cache != null && key != null) {
+            cache.put(key, slot, value, completions);
+        }
+
+        return completions;
+    }
+
+    /**
+     * Calls an argument completer, waiting for the completions of an
+     * asynchronous completer until the deadline of the command's handler.
+     *
+     * @return the completions, or {@code null} if they are not available
+     */
+    private List<String> callCompleter(ArgumentCompleter completer, ParameterSlot slot,
+                                       ArgumentCursor cursor, String value,
+                                       CommandSender sender) {
+        if (!(completer instanceof AsyncArgumentCompleter)) {
+            return completer.complete(cursor.argument(slot.getParameter(), value, sender));
+        }
+
+        // The completer can retain the argument, so the cursor's reused
+        // argument cannot be passed to it
+        Argument argument = new Argument(slot.getParameter(), value, sender);
+        CompletableFuture<List<String>> future =
+            ((AsyncArgumentCompleter) completer).completeAsync(argument);
+        List<String> completions = this.handler.awaitCompletions(this, future);
+
+        if (completions == null && !future.isDone()) {
+            // The request was handled on the main thread, which does not wait
+            this.cacheLateCompletions(future, slot, value, sender);
+        }
+
+        return completions;
+    }
+
+    /**
+     * Caches the completions of an asynchronous completer when they arrive
+     * after a tab-completion request, so that they can be narrowed down for
+     * the command sender's next request. The future is cancelled if the
+     * completions cannot be cached.
+     */
+    private void cacheLateCompletions(CompletableFuture<List<String>> future,
+                                      ParameterSlot slot, String value,
+                                      CommandSender sender) {
+        CompletionCache cache = this.completionCache;
+
+        if (cache == null || !(sender instanceof Entity)) {
+            future.cancel(false);
+            return;
+        }
+
+        UUID key = ((Entity) sender).getUniqueId();
+        future.whenComplete((completions, cause) -> {
+            if (completions != null) {
+                cache.put(key, slot, value, completions);
+            } else if (cause != null && !(cause instanceof CancellationException)) {
+                this.handler.logCompletionFailure(this,
+                    cause instanceof CompletionException ? cause.getCause() : cause);
+            }
+        });
     }
 
     /**
@@ -476,15 +1184,48 @@ public class CroissantCommand extends Command implements PluginIdentifiableComma
     @SuppressWarnings("NullableProblems")
     @Override
     public List<String> tabComplete(CommandSender sender, String alias, String[] args) {
-        if (this.subcommands.size() > 0) {
-            if (args.length > 1) {
-                return this.tabCompleteSubcommandArgument(sender, args);
-            } else {
-                return this.tabCompleteSubcommand(args[0]);
+        List<String> completions = this.tabComplete(sender, CommandLine.of(args, true), 0);
+        return completions == null ? Collections.emptyList() : completions;
+    }
+
+    /**
+     * Suggests completions for the last token of a command line, whose
+     * arguments start at the given token.
+     *
+     * @return the completions, or {@code null} if they can only be computed on
+     *         the main server thread
+     */
+    List<String> tabComplete(CommandSender sender, CommandLine args, int from) {
+        long start = System.nanoTime();
+        ArgumentCursor cursor = ArgumentCursor.acquire(args, from);
+
+        try {
+            return this.tabComplete(sender, cursor, start);
+        } finally {
+            cursor.release();
+        }
+    }
+
+    /**
+     * Suggests completions for a command argument, recording the time elapsed
+     * since {@code start} in the statistics of the command that handles the
+     * call.
+     */
+    private List<String> tabComplete(CommandSender sender, ArgumentCursor cursor, long start) {
+        List<String> completions;
+
+        if (!this.subcommands.isEmpty()) {
+            if (cursor.remaining() > 1) {
+                return this.tabCompleteSubcommandArgument(sender, cursor, start);
             }
+
+            completions = this.tabCompleteSubcommandAlias(cursor.last());
+        } else {
+            completions = this.tabCompleteArgument(sender, cursor);
         }
 
-        return this.tabCompleteArgument(sender, args);
+        this.tabCompletions.record(System.nanoTime() - start);
+        return completions;
     }
 
 }
@@ -0,0 +1,216 @@
+package com.github.overmighty.croissant.command;
+
+import com.github.overmighty.croissant.command.argument.ArgumentType;
+import com.google.common.primitives.Primitives;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The immutable execution plan of a {@link CroissantCommand}, compiled from the
+ * {@link CommandDispatcher} of its executor method and the argument types of
+ * its {@link CommandHandler}, so that executing and tab-completing the command
+ * does not require inspecting the executor method's parameters every time.
+ * <p>
+ * A plan is bound to the snapshot of argument types it was compiled against,
+ * and must be recompiled when it is replaced (see
+ * {@link ExecutionPlan#isCurrent(CommandHandler)}).
+ */
+final class ExecutionPlan {
+
+    private final CommandHandler handler;
+    private final Map<Class<?>, ArgumentType> argumentTypes;
+    private final int parameterCount;
+    private final ParameterSlot[] slots;
+    private final NamedArgumentTable namedArguments;
+    private final int requiredArgs;
+    private final boolean cacheable;
+    private final boolean async;
+
+    private ExecutionPlan(CommandHandler handler, Map<Class<?>, ArgumentType> argumentTypes,
+                          int parameterCount, ParameterSlot[] slots,
+                          NamedArgumentTable namedArguments, int requiredArgs,
+                          boolean cacheable, boolean async) {
+        this.handler = handler;
+        this.argumentTypes = argumentTypes;
+        this.parameterCount = parameterCount;
+        this.slots = slots;
+        this.namedArguments = namedArguments;
+        this.requiredArgs = requiredArgs;
+        this.cacheable = cacheable;
+        this.async = async;
+    }
+
+    /**
+     * Compiles the execution plan of a command.
+     *
+     * @param command    the command
+     * @param dispatcher the dispatcher of the command's executor method
+     * @param handler    the command's handler
+     * @return the command's execution plan
+     */
+    static ExecutionPlan compile(CroissantCommand command, CommandDispatcher<?> dispatcher,
+                                 CommandHandler handler) {
+        // All slots are compiled against the same immutable snapshot, even if
+        // argument types are registered concurrently
+        ArgumentTypeLookup argumentTypes = handler.getArgumentTypeRegistry().lookup();
+        List<ParameterSlot> slots = new ArrayList<>();
+        List<ParameterSlot> named = new ArrayList<>();
+        int requiredArgs = 0;
+        boolean foundOptional = false;
+        boolean cacheable = true;
+        boolean async = false;
+
+        // The first parameter is the command sender, which is not an argument
+        for (int i = 1; i < dispatcher.getParameterCount(); i++) {
+            ParameterSlot slot = compileSlot(command, dispatcher, i, argumentTypes);
+            // @Rest slots join the remaining arguments without a resolver
+            cacheable &= slot.getKind() == ParameterSlot.Kind.REST || slot.isPure();
+            async |= slot.getKind() != ParameterSlot.Kind.REST && slot.isAsync();
+
+            if (slot.getKind().isNamed()) {
+                named.add(slot);
+                continue;
+            }
+
+            slots.add(slot);
+            foundOptional |= slot.isOptional() || slot.getDefaultValue() != null;
+
+            if (!foundOptional) {
+                requiredArgs++;
+            }
+        }
+
+        // Executor methods always take at least the command sender
+        int parameterCount = Math.max(dispatcher.getParameterCount(), 1);
+        return new ExecutionPlan(handler, argumentTypes.getArgumentTypes(), parameterCount,
+            slots.toArray(new ParameterSlot[0]), NamedArgumentTable.of(command, named),
+            requiredArgs, cacheable && !async, async);
+    }
+
+    private static ParameterSlot compileSlot(CroissantCommand command,
+                                             CommandDispatcher<?> dispatcher, int index,
+                                             ArgumentTypeLookup argumentTypes) {
+        Class<?> paramType = dispatcher.getParameterType(index);
+        ArgumentType argType = argumentTypes.find(paramType);
+        String missingArgTypeMessage = null;
+        ParameterSlot.Kind kind;
+
+        if (argType == null) {
+            missingArgTypeMessage = "Command handler of command '" + command.getLabel() +
+                "' has no argument type bound to " + paramType + " or any of its supertypes";
+        }
+
+        if (dispatcher.isFlag(index)) {
+            if (paramType != boolean.class && paramType != Boolean.class) {
+                throw new IllegalStateException("Flag '" + dispatcher.getParameterName(index) +
+                    "' of command '" + command.getLabel() + "' is not a boolean parameter");
+            }
+
+            kind = ParameterSlot.Kind.FLAG;
+        } else if (dispatcher.isOption(index)) {
+            if (paramType.isPrimitive() && dispatcher.getDefaultValue(index) == null) {
+                throw new IllegalStateException("Option '" + dispatcher.getParameterName(index) +
+                    "' of command '" + command.getLabel() + "' is a primitive parameter " +
+                    "without a default value");
+            }
+
+            kind = ParameterSlot.Kind.OPTION;
+        } else if (dispatcher.isVarArgs(index)) {
+            kind = ParameterSlot.Kind.VARARGS;
+        } else if (paramType == String.class && dispatcher.isRest(index)) {
+            kind = ParameterSlot.Kind.REST;
+        } else {
+            kind = ParameterSlot.Kind.REGULAR;
+        }
+
+        return new ParameterSlot(
+            dispatcher,
+            index,
+            Primitives.wrap(paramType),
+            argType,
+            missingArgTypeMessage,
+            kind,
+            dispatcher.isOptional(index),
+            dispatcher.getDefaultValue(index),
+            dispatcher.getParameterName(index)
+        );
+    }
+
+    /**
+     * Returns {@code true} if the plan was compiled against the current
+     * snapshot of the argument types of the given command handler, and
+     * {@code false} if it must be recompiled.
+     *
+     * @param handler the command's current handler
+     * @return if the plan is up to date
+     */
+    boolean isCurrent(CommandHandler handler) {
+        return this.handler == handler &&
+            this.argumentTypes == handler.getArgumentTypeRegistry().snapshot();
+    }
+
+    /**
+     * Returns the amount of parameters of the executor method, including the
+     * command sender parameter.
+     *
+     * @return the length of the array of executor method arguments
+     */
+    int getParameterCount() {
+        return parameterCount;
+    }
+
+    /**
+     * Returns the plan's positional argument slots, in the order of the
+     * executor method parameters that they represent. The command sender
+     * parameter, flags and options do not have a positional slot. The returned
+     * array must not be modified.
+     *
+     * @return the plan's positional argument slots
+     */
+    ParameterSlot[] getSlots() {
+        return slots;
+    }
+
+    /**
+     * Returns the lookup table of the flags and options of the executor method.
+     *
+     * @return the plan's flags and options, or {@code null} if there are none
+     */
+    NamedArgumentTable getNamedArguments() {
+        return namedArguments;
+    }
+
+    /**
+     * Returns {@code true} if the arguments resolved with this plan can be
+     * cached, which is the case if the argument types of all slots are pure
+     * and none of them resolves arguments asynchronously.
+     *
+     * @return if the plan's resolved arguments can be cached
+     */
+    boolean isCacheable() {
+        return cacheable;
+    }
+
+    /**
+     * Returns {@code true} if the argument type of a slot resolves arguments
+     * asynchronously (see {@link ParameterSlot#isAsync()}).
+     *
+     * @return if some of the plan's arguments are resolved asynchronously
+     */
+    boolean hasAsyncResolvers() {
+        return async;
+    }
+
+    /**
+     * Returns the amount of arguments that must be provided for the command to
+     * be executed.
+     *
+     * @return the amount of required arguments
+     */
+    int getRequiredArgs() {
+        return requiredArgs;
+    }
+
+}
@@ -0,0 +1,52 @@
+package com.github.overmighty.croissant.command;
+
+/**
+ * The outcome of a command call, which tells a call that was executed apart
+ * from one that was rejected before its executor method could be called.
+ *
+ * @see CommandBatch
+ */
+enum ExecutionStatus {
+
+    /**
+     * The executor method was called, or submitted to be called once the
+     * arguments are resolved or on an asynchronous thread.
+     */
+    EXECUTED(null),
+    /**
+     * The command is player-only and the command sender is not a player.
+     */
+    PLAYER_ONLY("Player-only command"),
+    /**
+     * The command sender does not have the permission of the command.
+     */
+    NO_PERMISSION("No permission"),
+    /**
+     * The command sender is rate limited.
+     */
+    RATE_LIMITED("Rate limited"),
+    /**
+     * The command has no executor method, and no subcommand was called.
+     */
+    NOT_EXECUTABLE("No executor method"),
+    /**
+     * The arguments are missing or could not be resolved.
+     */
+    INVALID_ARGUMENTS("Invalid arguments");
+
+    private final String failureReason;
+
+    ExecutionStatus(String failureReason) {
+        this.failureReason = failureReason;
+    }
+
+    /**
+     * Returns the reason why a call with this status failed.
+     *
+     * @return the failure reason, or {@code null} if the call was executed
+     */
+    String getFailureReason() {
+        return failureReason;
+    }
+
+}
@@ -0,0 +1,262 @@
+package com.github.overmighty.croissant.command;
+
+import com.google.common.primitives.Primitives;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Invokes the executor method of a {@link CroissantCommand} through an invoker
+ * that is bound once, when the command is constructed, instead of going
+ * through {@link Method#invoke(Object, Object...)} on every execution of the
+ * command.
+ * <p>
+ * When the JVM allows it (Java 9 and later), the invoker is a class generated
+ * by the {@link LambdaMetafactory}, which calls the executor method directly
+ * and can therefore be inlined by the JIT compiler. Otherwise, and for executor
+ * methods that take more than {@value #MAX_GENERATED_ARITY} parameters, the
+ * executor method is invoked through a {@link MethodHandle}. Executor methods
+ * that return a value, such as a {@link java.util.concurrent.CompletionStage},
+ * are invoked through {@link Method#invoke(Object, Object...)}, which is
+ * faster than a spreading method handle for them.
+ */
+final class ExecutorInvoker {
+
+    private static final int MAX_GENERATED_ARITY = 8;
+    private static final MethodType SPREADER_TYPE =
+        MethodType.methodType(Object.class, CroissantCommand.class, Object[].class);
+    private static final Method PRIVATE_LOOKUP_IN = findPrivateLookupIn();
+    private static final Class<?>[] FUNCTION_TYPES = {
+        Arity0.class,
+        Arity1.class,
+        Arity2.class,
+        Arity3.class,
+        Arity4.class,
+        Arity5.class,
+        Arity6.class,
+        Arity7.class,
+        Arity8.class
+    };
+
+    private final int arity;
+    private final Method returning;
+    private final Object function;
+    private final MethodHandle spreader;
+
+    /**
+     * Constructs a new {@code ExecutorInvoker}.
+     *
+     * @param executor the executor method to invoke; must be accessible
+     * @throws IllegalAccessException if the executor method is not accessible
+     */
+    ExecutorInvoker(Method executor) throws IllegalAccessException {
+        MethodHandle handle = MethodHandles.lookup().unreflect(executor).asFixedArity();
+        this.arity = executor.getParameterCount();
+
+        if (executor.getReturnType() != void.class) {
+            this.returning = executor;
+            this.function = null;
+            this.spreader = null;
+            return;
+        }
+
+        this.returning = null;
+        this.function = generateFunction(executor, handle);
+
+        if (this.function == null) {
+            // The resulting handle takes the command and an array of arguments
+            // that is spread into the parameters of the executor method, which
+            // unboxes primitive arguments, and returns null for void methods
+            this.spreader = handle.asSpreader(Object[].class, this.arity).asType(SPREADER_TYPE);
+        } else {
+            this.spreader = null;
+        }
+    }
+
+    private static Method findPrivateLookupIn() {
+        try {
+            return MethodHandles.class.getMethod("privateLookupIn", Class.class,
+                MethodHandles.Lookup.class);
+        } catch (NoSuchMethodException e) {
+            // Java 8
+            return null;
+        }
+    }
+
+    private static Object generateFunction(Method executor, MethodHandle handle) {
+        int arity = executor.getParameterCount();
+
+        if (PRIVATE_LOOKUP_IN == null || arity > MAX_GENERATED_ARITY) {
+            return null;
+        }
+
+        Class<?> functionType = FUNCTION_TYPES[arity];
+        Class<?>[] erasedParams = new Class<?>[arity + 1];
+        Class<?>[] instantiatedParams = new Class<?>[arity + 1];
+        erasedParams[0] = CroissantCommand.class;
+        instantiatedParams[0] = executor.getDeclaringClass();
+
+        for (int i = 0; i < arity; i++) {
+            erasedParams[i + 1] = Object.class;
+            instantiatedParams[i + 1] = Primitives.wrap(executor.getParameterTypes()[i]);
+        }
+
+        try {
+            // The generated class is defined in the executor method's class so
+            // that it can call the method even if it is not public
+            MethodHandles.Lookup lookup = (MethodHandles.Lookup) PRIVATE_LOOKUP_IN.invoke(null,
+                executor.getDeclaringClass(), MethodHandles.lookup());
+            CallSite site = LambdaMetafactory.metafactory(
+                lookup,
+                "invoke",
+                MethodType.methodType(functionType),
+                MethodType.methodType(void.class, erasedParams),
+                handle,
+                MethodType.methodType(void.class, instantiatedParams)
+            );
+            return site.getTarget().invoke();
+        } catch (Throwable e) {
+            // Fall back to invoking the executor method through a method handle
+            return null;
+        }
+    }
+
+    /**
+     * Invokes the executor method.
+     *
+     * @param command the command to invoke the executor method of
+     * @param args    the arguments to pass to the executor method, including
+     *                the command sender
+     * @return the value returned by the executor method, or {@code null} if it
+     *         does not return anything
+     * @throws Throwable anything thrown by the executor method
+     */
+    Object invoke(CroissantCommand command, Object[] args) throws Throwable {
+        if (this.returning != null) {
+            try {
+                return this.returning.invoke(command, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        if (this.function == null) {
+            return (Object) this.spreader.invokeExact(command, args);
+        }
+
+        switch (this.arity) {
+            case 0:
+                ((Arity0) this.function).invoke(command);
+                return null;
+            case 1:
+                ((Arity1) this.function).invoke(command, args[0]);
+                return null;
+            case 2:
+                ((Arity2) this.function).invoke(command, args[0], args[1]);
+                return null;
+            case 3:
+                ((Arity3) this.function).invoke(command, args[0], args[1], args[2]);
+                return null;
+            case 4:
+                ((Arity4) this.function).invoke(command, args[0], args[1], args[2], args[3]);
+                return null;
+            case 5:
+                ((Arity5) this.function).invoke(command, args[0], args[1], args[2], args[3],
+                    args[4]);
+                return null;
+            case 6:
+                ((Arity6) this.function).invoke(command, args[0], args[1], args[2], args[3],
+                    args[4], args[5]);
+                return null;
+            case 7:
+                ((Arity7) this.function).invoke(command, args[0], args[1], args[2], args[3],
+                    args[4], args[5], args[6]);
+                return null;
+            case 8:
+                ((Arity8) this.function).invoke(command, args[0], args[1], args[2], args[3],
+                    args[4], args[5], args[6], args[7]);
+                return null;
+            default:
+                throw new AssertionError(this.arity);
+        }
+    }
+
+    // The functional interfaces implemented by generated invokers, one for each
+    // supported executor method arity. They are public so that the classes
+    // generated in the packages of command classes can implement them
+
+    @FunctionalInterface
+    public interface Arity0 {
+
+        void invoke(CroissantCommand command) throws Throwable;
+
+    }
+
+    @FunctionalInterface
+    public interface Arity1 {
+
+        void invoke(CroissantCommand command, Object arg0) throws Throwable;
+
+    }
+
+    @FunctionalInterface
+    public interface Arity2 {
+
+        void invoke(CroissantCommand command, Object arg0, Object arg1) throws Throwable;
+
+    }
+
+    @FunctionalInterface
+    public interface Arity3 {
+
+        void invoke(CroissantCommand command, Object arg0, Object arg1, Object arg2)
+            throws Throwable;
+
+    }
+
+    @FunctionalInterface
+    public interface Arity4 {
+
+        void invoke(CroissantCommand command, Object arg0, Object arg1, Object arg2, Object arg3)
+            throws Throwable;
+
+    }
+
+    @FunctionalInterface
+    public interface Arity5 {
+
+        void invoke(CroissantCommand command, Object arg0, Object arg1, Object arg2, Object arg3,
+                    Object arg4) throws Throwable;
+
+    }
+
+    @FunctionalInterface
+    public interface Arity6 {
+
+        void invoke(CroissantCommand command, Object arg0, Object arg1, Object arg2, Object arg3,
+                    Object arg4, Object arg5) throws Throwable;
+
+    }
+
+    @FunctionalInterface
+    public interface Arity7 {
+
+        void invoke(CroissantCommand command, Object arg0, Object arg1, Object arg2, Object arg3,
+                    Object arg4, Object arg5, Object arg6) throws Throwable;
+
+    }
+
+    @FunctionalInterface
+    public interface Arity8 {
+
+        void invoke(CroissantCommand command, Object arg0, Object arg1, Object arg2, Object arg3,
+                    Object arg4, Object arg5, Object arg6, Object arg7) throws Throwable;
+
+    }
+
+}
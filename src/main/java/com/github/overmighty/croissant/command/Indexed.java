@@ -0,0 +1,24 @@
+package com.github.overmighty.croissant.command;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * A command class annotated with {@code Indexed} is listed in the command
+ * index that the Croissant annotation processor ({@code croissant-processor})
+ * generates, so that it can be registered along with all other indexed command
+ * classes using {@link CommandHandler#registerAll(CommandIndex)} instead of
+ * being constructed and registered by hand.
+ * <p>
+ * Indexed command classes must have a constructor that does not take any
+ * parameters. Subcommands should not be indexed, since they are not registered
+ * to the server's command map.
+ *
+ * @see CommandIndex
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface Indexed {
+}
@@ -0,0 +1,94 @@
+package com.github.overmighty.croissant.command;
+
+/**
+ * An immutable histogram of latencies recorded by Croissant, such as the
+ * durations of the executions of a command.
+ * <p>
+ * Latencies are grouped into logarithmic buckets, so the values returned by
+ * this class are approximate: they are the upper bounds of buckets, which are
+ * at most 12.5% above the recorded latencies.
+ *
+ * @see CommandStatistics
+ */
+public final class LatencyHistogram {
+
+    private final long[] counts;
+    private final long count;
+
+    LatencyHistogram(long[] counts) {
+        this.counts = counts;
+
+        long count = 0;
+
+        for (long bucketCount : counts) {
+            count += bucketCount;
+        }
+
+        this.count = count;
+    }
+
+    /**
+     * Returns the number of recorded latencies.
+     *
+     * @return the histogram's total count
+     */
+    @SuppressWarnings("WeakerAccess")
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the latency below which the given percentage of recorded
+     * latencies fall.
+     *
+     * @param percentile the percentile, between {@code 0} and {@code 100}
+     * @return the latency in nanoseconds, or {@code 0} if the histogram is
+     *         empty
+     * @throws IllegalArgumentException if the percentile is out of range
+     */
+    @SuppressWarnings("WeakerAccess")
+    public long getPercentile(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100");
+        }
+
+        if (this.count == 0) {
+            return 0;
+        }
+
+        // The rank of the latency, counting from 1
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * this.count));
+        long seen = 0;
+
+        for (int i = 0; i < this.counts.length; i++) {
+            seen += this.counts[i];
+
+            if (seen >= rank) {
+                return LatencyRecorder.bucketUpperBound(i);
+            }
+        }
+
+        throw new AssertionError("Rank " + rank + " exceeds count " + this.count);
+    }
+
+    /**
+     * Returns the median recorded latency.
+     *
+     * @return the median latency in nanoseconds
+     */
+    @SuppressWarnings("unused")
+    public long getMedian() {
+        return this.getPercentile(50);
+    }
+
+    /**
+     * Returns the highest recorded latency.
+     *
+     * @return the maximum latency in nanoseconds
+     */
+    @SuppressWarnings("unused")
+    public long getMax() {
+        return this.getPercentile(100);
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.github.overmighty.croissant.command;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-memory, log-bucketed histogram of latencies in nanoseconds, into
+ * which values can be recorded concurrently without locking.
+ * <p>
+ * Every power of two is split into {@value #SUB_BUCKET_COUNT} linear
+ * sub-buckets, so that the bucket of a value is found from its highest set bit
+ * and the next {@value #SUB_BUCKET_BITS} bits, and reported values are within
+ * 12.5% of the recorded ones. Recording a value increments a single counter.
+ */
+final class LatencyRecorder {
+
+    static final int SUB_BUCKET_BITS = 3;
+    static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    /**
+     * Enough buckets for every non-negative {@code long} value.
+     */
+    static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos the latency in nanoseconds; negative values are recorded
+     *              as {@code 0}
+     */
+    void record(long nanos) {
+        this.counts.getAndIncrement(bucketIndex(Math.max(nanos, 0)));
+    }
+
+    /**
+     * Copies the recorded counts into an immutable histogram. Values recorded
+     * during the copy may or may not be included.
+     *
+     * @return a snapshot of the recorder
+     */
+    LatencyHistogram snapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = this.counts.get(i);
+        }
+
+        return new LatencyHistogram(counts);
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    /**
+     * Returns the highest value that falls into a bucket.
+     */
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long lowerBound = (long) (SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+
+}
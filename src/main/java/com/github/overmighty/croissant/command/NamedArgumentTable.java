@@ -0,0 +1,180 @@
+package com.github.overmighty.croissant.command;
+
+import com.github.overmighty.croissant.command.argument.ArgumentCursor;
+import com.github.overmighty.croissant.command.argument.CommandLine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The lookup table of the flags and options of an {@link ExecutionPlan},
+ * which finds them among the arguments of a command call in a single pass.
+ * <p>
+ * Every flag and option is an entry of the table, spelled with its dashes, and
+ * entries are sorted by spelling so that completions do not have to be sorted.
+ * The entries found in a command call are tracked in a {@code long} bitset, so
+ * a table holds at most {@value #MAX_ENTRIES} entries.
+ */
+final class NamedArgumentTable {
+
+    static final int MAX_ENTRIES = Long.SIZE;
+
+    private final ParameterSlot[] slots;
+    private final String[] spellings;
+
+    private NamedArgumentTable(ParameterSlot[] slots) {
+        this.slots = slots;
+        this.spellings = new String[slots.length];
+
+        for (int i = 0; i < slots.length; i++) {
+            this.spellings[i] = spell(slots[i].getName());
+        }
+    }
+
+    /**
+     * Builds the table of the given flag and option slots.
+     *
+     * @param command the command that the slots belong to
+     * @param named   the flag and option slots
+     * @return the table, or {@code null} if there are no slots
+     * @throws IllegalStateException if there are too many slots, or if two of
+     *                               them have the same name
+     */
+    static NamedArgumentTable of(CroissantCommand command, List<ParameterSlot> named) {
+        if (named.isEmpty()) {
+            return null;
+        }
+
+        if (named.size() > MAX_ENTRIES) {
+            throw new IllegalStateException("Executor method of command '" + command.getLabel() +
+                "' has more than " + MAX_ENTRIES + " flags and options");
+        }
+
+        ParameterSlot[] slots = named.toArray(new ParameterSlot[0]);
+        Arrays.sort(slots, Comparator.comparing(slot -> spell(slot.getName())));
+
+        for (int i = 1; i < slots.length; i++) {
+            if (slots[i].getName().equals(slots[i - 1].getName())) {
+                throw new IllegalStateException("Executor method of command '" +
+                    command.getLabel() + "' has more than one flag or option named '" +
+                    slots[i].getName() + "'");
+            }
+        }
+
+        return new NamedArgumentTable(slots);
+    }
+
+    private static String spell(String name) {
+        return name.length() == 1 ? "-" + name : "--" + name;
+    }
+
+    /**
+     * Returns the index of the entry that the given token is a flag or option
+     * of, without allocating anything.
+     *
+     * @param token the token
+     * @return the index of the entry, or {@code -1} if there is none
+     */
+    int indexOf(String token) {
+        if (token.length() < 2 || token.charAt(0) != '-') {
+            return -1;
+        }
+
+        int equals = token.indexOf('=');
+        int length = equals < 0 ? token.length() : equals;
+
+        for (int i = 0; i < this.spellings.length; i++) {
+            String spelling = this.spellings[i];
+
+            // Options must have a value, and flags must not
+            if (spelling.length() == length &&
+                (equals < 0) == (this.slots[i].getKind() == ParameterSlot.Kind.FLAG) &&
+                token.startsWith(spelling)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    ParameterSlot getSlot(int index) {
+        return this.slots[index];
+    }
+
+    ParameterSlot[] getSlots() {
+        return this.slots;
+    }
+
+    /**
+     * Finds the flags and options among the remaining arguments of a cursor,
+     * excluding them from the cursor. If an array of executor method
+     * arguments is given, {@link Boolean#TRUE} is stored in it for every flag
+     * that was found, and the unresolved value of every option that was found.
+     * If an option is provided more than once, its last value is stored.
+     *
+     * @param cursor       the cursor
+     * @param executorArgs the array of executor method arguments, or
+     *                     {@code null}
+     * @param end          the index of the token to stop at
+     * @return the bitset of the entries that were found
+     */
+    long scan(ArgumentCursor cursor, Object[] executorArgs, int end) {
+        CommandLine line = cursor.getCommandLine();
+        long found = 0;
+
+        for (int i = cursor.getPosition(); i < end; i++) {
+            if (line.isQuoted(i)) {
+                continue;
+            }
+
+            String token = line.get(i);
+            int index = this.indexOf(token);
+
+            if (index < 0) {
+                continue;
+            }
+
+            cursor.exclude(i);
+            found |= 1L << index;
+
+            if (executorArgs != null) {
+                ParameterSlot slot = this.slots[index];
+                executorArgs[slot.getIndex()] = slot.getKind() == ParameterSlot.Kind.FLAG ?
+                    Boolean.TRUE : token.substring(this.spellings[index].length() + 1);
+            }
+        }
+
+        return found;
+    }
+
+    /**
+     * Returns the spellings of the entries that start with the given prefix and
+     * were not found yet. The spellings of options end with an equals sign.
+     *
+     * @param prefix the prefix to complete
+     * @param found  the bitset of the entries that were found
+     * @return the completions, sorted
+     */
+    List<String> complete(String prefix, long found) {
+        List<String> completions = null;
+
+        for (int i = 0; i < this.spellings.length; i++) {
+            if ((found & (1L << i)) != 0 || !this.spellings[i].startsWith(prefix)) {
+                continue;
+            }
+
+            if (completions == null) {
+                completions = new ArrayList<>();
+            }
+
+            completions.add(this.slots[i].getKind() == ParameterSlot.Kind.FLAG ?
+                this.spellings[i] : this.spellings[i] + "=");
+        }
+
+        return completions == null ? Collections.emptyList() : completions;
+    }
+
+}
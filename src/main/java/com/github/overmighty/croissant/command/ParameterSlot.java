@@ -0,0 +1,194 @@
+package com.github.overmighty.croissant.command;
+
+import com.github.overmighty.croissant.command.argument.ArgumentType;
+import com.github.overmighty.croissant.command.argument.AsyncArgumentResolver;
+
+import java.lang.reflect.Parameter;
+
+/**
+ * A command argument slot of an {@link ExecutionPlan}: a parameter of a
+ * command's executor method, along with everything that is needed to resolve
+ * and complete the argument that it represents.
+ */
+final class ParameterSlot {
+
+    /**
+     * The ways in which a slot consumes the arguments provided by a command
+     * sender.
+     */
+    enum Kind {
+        /**
+         * The slot consumes a single argument.
+         */
+        REGULAR,
+        /**
+         * The slot is a {@link String} parameter annotated with
+         * {@link com.github.overmighty.croissant.command.argument.Rest}, which
+         * consumes all remaining arguments.
+         */
+        REST,
+        /**
+         * The slot is a varargs parameter, which consumes all remaining
+         * arguments.
+         */
+        VARARGS,
+        /**
+         * The slot is a {@code boolean} parameter annotated with
+         * {@link com.github.overmighty.croissant.command.argument.Flag}, which
+         * is set by a named argument in any position.
+         */
+        FLAG,
+        /**
+         * The slot is a parameter annotated with
+         * {@link com.github.overmighty.croissant.command.argument.Option}, which
+         * consumes the value of a named argument in any position.
+         */
+        OPTION;
+
+        /**
+         * Returns {@code true} if slots of this kind are set by named arguments
+         * instead of by position.
+         *
+         * @return if the kind is {@code FLAG} or {@code OPTION}
+         */
+        boolean isNamed() {
+            return this == FLAG || this == OPTION;
+        }
+    }
+
+    private final CommandDispatcher<?> dispatcher;
+    private final int index;
+    private final Class<?> type;
+    private final ArgumentType argumentType;
+    private final String missingArgumentTypeMessage;
+    private final Kind kind;
+    private final boolean optional;
+    private final String defaultValue;
+    private final String name;
+
+    /**
+     * Constructs a new {@code ParameterSlot}.
+     *
+     * @param dispatcher                 the dispatcher of the executor method
+     * @param index                      the index of the parameter in the
+     *                                   executor method's parameters
+     * @param type                       the type of the parameter, or its
+     *                                   component type if it is a varargs
+     *                                   parameter, with primitive types wrapped
+     * @param argumentType               the argument type bound to the type, or
+     *                                   {@code null} if there is none
+     * @param missingArgumentTypeMessage the message of the exception to throw
+     *                                   when the slot's argument type is used
+     *                                   but there is none
+     * @param kind                       the slot's kind
+     * @param optional                   if the parameter is annotated with
+     *                                   {@code Optional}
+     * @param defaultValue               the parameter's default value, or
+     *                                   {@code null} if it has none
+     * @param name                       the name of the flag or option that
+     *                                   the parameter represents, or
+     *                                   {@code null} if it is neither
+     */
+    ParameterSlot(CommandDispatcher<?> dispatcher, int index, Class<?> type,
+                  ArgumentType argumentType, String missingArgumentTypeMessage, Kind kind,
+                  boolean optional, String defaultValue, String name) {
+        this.dispatcher = dispatcher;
+        this.index = index;
+        this.type = type;
+        this.argumentType = argumentType;
+        this.missingArgumentTypeMessage = missingArgumentTypeMessage;
+        this.kind = kind;
+        this.optional = optional;
+        this.defaultValue = defaultValue;
+        this.name = name;
+    }
+
+    /**
+     * Returns the index of the slot's parameter in the executor method's
+     * parameters, which is also the index of its value in the array of
+     * executor method arguments.
+     *
+     * @return the index of the slot's parameter
+     */
+    int getIndex() {
+        return index;
+    }
+
+    Parameter getParameter() {
+        return this.dispatcher.getParameter(this.index);
+    }
+
+    Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * Returns the argument type bound to the slot's type.
+     *
+     * @return the slot's argument type
+     * @throws IllegalStateException if no argument type is bound to the slot's
+     *                               type or any of its supertypes
+     */
+    ArgumentType getArgumentType() {
+        if (this.argumentType == null) {
+            throw new IllegalStateException(this.missingArgumentTypeMessage);
+        }
+
+        return argumentType;
+    }
+
+    /**
+     * Returns {@code true} if an argument type is bound to the slot's type and
+     * is pure.
+     *
+     * @return if the slot's argument type is pure
+     */
+    boolean isPure() {
+        return this.argumentType != null && this.argumentType.isPure();
+    }
+
+    /**
+     * Returns {@code true} if an argument type is bound to the slot's type and
+     * its resolver is an {@link AsyncArgumentResolver}.
+     *
+     * @return if the slot's argument type resolves arguments asynchronously
+     */
+    boolean isAsync() {
+        return this.argumentType != null &&
+            this.argumentType.getResolver() instanceof AsyncArgumentResolver;
+    }
+
+    Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Returns {@code true} if the argument represented by the slot can be
+     * omitted, in which case the parsing of arguments stops at this slot.
+     *
+     * @return if the slot is optional
+     */
+    boolean isOptional() {
+        return optional;
+    }
+
+    /**
+     * Returns the value to resolve if the argument represented by the slot was
+     * not provided.
+     *
+     * @return the slot's default value, or {@code null} if it has none
+     */
+    String getDefaultValue() {
+        return defaultValue;
+    }
+
+    /**
+     * Returns the name of the flag or option that the slot represents.
+     *
+     * @return the slot's name, or {@code null} if it is not named
+     */
+    String getName() {
+        return name;
+    }
+
+}
@@ -0,0 +1,46 @@
+package com.github.overmighty.croissant.command;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits how many times each command sender can call a command per unit of
+ * time. Unlike a {@link Cooldown}, a rate limit allows short bursts of calls:
+ * a command sender can call the command {@link #permits()} times in a row,
+ * after which one call is allowed again every {@code per / permits}.
+ * <p>
+ * When a command class is annotated with {@code RateLimit}, the rate limit
+ * applies to every call of the command, including calls of its subcommands.
+ * When a command executor method is annotated with {@code RateLimit}, the rate
+ * limit applies only to the calls of that executor method.
+ * <p>
+ * The rate limit is enforced before command arguments are resolved, and only
+ * for command senders that are entities, such as players: the server console
+ * and command blocks are never limited. A class or a method cannot be annotated
+ * with both {@code RateLimit} and {@link Cooldown}.
+ *
+ * @see CommandHandler#getRateLimitedMessage()
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.TYPE, ElementType.METHOD })
+public @interface RateLimit {
+
+    /**
+     * Returns the number of calls allowed per unit of time.
+     *
+     * @return the number of calls allowed per unit of time
+     */
+    int permits();
+
+    /**
+     * Returns the unit of time over which {@link #permits()} calls are
+     * allowed.
+     *
+     * @return the rate limit's unit of time
+     */
+    TimeUnit per() default TimeUnit.SECONDS;
+
+}
@@ -0,0 +1,151 @@
+package com.github.overmighty.croissant.command;
+
+import java.lang.reflect.AnnotatedElement;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Enforces a {@link Cooldown} or a {@link RateLimit} per command sender.
+ * <p>
+ * Each command sender's token bucket is stored as a single theoretical arrival
+ * time (the generic cell rate algorithm): the time at which the bucket will be
+ * full again. A call is allowed if the bucket holds at least one token, in
+ * which case the arrival time is pushed back by one emission interval using a
+ * compare-and-set, so that no locks are taken. Arrival times in the past are
+ * equivalent to full buckets, and are removed in bulk once per sweep interval.
+ */
+final class RateLimiter {
+
+    /**
+     * The arrival time that marks an entry as removed by a sweep, so that
+     * threads that read the entry before its removal do not update it.
+     */
+    private static final long REMOVED = Long.MIN_VALUE;
+    private static final long SWEEP_INTERVAL = TimeUnit.MINUTES.toNanos(1);
+
+    private final ConcurrentMap<UUID, AtomicLong> arrivalTimes = new ConcurrentHashMap<>();
+    private final long emissionInterval;
+    private final long tolerance;
+    private final LongSupplier clock;
+    private final AtomicLong nextSweep;
+
+    /**
+     * Constructs a new {@code RateLimiter}.
+     *
+     * @param permits the number of calls allowed per period
+     * @param period  the period in nanoseconds
+     * @param clock   the source of the current time in nanoseconds
+     */
+    RateLimiter(int permits, long period, LongSupplier clock) {
+        if (permits <= 0 || period <= 0) {
+            throw new IllegalArgumentException("Rate limit permits and period must be positive");
+        }
+
+        this.emissionInterval = period / permits;
+        this.tolerance = this.emissionInterval * (permits - 1);
+        this.clock = clock;
+        this.nextSweep = new AtomicLong(clock.getAsLong() + SWEEP_INTERVAL);
+    }
+
+    /**
+     * Returns the rate limiter described by the {@link Cooldown} or
+     * {@link RateLimit} annotation of a command class or executor method.
+     *
+     * @param element the command class or executor method
+     * @return the rate limiter, or {@code null} if the element is annotated
+     *         with neither
+     * @throws IllegalStateException if the element is annotated with both
+     */
+    static RateLimiter of(AnnotatedElement element) {
+        Cooldown cooldown = element.getAnnotation(Cooldown.class);
+        RateLimit rateLimit = element.getAnnotation(RateLimit.class);
+
+        if (cooldown != null && rateLimit != null) {
+            throw new IllegalStateException(element + " cannot have both a cooldown and a " +
+                "rate limit");
+        } else if (cooldown != null) {
+            return new RateLimiter(1, TimeUnit.SECONDS.toNanos(cooldown.seconds()),
+                System::nanoTime);
+        } else if (rateLimit != null) {
+            return new RateLimiter(rateLimit.permits(), rateLimit.per().toNanos(1),
+                System::nanoTime);
+        }
+
+        return null;
+    }
+
+    /**
+     * Takes a token from the bucket of a command sender, if there is one.
+     *
+     * @param key the unique ID of the command sender
+     * @return {@code 0} if the call is allowed, or else the number of
+     *         nanoseconds until it would be
+     */
+    long tryAcquire(UUID key) {
+        long now = this.clock.getAsLong();
+        this.sweepIfDue(now);
+
+        while (true) {
+            AtomicLong arrivalTime = this.arrivalTimes.get(key);
+
+            if (arrivalTime == null) {
+                arrivalTime = this.arrivalTimes.putIfAbsent(key,
+                    new AtomicLong(now + this.emissionInterval));
+
+                if (arrivalTime == null) {
+                    return 0;
+                }
+            }
+
+            long current = arrivalTime.get();
+
+            if (current == REMOVED) {
+                this.arrivalTimes.remove(key, arrivalTime);
+                continue;
+            }
+
+            // Differences of nanoTime() values are compared instead of the
+            // values themselves, which can overflow
+            long start = current - now > 0 ? current : now;
+            long wait = start - now - this.tolerance;
+
+            if (wait > 0) {
+                return wait;
+            }
+
+            if (arrivalTime.compareAndSet(current, start + this.emissionInterval)) {
+                return 0;
+            }
+        }
+    }
+
+    private void sweepIfDue(long now) {
+        long next = this.nextSweep.get();
+
+        if (now - next < 0 || !this.nextSweep.compareAndSet(next, now + SWEEP_INTERVAL)) {
+            return;
+        }
+
+        for (Map.Entry<UUID, AtomicLong> entry : this.arrivalTimes.entrySet()) {
+            AtomicLong arrivalTime = entry.getValue();
+            long current = arrivalTime.get();
+
+            if (current - now <= 0 && arrivalTime.compareAndSet(current, REMOVED)) {
+                this.arrivalTimes.remove(entry.getKey(), arrivalTime);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of command senders that are currently tracked.
+     */
+    int size() {
+        return this.arrivalTimes.size();
+    }
+
+}
@@ -0,0 +1,106 @@
+package com.github.overmighty.croissant.command;
+
+import com.github.overmighty.croissant.command.argument.Default;
+import com.github.overmighty.croissant.command.argument.Flag;
+import com.github.overmighty.croissant.command.argument.Option;
+import com.github.overmighty.croissant.command.argument.Optional;
+import com.github.overmighty.croissant.command.argument.Rest;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+
+/**
+ * The {@link CommandDispatcher} of command classes that do not have a
+ * generated dispatcher, which detects their executor method and reads the
+ * annotations of its parameters using reflection.
+ */
+final class ReflectiveDispatcher extends CommandDispatcher<CroissantCommand> {
+
+    private final ExecutorInvoker invoker;
+
+    private ReflectiveDispatcher(Class<CroissantCommand> commandClass, Method executor,
+                                 int[] parameterFlags, String[] defaultValues,
+                                 String[] parameterNames) throws IllegalAccessException {
+        super(commandClass, executor, parameterFlags, defaultValues, parameterNames,
+            executor.isAnnotationPresent(Async.class));
+        this.invoker = new ExecutorInvoker(executor);
+    }
+
+    /**
+     * Returns the dispatcher of the executor method of the given command class.
+     *
+     * @param commandClass the command class
+     * @return the command class's dispatcher, or {@code null} if the class
+     *         does not have an executor method
+     * @throws IllegalStateException if the class has more than one executor
+     *                               method, or if its executor method cannot be
+     *                               accessed
+     */
+    @SuppressWarnings("unchecked")
+    static ReflectiveDispatcher of(Class<? extends CroissantCommand> commandClass) {
+        Method executor = null;
+
+        for (Method method : commandClass.getDeclaredMethods()) {
+            if (method.isAnnotationPresent(CommandExecutor.class)) {
+                if (executor != null) {
+                    throw new IllegalStateException("Command has more than one executor method");
+                }
+
+                executor = method;
+            }
+        }
+
+        if (executor == null) {
+            return null;
+        }
+
+        executor.setAccessible(true);
+        Parameter[] params = executor.getParameters();
+        int[] parameterFlags = new int[params.length];
+        String[] defaultValues = new String[params.length];
+        String[] parameterNames = new String[params.length];
+
+        for (int i = 0; i < params.length; i++) {
+            if (params[i].isAnnotationPresent(Optional.class)) {
+                parameterFlags[i] |= OPTIONAL;
+            }
+
+            if (params[i].isAnnotationPresent(Rest.class)) {
+                parameterFlags[i] |= REST;
+            }
+
+            Flag flag = params[i].getAnnotation(Flag.class);
+            Option option = params[i].getAnnotation(Option.class);
+
+            if (flag != null) {
+                parameterFlags[i] |= FLAG;
+                parameterNames[i] = flag.value();
+            } else if (option != null) {
+                parameterFlags[i] |= OPTION;
+                parameterNames[i] = option.value();
+            }
+
+            Default defaultAnnotation = params[i].getAnnotation(Default.class);
+            defaultValues[i] = defaultAnnotation == null ? null : defaultAnnotation.value();
+        }
+
+        try {
+            return new ReflectiveDispatcher((Class<CroissantCommand>) commandClass, executor,
+                parameterFlags, defaultValues, parameterNames);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot access executor method of command class " +
+                commandClass.getName(), e);
+        }
+    }
+
+    @Override
+    RateLimiter createRateLimiter() {
+        return RateLimiter.of(this.getExecutor());
+    }
+
+    @Override
+    public Object dispatch(CroissantCommand command, Object[] args) throws Throwable {
+        return this.invoker.invoke(command, args);
+    }
+
+}
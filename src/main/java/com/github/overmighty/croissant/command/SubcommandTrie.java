@@ -0,0 +1,295 @@
+package com.github.overmighty.croissant.command;
+
+import com.github.overmighty.croissant.command.argument.FuzzyIndex;
+import com.github.overmighty.croissant.util.CroissantUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable, case-insensitive radix trie of the subcommands of a
+ * {@link CroissantCommand}, mapped by alias.
+ * <p>
+ * Looking up a subcommand takes time proportional to the length of the alias,
+ * and every node of the trie holds the sorted list of aliases that start with
+ * its prefix, so that completing a subcommand alias does not require scanning
+ * or sorting anything. The lists of all nodes are views of a single array of
+ * aliases sorted in {@link String#CASE_INSENSITIVE_ORDER}.
+ * <p>
+ * Since instances are never modified once built, they can safely be read from
+ * asynchronous tab-completion threads without locking. Adding a subcommand
+ * builds a new trie.
+ */
+final class SubcommandTrie {
+
+    static final SubcommandTrie EMPTY = new SubcommandTrie(Collections.emptyMap());
+
+    private final Map<String, CroissantCommand> subcommands;
+    private final Node root;
+    // Built when first needed
+    private volatile FuzzyIndex fuzzyIndex;
+
+    private SubcommandTrie(Map<String, CroissantCommand> subcommands) {
+        this.subcommands = Collections.unmodifiableMap(subcommands);
+
+        int size = subcommands.size();
+        Entry[] entries = new Entry[size];
+        int i = 0;
+
+        for (Map.Entry<String, CroissantCommand> entry : subcommands.entrySet()) {
+            entries[i++] = new Entry(entry.getKey(), entry.getValue());
+        }
+
+        // Sorting folded aliases by their natural order is the same as sorting
+        // the aliases themselves in String.CASE_INSENSITIVE_ORDER
+        Arrays.sort(entries, (a, b) -> a.folded.compareTo(b.folded));
+        String[] aliases = new String[size];
+
+        for (i = 0; i < size; i++) {
+            aliases[i] = entries[i].alias;
+        }
+
+        this.root = build(entries, Collections.unmodifiableList(Arrays.asList(aliases)), 0,
+            size, 0);
+    }
+
+    private static SubcommandTrie of(Map<String, CroissantCommand> subcommands) {
+        return subcommands.isEmpty() ? EMPTY : new SubcommandTrie(subcommands);
+    }
+
+    /**
+     * Returns a new trie that contains the subcommands of this trie, and the
+     * given subcommand mapped by all of its aliases. Existing aliases that are
+     * equal to one of those ignoring case are replaced.
+     *
+     * @param subcommand the subcommand to add
+     * @return a new trie with the subcommand
+     */
+    SubcommandTrie with(CroissantCommand subcommand) {
+        return this.withAll(Collections.singletonList(subcommand));
+    }
+
+    /**
+     * Returns a trie with the given subcommands added, in order, like
+     * {@link #with(CroissantCommand)}, but building the new trie only once.
+     */
+    SubcommandTrie withAll(Collection<? extends CroissantCommand> added) {
+        Map<String, CroissantCommand> subcommands = new LinkedHashMap<>(this.subcommands);
+        Map<String, String> aliasesByFoldedAlias = new HashMap<>();
+
+        for (String alias : subcommands.keySet()) {
+            aliasesByFoldedAlias.put(CroissantUtil.foldCase(alias), alias);
+        }
+
+        for (CroissantCommand subcommand : added) {
+            List<String> aliases = new ArrayList<>(subcommand.getAliases());
+            aliases.add(0, subcommand.getName());
+
+            for (String alias : aliases) {
+                String replaced = aliasesByFoldedAlias.put(CroissantUtil.foldCase(alias), alias);
+
+                if (replaced != null) {
+                    subcommands.remove(replaced);
+                }
+
+                subcommands.put(alias, subcommand);
+            }
+        }
+
+        return of(subcommands);
+    }
+
+    private static Node build(Entry[] entries, List<String> aliases, int from, int to,
+                              int depth) {
+        CroissantCommand command = null;
+        int start = from;
+
+        if (from < to && entries[from].folded.length() == depth) {
+            command = entries[from].command;
+            from++;
+        }
+
+        List<Node> children = new ArrayList<>();
+        List<String> labels = new ArrayList<>();
+
+        while (from < to) {
+            char first = entries[from].folded.charAt(depth);
+            int end = from + 1;
+
+            while (end < to && entries[end].folded.charAt(depth) == first) {
+                end++;
+            }
+
+            // The entries are sorted, so the longest common prefix of the first
+            // and last entries of the group is the one of the whole group
+            String a = entries[from].folded;
+            String b = entries[end - 1].folded;
+            int prefixLength = depth + 1;
+
+            while (prefixLength < a.length() && prefixLength < b.length() &&
+                a.charAt(prefixLength) == b.charAt(prefixLength)) {
+                prefixLength++;
+            }
+
+            labels.add(a.substring(depth, prefixLength));
+            children.add(build(entries, aliases, from, end, prefixLength));
+            from = end;
+        }
+
+        return new Node(command, labels.toArray(new String[0]), children.toArray(new Node[0]),
+            aliases.subList(start, to));
+    }
+
+    /**
+     * Returns the subcommands of the trie, mapped by alias.
+     *
+     * @return an unmodifiable map of the subcommands
+     */
+    Map<String, CroissantCommand> getSubcommands() {
+        return this.subcommands;
+    }
+
+    boolean isEmpty() {
+        return this.subcommands.isEmpty();
+    }
+
+    /**
+     * Returns the subcommand mapped to the given alias, ignoring case.
+     *
+     * @param alias the alias of the subcommand
+     * @return the subcommand, or {@code null} if there is none for the alias
+     */
+    CroissantCommand get(String alias) {
+        Node node = this.root;
+        int i = 0;
+
+        while (i < alias.length()) {
+            int childIndex = node.indexOf(CroissantUtil.foldCase(alias.charAt(i)));
+
+            if (childIndex < 0) {
+                return null;
+            }
+
+            String label = node.labels[childIndex];
+
+            if (alias.length() - i < label.length() || !matches(label, alias, i, label.length())) {
+                return null;
+            }
+
+            i += label.length();
+            node = node.children[childIndex];
+        }
+
+        return node.command;
+    }
+
+    /**
+     * Returns the aliases that start with the given prefix, ignoring case.
+     *
+     * @param prefix the prefix to complete
+     * @return an unmodifiable list of the aliases that start with the prefix,
+     *         sorted in {@link String#CASE_INSENSITIVE_ORDER}
+     */
+    List<String> complete(String prefix) {
+        Node node = this.root;
+        int i = 0;
+
+        while (i < prefix.length()) {
+            int childIndex = node.indexOf(CroissantUtil.foldCase(prefix.charAt(i)));
+
+            if (childIndex < 0) {
+                return Collections.emptyList();
+            }
+
+            String label = node.labels[childIndex];
+            int length = Math.min(label.length(), prefix.length() - i);
+
+            if (!matches(label, prefix, i, length)) {
+                return Collections.emptyList();
+            }
+
+            i += length;
+            node = node.children[childIndex];
+        }
+
+        return node.completions;
+    }
+
+    /**
+     * Returns a fuzzy index of the aliases, to complete them when fuzzy
+     * completion is enabled.
+     *
+     * @return the index of the aliases
+     */
+    FuzzyIndex getFuzzyIndex() {
+        FuzzyIndex index = this.fuzzyIndex;
+
+        if (index == null) {
+            // Building it more than once concurrently is harmless
+            index = new FuzzyIndex(this.subcommands.keySet());
+            this.fuzzyIndex = index;
+        }
+
+        return index;
+    }
+
+    private static boolean matches(String label, String value, int offset, int length) {
+        // The first character was already matched when looking up the child
+        for (int j = 1; j < length; j++) {
+            if (label.charAt(j) != CroissantUtil.foldCase(value.charAt(offset + j))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static final class Entry {
+
+        private final String alias;
+        private final String folded;
+        private final CroissantCommand command;
+
+        Entry(String alias, CroissantCommand command) {
+            this.alias = alias;
+            this.folded = CroissantUtil.foldCase(alias);
+            this.command = command;
+        }
+
+    }
+
+    private static final class Node {
+
+        private final CroissantCommand command;
+        private final char[] firsts;
+        private final String[] labels;
+        private final Node[] children;
+        private final List<String> completions;
+
+        Node(CroissantCommand command, String[] labels, Node[] children,
+             List<String> completions) {
+            this.command = command;
+            this.labels = labels;
+            this.children = children;
+            this.completions = completions;
+            this.firsts = new char[labels.length];
+
+            for (int i = 0; i < labels.length; i++) {
+                this.firsts[i] = labels[i].charAt(0);
+            }
+        }
+
+        int indexOf(char first) {
+            // Children are sorted by the first character of their label
+            return Arrays.binarySearch(this.firsts, first);
+        }
+
+    }
+
+}
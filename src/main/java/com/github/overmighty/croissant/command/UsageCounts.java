@@ -0,0 +1,340 @@
+package com.github.overmighty.croissant.command;
+
+import com.github.overmighty.croissant.command.argument.CompletionSink;
+import com.github.overmighty.croissant.util.CroissantUtil;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * How many times each value of each argument of the commands of a
+ * {@link CommandHandler} was used, to rank completions by usage frequency.
+ * <p>
+ * Values are counted case-insensitively for each command and argument index,
+ * the index {@code 0} standing for the subcommand aliases of the command,
+ * in {@link LongAdder}s, so that concurrent executions do not contend on a
+ * single counter.
+ * <p>
+ * Counts are maintained by sweeps, which run on the given executor instead of
+ * the thread that counts a value. A sweep is requested when a value is
+ * counted after a half-life passed, in which case all counts are halved for
+ * every half-life that passed, and when an argument has more than
+ * {@value #MAX_VALUES} values plus a margin, as free-text arguments can take
+ * any number of values. Each sweep removes the values whose counts dropped
+ * to zero, and then the least used values of the arguments that have more than
+ * {@value #MAX_VALUES} values. A value that is counted concurrently with its
+ * removal can lose that use.
+ */
+final class UsageCounts {
+
+    /**
+     * The argument index under which subcommand aliases are counted.
+     */
+    static final int SUBCOMMANDS = 0;
+    /**
+     * The maximum number of values counted per argument after a sweep.
+     */
+    static final int MAX_VALUES = 1024;
+    // Values counted over the maximum before a sweep is requested, so that
+    // arguments that keep taking new values are not swept for each of them
+    private static final int SWEEP_MARGIN = MAX_VALUES / 4;
+
+    private final ConcurrentMap<String, ConcurrentMap<String, LongAdder>> slots =
+        new ConcurrentHashMap<>();
+    private final LongSupplier clock;
+    private final Executor executor;
+    private final AtomicLong lastDecay;
+    private final AtomicLong pendingHalvings = new AtomicLong();
+    private final AtomicBoolean sweepRequested = new AtomicBoolean();
+    private volatile long halfLife;
+
+    /**
+     * Constructs a new {@code UsageCounts}.
+     *
+     * @param halfLife the time in nanoseconds after which counts are halved
+     * @param clock    the source of the current time in nanoseconds
+     * @param executor the executor that runs sweeps
+     */
+    UsageCounts(long halfLife, LongSupplier clock, Executor executor) {
+        this.halfLife = halfLife;
+        this.clock = clock;
+        this.executor = executor;
+        this.lastDecay = new AtomicLong(clock.getAsLong());
+    }
+
+    long getHalfLife() {
+        return halfLife;
+    }
+
+    void setHalfLife(long halfLife) {
+        this.halfLife = halfLife;
+    }
+
+    private static String key(CroissantCommand command, int index) {
+        return command.getUsageKey(index);
+    }
+
+    /**
+     * Counts a use of a value for an argument of a command.
+     *
+     * @param command the command
+     * @param index   the index of the argument's executor method parameter,
+     *                or {@link #SUBCOMMANDS}
+     * @param value   the raw value of the argument
+     */
+    void record(CroissantCommand command, int index, String value) {
+        this.decayIfDue();
+        ConcurrentMap<String, LongAdder> counts =
+            this.slots.computeIfAbsent(key(command, index), key -> new ConcurrentHashMap<>());
+        String folded = CroissantUtil.foldCase(value);
+        LongAdder count = counts.get(folded);
+
+        if (count != null) {
+            count.increment();
+            return;
+        }
+
+        LongAdder created = new LongAdder();
+        created.increment();
+        count = counts.putIfAbsent(folded, created);
+
+        if (count != null) {
+            count.increment();
+        } else if (counts.size() > MAX_VALUES + SWEEP_MARGIN) {
+            this.requestSweep();
+        }
+    }
+
+    /**
+     * Returns how many times a value was used for an argument of a command,
+     * since its count was last halved.
+     */
+    long count(CroissantCommand command, int index, String value) {
+        Map<String, LongAdder> counts = this.slots.get(key(command, index));
+        LongAdder count = counts == null ? null : counts.get(CroissantUtil.foldCase(value));
+        return count == null ? 0 : count.sum();
+    }
+
+    /**
+     * Returns the number of values that are counted for an argument of a
+     * command.
+     */
+    int size(CroissantCommand command, int index) {
+        Map<String, LongAdder> counts = this.slots.get(key(command, index));
+        return counts == null ? 0 : counts.size();
+    }
+
+    /**
+     * Returns a comparator of the completions of an argument of a command, by
+     * descending usage count, for a {@link CompletionSink} to keep the most
+     * used completions. The count of each completion is read once, so that it
+     * does not change while the sink compares completions, and the comparator
+     * must not be shared between threads.
+     *
+     * @return the comparator, or {@code null} if no value was used
+     */
+    Comparator<String> ranking(CroissantCommand command, int index) {
+        Map<String, LongAdder> counts = this.slots.get(key(command, index));
+
+        if (counts == null) {
+            return null;
+        }
+
+        Map<String, Long> read = new HashMap<>();
+        return Comparator.comparingLong((String completion) ->
+            read.computeIfAbsent(CroissantUtil.foldCase(completion), value -> {
+                LongAdder count = counts.get(value);
+                return count == null ? 0 : count.sum();
+            })).reversed();
+    }
+
+    /**
+     * Sorts completions of an argument of a command by descending usage
+     * count, keeping the order of the completions that were used as many
+     * times.
+     *
+     * @return the given completions if no completion was used, or a new
+     *         sorted list
+     */
+    List<String> rank(CroissantCommand command, int index, List<String> completions) {
+        Map<String, LongAdder> counts = this.slots.get(key(command, index));
+
+        if (counts == null || completions.size() < 2) {
+            return completions;
+        }
+
+        // Counts are read once, as they can change while sorting
+        Ranked[] ranked = new Ranked[completions.size()];
+        boolean used = false;
+
+        for (int i = 0; i < ranked.length; i++) {
+            String completion = completions.get(i);
+            LongAdder count = counts.get(CroissantUtil.foldCase(completion));
+            ranked[i] = new Ranked(completion, count == null ? 0 : count.sum());
+            used |= ranked[i].count > 0;
+        }
+
+        if (!used) {
+            return completions;
+        }
+
+        // Stable, so completions that were used as many times stay in order
+        Arrays.sort(ranked, Comparator.comparingLong((Ranked entry) -> entry.count).reversed());
+        List<String> sorted = new ArrayList<>(ranked.length);
+
+        for (Ranked entry : ranked) {
+            sorted.add(entry.completion);
+        }
+
+        return sorted;
+    }
+
+    private void decayIfDue() {
+        long halfLife = this.halfLife;
+        long last = this.lastDecay.get();
+        long halvings = (this.clock.getAsLong() - last) / halfLife;
+
+        if (halvings <= 0 || !this.lastDecay.compareAndSet(last, last + halvings * halfLife)) {
+            return;
+        }
+
+        this.pendingHalvings.addAndGet(halvings);
+        this.requestSweep();
+    }
+
+    private void requestSweep() {
+        if (this.sweepRequested.compareAndSet(false, true)) {
+            this.executor.execute(this::sweep);
+        }
+    }
+
+    private void sweep() {
+        // Cleared first, so that requests made during the sweep are not lost
+        this.sweepRequested.set(false);
+        long halvings = this.pendingHalvings.getAndSet(0);
+
+        for (ConcurrentMap<String, LongAdder> counts : this.slots.values()) {
+            List<Ranked> kept = new ArrayList<>(counts.size());
+
+            for (Map.Entry<String, LongAdder> entry : counts.entrySet()) {
+                LongAdder count = entry.getValue();
+                long sum = count.sum();
+
+                if (halvings > 0) {
+                    long halved = halvings >= Long.SIZE ? 0 : sum >> halvings;
+                    // Adding the difference keeps the concurrent increments,
+                    // which a replaced adder would lose
+                    count.add(halved - sum);
+                    sum = halved;
+                }
+
+                if (sum <= 0) {
+                    counts.remove(entry.getKey(), count);
+                } else {
+                    kept.add(new Ranked(entry.getKey(), sum));
+                }
+            }
+
+            if (kept.size() > MAX_VALUES) {
+                kept.sort(Comparator.comparingLong((Ranked entry) -> entry.count).reversed());
+
+                for (Ranked entry : kept.subList(MAX_VALUES, kept.size())) {
+                    counts.remove(entry.completion);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes all counts to a file, replacing it, as lines of tab-separated
+     * keys, values and counts.
+     */
+    void save(Path file) throws IOException {
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try (BufferedWriter writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, ConcurrentMap<String, LongAdder>> slot :
+                this.slots.entrySet()) {
+                for (Map.Entry<String, LongAdder> entry : slot.getValue().entrySet()) {
+                    String value = entry.getKey();
+                    long count = entry.getValue().sum();
+
+                    // Quoted arguments can contain tabs, which cannot be saved
+                    if (count > 0 && value.indexOf('\t') < 0 && value.indexOf('\n') < 0) {
+                        writer.write(slot.getKey() + '\t' + value + '\t' + count);
+                        writer.newLine();
+                    }
+                }
+            }
+        }
+
+        try {
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Adds the counts written to a file by {@link #save(Path)} to the current
+     * counts, ignoring malformed lines.
+     */
+    void load(Path file) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t", -1);
+
+                if (fields.length != 3) {
+                    continue;
+                }
+
+                long count;
+
+                try {
+                    count = Long.parseLong(fields[2]);
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+
+                this.slots.computeIfAbsent(fields[0], key -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(fields[1], key -> new LongAdder())
+                    .add(count);
+            }
+        }
+    }
+
+    private static final class Ranked {
+
+        private final String completion;
+        private final long count;
+
+        private Ranked(String completion, long count) {
+            this.completion = completion;
+            this.count = count;
+        }
+
+    }
+
+}
@@ -6,6 +6,10 @@ import java.lang.reflect.Parameter;
 
 /**
  * A command argument.
+ * <p>
+ * The command framework reuses {@code Argument} instances between calls to
+ * argument resolvers and completers, so an {@code Argument} must not be
+ * retained by a resolver or completer after it returns.
  *
  * @see ArgumentType
  * @see ArgumentResolver
@@ -13,9 +17,9 @@ import java.lang.reflect.Parameter;
  */
 public class Argument {
 
-    private final Parameter parameter;
-    private final String value;
-    private final CommandSender sender;
+    private Parameter parameter;
+    private String value;
+    private CommandSender sender;
 
     /**
      * Constructs a new {@code Argument}.
@@ -31,6 +35,12 @@ public class Argument {
         this.sender = sender;
     }
 
+    void set(Parameter parameter, String value, CommandSender sender) {
+        this.parameter = parameter;
+        this.value = value;
+        this.sender = sender;
+    }
+
     /**
      * Returns the parameter that represents the argument in the command's
      * executor method.
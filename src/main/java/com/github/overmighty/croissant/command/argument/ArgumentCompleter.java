@@ -7,6 +7,7 @@ import java.util.List;
  * type.
  *
  * @see ArgumentType
+ * @see AsyncArgumentCompleter
  */
 @FunctionalInterface
 public interface ArgumentCompleter {
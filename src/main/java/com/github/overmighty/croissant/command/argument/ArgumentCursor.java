@@ -0,0 +1,360 @@
+package com.github.overmighty.croissant.command.argument;
+
+import org.bukkit.command.CommandSender;
+
+import java.lang.reflect.Parameter;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * An index-based cursor over the tokens of a {@link CommandLine}.
+ * <p>
+ * The command framework passes the same cursor down the subcommand tree of a
+ * command instead of copying the remaining arguments at every level, and uses
+ * the reusable {@link Argument} and executor method argument arrays that it
+ * holds to resolve and complete arguments. Cursors are pooled per thread, so
+ * that executing a command does not allocate anything in the steady state.
+ * <p>
+ * A cursor must be obtained with {@link ArgumentCursor#acquire(CommandLine, int)} and
+ * given back with {@link ArgumentCursor#release()} once it is no longer used.
+ */
+public final class ArgumentCursor {
+
+    private static final CommandLine NO_ARGS = CommandLine.parse("", 0, false);
+    private static final ThreadLocal<ArgumentCursor> POOL =
+        ThreadLocal.withInitial(ArgumentCursor::new);
+
+    private final Argument argument = new Argument(null, null, null);
+    private Object[][] executorArgs = new Object[0][];
+    private Object[] usedExecutorArgs;
+    private CommandLine args = NO_ARGS;
+    private boolean[] excluded = new boolean[0];
+    private int excludedRemaining;
+    private int position;
+    private String pushed;
+    private boolean inUse;
+
+    private ArgumentCursor() {
+    }
+
+    /**
+     * Returns a cursor positioned at the given token of a command line. The
+     * cursor of the current thread is returned if it is not already in use
+     * (because a command was executed from the executor method of another
+     * command, for example), otherwise a new cursor is created.
+     *
+     * @param args the tokenized arguments of the command call
+     * @param from the index of the first token to consume
+     * @return a cursor over the arguments
+     */
+    public static ArgumentCursor acquire(CommandLine args, int from) {
+        ArgumentCursor cursor = POOL.get();
+
+        if (cursor.inUse) {
+            cursor = new ArgumentCursor();
+        }
+
+        cursor.inUse = true;
+        cursor.args = args;
+        cursor.position = from;
+        cursor.excludedRemaining = 0;
+        cursor.pushed = null;
+        return cursor;
+    }
+
+    /**
+     * Gives the cursor back to the pool of the current thread. The cursor, the
+     * {@link Argument} and the executor method arguments that it provided must
+     * no longer be used afterwards.
+     */
+    public void release() {
+        // Only the tokens of the command line can have been excluded
+        Arrays.fill(this.excluded, 0, Math.min(this.excluded.length, this.args.size()), false);
+        this.args = NO_ARGS;
+        this.pushed = null;
+        this.argument.set(null, null, null);
+
+        if (this.usedExecutorArgs != null) {
+            // Not retaining references to the arguments of the last call
+            Arrays.fill(this.usedExecutorArgs, null);
+            this.usedExecutorArgs = null;
+        }
+
+        this.inUse = false;
+    }
+
+    /**
+     * Returns the amount of arguments that have not been consumed yet.
+     *
+     * @return the amount of remaining arguments
+     */
+    public int remaining() {
+        return (this.args.size() - this.position - this.excludedRemaining) +
+            (this.pushed == null ? 0 : 1);
+    }
+
+    /**
+     * Returns {@code true} if some arguments have not been consumed yet.
+     *
+     * @return if there are remaining arguments
+     */
+    public boolean hasRemaining() {
+        return this.pushed != null || this.position + this.excludedRemaining < this.args.size();
+    }
+
+    /**
+     * Returns the index of the first token after the consumed ones that was
+     * not excluded, or the amount of tokens if there is none.
+     */
+    private int current() {
+        int index = this.position;
+
+        if (this.excludedRemaining > 0) {
+            while (index < this.args.size() && this.excluded[index]) {
+                index++;
+            }
+        }
+
+        return index;
+    }
+
+    /**
+     * Returns the current argument without consuming it.
+     *
+     * @return the current argument
+     * @throws NoSuchElementException if there are no remaining arguments
+     */
+    public String peek() {
+        if (this.pushed != null) {
+            return this.pushed;
+        }
+
+        int index = this.current();
+
+        if (index >= this.args.size()) {
+            throw new NoSuchElementException();
+        }
+
+        return this.args.get(index);
+    }
+
+    /**
+     * Returns a remaining argument without consuming any.
+     *
+     * @param offset the offset of the argument from the current one
+     * @return the argument at the given offset
+     * @throws NoSuchElementException if there are not enough remaining
+     *                                arguments
+     */
+    public String peek(int offset) {
+        if (this.pushed != null) {
+            if (offset == 0) {
+                return this.pushed;
+            }
+
+            offset--;
+        }
+
+        for (int i = this.position; i < this.args.size(); i++) {
+            if ((i >= this.excluded.length || !this.excluded[i]) && offset-- == 0) {
+                return this.args.get(i);
+            }
+        }
+
+        throw new NoSuchElementException();
+    }
+
+    /**
+     * Consumes the current argument, if there is one.
+     */
+    public void skip() {
+        if (this.pushed != null) {
+            this.pushed = null;
+        } else {
+            int index = this.current();
+
+            if (index < this.args.size()) {
+                // All tokens between the position and the current one are excluded
+                this.excludedRemaining -= index - this.position;
+                this.position = index + 1;
+            }
+        }
+    }
+
+    /**
+     * Returns the command line that the cursor is positioned in.
+     *
+     * @return the command line
+     */
+    public CommandLine getCommandLine() {
+        return args;
+    }
+
+    /**
+     * Returns the index of the first token of the command line that was not
+     * consumed yet, which may have been excluded.
+     *
+     * @return the index of the first remaining token
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * Excludes a token of the command line from the remaining arguments, such
+     * as a flag or an option, so that it is skipped when arguments are
+     * consumed.
+     *
+     * @param index the index of the token, which must not have been consumed
+     *              yet
+     * @throws IndexOutOfBoundsException if the token was already consumed or
+     *                                   is not in the command line
+     */
+    public void exclude(int index) {
+        if (index < this.position || index >= this.args.size()) {
+            throw new IndexOutOfBoundsException("Token " + index + " cannot be excluded");
+        }
+
+        if (index >= this.excluded.length) {
+            this.excluded = Arrays.copyOf(this.excluded, Math.max(index + 1, this.args.size()));
+        }
+
+        if (!this.excluded[index]) {
+            this.excluded[index] = true;
+            this.excludedRemaining++;
+        }
+    }
+
+    /**
+     * Returns and consumes the current argument.
+     *
+     * @return the current argument
+     * @throws NoSuchElementException if there are no remaining arguments
+     */
+    public String next() {
+        String value = this.peek();
+        this.skip();
+        return value;
+    }
+
+    /**
+     * Returns the last argument, which is the one to complete when the cursor
+     * is used for tab-completion.
+     *
+     * @return the last argument
+     * @throws NoSuchElementException if there are no arguments
+     */
+    public String last() {
+        if (this.args.size() == 0) {
+            throw new NoSuchElementException();
+        }
+
+        return this.args.get(this.args.size() - 1);
+    }
+
+    /**
+     * Returns a copy of the arguments that have not been consumed yet,
+     * including the excluded ones, in the order in which they were provided.
+     *
+     * @return the remaining arguments
+     */
+    public String[] copyRemaining() {
+        int offset = this.pushed == null ? 0 : 1;
+        String[] remaining = new String[this.args.size() - this.position + offset];
+
+        if (this.pushed != null) {
+            remaining[0] = this.pushed;
+        }
+
+        for (int i = offset; i < remaining.length; i++) {
+            remaining[i] = this.args.get(this.position + i - offset);
+        }
+
+        return remaining;
+    }
+
+    /**
+     * Inserts a value before the remaining arguments, such as the default value
+     * of an argument that was not provided.
+     *
+     * @param value the value to insert
+     */
+    public void push(String value) {
+        this.pushed = value;
+    }
+
+    /**
+     * Consumes all remaining arguments and returns them as a single string:
+     * the text of the command line from the start of the current argument to
+     * the end of the last one, as it was typed by the command sender. If some
+     * of the remaining tokens were excluded, the other ones are joined using
+     * spaces instead.
+     *
+     * @return the remaining arguments, as typed
+     * @throws NoSuchElementException if there are no remaining arguments
+     */
+    public String joinRemaining() {
+        if (this.pushed != null) {
+            // A pushed value is only inserted when there are no arguments left
+            return this.next();
+        }
+
+        if (this.position + this.excludedRemaining >= this.args.size()) {
+            throw new NoSuchElementException();
+        }
+
+        if (this.excludedRemaining == 0) {
+            String rest = this.args.getRest(this.position);
+            this.position = this.args.size();
+            return rest;
+        }
+
+        // The text of excluded tokens is not part of the remaining arguments
+        StringBuilder builder = new StringBuilder(this.next());
+
+        while (this.hasRemaining()) {
+            builder.append(' ').append(this.next());
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Returns the cursor's reusable {@link Argument}, updated to represent the
+     * given parameter and value.
+     *
+     * @param parameter the parameter that represents the argument in the
+     *                  command's executor method
+     * @param value     the raw value for the argument
+     * @param sender    the command sender that provided the value
+     * @return the cursor's argument
+     */
+    public Argument argument(Parameter parameter, String value, CommandSender sender) {
+        this.argument.set(parameter, value, sender);
+        return argument;
+    }
+
+    /**
+     * Returns the cursor's reusable array of the given length, to store the
+     * arguments of an executor method in.
+     *
+     * @param length the amount of parameters of the executor method
+     * @return an array of the given length
+     */
+    public Object[] executorArguments(int length) {
+        if (length >= this.executorArgs.length) {
+            this.executorArgs = Arrays.copyOf(this.executorArgs, length + 1);
+        }
+
+        Object[] array = this.executorArgs[length];
+
+        if (array == null) {
+            array = new Object[length];
+            this.executorArgs[length] = array;
+        }
+
+        this.usedExecutorArgs = array;
+        return array;
+    }
+
+}
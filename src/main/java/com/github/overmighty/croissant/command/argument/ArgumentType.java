@@ -14,6 +14,7 @@ public class ArgumentType {
     private final ArgumentResolver<?> resolver;
     private final ArgumentCompleter completer;
     private String errorMessage;
+    private boolean pure;
 
     /**
      * Constructs a new {@code ArgumentType}.
@@ -83,4 +84,34 @@ public class ArgumentType {
         this.errorMessage = errorMessage;
     }
 
+    /**
+     * Returns {@code true} if the type's argument resolver is pure: if it
+     * always resolves the same value for the same parameter into an equal,
+     * immutable object, regardless of the command sender and of the state of
+     * the server. Only commands whose arguments are all of pure types can
+     * cache resolved arguments (see
+     * {@link com.github.overmighty.croissant.command.CroissantCommand#setArgumentCacheSize(int)}).
+     *
+     * @return if the type's argument resolver is pure
+     */
+    public boolean isPure() {
+        return pure;
+    }
+
+    /**
+     * Sets if the type's argument resolver is pure: if it always resolves the
+     * same value for the same parameter into an equal, immutable object,
+     * regardless of the command sender and of the state of the server.
+     * Resolvers that look up players, worlds or anything else that changes
+     * while the server is running are not pure.
+     * <p>
+     * By default, this is set to {@code false}.
+     *
+     * @param pure if the type's argument resolver is pure
+     */
+    @SuppressWarnings("WeakerAccess")
+    public void setPure(boolean pure) {
+        this.pure = pure;
+    }
+
 }
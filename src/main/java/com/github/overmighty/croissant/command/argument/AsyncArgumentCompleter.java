@@ -0,0 +1,56 @@
+package com.github.overmighty.croissant.command.argument;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * An {@link ArgumentCompleter} that suggests completions asynchronously, for
+ * completers that query a database or a remote service for example.
+ * <p>
+ * Off the main server thread, such as with Paper's asynchronous
+ * tab-completion, the command framework waits for the returned future until
+ * the completion deadline of the command's handler passes (see
+ * {@link com.github.overmighty.croissant.command.CommandHandler#setCompletionDeadline(long)}),
+ * then cancels it and suggests no completions.
+ * <p>
+ * On the main thread, which handles tab-completion on Spigot, the framework
+ * never waits: completions are only suggested if the future is already done.
+ * A future that is not done yet is left running, and its completions are
+ * suggested on the command sender's next keystroke if the command caches
+ * completions (see
+ * {@link com.github.overmighty.croissant.command.CroissantCommand#setCompletionCacheExpiry(long)}).
+ * Otherwise, it is cancelled, and the completer never suggests anything that
+ * is not already available.
+ * <p>
+ * Unlike synchronous completers, asynchronous completers are given an
+ * {@link Argument} that they can retain until the future is completed.
+ *
+ * @see ArgumentType
+ */
+@FunctionalInterface
+public interface AsyncArgumentCompleter extends ArgumentCompleter {
+
+    /**
+     * Returns a future of completion suggestions for a partial command
+     * argument.
+     *
+     * @param argument the argument to complete
+     * @return a future of the list of completions to suggest to the command
+     *         sender
+     */
+    CompletableFuture<List<String>> completeAsync(Argument argument);
+
+    /**
+     * Returns completion suggestions for a partial command argument, waiting
+     * for the future returned by {@link #completeAsync(Argument)} without a
+     * deadline.
+     *
+     * @param argument the argument to complete
+     * @return the list of completions to suggest to the command sender
+     */
+    @Override
+    default List<String> complete(Argument argument) {
+        return this.completeAsync(argument).join();
+    }
+
+}
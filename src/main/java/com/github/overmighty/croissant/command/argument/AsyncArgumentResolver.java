@@ -0,0 +1,53 @@
+package com.github.overmighty.croissant.command.argument;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * An {@link ArgumentResolver} that resolves raw command arguments
+ * asynchronously, for resolvers that query a database or a remote service for
+ * example.
+ * <p>
+ * When a command is executed, the asynchronous resolutions of all of its
+ * arguments are started at the same time, after its synchronous resolutions
+ * succeeded. Once they are all completed, the command's executor method is
+ * called on the main server thread, or by the asynchronous executor of the
+ * command's handler if it is annotated with
+ * {@link com.github.overmighty.croissant.command.Async}. A future that is
+ * completed with {@code null} means that the argument could not be resolved,
+ * and the error message of its type is sent to the command sender (see
+ * {@link ArgumentType#getErrorMessage()}). A future that is completed
+ * exceptionally means that the resolver failed: the exception is logged, and
+ * the command's usage message is sent to the command sender instead.
+ * <p>
+ * Unlike synchronous resolvers, asynchronous resolvers are given an
+ * {@link Argument} that they can retain until the future is completed.
+ *
+ * @param <T> the type of objects to resolve raw command arguments into
+ * @see ArgumentType
+ */
+@FunctionalInterface
+public interface AsyncArgumentResolver<T> extends ArgumentResolver<T> {
+
+    /**
+     * Returns a future of a resolved raw command argument.
+     *
+     * @param argument the argument to resolve
+     * @return a future of the resolved argument, completed with {@code null}
+     *         if it could not be resolved
+     */
+    CompletableFuture<T> resolveAsync(Argument argument);
+
+    /**
+     * Resolves a raw command argument, waiting for the future returned by
+     * {@link #resolveAsync(Argument)}.
+     *
+     * @param argument the argument to resolve
+     * @return the resolved argument, or {@code null} if it could not be
+     *         resolved
+     */
+    @Override
+    default T resolve(Argument argument) {
+        return this.resolveAsync(argument).join();
+    }
+
+}
@@ -8,14 +8,20 @@ import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import org.bukkit.util.StringUtil;
 
-import java.util.ArrayList;
+import java.lang.reflect.Parameter;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.List;
 import java.util.UUID;
 
 /**
  * A built-in {@link ArgumentType}.
+ * <p>
+ * All built-in argument types are pure (see {@link ArgumentType#isPure()}),
+ * except for {@link #PLAYER}, {@link #OFFLINE_PLAYER} and {@link #WORLD}.
+ * <p>
+ * The completers of {@link #PLAYER}, {@link #OFFLINE_PLAYER}, {@link #WORLD},
+ * {@link #STRING} and {@link #ENUM} are {@link StreamingArgumentCompleter}s,
+ * which suggest completions in alphabetical order.
  */
 public enum BuiltInArgumentType {
 
@@ -26,34 +32,46 @@ public enum BuiltInArgumentType {
      * <p>
      * Suggests matching usernames of online players for argument completion. If
      * the command sender is a player, they will only be suggested usernames of
-     * online players that they can see (see {@link Player#canSee(Player)}).
+     * online players that they can see (see {@link Player#canSee(Player)}),
+     * which is checked on the main server thread: asynchronous tab-completion
+     * requests of players are completed on the main thread instead.
+     * <p>
+     * Players are looked up in the {@link PlayerIndex} once it is enabled.
      */
     PLAYER(
         Player.class,
         new ArgumentType((ArgumentResolver<Player>) argument -> {
             String value = argument.getValue();
+            PlayerIndex index = PlayerIndex.getInstance();
 
-            if (CroissantUtil.getPlayerUUIDPattern().matcher(value).matches()) {
-                return Bukkit.getPlayer(UUID.fromString(value));
+            if (CroissantUtil.isPlayerUUID(value)) {
+                UUID uniqueId = UUID.fromString(value);
+                return index.isEnabled() ? index.getPlayer(uniqueId) : Bukkit.getPlayer(uniqueId);
             }
 
-            return Bukkit.getPlayerExact(value);
-        }, argument -> {
+            return index.isEnabled() ? index.getPlayer(value) : Bukkit.getPlayerExact(value);
+        }, (StreamingArgumentCompleter) (argument, sink) -> {
             String value = argument.getValue();
             CommandSender sender = argument.getSender();
-            List<String> completions = new ArrayList<>();
+
+            if (PlayerIndex.getInstance().isEnabled()) {
+                PlayerIndex.getInstance().complete(value, sender, sink);
+                return;
+            }
+
+            if (sender instanceof Player && !Bukkit.isPrimaryThread()) {
+                sink.requireMainThread();
+                return;
+            }
 
             for (Player player : Bukkit.getOnlinePlayers()) {
                 boolean shouldBeSuggested = StringUtil.startsWithIgnoreCase(player.getName(), value)
                     && (!(sender instanceof Player) || ((Player) sender).canSee(player));
 
                 if (shouldBeSuggested) {
-                    completions.add(player.getName());
+                    sink.add(player.getName());
                 }
             }
-
-            completions.sort(String.CASE_INSENSITIVE_ORDER);
-            return completions;
         })
     ),
     /**
@@ -63,18 +81,38 @@ public enum BuiltInArgumentType {
      * online or offline, case-insensitively.
      * <p>
      * Uses {@link BuiltInArgumentType#PLAYER}'s {@link ArgumentCompleter}.
+     * <p>
+     * If the {@link OfflinePlayerIndex} is enabled, also accepts exact
+     * usernames of offline players who have joined the server before, and
+     * suggests matching usernames of all those players instead.
      */
     OFFLINE_PLAYER(
         OfflinePlayer.class,
         new ArgumentType((ArgumentResolver<OfflinePlayer>) argument -> {
             String value = argument.getValue();
 
-            if (CroissantUtil.getPlayerUUIDPattern().matcher(value).matches()) {
+            if (CroissantUtil.isPlayerUUID(value)) {
                 return Bukkit.getOfflinePlayer(UUID.fromString(value));
             }
 
-            return Bukkit.getPlayerExact(value);
-        }, PLAYER.getArgumentType().getCompleter())
+            PlayerIndex index = PlayerIndex.getInstance();
+            Player player = index.isEnabled() ? index.getPlayer(value) : Bukkit.getPlayerExact(value);
+
+            if (player != null || !OfflinePlayerIndex.getInstance().isEnabled()) {
+                return player;
+            }
+
+            UUID uniqueId = OfflinePlayerIndex.getInstance().getUniqueId(value);
+            return uniqueId == null ? null : Bukkit.getOfflinePlayer(uniqueId);
+        }, (StreamingArgumentCompleter) (argument, sink) -> {
+            if (OfflinePlayerIndex.getInstance().isEnabled()) {
+                OfflinePlayerIndex.getInstance().complete(argument.getValue(), sink);
+                return;
+            }
+
+            ((StreamingArgumentCompleter) PLAYER.getArgumentType().getCompleter())
+                .complete(argument, sink);
+        })
     ),
     /**
      * Represents a {@link World}.
@@ -87,16 +125,12 @@ public enum BuiltInArgumentType {
         World.class,
         new ArgumentType(
             (ArgumentResolver<World>) argument -> Bukkit.getWorld(argument.getValue()),
-            argument -> {
-                List<String> completions = new ArrayList<>();
-
+            (StreamingArgumentCompleter) (argument, sink) -> {
                 for (World world : Bukkit.getWorlds()) {
                     if (StringUtil.startsWithIgnoreCase(world.getName(), argument.getValue())) {
-                        completions.add(world.getName());
+                        sink.add(world.getName());
                     }
                 }
-
-                return completions;
             }
         )
     ),
@@ -105,7 +139,9 @@ public enum BuiltInArgumentType {
      * <p>
      * Returns the raw argument as it was provided by the command sender.
      * <p>
-     * Uses {@link BuiltInArgumentType#PLAYER}'s {@link ArgumentCompleter}.
+     * Uses {@link BuiltInArgumentType#PLAYER}'s {@link ArgumentCompleter}, so
+     * asynchronous tab-completion requests of players are completed on the
+     * main server thread as well.
      */
     STRING(
         String.class,
@@ -118,37 +154,35 @@ public enum BuiltInArgumentType {
      * Represents an {@link Enum}.
      * <p>
      * Accepts the name of the enum constants of the type of the parameter that
-     * represents the argument in the command's executor method.
+     * represents the argument in the command's executor method, or
+     * case-insensitively if the parameter is annotated with
+     * {@link IgnoreCase}.
+     * <p>
+     * Suggests matching enum constant names for argument completion, or fuzzy
+     * matches if the completion sink is fuzzy (see {@link FuzzyIndex}).
      * <p>
-     * Suggests matching enum constant names for argument completion.
+     * The constants of each enum are looked up in a table that is built once.
      */
-    @SuppressWarnings("unchecked")
     ENUM(
         Enum.class,
         new ArgumentType((ArgumentResolver<Enum<?>>) argument -> {
-            Class<? extends Enum<?>> enumClass =
-                (Class<? extends Enum<?>>) CroissantUtil.getParameterType(argument.getParameter());
+            Parameter parameter = argument.getParameter();
+            EnumTable table = EnumTable.of(CroissantUtil.getParameterType(parameter));
+            Enum<?> constant = table.get(argument.getValue());
 
-            for (Enum<?> constant : enumClass.getEnumConstants()) {
-                if (argument.getValue().equals(constant.name())) {
-                    return constant;
-                }
+            if (constant != null || !parameter.isAnnotationPresent(IgnoreCase.class)) {
+                return constant;
             }
 
-            return null;
-        }, argument -> {
-            Class<? extends Enum<?>> enumClass =
-                (Class<? extends Enum<?>>) CroissantUtil.getParameterType(argument.getParameter());
-            List<String> completions = new ArrayList<>();
+            return table.getIgnoreCase(argument.getValue());
+        }, (StreamingArgumentCompleter) (argument, sink) -> {
+            EnumTable table = EnumTable.of(CroissantUtil.getParameterType(argument.getParameter()));
 
-            for (Enum<?> constant : enumClass.getEnumConstants()) {
-                if (StringUtil.startsWithIgnoreCase(constant.name(), argument.getValue())) {
-                    completions.add(constant.name());
-                }
+            if (sink.isFuzzy()) {
+                table.getFuzzyIndex().complete(argument.getValue(), sink);
+            } else {
+                table.complete(argument.getValue(), sink);
             }
-
-            completions.sort(String.CASE_INSENSITIVE_ORDER);
-            return completions;
         })
     ),
     /**
@@ -297,6 +331,9 @@ public enum BuiltInArgumentType {
     BuiltInArgumentType(Class<?> parameterType, ArgumentType argumentType) {
         this.parameterType = parameterType;
         this.argumentType = argumentType;
+        // Only player and world lookups depend on the state of the server
+        this.argumentType.setPure(parameterType != Player.class &&
+            parameterType != OfflinePlayer.class && parameterType != World.class);
     }
 
     /**
@@ -0,0 +1,345 @@
+package com.github.overmighty.croissant.command.argument;
+
+import java.util.Arrays;
+
+/**
+ * The arguments of a command call, tokenized in a single pass over the text
+ * that the command sender typed.
+ * <p>
+ * Arguments are separated by one or more spaces that are not between double
+ * quotes, so that {@code "New York"} and {@code --city="New York"} are single
+ * arguments, whose values do not include the quotes. Between quotes, a
+ * backslash escapes the next character, such as a double quote or another
+ * backslash. An argument with a missing closing quote extends to the end of
+ * the text.
+ * <p>
+ * Tokens are stored as offsets into the original text, and the value of a
+ * token is only extracted from the text the first time that it is needed.
+ * {@link CommandLine#getRest(int)} returns the original text of a token and
+ * all tokens after it, without joining them back together.
+ * <p>
+ * Arguments that were already split on spaces by the server are only joined
+ * and tokenized again if one of them contains a double quote or is empty, and
+ * are used as the tokens otherwise.
+ */
+public final class CommandLine {
+
+    private static final int[] NO_OFFSETS = new int[0];
+
+    private String text;
+    private int[] starts = NO_OFFSETS;
+    private int[] ends = NO_OFFSETS;
+    private String[] values;
+    private int size;
+
+    private CommandLine(String text) {
+        this.text = text;
+    }
+
+    private CommandLine(String[] tokens) {
+        this.values = tokens;
+        this.size = tokens.length;
+    }
+
+    /**
+     * Tokenizes the arguments of a command call, starting at the given index
+     * of the text.
+     * <p>
+     * For tab-completion, the argument being completed is always the last
+     * token: if the text is empty or ends with a space that is not between
+     * quotes, an empty token is added at the end.
+     *
+     * @param text       the text that the command sender typed
+     * @param from       the index of the text to start at
+     * @param completion if the text is being tab-completed
+     * @return the tokenized command line
+     */
+    public static CommandLine parse(String text, int from, boolean completion) {
+        CommandLine line = new CommandLine(text);
+        int length = text.length();
+        int i = from;
+        boolean endsWithSeparator = true;
+
+        while (i < length) {
+            if (text.charAt(i) == ' ') {
+                i++;
+                endsWithSeparator = true;
+                continue;
+            }
+
+            int start = i;
+            boolean quoted = false;
+
+            while (i < length) {
+                char c = text.charAt(i);
+
+                if (c == '"') {
+                    quoted = !quoted;
+                } else if (quoted && c == '\\') {
+                    // Skipping the escaped character, whatever it is
+                    i++;
+                } else if (!quoted && c == ' ') {
+                    break;
+                }
+
+                i++;
+            }
+
+            line.add(start, Math.min(i, length));
+            endsWithSeparator = false;
+        }
+
+        if (completion && endsWithSeparator) {
+            line.add(length, length);
+        }
+
+        return line;
+    }
+
+    /**
+     * Tokenizes arguments that were split on spaces by the server, such as the
+     * arguments passed to {@link org.bukkit.command.Command#execute},
+     * after joining them back into the text that the command sender typed.
+     *
+     * @param args       the arguments split on spaces
+     * @param completion if the arguments are being tab-completed
+     * @return the tokenized command line
+     */
+    public static CommandLine of(String[] args, boolean completion) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            // The empty argument being completed is a token of its own
+            boolean empty = arg.isEmpty() && !(completion && i == args.length - 1);
+
+            if (empty || arg.indexOf('"') >= 0) {
+                return parse(String.join(" ", args), 0, completion);
+            }
+        }
+
+        if (completion && args.length == 0) {
+            return parse("", 0, true);
+        }
+
+        return new CommandLine(args);
+    }
+
+    /**
+     * Returns the text to type for a value to be tokenized back into a single
+     * token of that value: the value itself, unless it contains a space or a
+     * double quote, in which case it is put between double quotes, and its
+     * double quotes and backslashes are escaped.
+     *
+     * @param value  the value of the token
+     * @param always if the value must be put between double quotes anyway
+     * @return the text of the token
+     */
+    public static String quote(String value, boolean always) {
+        if (!always && value.indexOf(' ') < 0 && value.indexOf('"') < 0) {
+            return value;
+        }
+
+        StringBuilder builder = new StringBuilder(value.length() + 2).append('"');
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            if (c == '"' || c == '\\') {
+                builder.append('\\');
+            }
+
+            builder.append(c);
+        }
+
+        return builder.append('"').toString();
+    }
+
+    /**
+     * Computes the text and offsets of tokens that were split on single spaces
+     * by the server, which are not needed to execute most commands.
+     */
+    private void computeOffsets() {
+        if (this.text != null) {
+            return;
+        }
+
+        this.text = String.join(" ", this.values);
+        this.starts = new int[this.size];
+        this.ends = new int[this.size];
+        int offset = 0;
+
+        for (int i = 0; i < this.size; i++) {
+            this.starts[i] = offset;
+            offset += this.values[i].length();
+            this.ends[i] = offset;
+            offset++;
+        }
+    }
+
+    private void add(int start, int end) {
+        if (this.size == this.starts.length) {
+            int capacity = Math.max(4, this.size * 2);
+            this.starts = Arrays.copyOf(this.starts, capacity);
+            this.ends = Arrays.copyOf(this.ends, capacity);
+        }
+
+        this.starts[this.size] = start;
+        this.ends[this.size] = end;
+        this.size++;
+    }
+
+    /**
+     * Returns the number of tokens.
+     *
+     * @return the number of tokens
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the index of the first character of a token in the text,
+     * including any quote.
+     *
+     * @param index the index of the token
+     * @return the start offset of the token
+     * @throws IndexOutOfBoundsException if there is no token at the index
+     */
+    public int getStart(int index) {
+        this.checkIndex(index);
+        this.computeOffsets();
+        return this.starts[index];
+    }
+
+    /**
+     * Returns the index after the last character of a token in the text,
+     * including any quote.
+     *
+     * @param index the index of the token
+     * @return the end offset of the token
+     * @throws IndexOutOfBoundsException if there is no token at the index
+     */
+    public int getEnd(int index) {
+        this.checkIndex(index);
+        this.computeOffsets();
+        return this.ends[index];
+    }
+
+    /**
+     * Returns {@code true} if a token starts with a double quote, in which case
+     * its value is not interpreted as anything but text, such as a flag.
+     *
+     * @param index the index of the token
+     * @return if the token is quoted
+     * @throws IndexOutOfBoundsException if there is no token at the index
+     */
+    public boolean isQuoted(int index) {
+        this.checkIndex(index);
+        // Arguments split by the server are only used as tokens if unquoted
+        return this.text != null && this.starts[index] < this.ends[index] &&
+            this.text.charAt(this.starts[index]) == '"';
+    }
+
+    /**
+     * Returns the value of a token: its text, without the quotes and the escape
+     * characters between them.
+     *
+     * @param index the index of the token
+     * @return the value of the token
+     * @throws IndexOutOfBoundsException if there is no token at the index
+     */
+    public String get(int index) {
+        this.checkIndex(index);
+
+        if (this.values == null) {
+            this.values = new String[this.size];
+        }
+
+        String value = this.values[index];
+
+        if (value == null) {
+            value = this.extract(this.starts[index], this.ends[index]);
+            this.values[index] = value;
+        }
+
+        return value;
+    }
+
+    /**
+     * Returns the text of a token and all tokens after it, as it was typed by
+     * the command sender.
+     *
+     * @param index the index of the first token
+     * @return the text from the start of the token to the end of the last one
+     * @throws IndexOutOfBoundsException if there is no token at the index
+     */
+    public String getRest(int index) {
+        this.checkIndex(index);
+
+        if (this.text == null) {
+            return this.joinValues(index);
+        }
+
+        return this.text.substring(this.starts[index], this.ends[this.size - 1]);
+    }
+
+    private String joinValues(int index) {
+        if (index == this.size - 1) {
+            return this.values[index];
+        }
+
+        // Tokens split by the server were separated by single spaces
+        int length = this.size - index - 1;
+
+        for (int i = index; i < this.size; i++) {
+            length += this.values[i].length();
+        }
+
+        StringBuilder builder = new StringBuilder(length).append(this.values[index]);
+
+        for (int i = index + 1; i < this.size; i++) {
+            builder.append(' ').append(this.values[i]);
+        }
+
+        return builder.toString();
+    }
+
+    private String extract(int start, int end) {
+        int quote = start;
+
+        while (quote < end && this.text.charAt(quote) != '"') {
+            quote++;
+        }
+
+        if (quote == end) {
+            return this.text.substring(start, end);
+        }
+
+        StringBuilder builder = new StringBuilder(end - start);
+        builder.append(this.text, start, quote);
+        boolean quoted = false;
+
+        for (int i = quote; i < end; i++) {
+            char c = this.text.charAt(i);
+
+            if (c == '"') {
+                quoted = !quoted;
+                continue;
+            }
+
+            if (quoted && c == '\\' && i + 1 < end) {
+                c = this.text.charAt(++i);
+            }
+
+            builder.append(c);
+        }
+
+        return builder.toString();
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException("Token " + index + " out of " + this.size);
+        }
+    }
+
+}
@@ -0,0 +1,297 @@
+package com.github.overmighty.croissant.command.argument;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Collects the completions that a {@link StreamingArgumentCompleter} suggests
+ * for an argument, keeping only the first ones in
+ * {@link String#CASE_INSENSITIVE_ORDER}, up to a limit. Completions that are
+ * ranked by the completer, such as fuzzy matches, come before the others, in
+ * the order they were added (see {@link #addRanked(String)}). A sink can also
+ * be given its own ranking, such as by usage frequency, which then comes
+ * first.
+ * <p>
+ * Completions are kept in a list until the limit is reached, then in a
+ * bounded heap whose head is the greatest completion kept, so collecting
+ * {@code n} completions takes time proportional to {@code n log k} at worst,
+ * where {@code k} is the limit, instead of sorting all of them. Completers
+ * that suggest completions in order can add them without any comparison
+ * until the sink is full, and stop as soon as one is rejected (see
+ * {@link #addInOrder(String)}).
+ */
+public final class CompletionSink {
+
+    private static final Comparator<Completion> ORDER = Comparator
+        .comparingInt((Completion completion) -> completion.rank)
+        .thenComparing(completion -> completion.value, String.CASE_INSENSITIVE_ORDER);
+
+    private final int limit;
+    private final boolean fuzzy;
+    private final Comparator<String> ranking;
+    private final Comparator<Completion> order;
+    private final List<Completion> completions = new ArrayList<>();
+    private PriorityQueue<Completion> heap;
+    private int ranked;
+    private boolean sorted = true;
+    private boolean truncated;
+    private boolean mainThreadRequired;
+
+    /**
+     * Constructs a new {@code CompletionSink}.
+     *
+     * @param limit the maximum amount of completions to keep
+     * @throws IllegalArgumentException if the limit is not positive
+     */
+    public CompletionSink(int limit) {
+        this(limit, false);
+    }
+
+    /**
+     * Constructs a new {@code CompletionSink}.
+     *
+     * @param limit the maximum amount of completions to keep
+     * @param fuzzy if completers should suggest fuzzy matches
+     * @throws IllegalArgumentException if the limit is not positive
+     */
+    public CompletionSink(int limit, boolean fuzzy) {
+        this(limit, fuzzy, null);
+    }
+
+    /**
+     * Constructs a new {@code CompletionSink} that keeps the first completions
+     * according to the given ranking, then in its usual order. As completers
+     * cannot add completions in that order, they cannot stop early.
+     *
+     * @param limit   the maximum amount of completions to keep
+     * @param fuzzy   if completers should suggest fuzzy matches
+     * @param ranking the comparator of the completions, ranking the best ones
+     *                first, or {@code null}
+     * @throws IllegalArgumentException if the limit is not positive
+     */
+    public CompletionSink(int limit, boolean fuzzy, Comparator<String> ranking) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Completion limit must be positive");
+        }
+
+        this.limit = limit;
+        this.fuzzy = fuzzy;
+        this.ranking = ranking;
+        this.order = ranking == null ? ORDER :
+            Comparator.comparing((Completion completion) -> completion.value, ranking)
+                .thenComparing(ORDER);
+    }
+
+    /**
+     * Returns the maximum amount of completions that the sink keeps.
+     *
+     * @return the sink's limit
+     */
+    @SuppressWarnings("unused")
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Returns {@code true} if completers should suggest values that contain
+     * the argument or nearly start with it, and not only values that start
+     * with it, such as with a {@link FuzzyIndex}.
+     *
+     * @return if the sink is fuzzy
+     * @see com.github.overmighty.croissant.command.CommandHandler#setFuzzyCompletionEnabled(boolean)
+     */
+    public boolean isFuzzy() {
+        return fuzzy;
+    }
+
+    /**
+     * Returns {@code true} if the sink was given its own ranking, in which
+     * case it can keep any completion, whatever its order among the others.
+     *
+     * @return if the sink has its own ranking
+     */
+    public boolean hasRanking() {
+        return this.ranking != null;
+    }
+
+    /**
+     * Adds a completion, if it is among the first completions added so far.
+     *
+     * @param completion the completion to add
+     * @return {@code true} if the completion is kept, and {@code false} if the
+     *         sink is full of lesser completions
+     */
+    public boolean add(String completion) {
+        return this.add(new Completion(completion, Integer.MAX_VALUE), false);
+    }
+
+    /**
+     * Adds a completion that is not less than the completions previously
+     * added with this method, if it is among the first completions added so
+     * far. Unlike {@link #add(String)}, this method does not compare the
+     * completion to others until the sink is full.
+     * <p>
+     * Once this method returns {@code false}, the following completions will
+     * be rejected as well, so the completer can stop. It never does if the
+     * sink has its own ranking.
+     *
+     * @param completion the completion to add
+     * @return {@code false} if the sink is full of lesser completions, even
+     *         for the following ones, and {@code true} otherwise
+     */
+    public boolean addInOrder(String completion) {
+        return this.addInSequence(new Completion(completion, Integer.MAX_VALUE), true);
+    }
+
+    /**
+     * Adds a completion that ranks after the completions previously added
+     * with this method, and before the completions added otherwise, if it is
+     * among the first completions added so far. Completers that rank their
+     * completions, such as a {@link FuzzyIndex} with its best matches first,
+     * add them with this method so that their ranking is kept.
+     * <p>
+     * Once this method returns {@code false}, the following completions will
+     * be rejected as well, so the completer can stop. It never does if the
+     * sink has its own ranking.
+     *
+     * @param completion the completion to add
+     * @return {@code false} if the sink is full of better ranked completions,
+     *         even for the following ones, and {@code true} otherwise
+     */
+    public boolean addRanked(String completion) {
+        // Ranked completions are in order unless unranked ones were added
+        boolean inOrder = this.ranked == this.completions.size() && this.heap == null;
+        return this.addInSequence(new Completion(completion, this.ranked++), inOrder);
+    }
+
+    /**
+     * Adds a completion for a completer that stops once one is rejected.
+     */
+    private boolean addInSequence(Completion completion, boolean inOrder) {
+        if (this.ranking != null) {
+            // Completions are not added in the order of the sink's ranking,
+            // which can keep any of the following ones
+            this.add(completion, false);
+            return true;
+        }
+
+        return this.add(completion, inOrder);
+    }
+
+    private boolean add(Completion completion, boolean inOrder) {
+        if (this.heap == null) {
+            if (this.completions.size() < this.limit) {
+                this.sorted &= inOrder;
+                this.completions.add(completion);
+                return true;
+            }
+
+            Completion last = this.completions.get(this.limit - 1);
+
+            if (this.sorted && (inOrder || this.order.compare(completion, last) >= 0)) {
+                // Completions added in order never need the heap
+                this.truncated = true;
+                return false;
+            }
+
+            this.heap = new PriorityQueue<>(this.limit, this.order.reversed());
+            this.heap.addAll(this.completions);
+        }
+
+        this.truncated = true;
+
+        if (this.order.compare(completion, this.heap.peek()) >= 0) {
+            return false;
+        }
+
+        this.heap.poll();
+        this.heap.add(completion);
+        return true;
+    }
+
+    /**
+     * Returns {@code true} if the sink holds as many completions as its limit.
+     *
+     * @return if the sink is full
+     */
+    @SuppressWarnings("unused")
+    public boolean isFull() {
+        return this.heap != null || this.completions.size() == this.limit;
+    }
+
+    /**
+     * Returns {@code true} if completions were rejected or evicted because the
+     * sink was full.
+     *
+     * @return if the sink dropped completions
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * Marks the completions as only available on the main server thread, for
+     * completers that depend on server state that cannot be read from other
+     * threads. When an argument is being completed asynchronously, the
+     * completions of the sink are then discarded, and the argument is
+     * completed again on the main thread.
+     */
+    public void requireMainThread() {
+        this.mainThreadRequired = true;
+    }
+
+    /**
+     * Returns {@code true} if the completions can only be computed on the
+     * main server thread.
+     *
+     * @return if the sink's completions require the main thread
+     * @see #requireMainThread()
+     */
+    public boolean isMainThreadRequired() {
+        return mainThreadRequired;
+    }
+
+    /**
+     * Returns the completions kept by the sink.
+     *
+     * @return a new list of the kept completions, in the order of the sink's
+     *         ranking, then the ones ranked by the completer first, then the
+     *         others in {@link String#CASE_INSENSITIVE_ORDER}
+     */
+    public List<String> toList() {
+        List<Completion> completions = this.completions;
+
+        if (this.heap != null) {
+            completions = new ArrayList<>(this.heap);
+            completions.sort(this.order);
+        } else if (!this.sorted) {
+            completions.sort(this.order);
+            this.sorted = true;
+        }
+
+        List<String> values = new ArrayList<>(completions.size());
+
+        for (Completion completion : completions) {
+            values.add(completion.value);
+        }
+
+        return values;
+    }
+
+    private static final class Completion {
+
+        private final String value;
+        // The order in which a ranked completion was added, or the greatest
+        // integer for other completions
+        private final int rank;
+
+        private Completion(String value, int rank) {
+            this.value = value;
+            this.rank = rank;
+        }
+
+    }
+
+}
@@ -0,0 +1,133 @@
+package com.github.overmighty.croissant.command.argument;
+
+import com.github.overmighty.croissant.util.CroissantUtil;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The names of the constants of an enum, precomputed for the
+ * {@link BuiltInArgumentType#ENUM} argument type so that resolving and
+ * completing an enum constant does not copy or scan all constants.
+ * <p>
+ * Constants are mapped by name and by case-folded name in hash maps, and
+ * their names are kept in an array sorted in
+ * {@link String#CASE_INSENSITIVE_ORDER}, so that completing a name takes time
+ * proportional to the logarithm of the amount of constants plus the amount of
+ * matching constants. The table of an enum is built when it is first needed,
+ * and then kept for as long as the enum class is loaded.
+ */
+final class EnumTable {
+
+    private static final ClassValue<EnumTable> TABLES = new ClassValue<EnumTable>() {
+        @Override
+        protected EnumTable computeValue(Class<?> type) {
+            return new EnumTable((Enum<?>[]) type.getEnumConstants());
+        }
+    };
+
+    private final Map<String, Enum<?>> constantsByName;
+    private final Map<String, Enum<?>> constantsByFoldedName;
+    private final String[] names;
+    private final String[] foldedNames;
+    // Built when first needed
+    private volatile FuzzyIndex fuzzyIndex;
+
+    private EnumTable(Enum<?>[] constants) {
+        this.constantsByName = new HashMap<>(constants.length * 2);
+        this.constantsByFoldedName = new HashMap<>(constants.length * 2);
+        String[][] entries = new String[constants.length][];
+
+        for (int i = 0; i < constants.length; i++) {
+            String name = constants[i].name();
+            String folded = CroissantUtil.foldCase(name);
+            this.constantsByName.put(name, constants[i]);
+            // Constants whose names only differ by case resolve to the first one
+            this.constantsByFoldedName.putIfAbsent(folded, constants[i]);
+            entries[i] = new String[] { folded, name };
+        }
+
+        // Sorting folded names by their natural order is the same as sorting
+        // the names themselves in String.CASE_INSENSITIVE_ORDER
+        Arrays.sort(entries, (a, b) -> a[0].compareTo(b[0]));
+        this.names = new String[constants.length];
+        this.foldedNames = new String[constants.length];
+
+        for (int i = 0; i < entries.length; i++) {
+            this.foldedNames[i] = entries[i][0];
+            this.names[i] = entries[i][1];
+        }
+    }
+
+    /**
+     * Returns the table of the constants of an enum.
+     *
+     * @param enumClass the class of the enum
+     * @return the enum's table
+     */
+    static EnumTable of(Class<?> enumClass) {
+        return TABLES.get(enumClass);
+    }
+
+    /**
+     * Returns the constant with the given name.
+     *
+     * @param name the name of the constant
+     * @return the constant, or {@code null} if there is none with the name
+     */
+    Enum<?> get(String name) {
+        return this.constantsByName.get(name);
+    }
+
+    /**
+     * Returns the constant with the given name, ignoring case.
+     *
+     * @param name the name of the constant
+     * @return the constant, or {@code null} if there is none with the name
+     */
+    Enum<?> getIgnoreCase(String name) {
+        Enum<?> constant = this.constantsByName.get(name);
+        return constant != null ? constant
+            : this.constantsByFoldedName.get(CroissantUtil.foldCase(name));
+    }
+
+    /**
+     * Adds the names of the constants that start with the given prefix,
+     * ignoring case, to a completion sink, in
+     * {@link String#CASE_INSENSITIVE_ORDER}, until the sink rejects one.
+     *
+     * @param prefix the prefix to complete
+     * @param sink   the sink to add the matching names to
+     */
+    void complete(String prefix, CompletionSink sink) {
+        String folded = CroissantUtil.foldCase(prefix);
+        int index = Arrays.binarySearch(this.foldedNames, folded);
+
+        for (int i = index < 0 ? -index - 1 : index;
+             i < this.foldedNames.length && this.foldedNames[i].startsWith(folded); i++) {
+            if (!sink.addInOrder(this.names[i])) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Returns a fuzzy index of the names of the constants, to complete them
+     * when fuzzy completion is enabled.
+     *
+     * @return the index of the names
+     */
+    FuzzyIndex getFuzzyIndex() {
+        FuzzyIndex index = this.fuzzyIndex;
+
+        if (index == null) {
+            // Building it more than once concurrently is harmless
+            index = new FuzzyIndex(Arrays.asList(this.names));
+            this.fuzzyIndex = index;
+        }
+
+        return index;
+    }
+
+}
@@ -0,0 +1,33 @@
+package com.github.overmighty.croissant.command.argument;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * A {@code boolean} command executor method parameter annotated with
+ * {@code Flag} indicates a flag: a named command argument that can be provided
+ * in any position, and that is {@code true} if it was provided by the command
+ * sender and {@code false} otherwise.
+ * <p>
+ * Flags whose name is a single character are written with a single dash, such
+ * as {@code -s}, and other flags are written with two dashes, such as
+ * {@code --silent}. Flags are not counted as regular command arguments, and
+ * their tokens are skipped when regular arguments are parsed.
+ *
+ * @see Option
+ * @see com.github.overmighty.croissant.command.CommandExecutor
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.PARAMETER)
+public @interface Flag {
+
+    /**
+     * Returns the name of the flag, without dashes.
+     *
+     * @return the flag's name
+     */
+    String value();
+
+}
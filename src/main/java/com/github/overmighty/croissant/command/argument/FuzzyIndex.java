@@ -0,0 +1,461 @@
+package com.github.overmighty.croissant.command.argument;
+
+import com.github.overmighty.croissant.util.CroissantUtil;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A case-insensitive trigram index of a set of values, to suggest the values
+ * that start with, contain, or nearly start with a partial argument, such as
+ * {@code teleport} for {@code tlep}.
+ * <p>
+ * Values are split into the trigrams of their case-folded form, preceded by
+ * two padding characters so that the first trigrams of a value only match
+ * arguments that start like it, and every trigram is mapped to the set of
+ * values that contain it. Searching counts the trigrams that the argument
+ * shares with each value, then checks the values that share enough of them,
+ * the ones that share the most first, until the index's time budget runs out.
+ * <p>
+ * Values can be added and removed at any time, from any thread.
+ *
+ * @see CompletionSink#isFuzzy()
+ */
+public final class FuzzyIndex {
+
+    private static final char PADDING = '\0';
+    // Rank of the values that start with the argument, then of the values that
+    // contain it, then of the values with one typo, and so on
+    private static final int PREFIX = 0;
+    private static final int SUBSTRING = 1;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Indexed by value ID, null for the IDs of removed values
+    private final List<String> values = new ArrayList<>();
+    private final List<String> foldedValues = new ArrayList<>();
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final Map<Long, BitSet> postings = new HashMap<>();
+    private final Deque<Integer> freeIds = new ArrayDeque<>();
+    private volatile long timeBudget = TimeUnit.MICROSECONDS.toNanos(500);
+
+    /**
+     * Constructs a new, empty {@code FuzzyIndex}.
+     */
+    public FuzzyIndex() {
+    }
+
+    /**
+     * Constructs a new {@code FuzzyIndex} of the given values.
+     *
+     * @param values the values to index
+     */
+    public FuzzyIndex(Collection<String> values) {
+        for (String value : values) {
+            this.add(value);
+        }
+    }
+
+    /**
+     * Adds a value to the index, unless a value that is equal to it ignoring
+     * case is already indexed.
+     *
+     * @param value the value to add
+     * @return {@code true} if the value was added
+     */
+    public boolean add(String value) {
+        String folded = CroissantUtil.foldCase(value);
+        this.lock.writeLock().lock();
+
+        try {
+            if (this.ids.containsKey(folded)) {
+                return false;
+            }
+
+            Integer freeId = this.freeIds.poll();
+            int id;
+
+            if (freeId == null) {
+                id = this.values.size();
+                this.values.add(value);
+                this.foldedValues.add(folded);
+            } else {
+                id = freeId;
+                this.values.set(id, value);
+                this.foldedValues.set(id, folded);
+            }
+
+            this.ids.put(folded, id);
+
+            for (long trigram : trigrams(folded)) {
+                this.postings.computeIfAbsent(trigram, key -> new BitSet()).set(id);
+            }
+
+            return true;
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a value from the index, ignoring case.
+     *
+     * @param value the value to remove
+     * @return {@code true} if the value was indexed
+     */
+    @SuppressWarnings("unused")
+    public boolean remove(String value) {
+        String folded = CroissantUtil.foldCase(value);
+        this.lock.writeLock().lock();
+
+        try {
+            Integer id = this.ids.remove(folded);
+
+            if (id == null) {
+                return false;
+            }
+
+            for (long trigram : trigrams(folded)) {
+                BitSet posting = this.postings.get(trigram);
+
+                if (posting != null) {
+                    posting.clear(id);
+
+                    if (posting.isEmpty()) {
+                        this.postings.remove(trigram);
+                    }
+                }
+            }
+
+            this.values.set(id, null);
+            this.foldedValues.set(id, null);
+            this.freeIds.push(id);
+            return true;
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the amount of indexed values.
+     *
+     * @return the size of the index
+     */
+    public int size() {
+        this.lock.readLock().lock();
+
+        try {
+            return this.ids.size();
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the maximum number of microseconds that a search can take.
+     *
+     * @return the index's time budget
+     */
+    @SuppressWarnings("unused")
+    public long getTimeBudget() {
+        return TimeUnit.NANOSECONDS.toMicros(timeBudget);
+    }
+
+    /**
+     * Sets the maximum number of microseconds that a search can take. Once
+     * the budget runs out, only the matches found so far are returned.
+     * <p>
+     * By default, this property is set to {@code 500}.
+     *
+     * @param timeBudget the index's time budget
+     * @throws IllegalArgumentException if the budget is negative
+     */
+    @SuppressWarnings("unused")
+    public void setTimeBudget(long timeBudget) {
+        if (timeBudget < 0) {
+            throw new IllegalArgumentException("Time budget cannot be negative");
+        }
+
+        this.timeBudget = TimeUnit.MICROSECONDS.toNanos(timeBudget);
+    }
+
+    /**
+     * Adds the indexed values that match a partial argument to a completion
+     * sink: the best fuzzy matches if the sink is fuzzy, ranked as by
+     * {@link #search(String, int)}, or else the values that start with the
+     * argument, ignoring case.
+     *
+     * @param argument the partial argument to complete
+     * @param sink     the sink to add the matching values to
+     */
+    public void complete(String argument, CompletionSink sink) {
+        if (sink.isFuzzy()) {
+            // A sink with its own ranking can keep any of the matches
+            int limit = sink.hasRanking() ? Integer.MAX_VALUE : sink.getLimit();
+
+            for (String match : this.search(argument, limit)) {
+                sink.addRanked(match);
+            }
+
+            return;
+        }
+
+        String folded = CroissantUtil.foldCase(argument);
+        this.lock.readLock().lock();
+
+        try {
+            BitSet candidates = this.allIds();
+
+            for (long trigram : trigrams(folded)) {
+                BitSet posting = this.postings.get(trigram);
+
+                if (posting == null) {
+                    return;
+                }
+
+                candidates.and(posting);
+            }
+
+            for (int id = candidates.nextSetBit(0); id >= 0; id = candidates.nextSetBit(id + 1)) {
+                // Values that contain all trigrams of the argument, but not at
+                // the start of the value
+                if (this.foldedValues.get(id).startsWith(folded)) {
+                    sink.add(this.values.get(id));
+                }
+            }
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the indexed values that match a partial argument, best matches
+     * first: the values that start with the argument, then the values that
+     * contain it, then the values that start with it but for one or two typos,
+     * depending on the length of the argument. Arguments of less than three
+     * characters only match values that start with them.
+     *
+     * @param argument the partial argument to search for
+     * @param limit    the maximum amount of values to return
+     * @return a new list of the best matching values
+     */
+    public List<String> search(String argument, int limit) {
+        long deadline = System.nanoTime() + this.timeBudget;
+        String folded = CroissantUtil.foldCase(argument);
+        int maxTypos = folded.length() < 3 ? 0 : folded.length() < 6 ? 1 : 2;
+        long[] trigrams = Arrays.stream(trigrams(folded)).distinct().toArray();
+        List<Match> matches = new ArrayList<>();
+        this.lock.readLock().lock();
+
+        try {
+            int[] counts = new int[this.values.size()];
+            int[] candidates = this.countSharedTrigrams(trigrams, counts);
+            // A typo changes up to three trigrams, and a value that contains
+            // the argument shares all of its trigrams but the padded ones
+            int threshold = trigrams.length == 0 ? 0 : Math.max(1,
+                Math.min(trigrams.length - 2, trigrams.length - 3 * maxTypos));
+
+            for (int i = 0; i < candidates.length; i++) {
+                int id = candidates[i];
+
+                if (counts[id] < threshold ||
+                    (i & 31) == 31 && System.nanoTime() - deadline > 0) {
+                    break;
+                }
+
+                Match match = Match.of(this.values.get(id), this.foldedValues.get(id), folded,
+                    maxTypos);
+
+                if (match != null) {
+                    matches.add(match);
+                }
+            }
+        } finally {
+            this.lock.readLock().unlock();
+        }
+
+        matches.sort(null);
+        List<String> results = new ArrayList<>(Math.min(limit, matches.size()));
+
+        for (int i = 0; i < matches.size() && i < limit; i++) {
+            results.add(matches.get(i).value);
+        }
+
+        return results;
+    }
+
+    /**
+     * Counts the given trigrams that each value contains, and returns the IDs
+     * of the values that contain at least one, sorted by descending count.
+     * Every value matches an empty argument.
+     */
+    private int[] countSharedTrigrams(long[] trigrams, int[] counts) {
+        if (trigrams.length == 0) {
+            return this.allIds().stream().toArray();
+        }
+
+        int[] ids = new int[counts.length];
+        int size = 0;
+
+        for (long trigram : trigrams) {
+            BitSet posting = this.postings.get(trigram);
+
+            if (posting == null) {
+                continue;
+            }
+
+            for (int id = posting.nextSetBit(0); id >= 0; id = posting.nextSetBit(id + 1)) {
+                if (counts[id]++ == 0) {
+                    ids[size++] = id;
+                }
+            }
+        }
+
+        // Counting sort, since counts are at most the amount of trigrams
+        int[] offsets = new int[trigrams.length + 2];
+
+        for (int i = 0; i < size; i++) {
+            offsets[trigrams.length - counts[ids[i]] + 1]++;
+        }
+
+        for (int i = 1; i < offsets.length; i++) {
+            offsets[i] += offsets[i - 1];
+        }
+
+        int[] sorted = new int[size];
+
+        for (int i = 0; i < size; i++) {
+            sorted[offsets[trigrams.length - counts[ids[i]]]++] = ids[i];
+        }
+
+        return sorted;
+    }
+
+    private BitSet allIds() {
+        BitSet ids = new BitSet(this.values.size());
+        ids.set(0, this.values.size());
+
+        for (Integer freeId : this.freeIds) {
+            ids.clear(freeId);
+        }
+
+        return ids;
+    }
+
+    private static long[] trigrams(String folded) {
+        long[] trigrams = new long[folded.length()];
+        char first = PADDING;
+        char second = PADDING;
+
+        for (int i = 0; i < trigrams.length; i++) {
+            char third = folded.charAt(i);
+            trigrams[i] = (long) first << 32 | (long) second << 16 | third;
+            first = second;
+            second = third;
+        }
+
+        return trigrams;
+    }
+
+    /**
+     * Returns the smallest amount of insertions, deletions, substitutions and
+     * transpositions of adjacent characters that turn the argument into a
+     * prefix of the value, or {@code max + 1} if there are more than
+     * {@code max}.
+     */
+    private static int prefixDistance(String argument, String value, int max) {
+        int n = argument.length();
+        int m = value.length();
+        int[] previous2 = new int[m + 1];
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+
+        for (int j = 0; j <= m; j++) {
+            previous[j] = j;
+        }
+
+        for (int i = 1; i <= n; i++) {
+            current[0] = i;
+            int rowMin = i;
+
+            for (int j = 1; j <= m; j++) {
+                char a = argument.charAt(i - 1);
+                char b = value.charAt(j - 1);
+                int distance = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1),
+                    previous[j - 1] + (a == b ? 0 : 1));
+
+                if (i > 1 && j > 1 && a == value.charAt(j - 2) &&
+                    argument.charAt(i - 2) == b) {
+                    distance = Math.min(distance, previous2[j - 2] + 1);
+                }
+
+                current[j] = distance;
+                rowMin = Math.min(rowMin, distance);
+            }
+
+            if (rowMin > max) {
+                return max + 1;
+            }
+
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+
+        int distance = max + 1;
+
+        for (int j = 0; j <= m; j++) {
+            distance = Math.min(distance, previous[j]);
+        }
+
+        return distance;
+    }
+
+    private static final class Match implements Comparable<Match> {
+
+        private static final Comparator<Match> ORDER = Comparator
+            .comparingInt((Match match) -> match.rank)
+            .thenComparingInt(match -> match.offset)
+            .thenComparingInt(match -> match.value.length())
+            .thenComparing(match -> match.value, String.CASE_INSENSITIVE_ORDER);
+
+        private final String value;
+        private final int rank;
+        private final int offset;
+
+        private Match(String value, int rank, int offset) {
+            this.value = value;
+            this.rank = rank;
+            this.offset = offset;
+        }
+
+        static Match of(String value, String foldedValue, String argument, int maxTypos) {
+            int offset = foldedValue.indexOf(argument);
+
+            if (offset >= 0) {
+                return new Match(value, offset == 0 ? PREFIX : SUBSTRING, offset);
+            }
+
+            int typos = prefixDistance(argument, foldedValue, maxTypos);
+            return typos > maxTypos ? null : new Match(value, SUBSTRING + typos, 0);
+        }
+
+        @Override
+        public int compareTo(Match other) {
+            return ORDER.compare(this, other);
+        }
+
+    }
+
+}
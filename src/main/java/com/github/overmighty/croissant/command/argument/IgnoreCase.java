@@ -0,0 +1,20 @@
+package com.github.overmighty.croissant.command.argument;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotating a command executor method parameter of an {@link Enum} type with
+ * {@code IgnoreCase} indicates that the names of the enum constants that the
+ * command sender provides should be accepted regardless of case, so that
+ * {@code stone} resolves to {@code Material.STONE} for example.
+ *
+ * @see BuiltInArgumentType#ENUM
+ * @see com.github.overmighty.croissant.command.CommandExecutor
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.PARAMETER)
+public @interface IgnoreCase {
+}
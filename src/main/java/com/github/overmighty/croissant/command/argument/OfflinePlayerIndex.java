@@ -0,0 +1,1214 @@
+package com.github.overmighty.croissant.command.argument;
+
+import com.github.overmighty.croissant.Croissant;
+import com.github.overmighty.croissant.util.CroissantUtil;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A persistent index of the names and unique IDs of every player who has ever
+ * joined the server, that the {@link BuiltInArgumentType#OFFLINE_PLAYER}
+ * argument type uses to look up and complete offline players by name without
+ * blocking on a profile lookup.
+ * <p>
+ * The index is stored in the {@code players} directory of the plugin's data
+ * folder, as a file of fixed-size records sorted by case-folded name, which is
+ * memory-mapped so that known players are not loaded onto the heap and are
+ * found with a binary search. Players who join with a new name are kept in
+ * memory and appended to a log file by a background task, until a background
+ * compaction merges them into a new sorted file. Each compaction writes a new
+ * generation of the file, as a mapped file cannot be replaced on every
+ * platform, and older generations are deleted once they can be.
+ * <p>
+ * Players are added to the index when they join, or when the index is enabled
+ * if they are online. The first time that the index is enabled, the players
+ * who joined before are added by a background task, which reads the names and
+ * unique IDs of the server's user cache ({@code usercache.json}) and the last
+ * known names saved in the player data files of the main world. The seeded
+ * players are merged into the index file in batches, and never replace the
+ * names that are already indexed. Once seeding is complete, a marker file is
+ * written, so that it is not done again.
+ * <p>
+ * Only names of at most {@value #MAX_NAME_LENGTH} ASCII characters, like all
+ * Minecraft names, are indexed.
+ * <p>
+ * The index is disabled by default. Enable it with {@link #enable()} and
+ * disable it with {@link #disable()} when the plugin is disabled.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class OfflinePlayerIndex implements Listener {
+
+    /**
+     * The maximum length of an indexed name.
+     */
+    public static final int MAX_NAME_LENGTH = 16;
+    /**
+     * The maximum amount of names returned by {@link #complete(String)}.
+     */
+    public static final int MAX_COMPLETIONS = 100;
+
+    static final String LOG_FILE_NAME = "players.log";
+    static final String SEEDED_MARKER_FILE_NAME = "seeded";
+
+    private static final int MAGIC = 0x43504c49;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    // A record is a zero-padded ASCII name followed by a UUID
+    private static final int RECORD_SIZE = MAX_NAME_LENGTH + 16;
+    private static final int COMPACTION_THRESHOLD = 4096;
+    private static final String INDEX_FILE_GLOB = "players.*.idx";
+    private static final int SEED_BATCH_SIZE = 65536;
+    private static final String USER_CACHE_FILE_NAME = "usercache.json";
+
+    private static final OfflinePlayerIndex INSTANCE = new OfflinePlayerIndex();
+
+    private final ConcurrentMap<String, Entry> pendingByName = new ConcurrentHashMap<>();
+    private final ConcurrentMap<UUID, Entry> pendingById = new ConcurrentHashMap<>();
+    // Pending players that were not written to the log yet, in joining order
+    private final Queue<Entry> unlogged = new ConcurrentLinkedQueue<>();
+    // Guards the log file, which is only written to by background tasks, so
+    // that the main server thread never waits for it
+    private final Object logLock = new Object();
+    private volatile Segment segment = Segment.EMPTY;
+    private volatile Path directory;
+    private volatile Executor executor = task ->
+        Bukkit.getScheduler().runTaskAsynchronously(Croissant.getPlugin(), task);
+    private FileChannel log;
+    private long generation;
+    private boolean compacting;
+    private boolean flushScheduled;
+
+    private OfflinePlayerIndex() {
+    }
+
+    /**
+     * Returns the index of the players who have ever joined the server.
+     *
+     * @return the offline player index
+     */
+    public static OfflinePlayerIndex getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Enables the index, if it is not already enabled: opens its files,
+     * registers its event listener and adds the players who are online. The
+     * first time, it also starts adding the players who joined before in the
+     * background. Must be called from the main server thread.
+     *
+     * @throws IOException if the files of the index could not be opened
+     */
+    public synchronized void enable() throws IOException {
+        if (this.directory != null) {
+            return;
+        }
+
+        this.load(Croissant.getPlugin().getDataFolder().toPath().resolve("players"));
+        Bukkit.getPluginManager().registerEvents(this, Croissant.getPlugin());
+
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            this.add(player.getName(), player.getUniqueId());
+        }
+
+        if (!this.pendingByName.isEmpty()) {
+            this.executor.execute(this::compact);
+        }
+
+        if (!this.isSeeded()) {
+            Path userCacheFile = Bukkit.getWorldContainer().toPath().resolve(USER_CACHE_FILE_NAME);
+            Path playerDataDirectory = Bukkit.getWorlds().isEmpty() ? null :
+                Bukkit.getWorlds().get(0).getWorldFolder().toPath().resolve("playerdata");
+            this.executor.execute(() -> this.seed(userCacheFile, playerDataDirectory));
+        }
+    }
+
+    /**
+     * Disables the index, if it is enabled, and closes its files. Players who
+     * joined since the last compaction are kept in the log file and will be
+     * merged after the index is enabled again.
+     */
+    public synchronized void disable() {
+        if (this.directory == null) {
+            return;
+        }
+
+        HandlerList.unregisterAll(this);
+        this.unload();
+    }
+
+    /**
+     * Returns {@code true} if the index is enabled and kept up to date.
+     *
+     * @return if the index is enabled
+     */
+    public boolean isEnabled() {
+        return this.directory != null;
+    }
+
+    /**
+     * Returns the unique ID of the player who last joined with the given name,
+     * ignoring case.
+     *
+     * @param name the name of the player
+     * @return the player's unique ID, or {@code null} if no player has joined
+     *         with that name
+     */
+    public UUID getUniqueId(String name) {
+        Entry entry = this.find(name);
+        return entry == null ? null : entry.uniqueId;
+    }
+
+    /**
+     * Returns the names of the players who have ever joined that start with
+     * the given prefix, ignoring case, up to {@value #MAX_COMPLETIONS} names.
+     *
+     * @param prefix the prefix to complete
+     * @return the first matching names in {@link String#CASE_INSENSITIVE_ORDER}
+     */
+    public List<String> complete(String prefix) {
+        CompletionSink sink = new CompletionSink(MAX_COMPLETIONS);
+        this.complete(prefix, sink);
+        return sink.toList();
+    }
+
+    /**
+     * Adds the names of the players who have ever joined that start with the
+     * given prefix, ignoring case, to a completion sink. Names of the index
+     * file are read in order, until the sink rejects one.
+     *
+     * @param prefix the prefix to complete
+     * @param sink   the sink to add the matching names to
+     */
+    public void complete(String prefix, CompletionSink sink) {
+        String folded = fold(prefix);
+
+        if (folded == null) {
+            return;
+        }
+
+        Segment segment = this.segment;
+
+        for (Entry entry : this.pendingByName.values()) {
+            if (entry.folded.startsWith(folded)) {
+                sink.add(entry.name);
+            }
+        }
+
+        for (int i = segment.lowerBound(folded); i < segment.size && segment.startsWith(i, folded);
+             i++) {
+            Entry entry = segment.get(i);
+
+            if (!this.isShadowed(entry) && !sink.addInOrder(entry.name)) {
+                break;
+            }
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        Player player = event.getPlayer();
+        this.add(player.getName(), player.getUniqueId());
+    }
+
+    /**
+     * Sets the executor of the index's background tasks, which is the
+     * asynchronous scheduler of the server by default.
+     */
+    void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Opens the files of the index in the given directory, recovering the
+     * players that were logged but not compacted yet.
+     */
+    synchronized void load(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        this.generation = findLatestGeneration(directory);
+        this.segment = this.generation == 0 ? Segment.EMPTY :
+            Segment.map(indexFile(directory, this.generation));
+        deleteStaleGenerations(directory, this.generation);
+
+        Path logFile = directory.resolve(LOG_FILE_NAME);
+
+        if (Files.exists(logFile)) {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(logFile));
+
+            // A trailing partial record was being written when the server
+            // stopped, and is ignored
+            for (int offset = 0; offset + RECORD_SIZE <= buffer.limit(); offset += RECORD_SIZE) {
+                this.addPending(Entry.read(buffer, offset));
+            }
+        }
+
+        synchronized (this.logLock) {
+            this.log = openLog(logFile);
+        }
+
+        this.directory = directory;
+    }
+
+    synchronized void unload() {
+        synchronized (this.logLock) {
+            // Players who joined just before the server stopped
+            this.writeUnlogged();
+
+            try {
+                this.log.close();
+            } catch (IOException e) {
+                logError("Could not close the offline player index log", e);
+            }
+
+            this.log = null;
+        }
+
+        this.directory = null;
+        this.flushScheduled = false;
+        this.segment = Segment.EMPTY;
+        this.pendingByName.clear();
+        this.pendingById.clear();
+    }
+
+    private static Path indexFile(Path directory, long generation) {
+        return directory.resolve("players." + generation + ".idx");
+    }
+
+    /**
+     * Returns the generation of the latest index file in the given directory,
+     * or {@code 0} if there is none.
+     */
+    private static long findLatestGeneration(Path directory) throws IOException {
+        long latest = 0;
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, INDEX_FILE_GLOB)) {
+            for (Path file : files) {
+                latest = Math.max(latest, parseGeneration(file));
+            }
+        }
+
+        return latest;
+    }
+
+    private static long parseGeneration(Path file) {
+        String name = file.getFileName().toString();
+
+        try {
+            return Long.parseLong(name.substring("players.".length(), name.length() - 4));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Deletes the index files in the given directory that are older than the
+     * given generation. Files that are still mapped cannot be deleted on some
+     * platforms, such as Windows, until their mapping is garbage collected,
+     * and are deleted after a later compaction or load instead.
+     */
+    private static void deleteStaleGenerations(Path directory, long generation) {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, INDEX_FILE_GLOB)) {
+            for (Path file : files) {
+                if (parseGeneration(file) < generation) {
+                    deleteIfPossible(file);
+                }
+            }
+        } catch (IOException e) {
+            logError("Could not list the offline player index files", e);
+        }
+    }
+
+    private static void deleteIfPossible(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // Still mapped
+        }
+    }
+
+    private static FileChannel openLog(Path logFile) throws IOException {
+        FileChannel channel = FileChannel.open(logFile, StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE);
+        // Overwrite a trailing partial record
+        channel.position(channel.size() - channel.size() % RECORD_SIZE);
+        return channel;
+    }
+
+    private Entry find(String name) {
+        String folded = fold(name);
+
+        if (folded == null) {
+            return null;
+        }
+
+        Entry entry = this.pendingByName.get(folded);
+
+        if (entry != null) {
+            return entry;
+        }
+
+        Segment segment = this.segment;
+        int index = segment.lowerBound(folded);
+
+        if (index == segment.size || segment.compare(index, folded) != 0) {
+            return null;
+        }
+
+        entry = segment.get(index);
+        return this.isShadowed(entry) ? null : entry;
+    }
+
+    /**
+     * Returns {@code true} if the given entry of the mapped file was replaced
+     * by a pending entry, either because the player changed their name or
+     * because their name was taken by another player.
+     */
+    private boolean isShadowed(Entry entry) {
+        Entry pending = this.pendingById.get(entry.uniqueId);
+        return (pending != null && !pending.folded.equals(entry.folded)) ||
+            this.pendingByName.containsKey(entry.folded);
+    }
+
+    synchronized void add(String name, UUID uniqueId) {
+        String folded = fold(name);
+
+        if (this.directory == null || folded == null || uniqueId == null) {
+            return;
+        }
+
+        Entry known = this.find(name);
+
+        if (known != null && known.name.equals(name) && known.uniqueId.equals(uniqueId)) {
+            return;
+        }
+
+        Entry entry = new Entry(name, folded, uniqueId);
+        this.addPending(entry);
+        // Players usually join on the main server thread, which must not wait
+        // for the log file
+        this.unlogged.add(entry);
+
+        if (!this.flushScheduled) {
+            this.flushScheduled = true;
+            this.executor.execute(this::flushLog);
+        }
+
+        if (this.pendingByName.size() >= COMPACTION_THRESHOLD && !this.compacting) {
+            this.executor.execute(this::compact);
+        }
+    }
+
+    /**
+     * Appends the pending players that were not logged yet to the log file.
+     */
+    void flushLog() {
+        synchronized (this) {
+            this.flushScheduled = false;
+        }
+
+        synchronized (this.logLock) {
+            this.writeUnlogged();
+        }
+    }
+
+    private void writeUnlogged() {
+        if (this.log == null || this.unlogged.isEmpty()) {
+            return;
+        }
+
+        List<Entry> entries = new ArrayList<>();
+        Entry entry;
+
+        while ((entry = this.unlogged.poll()) != null) {
+            entries.add(entry);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(entries.size() * RECORD_SIZE);
+
+        for (Entry unlogged : entries) {
+            unlogged.write(buffer);
+        }
+
+        buffer.flip();
+
+        try {
+            while (buffer.hasRemaining()) {
+                this.log.write(buffer);
+            }
+        } catch (IOException e) {
+            logError("Could not log players in the offline player index", e);
+        }
+    }
+
+    private void addPending(Entry entry) {
+        Entry replaced = this.pendingById.put(entry.uniqueId, entry);
+
+        if (replaced != null) {
+            this.pendingByName.remove(replaced.folded, replaced);
+        }
+
+        this.pendingByName.put(entry.folded, entry);
+    }
+
+    /**
+     * Merges the pending players into the next generation of the index file,
+     * which replaces the mapped one, then rewrites the log file with the
+     * players added during the compaction.
+     */
+    void compact() {
+        Path directory;
+        long generation;
+        Segment base;
+        Entry[] entries;
+
+        synchronized (this) {
+            directory = this.directory;
+
+            if (directory == null || this.compacting || this.pendingByName.isEmpty()) {
+                return;
+            }
+
+            this.compacting = true;
+            generation = this.generation + 1;
+            base = this.segment;
+            entries = this.pendingByName.values().toArray(new Entry[0]);
+        }
+
+        Segment merged = null;
+
+        try {
+            Arrays.sort(entries, Comparator.comparing(entry -> entry.folded));
+            merged = writeIndex(indexFile(directory, generation), base, entries, true);
+        } catch (IOException e) {
+            logError("Could not compact the offline player index", e);
+        }
+
+        synchronized (this) {
+            this.compacting = false;
+            // Wakes up a seeding task waiting to merge its next batch
+            this.notifyAll();
+
+            if (merged == null || this.directory != directory) {
+                return;
+            }
+
+            // The merged file is visible before the pending players are
+            // removed, so they can always be found
+            this.segment = merged;
+            this.generation = generation;
+
+            for (Entry entry : entries) {
+                this.pendingByName.remove(entry.folded, entry);
+                this.pendingById.remove(entry.uniqueId, entry);
+            }
+        }
+
+        synchronized (this.logLock) {
+            try {
+                if (this.log != null) {
+                    this.rewriteLog(directory);
+                }
+            } catch (IOException e) {
+                // The log still contains every pending player
+                logError("Could not rewrite the offline player index log", e);
+            }
+        }
+
+        deleteStaleGenerations(directory, generation);
+    }
+
+    boolean isSeeded() {
+        Path directory = this.directory;
+        return directory == null || Files.exists(directory.resolve(SEEDED_MARKER_FILE_NAME));
+    }
+
+    /**
+     * Adds the players of the server's user cache file and player data
+     * directory to the index, except the names that are already indexed or
+     * pending, by merging them into new generations of the index file, then
+     * writes the seeding marker file. Stops early if the index is disabled
+     * meanwhile.
+     *
+     * @param userCacheFile       the server's {@code usercache.json} file
+     * @param playerDataDirectory the {@code playerdata} directory of the main
+     *                            world, or {@code null} if there is none
+     */
+    void seed(Path userCacheFile, Path playerDataDirectory) {
+        Path directory = this.directory;
+
+        if (directory == null) {
+            return;
+        }
+
+        // The players of the user cache, whose older names in the player data
+        // are not seeded. Players who are already indexed are not collected:
+        // their names are left out by the merge, which keeps indexed names
+        Set<UUID> known = new HashSet<>();
+        SeedBatch batch = new SeedBatch(known);
+
+        try {
+            // Read first, as its names are the most recent ones
+            if (Files.exists(userCacheFile)) {
+                try (Reader reader = Files.newBufferedReader(userCacheFile,
+                    StandardCharsets.UTF_8)) {
+                    for (JsonElement element : new JsonParser().parse(reader).getAsJsonArray()) {
+                        JsonObject user = element.getAsJsonObject();
+                        UUID uniqueId;
+
+                        try {
+                            uniqueId = UUID.fromString(user.get("uuid").getAsString());
+                        } catch (RuntimeException e) {
+                            continue;
+                        }
+
+                        // The user cache is small, unlike the player data
+                        if (batch.add(user.get("name").getAsString(), uniqueId) &&
+                            !this.mergeSeeded(directory, batch)) {
+                            return;
+                        }
+
+                        known.add(uniqueId);
+                    }
+                }
+            }
+
+            if (playerDataDirectory != null && Files.isDirectory(playerDataDirectory)) {
+                try (DirectoryStream<Path> files =
+                         Files.newDirectoryStream(playerDataDirectory, "*.dat")) {
+                    for (Path file : files) {
+                        String fileName = file.getFileName().toString();
+                        UUID uniqueId;
+
+                        try {
+                            uniqueId = UUID.fromString(fileName.substring(0,
+                                fileName.length() - 4));
+                        } catch (IllegalArgumentException e) {
+                            continue;
+                        }
+
+                        if (known.contains(uniqueId)) {
+                            continue;
+                        }
+
+                        String name = PlayerData.readLastKnownName(file);
+
+                        if (name != null && batch.add(name, uniqueId) &&
+                            !this.mergeSeeded(directory, batch)) {
+                            return;
+                        }
+                    }
+                }
+            }
+
+            if (!batch.isEmpty() && !this.mergeSeeded(directory, batch)) {
+                return;
+            }
+
+            Files.createFile(directory.resolve(SEEDED_MARKER_FILE_NAME));
+        } catch (IOException | RuntimeException e) {
+            // Seeding starts over the next time that the index is enabled
+            Croissant.getPlugin().getLogger().log(Level.SEVERE,
+                "[Croissant] Could not seed the offline player index", e);
+        }
+    }
+
+    /**
+     * Merges a batch of seeded players into the next generation of the index
+     * file, waiting for a running compaction to complete first, and clears the
+     * batch.
+     *
+     * @return {@code false} if the index was disabled, and seeding must stop
+     */
+    private boolean mergeSeeded(Path directory, SeedBatch batch) throws IOException {
+        long generation;
+        Segment base;
+
+        synchronized (this) {
+            while (this.compacting) {
+                try {
+                    this.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+
+            if (this.directory != directory) {
+                return false;
+            }
+
+            this.compacting = true;
+            generation = this.generation + 1;
+            base = this.segment;
+        }
+
+        Segment merged = null;
+
+        try {
+            merged = writeIndex(indexFile(directory, generation), base, batch.drain(), false);
+        } finally {
+            synchronized (this) {
+                this.compacting = false;
+                this.notifyAll();
+
+                if (merged != null && this.directory == directory) {
+                    this.segment = merged;
+                    this.generation = generation;
+                }
+            }
+        }
+
+        deleteStaleGenerations(directory, generation);
+        return this.directory == directory;
+    }
+
+    /**
+     * Replaces the log file with one of the pending players. Players who were
+     * not logged yet may end up logged twice, which is harmless, as the log is
+     * replayed in order.
+     */
+    private void rewriteLog(Path directory) throws IOException {
+        Path logFile = directory.resolve(LOG_FILE_NAME);
+        Path tempFile = directory.resolve(LOG_FILE_NAME + ".tmp");
+        // Pending players can be added concurrently
+        Entry[] entries = this.pendingByName.values().toArray(new Entry[0]);
+        ByteBuffer buffer = ByteBuffer.allocate(entries.length * RECORD_SIZE);
+
+        for (Entry entry : entries) {
+            entry.write(buffer);
+        }
+
+        buffer.flip();
+
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        this.log.close();
+
+        try {
+            move(tempFile, logFile);
+        } finally {
+            // The old log is reopened if it could not be replaced, as it
+            // still contains every pending player
+            this.log = openLog(logFile);
+        }
+    }
+
+    /**
+     * Writes the records of the given segment and the given sorted entries to
+     * a new index file, which is only given its name once complete, and maps
+     * it.
+     */
+    private static Segment writeIndex(Path indexFile, Segment base, Entry[] entries,
+                                      boolean replace) throws IOException {
+        Path tempFile = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        merge(base, entries, replace, tempFile);
+        move(tempFile, indexFile);
+        return Segment.map(indexFile);
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Writes the records of the given segment and the given sorted entries to
+     * a file, sorted. If the entries replace records, the records with the
+     * name or the unique ID of an entry are left out, otherwise the entries
+     * with the name of a record are.
+     */
+    private static void merge(Segment base, Entry[] entries, boolean replace, Path file)
+        throws IOException {
+        Set<UUID> entryIds = new HashSet<>(replace ? entries.length * 2 : 0);
+
+        for (int i = 0; replace && i < entries.length; i++) {
+            entryIds.add(entries[i].uniqueId);
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * 2048);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(0).putInt(0);
+            int count = 0;
+            int j = 0;
+
+            for (int i = 0; i < base.size; i++) {
+                int comparison = 1;
+
+                while (j < entries.length &&
+                    (comparison = base.compare(i, entries[j].folded)) > 0) {
+                    flushIfFull(channel, buffer);
+                    entries[j++].write(buffer);
+                    count++;
+                }
+
+                if (comparison == 0 && !replace) {
+                    j++;
+                } else if (comparison == 0 || entryIds.contains(base.getUniqueId(i))) {
+                    continue;
+                }
+
+                flushIfFull(channel, buffer);
+                base.copy(i, buffer);
+                count++;
+            }
+
+            while (j < entries.length) {
+                flushIfFull(channel, buffer);
+                entries[j++].write(buffer);
+                count++;
+            }
+
+            buffer.flip();
+
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+
+            channel.write((ByteBuffer) ByteBuffer.allocate(4).putInt(count).flip(), 8);
+            channel.force(true);
+        }
+    }
+
+    private static void flushIfFull(FileChannel channel, ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() >= RECORD_SIZE) {
+            return;
+        }
+
+        buffer.flip();
+
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+
+        buffer.clear();
+    }
+
+    /**
+     * Returns the given name case-folded (see {@link CroissantUtil#foldCase(String)}),
+     * or {@code null} if it cannot be indexed. Indexed names are ASCII, which
+     * is folded to lower case, so that they can be compared as bytes.
+     */
+    private static String fold(String name) {
+        if (name.length() > MAX_NAME_LENGTH) {
+            return null;
+        }
+
+        char[] chars = name.toCharArray();
+
+        for (int i = 0; i < chars.length; i++) {
+            char c = chars[i];
+
+            if (c == 0 || c > 127) {
+                return null;
+            }
+
+            chars[i] = CroissantUtil.foldCase(c);
+        }
+
+        return new String(chars);
+    }
+
+    private static void logError(String message, IOException e) {
+        Croissant.getPlugin().getLogger().log(Level.SEVERE, "[Croissant] " + message, e);
+    }
+
+    /**
+     * The seeded players that were not merged into the index file yet, at
+     * most one per name.
+     */
+    private final class SeedBatch {
+
+        private final Set<UUID> known;
+        private final Map<String, Entry> byName = new HashMap<>();
+
+        private SeedBatch(Set<UUID> known) {
+            this.known = known;
+        }
+
+        /**
+         * Adds a seeded player to the batch, unless they are known or their
+         * name is taken.
+         *
+         * @return {@code true} if the batch is full and must be merged
+         */
+        boolean add(String name, UUID uniqueId) {
+            String folded = fold(name);
+
+            if (folded == null || this.known.contains(uniqueId) ||
+                OfflinePlayerIndex.this.pendingById.containsKey(uniqueId) ||
+                OfflinePlayerIndex.this.pendingByName.containsKey(folded)) {
+                return false;
+            }
+
+            this.byName.putIfAbsent(folded, new Entry(name, folded, uniqueId));
+            return this.byName.size() >= SEED_BATCH_SIZE;
+        }
+
+        boolean isEmpty() {
+            return this.byName.isEmpty();
+        }
+
+        /**
+         * Returns the players of the batch sorted by case-folded name, and
+         * clears the batch.
+         */
+        Entry[] drain() {
+            Entry[] entries = this.byName.values().toArray(new Entry[0]);
+            Arrays.sort(entries, Comparator.comparing(entry -> entry.folded));
+            this.byName.clear();
+            return entries;
+        }
+
+    }
+
+    /**
+     * Reads the last known names of players from their player data files,
+     * which are gzip-compressed NBT compounds, without loading them entirely.
+     */
+    private static final class PlayerData {
+
+        private static final int TAG_END = 0;
+        private static final int TAG_BYTE_ARRAY = 7;
+        private static final int TAG_STRING = 8;
+        private static final int TAG_LIST = 9;
+        private static final int TAG_COMPOUND = 10;
+        private static final int TAG_INT_ARRAY = 11;
+        private static final int TAG_LONG_ARRAY = 12;
+
+        private PlayerData() {
+        }
+
+        /**
+         * Returns the {@code bukkit.lastKnownName} of a player data file, or
+         * {@code null} if it does not have one or cannot be read.
+         */
+        static String readLastKnownName(Path file) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(file))))) {
+                if (in.readUnsignedByte() != TAG_COMPOUND) {
+                    return null;
+                }
+
+                in.readUTF();
+                return findString(in, "bukkit", "lastKnownName");
+            } catch (IOException e) {
+                // Corrupted or being written
+                return null;
+            }
+        }
+
+        /**
+         * Returns the string found at the given path of compound names in the
+         * compound being read, or {@code null} if there is none.
+         */
+        private static String findString(DataInputStream in, String... path)
+            throws IOException {
+            int depth = 0;
+
+            while (true) {
+                int type = in.readUnsignedByte();
+
+                if (type == TAG_END) {
+                    return null;
+                }
+
+                String name = in.readUTF();
+
+                if (depth == path.length - 1 && type == TAG_STRING &&
+                    name.equals(path[depth])) {
+                    return in.readUTF();
+                } else if (depth < path.length - 1 && type == TAG_COMPOUND &&
+                    name.equals(path[depth])) {
+                    // Reads the entries of the nested compound instead
+                    depth++;
+                } else {
+                    skip(in, type);
+                }
+            }
+        }
+
+        private static void skip(DataInputStream in, int type) throws IOException {
+            switch (type) {
+                case 1:
+                    skipBytes(in, 1);
+                    break;
+                case 2:
+                    skipBytes(in, 2);
+                    break;
+                case 3:
+                case 5:
+                    skipBytes(in, 4);
+                    break;
+                case 4:
+                case 6:
+                    skipBytes(in, 8);
+                    break;
+                case TAG_BYTE_ARRAY:
+                    skipBytes(in, in.readInt());
+                    break;
+                case TAG_STRING:
+                    skipBytes(in, in.readUnsignedShort());
+                    break;
+                case TAG_LIST: {
+                    int elementType = in.readUnsignedByte();
+                    int length = in.readInt();
+
+                    for (int i = 0; i < length; i++) {
+                        skip(in, elementType);
+                    }
+
+                    break;
+                }
+                case TAG_COMPOUND: {
+                    int entryType;
+
+                    while ((entryType = in.readUnsignedByte()) != TAG_END) {
+                        skipBytes(in, in.readUnsignedShort());
+                        skip(in, entryType);
+                    }
+
+                    break;
+                }
+                case TAG_INT_ARRAY:
+                    skipBytes(in, in.readInt() * 4L);
+                    break;
+                case TAG_LONG_ARRAY:
+                    skipBytes(in, in.readInt() * 8L);
+                    break;
+                default:
+                    throw new IOException("Unknown NBT tag type: " + type);
+            }
+        }
+
+        private static void skipBytes(DataInputStream in, long count) throws IOException {
+            if (count < 0) {
+                throw new IOException("Negative NBT length");
+            }
+
+            while (count > 0) {
+                long skipped = in.skip(count);
+
+                if (skipped <= 0) {
+                    // skip() may return 0 before the end of the stream
+                    in.readByte();
+                    skipped = 1;
+                }
+
+                count -= skipped;
+            }
+        }
+
+    }
+
+    /**
+     * A player's name and unique ID.
+     */
+    private static final class Entry {
+
+        private final String name;
+        private final String folded;
+        private final UUID uniqueId;
+
+        private Entry(String name, String folded, UUID uniqueId) {
+            this.name = name;
+            this.folded = folded;
+            this.uniqueId = uniqueId;
+        }
+
+        static Entry read(ByteBuffer buffer, int offset) {
+            int length = 0;
+
+            while (length < MAX_NAME_LENGTH && buffer.get(offset + length) != 0) {
+                length++;
+            }
+
+            byte[] bytes = new byte[length];
+
+            for (int i = 0; i < length; i++) {
+                bytes[i] = buffer.get(offset + i);
+            }
+
+            String name = new String(bytes, StandardCharsets.US_ASCII);
+            UUID uniqueId = new UUID(buffer.getLong(offset + MAX_NAME_LENGTH),
+                buffer.getLong(offset + MAX_NAME_LENGTH + 8));
+            return new Entry(name, fold(name), uniqueId);
+        }
+
+        void write(ByteBuffer buffer) {
+            for (int i = 0; i < MAX_NAME_LENGTH; i++) {
+                buffer.put(i < this.name.length() ? (byte) this.name.charAt(i) : 0);
+            }
+
+            buffer.putLong(this.uniqueId.getMostSignificantBits());
+            buffer.putLong(this.uniqueId.getLeastSignificantBits());
+        }
+
+    }
+
+    /**
+     * A memory-mapped index file. Its records are only read with absolute
+     * methods, so a segment can be read from any thread.
+     */
+    private static final class Segment {
+
+        private static final Segment EMPTY = new Segment(ByteBuffer.allocate(HEADER_SIZE), 0);
+
+        private final ByteBuffer buffer;
+        private final int size;
+
+        private Segment(ByteBuffer buffer, int size) {
+            this.buffer = buffer;
+            this.size = size;
+        }
+
+        static Segment map(Path file) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                long length = channel.size();
+
+                if (length < HEADER_SIZE) {
+                    throw new IOException("Invalid offline player index file: " + file);
+                }
+
+                ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+                int size = buffer.getInt(8);
+
+                if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || size < 0 ||
+                    HEADER_SIZE + (long) size * RECORD_SIZE > length) {
+                    throw new IOException("Invalid offline player index file: " + file);
+                }
+
+                return new Segment(buffer, size);
+            }
+        }
+
+        private static int offset(int index) {
+            return HEADER_SIZE + index * RECORD_SIZE;
+        }
+
+        /**
+         * Compares the case-folded name of a record with the given case-folded
+         * name.
+         */
+        int compare(int index, String folded) {
+            int offset = offset(index);
+
+            for (int i = 0; i < MAX_NAME_LENGTH; i++) {
+                int c = foldByte(this.buffer.get(offset + i));
+                int other = i < folded.length() ? folded.charAt(i) : 0;
+
+                if (c != other) {
+                    return c - other;
+                }
+
+                if (c == 0) {
+                    return 0;
+                }
+            }
+
+            return 0;
+        }
+
+        boolean startsWith(int index, String folded) {
+            int offset = offset(index);
+
+            for (int i = 0; i < folded.length(); i++) {
+                if (foldByte(this.buffer.get(offset + i)) != folded.charAt(i)) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        /**
+         * Returns the index of the first record whose name is not less than the
+         * given case-folded name.
+         */
+        int lowerBound(String folded) {
+            int low = 0;
+            int high = this.size;
+
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+
+                if (this.compare(middle, folded) < 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+
+            return low;
+        }
+
+        Entry get(int index) {
+            return Entry.read(this.buffer, offset(index));
+        }
+
+        UUID getUniqueId(int index) {
+            int offset = offset(index) + MAX_NAME_LENGTH;
+            return new UUID(this.buffer.getLong(offset), this.buffer.getLong(offset + 8));
+        }
+
+        void copy(int index, ByteBuffer target) {
+            int offset = offset(index);
+
+            for (int i = 0; i < RECORD_SIZE; i++) {
+                target.put(this.buffer.get(offset + i));
+            }
+        }
+
+        private static int foldByte(byte b) {
+            return b >= 'A' && b <= 'Z' ? b + ('a' - 'A') : b;
+        }
+
+    }
+
+}
@@ -0,0 +1,38 @@
+package com.github.overmighty.croissant.command.argument;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * A command executor method parameter annotated with {@code Option} indicates
+ * an option: a named command argument that can be provided in any position,
+ * with its value after an equals sign.
+ * <p>
+ * Options whose name is a single character are written with a single dash,
+ * such as {@code -r=5}, and other options are written with two dashes, such as
+ * {@code --radius=5}. Their values are resolved like the values of regular
+ * command arguments of the same type.
+ * <p>
+ * When an option is not provided by a command sender, the value of the
+ * {@link Default} annotation of the parameter is resolved instead if there is
+ * one, otherwise {@code null} is passed as parameter to the executor method.
+ * As a consequence, parameters that represent options without a default value
+ * must be of a non-primitive type.
+ *
+ * @see Flag
+ * @see com.github.overmighty.croissant.command.CommandExecutor
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.PARAMETER)
+public @interface Option {
+
+    /**
+     * Returns the name of the option, without dashes.
+     *
+     * @return the option's name
+     */
+    String value();
+
+}
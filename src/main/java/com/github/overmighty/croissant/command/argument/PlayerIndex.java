@@ -0,0 +1,277 @@
+package com.github.overmighty.croissant.command.argument;
+
+import com.github.overmighty.croissant.Croissant;
+import com.github.overmighty.croissant.util.CroissantUtil;
+import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An index of the online players, maintained from join and quit events, that
+ * the {@link BuiltInArgumentType#PLAYER} and
+ * {@link BuiltInArgumentType#OFFLINE_PLAYER} argument types use to look up
+ * and complete players.
+ * <p>
+ * Players can be looked up from any thread, and completed from any thread for
+ * command senders that are not players. The players that a player can see can
+ * only be checked on the main server thread, so the completions of a player
+ * are left to the main thread (see {@link #complete(String, CommandSender, CompletionSink)}).
+ * <p>
+ * Players are mapped by case-folded name and by unique ID in concurrent maps,
+ * and their case-folded names are kept in an immutable sorted array, replaced
+ * whenever a player joins or quits, so that completing a name takes time
+ * proportional to the logarithm of the amount of online players plus the
+ * amount of matching players.
+ * <p>
+ * The index is enabled by the first {@link com.github.overmighty.croissant.command.CommandHandler}
+ * that is constructed. Until then, players are looked up through
+ * {@link Bukkit}.
+ */
+public final class PlayerIndex implements Listener {
+
+    private static final PlayerIndex INSTANCE = new PlayerIndex();
+
+    private final ConcurrentMap<String, Player> playersByName = new ConcurrentHashMap<>();
+    private final ConcurrentMap<UUID, Player> playersById = new ConcurrentHashMap<>();
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private volatile boolean enabled;
+
+    private PlayerIndex() {
+    }
+
+    /**
+     * Returns the index of the online players.
+     *
+     * @return the player index
+     */
+    public static PlayerIndex getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Enables the index, if it is not already enabled: registers its event
+     * listeners and adds the players that are already online. Must be called
+     * from the main server thread.
+     */
+    public synchronized void enable() {
+        if (this.enabled) {
+            return;
+        }
+
+        Bukkit.getPluginManager().registerEvents(this, Croissant.getPlugin());
+
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            this.add(player);
+        }
+
+        this.enabled = true;
+    }
+
+    /**
+     * Returns {@code true} if the index is enabled and kept up to date.
+     *
+     * @return if the index is enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the online player with the given name, ignoring case.
+     *
+     * @param name the name of the player
+     * @return the player, or {@code null} if there is no such online player
+     */
+    public Player getPlayer(String name) {
+        return this.playersByName.get(CroissantUtil.foldCase(name));
+    }
+
+    /**
+     * Returns the online player with the given unique ID.
+     *
+     * @param uniqueId the unique ID of the player
+     * @return the player, or {@code null} if there is no such online player
+     */
+    public Player getPlayer(UUID uniqueId) {
+        return this.playersById.get(uniqueId);
+    }
+
+    /**
+     * Returns the amount of online players.
+     *
+     * @return the amount of players in the index
+     */
+    public int size() {
+        return this.snapshot.players.length;
+    }
+
+    /**
+     * Returns the names of the online players that start with the given
+     * prefix, ignoring case. If the command sender is a player, only the names
+     * of the players that they can see are returned, and none are returned
+     * outside of the main server thread.
+     *
+     * @param prefix the prefix to complete
+     * @param sender the command sender that is completing the prefix
+     * @return the matching names, sorted in
+     *         {@link String#CASE_INSENSITIVE_ORDER}
+     */
+    public List<String> complete(String prefix, CommandSender sender) {
+        CompletionSink sink = new CompletionSink(Integer.MAX_VALUE);
+        this.complete(prefix, sender, sink);
+        return sink.toList();
+    }
+
+    /**
+     * Adds the names of the online players that start with the given prefix,
+     * ignoring case, to a completion sink, in
+     * {@link String#CASE_INSENSITIVE_ORDER}. If the command sender is a
+     * player, only the names of the players that they can see are added, which
+     * can only be checked on the main server thread: on other threads, the
+     * sink is marked as requiring the main thread instead (see
+     * {@link CompletionSink#requireMainThread()}). Names stop being added once
+     * the sink rejects one.
+     *
+     * @param prefix the prefix to complete
+     * @param sender the command sender that is completing the prefix
+     * @param sink   the sink to add the matching names to
+     */
+    public void complete(String prefix, CommandSender sender, CompletionSink sink) {
+        // Visibility is not covered by any event, so it is checked for
+        // matching players only, and on the main thread only, as the hidden
+        // players of a player are not safe to read from other threads
+        Player viewer = sender instanceof Player ? (Player) sender : null;
+
+        if (viewer != null && !Bukkit.isPrimaryThread()) {
+            sink.requireMainThread();
+            return;
+        }
+
+        Snapshot snapshot = this.snapshot;
+        String folded = CroissantUtil.foldCase(prefix);
+
+        for (int i = snapshot.lowerBound(folded);
+             i < snapshot.folded.length && snapshot.folded[i].startsWith(folded); i++) {
+            Player player = snapshot.players[i];
+
+            if ((viewer == null || viewer.canSee(player)) && !sink.addInOrder(player.getName())) {
+                break;
+            }
+        }
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        this.add(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        this.remove(event.getPlayer());
+    }
+
+    private synchronized void add(Player player) {
+        String folded = CroissantUtil.foldCase(player.getName());
+        Player replaced = this.playersByName.put(folded, player);
+
+        if (replaced == player) {
+            return;
+        }
+
+        if (replaced != null) {
+            // A player with the same name whose quit was missed
+            this.removeUniqueId(replaced);
+            this.snapshot = this.snapshot.without(folded, replaced);
+        }
+
+        if (player.getUniqueId() != null) {
+            this.playersById.put(player.getUniqueId(), player);
+        }
+
+        this.snapshot = this.snapshot.with(folded, player);
+    }
+
+    private synchronized void remove(Player player) {
+        String folded = CroissantUtil.foldCase(player.getName());
+        this.playersByName.remove(folded, player);
+        this.removeUniqueId(player);
+        this.snapshot = this.snapshot.without(folded, player);
+    }
+
+    private void removeUniqueId(Player player) {
+        if (player.getUniqueId() != null) {
+            this.playersById.remove(player.getUniqueId(), player);
+        }
+    }
+
+    /**
+     * The online players, sorted by case-folded name, which is unique.
+     */
+    private static final class Snapshot {
+
+        private static final Snapshot EMPTY = new Snapshot(new String[0], new Player[0]);
+
+        private final String[] folded;
+        private final Player[] players;
+
+        private Snapshot(String[] folded, Player[] players) {
+            this.folded = folded;
+            this.players = players;
+        }
+
+        /**
+         * Returns the index of the first name that is not less than the given
+         * one.
+         */
+        int lowerBound(String name) {
+            int index = Arrays.binarySearch(this.folded, name);
+            return index < 0 ? -(index + 1) : index;
+        }
+
+        Snapshot with(String name, Player player) {
+            int index = this.lowerBound(name);
+            int length = this.folded.length;
+            String[] folded = new String[length + 1];
+            Player[] players = new Player[length + 1];
+
+            System.arraycopy(this.folded, 0, folded, 0, index);
+            System.arraycopy(this.players, 0, players, 0, index);
+            folded[index] = name;
+            players[index] = player;
+            System.arraycopy(this.folded, index, folded, index + 1, length - index);
+            System.arraycopy(this.players, index, players, index + 1, length - index);
+            return new Snapshot(folded, players);
+        }
+
+        Snapshot without(String name, Player player) {
+            int index = Arrays.binarySearch(this.folded, name);
+
+            if (index < 0 || this.players[index] != player) {
+                return this;
+            }
+
+            int length = this.folded.length;
+            String[] folded = new String[length - 1];
+            Player[] players = new Player[length - 1];
+
+            System.arraycopy(this.folded, 0, folded, 0, index);
+            System.arraycopy(this.players, 0, players, 0, index);
+            System.arraycopy(this.folded, index + 1, folded, index, length - index - 1);
+            System.arraycopy(this.players, index + 1, players, index, length - index - 1);
+            return new Snapshot(folded, players);
+        }
+
+    }
+
+}
@@ -0,0 +1,44 @@
+package com.github.overmighty.croissant.command.argument;
+
+import java.util.List;
+
+/**
+ * An {@link ArgumentCompleter} that adds its completion suggestions to a
+ * {@link CompletionSink} instead of returning a list of them, for completers
+ * that suggest values from large sets, such as online players.
+ * <p>
+ * The sink only keeps the first completions in alphabetical order, up to the
+ * completion limit of the command's handler (see
+ * {@link com.github.overmighty.croissant.command.CommandHandler#setCompletionLimit(int)}),
+ * so the completer does not have to sort its completions. A completer that
+ * suggests completions in order can add them with
+ * {@link CompletionSink#addInOrder(String)} and stop once the sink rejects one.
+ *
+ * @see ArgumentType
+ */
+@FunctionalInterface
+public interface StreamingArgumentCompleter extends ArgumentCompleter {
+
+    /**
+     * Adds completion suggestions for a partial command argument to a sink.
+     *
+     * @param argument the argument to complete
+     * @param sink     the sink to add the completions to
+     */
+    void complete(Argument argument, CompletionSink sink);
+
+    /**
+     * Returns all completion suggestions for a partial command argument, in
+     * alphabetical order.
+     *
+     * @param argument the argument to complete
+     * @return the list of completions to suggest to the command sender
+     */
+    @Override
+    default List<String> complete(Argument argument) {
+        CompletionSink sink = new CompletionSink(Integer.MAX_VALUE);
+        this.complete(argument, sink);
+        return sink.toList();
+    }
+
+}
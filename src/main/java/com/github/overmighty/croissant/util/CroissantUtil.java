@@ -39,6 +39,72 @@ public class CroissantUtil {
         return PLAYER_UUID_PATTERN;
     }
 
+    /**
+     * Returns {@code true} if the given string is a valid Minecraft player UUID,
+     * like {@link #getPlayerUUIDPattern()} does, but without using a regular
+     * expression.
+     *
+     * @param value the string to check
+     * @return if the string is a valid Minecraft player UUID
+     */
+    public static boolean isPlayerUUID(String value) {
+        if (value.length() != 36) {
+            return false;
+        }
+
+        for (int i = 0; i < 36; i++) {
+            char c = value.charAt(i);
+            boolean valid;
+
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                valid = c == '-';
+            } else if (i == 14) {
+                valid = c == '3' || c == '4';
+            } else if (i == 19) {
+                valid = c == '8' || c == '9' || c == 'a' || c == 'b';
+            } else {
+                valid = Character.digit(c, 16) >= 0 && c < 128;
+            }
+
+            if (!valid) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the given string with each character case-folded like
+     * {@link String#CASE_INSENSITIVE_ORDER} does, so that two strings are
+     * equal ignoring case if and only if their folded forms are equal, and
+     * folded strings are sorted in the same order by their natural ordering.
+     *
+     * @param value the string to fold
+     * @return the case-folded string
+     */
+    public static String foldCase(String value) {
+        char[] chars = value.toCharArray();
+
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = foldCase(chars[i]);
+        }
+
+        return new String(chars);
+    }
+
+    /**
+     * Returns the given character case-folded like
+     * {@link String#CASE_INSENSITIVE_ORDER} does.
+     *
+     * @param c the character to fold
+     * @return the case-folded character
+     * @see #foldCase(String)
+     */
+    public static char foldCase(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
     /**
      * Returns the index of the Minecraft inventory slot at which the given
      * inventory row and column cross.
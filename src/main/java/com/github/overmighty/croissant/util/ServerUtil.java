@@ -3,17 +3,24 @@ package com.github.overmighty.croissant.util;
 import com.github.overmighty.croissant.Croissant;
 import org.bukkit.Bukkit;
 import org.bukkit.command.CommandMap;
+import org.bukkit.entity.Player;
 
 import java.lang.reflect.Field;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * Provides utility methods related to the server that is running the plugin.
  */
 public class ServerUtil {
 
+    private static final Executor MAIN_THREAD_EXECUTOR = ServerUtil::runOnMainThread;
+
     private static CommandMap commandMap;
     private static boolean paper;
     private static boolean asyncTabCompletionSupported;
+    private static boolean commandUpdatesSupported;
 
     static {
         try {
@@ -38,6 +45,15 @@ public class ServerUtil {
         } catch (ClassNotFoundException e) {
             asyncTabCompletionSupported = false;
         }
+
+        try {
+            Player.class.getMethod("updateCommands");
+            commandUpdatesSupported = true;
+        } catch (NoSuchMethodException e) {
+            // For servers older than 1.13, which do not send the list of
+            // commands to clients
+            commandUpdatesSupported = false;
+        }
     }
 
     private static void exposeCommandMap() {
@@ -84,4 +100,79 @@ public class ServerUtil {
         return asyncTabCompletionSupported;
     }
 
+    /**
+     * Sends the server's current list of commands to all online players, so
+     * that commands registered after they joined show up in their client's
+     * command suggestions. Does nothing on servers older than 1.13.
+     */
+    public static void updateCommands() {
+        if (!commandUpdatesSupported) {
+            return;
+        }
+
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            player.updateCommands();
+        }
+    }
+
+    /**
+     * Runs a task on the main server thread. If the current thread is the main
+     * server thread, the task is run immediately, otherwise it is scheduled to
+     * run during the next server tick.
+     *
+     * @param task the task to run on the main server thread
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static void runOnMainThread(Runnable task) {
+        if (Bukkit.isPrimaryThread()) {
+            task.run();
+        } else {
+            Bukkit.getScheduler().runTask(Croissant.getPlugin(), task);
+        }
+    }
+
+    /**
+     * Calls a task on the main server thread, like
+     * {@link ServerUtil#runOnMainThread(Runnable)}, and returns a future that
+     * is completed with the task's result. This lets asynchronous command
+     * executor methods use the Bukkit API, which is mostly not thread-safe.
+     *
+     * @param task the task to call on the main server thread
+     * @param <T>  the type of the task's result
+     * @return a future that is completed with the task's result, or
+     *         exceptionally with the exception thrown by the task
+     */
+    @SuppressWarnings("unused")
+    public static <T> CompletableFuture<T> callOnMainThread(Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+
+        runOnMainThread(() -> {
+            if (future.isDone()) {
+                // Cancelled before the task could run
+                return;
+            }
+
+            try {
+                future.complete(task.call());
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        });
+
+        return future;
+    }
+
+    /**
+     * Returns an {@link Executor} that runs tasks on the main server thread,
+     * using {@link ServerUtil#runOnMainThread(Runnable)}. It can be passed to
+     * the asynchronous methods of {@link CompletableFuture}, to continue on the
+     * main server thread once a background operation completes.
+     *
+     * @return an executor that runs tasks on the main server thread
+     */
+    @SuppressWarnings("unused")
+    public static Executor getMainThreadExecutor() {
+        return MAIN_THREAD_EXECUTOR;
+    }
+
 }
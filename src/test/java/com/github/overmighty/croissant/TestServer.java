@@ -1,6 +1,7 @@
 package com.github.overmighty.croissant;
 
 import org.bukkit.Server;
+import org.bukkit.command.SimpleCommandMap;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.PluginManager;
 import org.mockito.Mockito;
@@ -18,6 +19,8 @@ public class TestServer {
         PluginManager mockedPluginManager = Mockito.mock(PluginManager.class);
         Mockito.when(this.mockedServer.getLogger()).thenReturn(mockedLogger);
         Mockito.when(this.mockedServer.getPluginManager()).thenReturn(mockedPluginManager);
+        Mockito.when(this.mockedServer.getCommandMap())
+            .thenReturn(new SimpleCommandMap(this.mockedServer));
         this.initOnlinePlayerList();
     }
 
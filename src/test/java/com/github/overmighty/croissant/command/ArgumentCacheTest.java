@@ -0,0 +1,104 @@
+package com.github.overmighty.croissant.command;
+
+import com.github.overmighty.croissant.command.argument.ArgumentType;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+class ArgumentCacheTest extends TestCommand {
+
+    private static final AtomicInteger resolutions = new AtomicInteger();
+
+    private static final ArgumentType COUNTED = new ArgumentType(argument -> {
+        resolutions.incrementAndGet();
+        return new Counted(argument.getValue());
+    });
+
+    ArgumentCacheTest() {
+        super("argument-cache");
+        super.setArgumentCacheSize(2);
+        COUNTED.setPure(true);
+        super.getHandler().getArgumentTypeRegistry().register(Counted.class, COUNTED);
+        resolutions.set(0);
+    }
+
+    @CommandExecutor
+    void run(CommandSender sender, Counted counted, int amount) {
+        super.parsedArgs = new Object[] { counted.value, amount };
+    }
+
+    @Test
+    @DisplayName("Test identical calls with an argument cache: expect arguments resolved once")
+    void testIdenticalCallsExpectResolvedOnce() {
+        for (int i = 0; i < 3; i++) {
+            super.parsedArgs = null;
+            super.execute("test", "1");
+            Assertions.assertArrayEquals(new Object[] { "test", 1 }, super.parsedArgs);
+        }
+
+        Assertions.assertEquals(1, resolutions.get());
+    }
+
+    @Test
+    @DisplayName("Test argument cache eviction: expect least recently used call resolved again")
+    void testEvictionExpectLeastRecentlyUsedResolvedAgain() {
+        super.execute("a", "1");
+        super.execute("b", "1");
+        super.execute("a", "1");
+        super.execute("c", "1");
+        Assertions.assertEquals(3, resolutions.get());
+
+        // "b" was evicted when "c" was cached, but "a" was not
+        super.execute("a", "1");
+        Assertions.assertEquals(3, resolutions.get());
+        super.execute("b", "1");
+        Assertions.assertEquals(4, resolutions.get());
+    }
+
+    @Test
+    @DisplayName("Test argument cache with invalid arguments: expect failures not cached")
+    void testInvalidArgumentsExpectNotCached() {
+        super.execute("test", "one");
+        super.execute("test", "one");
+        Assertions.assertNull(super.parsedArgs);
+        Assertions.assertEquals(2, resolutions.get());
+    }
+
+    @Test
+    @DisplayName("Test execution plan with a player parameter: expect not cacheable")
+    void testPlayerParameterExpectNotCacheable() {
+        CroissantCommand command = new PlayerCommand();
+        Assertions.assertFalse(ExecutionPlan.compile(command, CommandDispatchers.of(
+            PlayerCommand.class), super.getHandler()).isCacheable());
+        Assertions.assertTrue(ExecutionPlan.compile(this, CommandDispatchers.of(
+            ArgumentCacheTest.class), super.getHandler()).isCacheable());
+    }
+
+    static class Counted {
+
+        private final String value;
+
+        Counted(String value) {
+            this.value = value;
+        }
+
+    }
+
+    private static class PlayerCommand extends CroissantCommand {
+
+        PlayerCommand() {
+            super("player");
+        }
+
+        @CommandExecutor
+        void run(CommandSender sender, Player player, int amount) {
+            // Only the command's execution plan is tested
+        }
+
+    }
+
+}
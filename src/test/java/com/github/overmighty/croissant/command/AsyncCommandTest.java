@@ -0,0 +1,109 @@
+package com.github.overmighty.croissant.command;
+
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+class AsyncCommandTest extends TestCommand {
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    private final Player player = Mockito.mock(Player.class);
+    private volatile Thread executorThread;
+    private volatile CompletableFuture<Void> result;
+
+    AsyncCommandTest() {
+        super("async");
+        super.getHandler().setAsyncExecutor(executor);
+        Mockito.when(this.player.getUniqueId()).thenReturn(UUID.randomUUID());
+    }
+
+    @Async
+    @CommandExecutor
+    CompletionStage<Void> run(CommandSender sender, String value) {
+        this.executorThread = Thread.currentThread();
+        this.result = new CompletableFuture<>();
+        super.parsedArgs = new Object[] { value };
+        return value.equals("minimal") ? minimalStage(this.result) : this.result;
+    }
+
+    /**
+     * Returns a stage that is not a {@link java.util.concurrent.Future} and
+     * does not support {@link CompletionStage#toCompletableFuture()}.
+     */
+    @SuppressWarnings("unchecked")
+    private static CompletionStage<Void> minimalStage(CompletableFuture<Void> future) {
+        return (CompletionStage<Void>) Proxy.newProxyInstance(
+            AsyncCommandTest.class.getClassLoader(), new Class<?>[] { CompletionStage.class },
+            (proxy, method, args) -> {
+                if (method.getName().equals("toCompletableFuture")) {
+                    throw new UnsupportedOperationException();
+                }
+
+                try {
+                    return method.invoke(future, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
+    }
+
+    private void awaitExecutor() throws Exception {
+        executor.submit(() -> { }).get();
+    }
+
+    @Test
+    @DisplayName("Test async command execution: expect executor called off the calling thread")
+    void testAsyncExecutionExpectOtherThread() throws Exception {
+        super.executeAs(this.player, "test");
+        this.awaitExecutor();
+
+        Assertions.assertArrayEquals(new Object[] { "test" }, super.parsedArgs);
+        Assertions.assertNotEquals(Thread.currentThread(), this.executorThread);
+        Assertions.assertEquals(1, super.getHandler().getPendingAsyncExecutions());
+
+        this.result.complete(null);
+        Assertions.assertEquals(0, super.getHandler().getPendingAsyncExecutions());
+    }
+
+    @Test
+    @DisplayName("Test async command execution when the sender quits: expect cancellation")
+    void testSenderQuitExpectCancellation() throws Exception {
+        super.executeAs(this.player, "test");
+        this.awaitExecutor();
+
+        PlayerQuitEvent event = new PlayerQuitEvent(this.player, "");
+        super.getHandler().getAsyncExecutions().onPlayerQuit(event);
+
+        Assertions.assertTrue(this.result.isCancelled());
+        Assertions.assertEquals(0, super.getHandler().getPendingAsyncExecutions());
+    }
+
+    @Test
+    @DisplayName("Test a sender quitting with an uncancellable stage: expect other executions cancelled")
+    void testSenderQuitWithMinimalStageExpectOthersCancelled() throws Exception {
+        super.executeAs(this.player, "minimal");
+        this.awaitExecutor();
+        super.executeAs(this.player, "test");
+        this.awaitExecutor();
+
+        PlayerQuitEvent event = new PlayerQuitEvent(this.player, "");
+        super.getHandler().getAsyncExecutions().onPlayerQuit(event);
+
+        Assertions.assertTrue(this.result.isCancelled());
+        Assertions.assertEquals(0, super.getHandler().getPendingAsyncExecutions());
+    }
+
+}
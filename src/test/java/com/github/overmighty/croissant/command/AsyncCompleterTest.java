@@ -0,0 +1,103 @@
+package com.github.overmighty.croissant.command;
+
+import com.github.overmighty.croissant.command.argument.ArgumentType;
+import com.github.overmighty.croissant.command.argument.AsyncArgumentCompleter;
+import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+class AsyncCompleterTest extends TestCommand {
+
+    private static volatile CompletableFuture<List<String>> future;
+
+    private static final ArgumentType REMOTE = new ArgumentType(
+        argument -> new Remote(),
+        (AsyncArgumentCompleter) argument -> future
+    );
+
+    AsyncCompleterTest() {
+        super("async-completer");
+        super.getHandler().getArgumentTypeRegistry().register(Remote.class, REMOTE);
+    }
+
+    @CommandExecutor
+    void run(CommandSender sender, Remote remote) {
+        super.ranSuccessfully = true;
+    }
+
+    @AfterEach
+    void resetDeadline() {
+        super.getHandler().setCompletionDeadline(100);
+        Mockito.when(Bukkit.getServer().isPrimaryThread()).thenReturn(false);
+    }
+
+    @Test
+    @DisplayName("Test an asynchronous completer that completes in time: expect completions")
+    void testCompletedInTimeExpectCompletions() {
+        future = CompletableFuture.supplyAsync(() -> Arrays.asList("alpha", "beta"));
+        Assertions.assertEquals(Arrays.asList("alpha", "beta"), super.tabComplete(""));
+    }
+
+    @Test
+    @DisplayName("Test an asynchronous completer past the deadline: expect no completions")
+    void testPastDeadlineExpectNoCompletions() {
+        future = new CompletableFuture<>();
+        super.getHandler().setCompletionDeadline(10);
+
+        Assertions.assertEquals(Collections.emptyList(), super.tabComplete(""));
+        Assertions.assertTrue(future.isCancelled());
+    }
+
+    @Test
+    @DisplayName("Test an asynchronous completer on the main thread: expect no waiting")
+    void testMainThreadExpectNoWaiting() {
+        Mockito.when(Bukkit.getServer().isPrimaryThread()).thenReturn(true);
+        future = new CompletableFuture<>();
+        super.getHandler().setCompletionDeadline(60_000);
+
+        Assertions.assertEquals(Collections.emptyList(), super.tabComplete(""));
+        Assertions.assertTrue(future.isCancelled());
+
+        future = CompletableFuture.completedFuture(Collections.singletonList("alpha"));
+        Assertions.assertEquals(Collections.singletonList("alpha"), super.tabComplete(""));
+    }
+
+    @Test
+    @DisplayName("Test a late asynchronous completer on the main thread: expect completions on next keystroke")
+    void testMainThreadLateExpectCachedForNextKeystroke() {
+        Mockito.when(Bukkit.getServer().isPrimaryThread()).thenReturn(true);
+        Player player = Mockito.mock(Player.class);
+        Mockito.when(player.getUniqueId()).thenReturn(UUID.randomUUID());
+        super.setCompletionCacheExpiry(60_000);
+
+        try {
+            CompletableFuture<List<String>> late = new CompletableFuture<>();
+            future = late;
+            Assertions.assertEquals(Collections.emptyList(),
+                super.tabComplete(player, super.getName(), new String[] { "a" }));
+            Assertions.assertFalse(late.isCancelled());
+
+            late.complete(Arrays.asList("alpha", "apple"));
+            future = new CompletableFuture<>();
+            Assertions.assertEquals(Collections.singletonList("alpha"),
+                super.tabComplete(player, super.getName(), new String[] { "al" }));
+        } finally {
+            super.setCompletionCacheExpiry(0);
+        }
+    }
+
+    static class Remote {
+    }
+
+}
@@ -0,0 +1,119 @@
+package com.github.overmighty.croissant.command;
+
+import com.github.overmighty.croissant.command.argument.ArgumentType;
+import com.github.overmighty.croissant.command.argument.AsyncArgumentResolver;
+import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+class AsyncResolverTest extends TestCommand {
+
+    private static final Map<String, CompletableFuture<Account>> lookups =
+        new ConcurrentHashMap<>();
+
+    private static final ArgumentType ACCOUNT = new ArgumentType(
+        (AsyncArgumentResolver<Account>) argument ->
+            lookups.computeIfAbsent(argument.getValue(), value -> new CompletableFuture<>())
+    );
+
+    private final CommandSender sender = Mockito.mock(CommandSender.class);
+
+    AsyncResolverTest() {
+        super("async-resolver");
+        ACCOUNT.setErrorMessage("Unknown account: {value}");
+        super.getHandler().getArgumentTypeRegistry().register(Account.class, ACCOUNT);
+    }
+
+    @CommandExecutor
+    void run(CommandSender sender, Account from, Account to, int amount) {
+        super.parsedArgs = new Object[] { from.name, to.name, amount };
+    }
+
+    @BeforeEach
+    void runOnMainThread() {
+        // Completed resolutions then call the executor method immediately
+        Mockito.when(Bukkit.getServer().isPrimaryThread()).thenReturn(true);
+        lookups.clear();
+    }
+
+    @AfterEach
+    void resetMainThread() {
+        Mockito.when(Bukkit.getServer().isPrimaryThread()).thenReturn(false);
+    }
+
+    @Test
+    @DisplayName("Test asynchronous resolvers: expect concurrent resolution, then execution")
+    void testAsyncResolversExpectConcurrentResolution() {
+        super.executeAs(this.sender, "alice", "bob", "5");
+        // Both lookups were started before either was completed
+        Assertions.assertEquals(2, lookups.size());
+        Assertions.assertNull(super.parsedArgs);
+
+        lookups.get("bob").complete(new Account("bob"));
+        Assertions.assertNull(super.parsedArgs);
+        lookups.get("alice").complete(new Account("alice"));
+        Assertions.assertArrayEquals(new Object[] { "alice", "bob", 5 }, super.parsedArgs);
+        Assertions.assertEquals(0, super.getHandler().getPendingAsyncExecutions());
+    }
+
+    @Test
+    @DisplayName("Test asynchronous resolvers with unknown values: expect an error per argument")
+    void testUnknownValuesExpectErrorPerArgument() {
+        super.executeAs(this.sender, "alice", "bob", "5");
+        lookups.get("alice").complete(null);
+        lookups.get("bob").complete(null);
+
+        Assertions.assertNull(super.parsedArgs);
+        Mockito.verify(this.sender).sendMessage("Unknown account: alice");
+        Mockito.verify(this.sender).sendMessage("Unknown account: bob");
+    }
+
+    @Test
+    @DisplayName("Test a failing asynchronous resolver: expect a resolution failure, usage message")
+    void testFailingResolverExpectUsageMessage() {
+        long failures = super.getStatistics().getResolutionFailures().getCount();
+
+        super.executeAs(this.sender, "alice", "bob", "5");
+        lookups.get("alice").completeExceptionally(new IllegalStateException("Database down"));
+        lookups.get("bob").complete(new Account("bob"));
+
+        Assertions.assertNull(super.parsedArgs);
+        Assertions.assertEquals(failures + 1,
+            super.getStatistics().getResolutionFailures().getCount());
+        // The exception is logged rather than reported as an invalid argument
+        Mockito.verify(this.sender, Mockito.never()).sendMessage("Unknown account: alice");
+        Mockito.verify(this.sender).sendMessage(super.getHandler().getUsageMessagePrefix() +
+            super.getUsage("async-resolver"));
+        Assertions.assertEquals(0, super.getHandler().getPendingAsyncExecutions());
+    }
+
+    @Test
+    @DisplayName("Test asynchronous resolvers with an invalid synchronous argument: expect cancelled")
+    void testInvalidSyncArgumentExpectCancelled() {
+        super.executeAs(this.sender, "alice", "bob", "five");
+
+        Assertions.assertTrue(lookups.get("alice").isCancelled());
+        Assertions.assertTrue(lookups.get("bob").isCancelled());
+        Assertions.assertEquals(0, super.getHandler().getPendingAsyncExecutions());
+    }
+
+    static class Account {
+
+        private final String name;
+
+        Account(String name) {
+            this.name = name;
+        }
+
+    }
+
+}
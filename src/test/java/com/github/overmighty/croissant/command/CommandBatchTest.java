@@ -0,0 +1,145 @@
+package com.github.overmighty.croissant.command;
+
+import com.github.overmighty.croissant.util.ServerUtil;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+
+class CommandBatchTest extends TestCommand {
+
+    private final List<Integer> amounts = new ArrayList<>();
+
+    CommandBatchTest() {
+        super("give-money");
+        super.setAliases("gm");
+        super.getHandler().registerCommands("croissant",
+            Arrays.asList(this, new PlayerOnlyCommand()));
+    }
+
+    @CommandExecutor
+    void run(CommandSender sender, String name, int amount) {
+        this.amounts.add(amount);
+    }
+
+    @Test
+    @DisplayName("Test batch execution: expect lines spread over ticks and failures recorded")
+    void testBatchExecutionExpectLinesPerTickAndFailures() {
+        String script = "# Maintenance script\n" +
+            "give-money Steve 1\n" +
+            "/GM   Alex 2\n" +
+            "\n" +
+            "croissant:give-money Steve 3\n" +
+            "give-money Steve three\n" +
+            "/  \n" +
+            "other:give-money Steve 4\n";
+        CommandSender sender = Mockito.mock(CommandSender.class);
+        CommandBatch batch = new CommandBatch(super.getHandler(), sender,
+            new BufferedReader(new StringReader(script)), Runnable::run, 2);
+
+        Assertions.assertTrue(batch.tick());
+        Assertions.assertEquals(Collections.singletonList(1), this.amounts);
+        Assertions.assertTrue(batch.tick());
+        Assertions.assertTrue(batch.tick());
+        Assertions.assertTrue(batch.tick());
+        Assertions.assertFalse(batch.tick());
+
+        Assertions.assertEquals(Arrays.asList(1, 2, 3), this.amounts);
+        Assertions.assertEquals(8, batch.getLineCount());
+        Assertions.assertEquals(2, batch.getFailureCount());
+        Assertions.assertEquals(6, batch.getFailures().get(0).getLineNumber());
+        Assertions.assertEquals("Invalid arguments", batch.getFailures().get(0).getReason());
+        // Commands of other plugins are dispatched through the server
+        Assertions.assertEquals(8, batch.getFailures().get(1).getLineNumber());
+        Assertions.assertEquals("Unknown command", batch.getFailures().get(1).getReason());
+        Assertions.assertTrue(batch.getCompletion().toCompletableFuture().isDone());
+    }
+
+    @Test
+    @DisplayName("Test batch execution of a player-only command by the console: expect failure")
+    void testPlayerOnlyCommandExpectFailure() {
+        CommandSender sender = Mockito.mock(CommandSender.class);
+        CommandBatch batch = new CommandBatch(super.getHandler(), sender,
+            new BufferedReader(new StringReader("heal Steve\ngive-money Steve 1\n")),
+            Runnable::run, 2);
+
+        Assertions.assertTrue(batch.tick());
+        Assertions.assertFalse(batch.tick());
+        Assertions.assertEquals(Collections.singletonList(1), this.amounts);
+        Assertions.assertEquals(1, batch.getFailureCount());
+        Assertions.assertEquals(1, batch.getFailures().get(0).getLineNumber());
+        Assertions.assertEquals("Player-only command", batch.getFailures().get(0).getReason());
+    }
+
+    @Test
+    @DisplayName("Test batch execution of a command of another plugin: expect invalid usage")
+    void testOtherPluginCommandRejectedExpectInvalidUsage() {
+        ServerUtil.getCommandMap().register("other", new Command("kick") {
+            @Override
+            public boolean execute(CommandSender sender, String label, String[] args) {
+                return false;
+            }
+        });
+        CommandSender sender = Mockito.mock(CommandSender.class);
+        CommandBatch batch = new CommandBatch(super.getHandler(), sender,
+            new BufferedReader(new StringReader("kick\nban Steve\n")),
+            Runnable::run, 2);
+
+        Assertions.assertTrue(batch.tick());
+        Assertions.assertFalse(batch.tick());
+        Assertions.assertEquals(2, batch.getFailureCount());
+        // The mocked server rejects every command that it dispatches
+        Assertions.assertEquals("Invalid usage", batch.getFailures().get(0).getReason());
+        Assertions.assertEquals("Unknown command", batch.getFailures().get(1).getReason());
+    }
+
+    @Test
+    @DisplayName("Test batch execution with a reader that is behind: expect ticks not blocked")
+    void testReaderBehindExpectTicksNotBlocked() {
+        Queue<Runnable> reads = new ArrayDeque<>();
+        CommandSender sender = Mockito.mock(CommandSender.class);
+        CommandBatch batch = new CommandBatch(super.getHandler(), sender,
+            new BufferedReader(new StringReader("give-money Steve 1\ngive-money Alex 2\n")),
+            reads::add, 1);
+
+        // Nothing was read yet, so the tick executes nothing
+        Assertions.assertTrue(batch.tick());
+        Assertions.assertEquals(0, batch.getLineCount());
+        Assertions.assertEquals(1, reads.size());
+
+        // Reads up to 4 ticks' worth of lines, which is the whole script
+        reads.remove().run();
+        Assertions.assertTrue(batch.tick());
+        Assertions.assertEquals(Collections.singletonList(1), this.amounts);
+        Assertions.assertTrue(batch.tick());
+        Assertions.assertFalse(batch.tick());
+        Assertions.assertEquals(Arrays.asList(1, 2), this.amounts);
+        Assertions.assertTrue(reads.isEmpty());
+    }
+
+    private static class PlayerOnlyCommand extends CroissantCommand {
+
+        PlayerOnlyCommand() {
+            super("heal");
+            super.setPlayerOnly(true);
+        }
+
+        @CommandExecutor
+        void run(CommandSender sender, String name) {
+            Assertions.fail("Player-only command executed by the console");
+        }
+
+    }
+
+}
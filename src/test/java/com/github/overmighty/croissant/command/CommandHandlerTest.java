@@ -1,8 +1,11 @@
 package com.github.overmighty.croissant.command;
 
+import com.github.overmighty.croissant.util.ServerUtil;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -24,6 +27,22 @@ class CommandHandlerTest extends TestCommand {
         // settings that alter tab-completion only and not argument parsing
     }
 
+    @Test
+    @DisplayName("Test CommandHandler.registerCommands(Collection): expect all registered")
+    void testRegisterCommandsExpectAllRegistered() {
+        List<CroissantCommand> commands = Arrays.asList(
+            new RegisteredCommand("registered-a"),
+            new RegisteredCommand("registered-b")
+        );
+        super.getHandler().registerCommands("croissant", commands);
+
+        for (CroissantCommand command : commands) {
+            Assertions.assertSame(command,
+                ServerUtil.getCommandMap().getCommand(command.getName()));
+            Assertions.assertSame(super.getHandler(), command.getHandler());
+        }
+    }
+
     @ParameterizedTest(name = "Test CommandHandler.setPlayerCompleterEnabled(boolean) ({index}/6)")
     @MethodSource
     void testSetPlayerCompleterEnabled(boolean enabled, String[] args, List<String> expected) {
@@ -67,4 +86,12 @@ class CommandHandlerTest extends TestCommand {
         );
     }
 
+    private static class RegisteredCommand extends CroissantCommand {
+
+        RegisteredCommand(String name) {
+            super(name);
+        }
+
+    }
+
 }
@@ -0,0 +1,105 @@
+package com.github.overmighty.croissant.command;
+
+import org.bukkit.command.CommandSender;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.stream.Stream;
+
+class CommandStatisticsTest extends TestCommand {
+
+    private final CroissantCommand subcommand = new AddCommand();
+
+    CommandStatisticsTest() {
+        super("statistics");
+        super.addSubcommand(this.subcommand);
+    }
+
+    @CommandExecutor
+    void run(CommandSender sender) {
+        super.ranSuccessfully = true;
+    }
+
+    @Test
+    @DisplayName("Test command statistics: expect calls recorded for the handling subcommand")
+    void testStatisticsExpectCallsRecordedForSubcommand() {
+        super.execute();
+        super.execute("add", "1", "2");
+        super.execute("add", "1", "two");
+        super.execute("add", "1");
+        super.tabComplete("add", "");
+
+        CommandStatistics statistics = this.subcommand.getStatistics();
+        Assertions.assertEquals("statistics add", statistics.getPath());
+        Assertions.assertEquals(1, statistics.getExecutions().getCount());
+        Assertions.assertEquals(2, statistics.getResolutionFailures().getCount());
+        Assertions.assertEquals(1, statistics.getTabCompletions().getCount());
+        Assertions.assertEquals(2.0 / 3, statistics.getFailureRate());
+
+        CommandStatistics rootStatistics = super.getStatistics();
+        Assertions.assertEquals(1, rootStatistics.getExecutions().getCount());
+        Assertions.assertEquals(0, rootStatistics.getTabCompletions().getCount());
+        Assertions.assertTrue(super.getHandler().getStatistics().stream()
+            .anyMatch(s -> s.getPath().equals("statistics add")));
+    }
+
+    @Test
+    @DisplayName("Test LatencyHistogram percentiles: expect upper bounds of buckets")
+    void testHistogramPercentilesExpectBucketUpperBounds() {
+        LatencyRecorder recorder = new LatencyRecorder();
+
+        for (long i = 1; i <= 100; i++) {
+            recorder.record(i * 1000);
+        }
+
+        LatencyHistogram histogram = recorder.snapshot();
+        Assertions.assertEquals(100, histogram.getCount());
+        Assertions.assertEquals(LatencyRecorder.bucketUpperBound(
+            LatencyRecorder.bucketIndex(50_000)), histogram.getMedian());
+        Assertions.assertEquals(LatencyRecorder.bucketUpperBound(
+            LatencyRecorder.bucketIndex(100_000)), histogram.getMax());
+        Assertions.assertEquals(0, new LatencyRecorder().snapshot().getPercentile(99));
+    }
+
+    @ParameterizedTest(name = "Test LatencyRecorder buckets ({index}/6)")
+    @MethodSource
+    void testRecorderBuckets(long value) {
+        int index = LatencyRecorder.bucketIndex(value);
+        long upperBound = LatencyRecorder.bucketUpperBound(index);
+
+        Assertions.assertTrue(index < LatencyRecorder.BUCKET_COUNT);
+        Assertions.assertTrue(upperBound >= value);
+        Assertions.assertTrue(upperBound - value <= value / LatencyRecorder.SUB_BUCKET_COUNT);
+        Assertions.assertEquals(index, LatencyRecorder.bucketIndex(upperBound));
+    }
+
+    @SuppressWarnings("unused")
+    static Stream<Arguments> testRecorderBuckets() {
+        return Stream.of(
+            Arguments.arguments(0L),
+            Arguments.arguments(7L),
+            Arguments.arguments(8L),
+            Arguments.arguments(1_234_567L),
+            Arguments.arguments(1L << 40),
+            Arguments.arguments(Long.MAX_VALUE)
+        );
+    }
+
+    private class AddCommand extends CroissantCommand {
+
+        AddCommand() {
+            super("add");
+        }
+
+        @CommandExecutor
+        void run(CommandSender sender, int a, int b) {
+            CommandStatisticsTest.this.parsedArgs = new Object[] { a + b };
+        }
+
+    }
+
+}
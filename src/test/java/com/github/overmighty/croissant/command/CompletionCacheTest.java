@@ -0,0 +1,120 @@
+package com.github.overmighty.croissant.command;
+
+import com.github.overmighty.croissant.command.argument.ArgumentType;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.util.StringUtil;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+class CompletionCacheTest extends TestCommand {
+
+    private static final List<String> NAMES = Arrays.asList("Steve", "Stella", "stone", "Alex");
+    private static final AtomicInteger completions = new AtomicInteger();
+
+    private static final ArgumentType COUNTED = new ArgumentType(
+        argument -> new Counted(argument.getValue()),
+        argument -> {
+            completions.incrementAndGet();
+            List<String> matches = new ArrayList<>();
+            StringUtil.copyPartialMatches(argument.getValue(), NAMES, matches);
+            return matches;
+        }
+    );
+
+    private final Player player = Mockito.mock(Player.class);
+
+    CompletionCacheTest() {
+        super("completion-cache");
+        super.setCompletionCacheExpiry(60_000);
+        super.getHandler().getArgumentTypeRegistry().register(Counted.class, COUNTED);
+        Mockito.when(this.player.getUniqueId()).thenReturn(UUID.randomUUID());
+        completions.set(0);
+    }
+
+    @CommandExecutor
+    void run(CommandSender sender, Counted first, Counted second) {
+        super.ranSuccessfully = true;
+    }
+
+    private List<String> tabCompleteAs(CommandSender sender, String... args) {
+        return super.tabComplete(sender, super.getName(), args);
+    }
+
+    @Test
+    @DisplayName("Test typing an argument with a completion cache: expect completer called once")
+    void testTypingExpectCompleterCalledOnce() {
+        Assertions.assertEquals(Arrays.asList("Steve", "Stella", "stone"),
+            this.tabCompleteAs(this.player, "s"));
+        Assertions.assertEquals(Arrays.asList("Steve", "Stella"),
+            this.tabCompleteAs(this.player, "STE"));
+        Assertions.assertEquals(Collections.singletonList("Steve"),
+            this.tabCompleteAs(this.player, "stev"));
+        Assertions.assertEquals(1, completions.get());
+    }
+
+    @Test
+    @DisplayName("Test shortening or changing an argument: expect completer called again")
+    void testShorteningExpectCompleterCalledAgain() {
+        this.tabCompleteAs(this.player, "ste");
+        Assertions.assertEquals(Arrays.asList("Steve", "Stella", "stone"),
+            this.tabCompleteAs(this.player, "st"));
+        Assertions.assertEquals(Collections.singletonList("Alex"),
+            this.tabCompleteAs(this.player, "a"));
+        // The second argument has its own slot
+        Assertions.assertEquals(Collections.singletonList("Alex"),
+            this.tabCompleteAs(this.player, "a", "al"));
+        Assertions.assertEquals(4, completions.get());
+    }
+
+    @Test
+    @DisplayName("Test completion cache with a non-entity sender: expect no caching")
+    void testNonEntitySenderExpectNoCaching() {
+        super.tabComplete("s");
+        super.tabComplete("st");
+        Assertions.assertEquals(2, completions.get());
+    }
+
+    @Test
+    @DisplayName("Test completion cache expiry: expect completer called again")
+    void testExpiryExpectCompleterCalledAgain() {
+        AtomicLong clock = new AtomicLong();
+        CompletionCache cache = new CompletionCache(TimeUnit.SECONDS.toNanos(1), clock::get);
+        ParameterSlot slot = ExecutionPlan.compile(this, CommandDispatchers.of(
+            CompletionCacheTest.class), super.getHandler()).getSlots()[0];
+        UUID key = UUID.randomUUID();
+
+        cache.put(key, slot, "s", NAMES.subList(0, 3));
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+        Assertions.assertEquals(Arrays.asList("Steve", "Stella"), cache.get(key, slot, "ste"));
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        Assertions.assertNull(cache.get(key, slot, "stel"));
+
+        // Expired entries are swept once per minute
+        clock.addAndGet(TimeUnit.MINUTES.toNanos(1));
+        cache.put(UUID.randomUUID(), slot, "a", Collections.emptyList());
+        Assertions.assertEquals(1, cache.size());
+    }
+
+    static class Counted {
+
+        private final String value;
+
+        Counted(String value) {
+            this.value = value;
+        }
+
+    }
+
+}
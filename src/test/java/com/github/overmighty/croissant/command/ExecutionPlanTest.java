@@ -0,0 +1,126 @@
+package com.github.overmighty.croissant.command;
+
+import com.github.overmighty.croissant.command.argument.ArgumentResolver;
+import com.github.overmighty.croissant.command.argument.ArgumentType;
+import org.bukkit.command.CommandSender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Iterator;
+import java.util.Map;
+
+class ExecutionPlanTest extends TestCommand {
+
+    ExecutionPlanTest() {
+        super("execution-plan");
+    }
+
+    @CommandExecutor
+    void run(CommandSender sender, Custom custom) {
+        super.parsedArgs = new Object[] { custom.value };
+    }
+
+    @AfterEach
+    void removeCustomArgumentType() {
+        super.getHandler().getArgumentTypes().remove(Custom.class);
+        super.getHandler().getArgumentTypes().remove(Value.class);
+    }
+
+    @Test
+    @DisplayName("Test execution plan with missing argument type: expect exception")
+    void testMissingArgumentTypeExpectException() {
+        Assertions.assertThrows(IllegalStateException.class, () -> super.execute("test"));
+    }
+
+    @Test
+    @DisplayName("Test execution plan after putting an argument type: expect success")
+    void testPutArgumentTypeExpectSuccess() {
+        super.getHandler().getArgumentTypes().put(Custom.class, customType("a"));
+        super.execute("test");
+        Assertions.assertArrayEquals(new Object[] { "a:test" }, super.parsedArgs);
+
+        super.getHandler().getArgumentTypes().put(Custom.class, customType("b"));
+        super.execute("test");
+        Assertions.assertArrayEquals(new Object[] { "b:test" }, super.parsedArgs);
+    }
+
+    @Test
+    @DisplayName("Test execution plan after changing argument types via views: expect success")
+    void testChangeArgumentTypeThroughViewExpectSuccess() {
+        Map<Class<?>, ArgumentType> argumentTypes = super.getHandler().getArgumentTypes();
+        argumentTypes.put(Custom.class, customType("a"));
+        super.execute("test");
+
+        for (Map.Entry<Class<?>, ArgumentType> entry : argumentTypes.entrySet()) {
+            if (entry.getKey() == Custom.class) {
+                entry.setValue(customType("b"));
+            }
+        }
+
+        super.execute("test");
+        Assertions.assertArrayEquals(new Object[] { "b:test" }, super.parsedArgs);
+
+        Iterator<Class<?>> iterator = argumentTypes.keySet().iterator();
+
+        while (iterator.hasNext()) {
+            if (iterator.next() == Custom.class) {
+                iterator.remove();
+            }
+        }
+
+        Assertions.assertThrows(IllegalStateException.class, () -> super.execute("test"));
+    }
+
+    @Test
+    @DisplayName("Test execution plan with an argument type bound to an interface: expect success")
+    void testInterfaceArgumentTypeExpectSuccess() {
+        super.getHandler().getArgumentTypes().put(Value.class, customType("interface"));
+        super.execute("test");
+        Assertions.assertArrayEquals(new Object[] { "interface:test" }, super.parsedArgs);
+
+        // Argument types bound to classes take precedence over interfaces
+        super.getHandler().getArgumentTypes().put(Custom.class, customType("class"));
+        super.execute("test");
+        Assertions.assertArrayEquals(new Object[] { "class:test" }, super.parsedArgs);
+    }
+
+    @Test
+    @DisplayName("Test execution plan after using the argument type registry: expect success")
+    void testArgumentTypeRegistryExpectSuccess() {
+        ArgumentTypeRegistry registry = super.getHandler().getArgumentTypeRegistry();
+        Map<Class<?>, ArgumentType> snapshot = registry.snapshot();
+        ArgumentType argType = customType("a");
+
+        Assertions.assertNull(registry.register(Custom.class, argType));
+        Assertions.assertFalse(snapshot.containsKey(Custom.class));
+        Assertions.assertThrows(UnsupportedOperationException.class,
+            () -> registry.snapshot().remove(Custom.class));
+        super.execute("test");
+        Assertions.assertArrayEquals(new Object[] { "a:test" }, super.parsedArgs);
+
+        Assertions.assertSame(argType, registry.unregister(Custom.class));
+        Assertions.assertThrows(IllegalStateException.class, () -> super.execute("test"));
+    }
+
+    private static ArgumentType customType(String prefix) {
+        return new ArgumentType(
+            (ArgumentResolver<Custom>) argument -> new Custom(prefix + ":" + argument.getValue())
+        );
+    }
+
+    interface Value {
+    }
+
+    static class Custom implements Value {
+
+        private final String value;
+
+        Custom(String value) {
+            this.value = value;
+        }
+
+    }
+
+}
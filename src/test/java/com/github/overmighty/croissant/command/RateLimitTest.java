@@ -0,0 +1,105 @@
+package com.github.overmighty.croissant.command;
+
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+class RateLimitTest extends TestCommand {
+
+    private final Player player = Mockito.mock(Player.class);
+
+    RateLimitTest() {
+        super("rate-limit");
+        super.addSubcommand(new LimitedCommand());
+        Mockito.when(this.player.getUniqueId()).thenReturn(UUID.randomUUID());
+    }
+
+    @Cooldown(seconds = 60)
+    @CommandExecutor
+    void run(CommandSender sender) {
+        super.ranSuccessfully = true;
+    }
+
+    @Test
+    @DisplayName("Test executor cooldown: expect second call by the same player rejected")
+    void testCooldownExpectSecondCallRejected() {
+        super.executeAs(this.player);
+        Assertions.assertTrue(super.ranSuccessfully);
+
+        super.ranSuccessfully = false;
+        super.executeAs(this.player);
+        Assertions.assertFalse(super.ranSuccessfully);
+        Mockito.verify(this.player).sendMessage(super.getHandler().getRateLimitedMessage()
+            .replace("{seconds}", "60"));
+    }
+
+    @Test
+    @DisplayName("Test executor cooldown with a non-entity sender: expect no limit")
+    void testCooldownWithNonEntitySenderExpectNoLimit() {
+        super.execute();
+        super.ranSuccessfully = false;
+        super.execute();
+        Assertions.assertTrue(super.ranSuccessfully);
+    }
+
+    @Test
+    @DisplayName("Test subcommand rate limit: expect calls allowed up to the number of permits")
+    void testSubcommandRateLimitExpectBurstAllowed() {
+        for (int i = 0; i < 2; i++) {
+            super.parsedArgs = null;
+            super.executeAs(this.player, "limited", "test");
+            Assertions.assertArrayEquals(new Object[] { "test" }, super.parsedArgs);
+        }
+
+        super.parsedArgs = null;
+        super.executeAs(this.player, "limited", "test");
+        Assertions.assertNull(super.parsedArgs);
+        // The executor's cooldown is separate from its subcommand's rate limit
+        super.executeAs(this.player);
+        Assertions.assertTrue(super.ranSuccessfully);
+    }
+
+    @Test
+    @DisplayName("Test RateLimiter refill and sweep: expect GCRA behavior")
+    void testRateLimiterExpectRefillAndSweep() {
+        AtomicLong clock = new AtomicLong();
+        RateLimiter limiter = new RateLimiter(3, TimeUnit.SECONDS.toNanos(3), clock::get);
+        UUID key = UUID.randomUUID();
+
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertEquals(0, limiter.tryAcquire(key));
+        }
+
+        Assertions.assertEquals(TimeUnit.SECONDS.toNanos(1), limiter.tryAcquire(key));
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        Assertions.assertEquals(0, limiter.tryAcquire(key));
+        Assertions.assertEquals(1, limiter.size());
+
+        // Full buckets are removed by the next sweep
+        clock.addAndGet(TimeUnit.MINUTES.toNanos(1));
+        Assertions.assertEquals(0, limiter.tryAcquire(UUID.randomUUID()));
+        Assertions.assertEquals(1, limiter.size());
+    }
+
+    @RateLimit(permits = 2, per = TimeUnit.MINUTES)
+    private class LimitedCommand extends CroissantCommand {
+
+        LimitedCommand() {
+            super("limited");
+        }
+
+        @CommandExecutor
+        void run(CommandSender sender, String value) {
+            RateLimitTest.this.parsedArgs = new Object[] { value };
+        }
+
+    }
+
+}
@@ -0,0 +1,105 @@
+package com.github.overmighty.croissant.command;
+
+import com.github.overmighty.croissant.command.argument.ArgumentType;
+import com.github.overmighty.croissant.command.argument.StreamingArgumentCompleter;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class StreamingCompleterTest extends TestCommand {
+
+    private static final AtomicInteger added = new AtomicInteger();
+
+    // Added in descending order, so that the sink has to evict completions
+    private static final ArgumentType DESCENDING = new ArgumentType(
+        argument -> new Descending(),
+        (StreamingArgumentCompleter) (argument, sink) -> {
+            for (int i = 999; i >= 0; i--) {
+                String name = String.format("item%03d", i);
+
+                if (name.startsWith(argument.getValue())) {
+                    sink.add(name);
+                }
+            }
+        }
+    );
+
+    private static final ArgumentType ASCENDING = new ArgumentType(
+        argument -> new Ascending(),
+        (StreamingArgumentCompleter) (argument, sink) -> {
+            for (int i = 0; i < 1000; i++) {
+                added.incrementAndGet();
+
+                if (!sink.addInOrder(String.format("item%03d", i))) {
+                    return;
+                }
+            }
+        }
+    );
+
+    StreamingCompleterTest() {
+        super("streaming-completer");
+        super.getHandler().getArgumentTypeRegistry().register(Descending.class, DESCENDING);
+        super.getHandler().getArgumentTypeRegistry().register(Ascending.class, ASCENDING);
+        super.getHandler().setCompletionLimit(3);
+        added.set(0);
+    }
+
+    @CommandExecutor
+    void run(CommandSender sender, Descending descending, Ascending ascending) {
+        super.ranSuccessfully = true;
+    }
+
+    @AfterEach
+    void resetCompletionLimit() {
+        super.getHandler().setCompletionLimit(100);
+    }
+
+    @Test
+    @DisplayName("Test a streaming completer over the completion limit: expect first completions")
+    void testOverLimitExpectFirstCompletions() {
+        Assertions.assertEquals(Arrays.asList("item000", "item001", "item002"),
+            super.tabComplete(""));
+        Assertions.assertEquals(Arrays.asList("item500", "item501", "item502"),
+            super.tabComplete("item5"));
+    }
+
+    @Test
+    @DisplayName("Test an ordered streaming completer: expect stopped once the sink is full")
+    void testOrderedCompleterExpectStoppedEarly() {
+        Assertions.assertEquals(Arrays.asList("item000", "item001", "item002"),
+            super.tabComplete("a", ""));
+        Assertions.assertEquals(4, added.get());
+    }
+
+    @Test
+    @DisplayName("Test truncated completions with a completion cache: expect not narrowed down")
+    void testTruncatedCompletionsExpectNotCached() {
+        Player player = Mockito.mock(Player.class);
+        Mockito.when(player.getUniqueId()).thenReturn(UUID.randomUUID());
+        super.setCompletionCacheExpiry(60_000);
+
+        try {
+            super.tabComplete(player, super.getName(), new String[] { "item" });
+            Assertions.assertEquals(Arrays.asList("item900", "item901", "item902"),
+                super.tabComplete(player, super.getName(), new String[] { "item9" }));
+        } finally {
+            super.setCompletionCacheExpiry(0);
+        }
+    }
+
+    static class Descending {
+    }
+
+    static class Ascending {
+    }
+
+}
@@ -0,0 +1,153 @@
+package com.github.overmighty.croissant.command;
+
+import org.bukkit.command.CommandSender;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+class SubcommandTest extends TestCommand {
+
+    SubcommandTest() {
+        super("eco");
+        CroissantCommand account = new AccountCommand();
+        account.addSubcommand(new SetCommand());
+        super.addSubcommand(account);
+        super.addSubcommand(new BalanceCommand());
+        super.addSubcommand(new BalanceTopCommand());
+    }
+
+    @CommandExecutor
+    void run(CommandSender sender) {
+        super.ranSuccessfully = true;
+    }
+
+    @Test
+    @DisplayName("Test command with subcommands without arguments: expect success")
+    void testCommandWithoutArgumentsExpectSuccess() {
+        super.execute();
+        Assertions.assertTrue(super.ranSuccessfully);
+    }
+
+    @ParameterizedTest(name = "Test the parsing of nested subcommand arguments ({index}/5)")
+    @MethodSource
+    void testNestedSubcommandArgumentsParsing(String[] args, Object[] expected) {
+        super.execute(args);
+        Assertions.assertFalse(super.ranSuccessfully);
+        Assertions.assertArrayEquals(expected, super.parsedArgs);
+    }
+
+    @SuppressWarnings("unused")
+    static Stream<Arguments> testNestedSubcommandArgumentsParsing() {
+        return Stream.of(
+            Arguments.arguments(new String[] { "account" },                 null),
+            Arguments.arguments(new String[] { "account", "set", "Steve" }, null),
+            Arguments.arguments(
+                new String[] { "account", "set", "Steve", "12.5" },
+                new Object[] { "Steve", 12.5 }
+            ),
+            Arguments.arguments(
+                new String[] { "account", "set", "Alex", "0" },
+                new Object[] { "Alex", 0.0 }
+            ),
+            Arguments.arguments(
+                new String[] { "ACCOUNT", "Set", "Alex", "1" },
+                new Object[] { "Alex", 1.0 }
+            )
+        );
+    }
+
+    @ParameterizedTest(name = "Test the tab-completion of nested subcommands ({index}/9)")
+    @MethodSource
+    void testNestedSubcommandsCompletion(String[] args, List<String> expected) {
+        Assertions.assertEquals(expected, super.tabComplete(args));
+    }
+
+    @SuppressWarnings("unused")
+    static Stream<Arguments> testNestedSubcommandsCompletion() {
+        return Stream.of(
+            Arguments.arguments(
+                new String[] { "a" },
+                Collections.singletonList("account")
+            ),
+            Arguments.arguments(
+                new String[] { "c" },
+                Collections.emptyList()
+            ),
+            Arguments.arguments(
+                new String[] { "" },
+                Arrays.asList("account", "bal", "balance", "baltop")
+            ),
+            Arguments.arguments(
+                new String[] { "BA" },
+                Arrays.asList("bal", "balance", "baltop")
+            ),
+            Arguments.arguments(
+                new String[] { "balt" },
+                Collections.singletonList("baltop")
+            ),
+            Arguments.arguments(
+                new String[] { "balx" },
+                Collections.emptyList()
+            ),
+            Arguments.arguments(
+                new String[] { "account", "" },
+                Collections.singletonList("set")
+            ),
+            Arguments.arguments(
+                new String[] { "account", "set", "" },
+                Collections.singletonList("OverMighty")
+            ),
+            Arguments.arguments(
+                new String[] { "account", "set", "Steve", "" },
+                Collections.emptyList()
+            )
+        );
+    }
+
+    private static class AccountCommand extends CroissantCommand {
+
+        AccountCommand() {
+            super("account");
+        }
+
+    }
+
+    private static class BalanceCommand extends CroissantCommand {
+
+        BalanceCommand() {
+            super("balance");
+            super.setAliases("bal");
+        }
+
+    }
+
+    private static class BalanceTopCommand extends CroissantCommand {
+
+        BalanceTopCommand() {
+            super("baltop");
+        }
+
+    }
+
+    private class SetCommand extends CroissantCommand {
+
+        SetCommand() {
+            super("set");
+        }
+
+        @CommandExecutor
+        void run(CommandSender sender, String name, double amount) {
+            SubcommandTest.this.parsedArgs = new Object[] { name, amount };
+        }
+
+    }
+
+}
@@ -21,7 +21,10 @@ public class TestCommand extends CroissantCommand {
     protected Object[] parsedArgs;
 
     static {
-        Bukkit.setServer(new TestServer().getMockedServer());
+        // Benchmarks may have set up their own server already
+        if (Bukkit.getServer() == null) {
+            Bukkit.setServer(new TestServer().getMockedServer());
+        }
         Croissant.setPlugin(plugin);
         handler = new CommandHandler();
     }
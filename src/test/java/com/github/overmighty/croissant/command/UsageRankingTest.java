@@ -0,0 +1,189 @@
+package com.github.overmighty.croissant.command;
+
+import org.bukkit.command.CommandSender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+class UsageRankingTest extends TestCommand {
+
+    @TempDir
+    Path directory;
+
+    UsageRankingTest() {
+        super("usage-ranking");
+    }
+
+    @CommandExecutor
+    void run(CommandSender sender, Kit kit) {
+        super.ranSuccessfully = true;
+    }
+
+    @BeforeEach
+    void enableUsageRanking() {
+        super.getHandler().setUsageRankingEnabled(true);
+    }
+
+    @AfterEach
+    void disableUsageRanking() {
+        super.getHandler().setUsageRankingEnabled(false);
+    }
+
+    @Test
+    @DisplayName("Test completing arguments after executions: expect most used values first")
+    void testArgumentsExpectMostUsedFirst() {
+        Assertions.assertEquals(Arrays.asList("ARCHER", "BUILDER", "MINER", "WARRIOR"),
+            super.tabComplete(""));
+
+        super.execute("WARRIOR");
+        super.execute("MINER");
+        super.execute("WARRIOR");
+        // Not resolved, so not counted
+        super.execute("archer");
+
+        Assertions.assertEquals(Arrays.asList("WARRIOR", "MINER", "ARCHER", "BUILDER"),
+            super.tabComplete(""));
+    }
+
+    @Test
+    @DisplayName("Test completing arguments over the completion limit: expect most used kept")
+    void testOverCompletionLimitExpectMostUsedKept() {
+        CroissantCommand kit = new KitCommand();
+        kit.setHandler(super.getHandler());
+        CommandSender sender = Mockito.mock(CommandSender.class);
+        kit.execute(sender, "kit", new String[] { "WARRIOR" });
+        kit.execute(sender, "kit", new String[] { "MINER" });
+        kit.execute(sender, "kit", new String[] { "WARRIOR" });
+        super.getHandler().setCompletionLimit(3);
+
+        try {
+            // Ranked before the least used completions are dropped
+            Assertions.assertEquals(Arrays.asList("WARRIOR", "MINER", "ARCHER"),
+                kit.tabComplete(sender, "kit", new String[] { "" }));
+            super.getHandler().setFuzzyCompletionEnabled(true);
+            Assertions.assertEquals(Arrays.asList("WARRIOR", "MINER", "ARCHER"),
+                kit.tabComplete(sender, "kit", new String[] { "" }));
+        } finally {
+            super.getHandler().setCompletionLimit(100);
+            super.getHandler().setFuzzyCompletionEnabled(false);
+        }
+    }
+
+    @Test
+    @DisplayName("Test completing subcommand aliases after executions: expect most used first")
+    void testSubcommandsExpectMostUsedFirst() {
+        CroissantCommand warp = new WarpCommand();
+        warp.addSubcommand(new DeleteCommand());
+        warp.addSubcommand(new DescribeCommand());
+        warp.setHandler(super.getHandler());
+        CommandSender sender = Mockito.mock(CommandSender.class);
+
+        warp.execute(sender, "warp", new String[] { "DESCRIBE" });
+        Assertions.assertEquals(Arrays.asList("describe", "delete"),
+            warp.tabComplete(sender, "warp", new String[] { "de" }));
+    }
+
+    @Test
+    @DisplayName("Test usage counts after half-lives and a restart: expect halved then restored")
+    void testDecayAndRestartExpectHalvedThenRestored() throws IOException {
+        AtomicLong now = new AtomicLong();
+        UsageCounts counts = new UsageCounts(100, now::get, Runnable::run);
+
+        for (int i = 0; i < 8; i++) {
+            counts.record(this, 1, "MINER");
+        }
+
+        counts.record(this, 1, "ARCHER");
+        now.set(250);
+        // Two half-lives passed, then this use was counted
+        counts.record(this, 1, "Miner");
+        Assertions.assertEquals(3, counts.count(this, 1, "MINER"));
+        Assertions.assertEquals(0, counts.count(this, 1, "ARCHER"));
+        counts.record(this, 1, "ARCHER");
+        Assertions.assertEquals(1, counts.count(this, 1, "ARCHER"));
+
+        Path file = this.directory.resolve("usage.tsv");
+        counts.save(file);
+        UsageCounts restored = new UsageCounts(100, now::get, Runnable::run);
+        restored.load(file);
+        Assertions.assertEquals(3, restored.count(this, 1, "miner"));
+    }
+
+    @Test
+    @DisplayName("Test usage counts of many distinct values: expect number of values bounded")
+    void testManyDistinctValuesExpectBounded() {
+        UsageCounts counts = new UsageCounts(100, () -> 0, Runnable::run);
+        counts.record(this, 1, "popular");
+        counts.record(this, 1, "popular");
+
+        for (int i = 0; i < UsageCounts.MAX_VALUES * 10; i++) {
+            counts.record(this, 1, Integer.toString(i));
+            Assertions.assertTrue(counts.size(this, 1) <= UsageCounts.MAX_VALUES * 2);
+        }
+
+        Assertions.assertTrue(counts.size(this, 1) < UsageCounts.MAX_VALUES * 2);
+        // The most used values are kept
+        Assertions.assertEquals(2, counts.count(this, 1, "popular"));
+    }
+
+    enum Kit {
+        ARCHER,
+        BUILDER,
+        MINER,
+        WARRIOR
+    }
+
+    private static class KitCommand extends CroissantCommand {
+
+        KitCommand() {
+            super("kit");
+        }
+
+        @CommandExecutor
+        void run(CommandSender sender, Kit kit) {
+        }
+
+    }
+
+    private static class WarpCommand extends CroissantCommand {
+
+        WarpCommand() {
+            super("warp");
+        }
+
+    }
+
+    private static class DeleteCommand extends CroissantCommand {
+
+        DeleteCommand() {
+            super("delete");
+        }
+
+        @CommandExecutor
+        void run(CommandSender sender) {
+        }
+
+    }
+
+    private static class DescribeCommand extends CroissantCommand {
+
+        DescribeCommand() {
+            super("describe");
+        }
+
+        @CommandExecutor
+        void run(CommandSender sender) {
+        }
+
+    }
+
+}
@@ -0,0 +1,147 @@
+package com.github.overmighty.croissant.command.argument;
+
+import com.github.overmighty.croissant.command.CommandExecutor;
+import com.github.overmighty.croissant.command.TestCommand;
+import org.bukkit.command.CommandSender;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+class CommandLineTest extends TestCommand {
+
+    private static final List<String> CITIES = Arrays.asList("New York", "Newark", "Paris");
+
+    private static final ArgumentType CITY = new ArgumentType(
+        argument -> CITIES.contains(argument.getValue()) ? new City(argument.getValue()) : null,
+        argument -> {
+            List<String> completions = new ArrayList<>();
+
+            for (String city : CITIES) {
+                if (city.regionMatches(true, 0, argument.getValue(), 0,
+                    argument.getValue().length())) {
+                    completions.add(city);
+                }
+            }
+
+            return completions;
+        }
+    );
+
+    CommandLineTest() {
+        super("command-line");
+        super.getHandler().getArgumentTypeRegistry().register(City.class, CITY);
+    }
+
+    @CommandExecutor
+    void run(CommandSender sender, City city, @Option("from") City from) {
+        super.parsedArgs = new Object[] { city.name, from == null ? null : from.name };
+    }
+
+    @Test
+    @DisplayName("Test tokenizing a command line: expect quoted tokens and escapes")
+    void testParseExpectQuotedTokensAndEscapes() {
+        CommandLine line = CommandLine.parse("a  \"b c\" --x=\"d\\\"e\" \"open end", 0, false);
+
+        Assertions.assertEquals(4, line.size());
+        Assertions.assertEquals("a", line.get(0));
+        Assertions.assertEquals("b c", line.get(1));
+        Assertions.assertTrue(line.isQuoted(1));
+        Assertions.assertEquals("--x=d\"e", line.get(2));
+        Assertions.assertFalse(line.isQuoted(2));
+        Assertions.assertEquals("open end", line.get(3));
+        Assertions.assertEquals("\"b c\" --x=\"d\\\"e\" \"open end", line.getRest(1));
+
+        CommandLine completed = CommandLine.parse("a ", 0, true);
+        Assertions.assertEquals(2, completed.size());
+        Assertions.assertEquals("", completed.get(1));
+    }
+
+    @Test
+    @DisplayName("Test quoting values: expect quotes and escapes only where needed")
+    void testQuoteExpectQuotesWhereNeeded() {
+        Assertions.assertEquals("Paris", CommandLine.quote("Paris", false));
+        Assertions.assertEquals("\"Paris\"", CommandLine.quote("Paris", true));
+        Assertions.assertEquals("\"New York\"", CommandLine.quote("New York", false));
+        Assertions.assertEquals("\"say \\\"hi\\\" \\\\o/\"",
+            CommandLine.quote("say \"hi\" \\o/", false));
+
+        String quoted = CommandLine.quote("say \"hi\" \\o/", false);
+        Assertions.assertEquals("say \"hi\" \\o/", CommandLine.parse(quoted, 0, false).get(0));
+    }
+
+    @ParameterizedTest(name = "Test the execution of quoted arguments ({index}/2)")
+    @MethodSource
+    void testQuotedExecution(String[] args, Object[] expectedArgs) {
+        super.execute(args);
+        Assertions.assertArrayEquals(expectedArgs, super.parsedArgs);
+    }
+
+    private static Stream<Arguments> testQuotedExecution() {
+        return Stream.of(
+            Arguments.of(
+                new String[] { "\"New", "York\"" },
+                new Object[] { "New York", null }
+            ),
+            Arguments.of(
+                new String[] { "Paris", "--from=\"New", "York\"" },
+                new Object[] { "Paris", "New York" }
+            )
+        );
+    }
+
+    @ParameterizedTest(name = "Test the completion of quoted arguments ({index}/6)")
+    @MethodSource
+    void testQuotedCompletion(String[] args, List<String> expectedCompletions) {
+        Assertions.assertEquals(expectedCompletions, super.tabComplete(args));
+    }
+
+    private static Stream<Arguments> testQuotedCompletion() {
+        return Stream.of(
+            // The client replaces the text after the last space with the suggestion
+            Arguments.of(
+                new String[] { "New" },
+                Arrays.asList("\"New York\"", "Newark")
+            ),
+            Arguments.of(
+                new String[] { "\"Ne" },
+                Arrays.asList("\"New York\"", "\"Newark\"")
+            ),
+            Arguments.of(
+                new String[] { "\"New", "Y" },
+                Collections.singletonList("York\"")
+            ),
+            Arguments.of(
+                new String[] { "\"new", "" },
+                Collections.singletonList("York\"")
+            ),
+            Arguments.of(
+                new String[] { "Paris", "--from=\"New", "Y" },
+                Collections.singletonList("York\"")
+            ),
+            Arguments.of(
+                new String[] { "Par" },
+                Collections.singletonList("Paris")
+            )
+        );
+    }
+
+    static class City {
+
+        private final String name;
+
+        City(String name) {
+            this.name = name;
+        }
+
+    }
+
+}
@@ -0,0 +1,104 @@
+package com.github.overmighty.croissant.command.argument;
+
+import com.github.overmighty.croissant.command.CommandExecutor;
+import com.github.overmighty.croissant.command.TestCommand;
+import org.bukkit.command.CommandSender;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+class EnumTableTest extends TestCommand {
+
+    EnumTableTest() {
+        super("enum-table");
+    }
+
+    @CommandExecutor
+    void run(CommandSender sender, Block exact, @IgnoreCase Block loose) {
+        super.parsedArgs = new Object[] { exact, loose };
+    }
+
+    @ParameterizedTest(name = "Test the resolution of enum arguments ({index}/4)")
+    @MethodSource
+    void testEnumResolution(String[] args, Object[] expectedArgs) {
+        super.execute(args);
+        Assertions.assertArrayEquals(expectedArgs, super.parsedArgs);
+    }
+
+    private static Stream<Arguments> testEnumResolution() {
+        return Stream.of(
+            Arguments.of(
+                new String[] { "STONE", "stone" },
+                new Object[] { Block.STONE, Block.STONE }
+            ),
+            Arguments.of(
+                new String[] { "GRASS_BLOCK", "Grass_Block" },
+                new Object[] { Block.GRASS_BLOCK, Block.GRASS_BLOCK }
+            ),
+            Arguments.of(
+                new String[] { "stone", "STONE" },
+                null
+            ),
+            Arguments.of(
+                new String[] { "DIRT", "sand" },
+                null
+            )
+        );
+    }
+
+    @ParameterizedTest(name = "Test the completion of enum arguments ({index}/4)")
+    @MethodSource
+    void testEnumCompletion(String[] args, List<String> expectedCompletions) {
+        Assertions.assertEquals(expectedCompletions, super.tabComplete(args));
+    }
+
+    private static Stream<Arguments> testEnumCompletion() {
+        return Stream.of(
+            Arguments.of(
+                new String[] { "" },
+                Arrays.asList("DIRT", "GRASS", "GRASS_BLOCK", "GRAVEL", "STONE")
+            ),
+            Arguments.of(
+                new String[] { "gr" },
+                Arrays.asList("GRASS", "GRASS_BLOCK", "GRAVEL")
+            ),
+            Arguments.of(
+                new String[] { "STONE", "Grass" },
+                Arrays.asList("GRASS", "GRASS_BLOCK")
+            ),
+            Arguments.of(
+                new String[] { "sand" },
+                Collections.emptyList()
+            )
+        );
+    }
+
+    @Test
+    @DisplayName("Test completing an enum argument over the completion limit: expect first names")
+    void testOverCompletionLimitExpectFirstNames() {
+        super.getHandler().setCompletionLimit(2);
+
+        try {
+            Assertions.assertEquals(Arrays.asList("GRASS", "GRASS_BLOCK"), super.tabComplete("gr"));
+        } finally {
+            super.getHandler().setCompletionLimit(100);
+        }
+    }
+
+    enum Block {
+        STONE,
+        GRAVEL,
+        GRASS_BLOCK,
+        GRASS,
+        DIRT
+    }
+
+}
@@ -0,0 +1,116 @@
+package com.github.overmighty.croissant.command.argument;
+
+import com.github.overmighty.croissant.command.CommandExecutor;
+import com.github.overmighty.croissant.command.TestCommand;
+import org.bukkit.command.CommandSender;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+class FlagOptionTest extends TestCommand {
+
+    FlagOptionTest() {
+        super("flag-option");
+    }
+
+    @CommandExecutor
+    void run(CommandSender sender, String target, @Flag("s") boolean silent,
+             @Option("radius") @Default("10") int radius, @Option("reason") String reason,
+             @Optional @Rest String message) {
+        super.parsedArgs = new Object[] { target, silent, radius, reason, message };
+    }
+
+    @ParameterizedTest(name = "Test the parsing of flags and options ({index}/8)")
+    @MethodSource
+    void testFlagsAndOptionsParsing(String[] args, Object[] expected) {
+        super.execute(args);
+        Assertions.assertArrayEquals(expected, super.parsedArgs);
+    }
+
+    @SuppressWarnings("unused")
+    static Stream<Arguments> testFlagsAndOptionsParsing() {
+        return Stream.of(
+            Arguments.arguments(new String[0],                           null),
+            Arguments.arguments(new String[] { "-s" },                   null),
+            Arguments.arguments(new String[] { "test", "--radius=abc" }, null),
+            Arguments.arguments(
+                new String[] { "test" },
+                new Object[] { "test", false, 10, null, null }
+            ),
+            Arguments.arguments(
+                new String[] { "-s", "test", "--radius=5" },
+                new Object[] { "test", true, 5, null, null }
+            ),
+            Arguments.arguments(
+                new String[] { "test", "Hello,", "--reason=spam", "World!", "-s" },
+                new Object[] { "test", true, 10, "spam", "Hello, World!" }
+            ),
+            Arguments.arguments(
+                new String[] { "test", "--radius", "-x" },
+                new Object[] { "test", false, 10, null, "--radius -x" }
+            ),
+            Arguments.arguments(
+                new String[] { "\"-s\"", "--reason=\"a", "b\"" },
+                new Object[] { "-s", false, 10, "a b", null }
+            )
+        );
+    }
+
+    @ParameterizedTest(name = "Test the tab-completion of flags and options ({index}/4)")
+    @MethodSource
+    void testFlagsAndOptionsCompletion(String[] args, List<String> expected) {
+        Assertions.assertEquals(expected, super.tabComplete(args));
+    }
+
+    @SuppressWarnings("unused")
+    static Stream<Arguments> testFlagsAndOptionsCompletion() {
+        return Stream.of(
+            Arguments.arguments(
+                new String[] { "-" },
+                Arrays.asList("--radius=", "--reason=", "-s")
+            ),
+            Arguments.arguments(
+                new String[] { "test", "-s", "--r" },
+                Arrays.asList("--radius=", "--reason=")
+            ),
+            Arguments.arguments(
+                new String[] { "--radius=1", "-s", "-" },
+                Collections.singletonList("--reason=")
+            ),
+            Arguments.arguments(
+                new String[] { "-s", "" },
+                Collections.singletonList("OverMighty")
+            )
+        );
+    }
+
+    @Test
+    @DisplayName("Test a primitive option without a default value: expect exception")
+    void testPrimitiveOptionWithoutDefaultExpectException() {
+        PrimitiveOptionCommand command = new PrimitiveOptionCommand();
+        Assertions.assertThrows(IllegalStateException.class, () -> command.execute(
+            Mockito.mock(CommandSender.class), command.getName(), new String[0]));
+    }
+
+    private static class PrimitiveOptionCommand extends TestCommand {
+
+        PrimitiveOptionCommand() {
+            super("primitive-option");
+        }
+
+        @CommandExecutor
+        void run(CommandSender sender, @Option("radius") int radius) {
+        }
+
+    }
+
+}
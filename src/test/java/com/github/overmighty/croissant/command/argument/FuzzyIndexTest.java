@@ -0,0 +1,144 @@
+package com.github.overmighty.croissant.command.argument;
+
+import com.github.overmighty.croissant.command.CommandExecutor;
+import com.github.overmighty.croissant.command.CroissantCommand;
+import com.github.overmighty.croissant.command.TestCommand;
+import org.bukkit.command.CommandSender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+class FuzzyIndexTest extends TestCommand {
+
+    FuzzyIndexTest() {
+        super("fuzzy-index");
+    }
+
+    @CommandExecutor
+    void run(CommandSender sender, Action action) {
+        super.parsedArgs = new Object[] { action };
+    }
+
+    @BeforeEach
+    void enableFuzzyCompletion() {
+        super.getHandler().setFuzzyCompletionEnabled(true);
+    }
+
+    @AfterEach
+    void disableFuzzyCompletion() {
+        super.getHandler().setFuzzyCompletionEnabled(false);
+    }
+
+    @Test
+    @DisplayName("Test searching an index: expect prefix, then substring, then typo matches")
+    void testSearchExpectRankedMatches() {
+        FuzzyIndex index = new FuzzyIndex(Arrays.asList("hone", "sethome", "homes", "Home"));
+        Assertions.assertEquals(Arrays.asList("Home", "homes", "sethome", "hone"),
+            index.search("home", 10));
+        Assertions.assertEquals(Arrays.asList("Home", "homes"), index.search("home", 2));
+
+        index.remove("HOMES");
+        index.add("homestead");
+        Assertions.assertEquals(Arrays.asList("Home", "homestead", "sethome", "hone"),
+            index.search("home", 10));
+        Assertions.assertEquals(4, index.size());
+    }
+
+    @ParameterizedTest(name = "Test the fuzzy completion of enum arguments ({index}/5)")
+    @MethodSource
+    void testFuzzyEnumCompletion(String arg, List<String> expectedCompletions) {
+        Assertions.assertEquals(expectedCompletions, super.tabComplete(arg));
+    }
+
+    private static Stream<Arguments> testFuzzyEnumCompletion() {
+        return Stream.of(
+            Arguments.of("te", Arrays.asList("TELL", "TELEPORT")),
+            Arguments.of("tlep", Collections.singletonList("TELEPORT")),
+            Arguments.of("spwan", Collections.singletonList("SPAWN")),
+            Arguments.of("home", Arrays.asList("HOME", "SET_HOME")),
+            // Ranked, not in alphabetical order
+            Arguments.of("set", Arrays.asList("SET_HOME", "RESET"))
+        );
+    }
+
+    @Test
+    @DisplayName("Test the fuzzy completion of subcommand aliases: expect typo matches")
+    void testFuzzySubcommandCompletionExpectTypoMatches() {
+        CroissantCommand warp = new WarpCommand();
+        warp.addSubcommand(new DeleteCommand());
+        warp.setHandler(super.getHandler());
+        CommandSender sender = Mockito.mock(CommandSender.class);
+
+        Assertions.assertEquals(Collections.singletonList("delete"),
+            warp.tabComplete(sender, "warp", new String[] { "dleete" }));
+        Assertions.assertEquals(Collections.singletonList("delete"),
+            warp.tabComplete(sender, "warp", new String[] { "lete" }));
+    }
+
+    @Test
+    @DisplayName("Test the fuzzy completion of subcommand aliases: expect best matches first")
+    void testFuzzySubcommandCompletionExpectBestMatchesFirst() {
+        CroissantCommand warp = new WarpCommand();
+        warp.addSubcommand(new SetCommand());
+        warp.addSubcommand(new ResetCommand());
+        warp.setHandler(super.getHandler());
+        CommandSender sender = Mockito.mock(CommandSender.class);
+
+        // Prefix matches rank before substring matches, not in alphabetical order
+        Assertions.assertEquals(Arrays.asList("set", "reset"),
+            warp.tabComplete(sender, "warp", new String[] { "set" }));
+    }
+
+    enum Action {
+        HOME,
+        RESET,
+        SET_HOME,
+        SPAWN,
+        TELEPORT,
+        TELL
+    }
+
+    private static class WarpCommand extends CroissantCommand {
+
+        WarpCommand() {
+            super("warp");
+        }
+
+    }
+
+    private static class DeleteCommand extends CroissantCommand {
+
+        DeleteCommand() {
+            super("delete");
+        }
+
+    }
+
+    private static class SetCommand extends CroissantCommand {
+
+        SetCommand() {
+            super("set");
+        }
+
+    }
+
+    private static class ResetCommand extends CroissantCommand {
+
+        ResetCommand() {
+            super("reset");
+        }
+
+    }
+
+}
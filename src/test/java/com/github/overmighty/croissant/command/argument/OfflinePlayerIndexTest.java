@@ -0,0 +1,246 @@
+package com.github.overmighty.croissant.command.argument;
+
+import com.github.overmighty.croissant.command.CommandExecutor;
+import com.github.overmighty.croissant.command.TestCommand;
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.command.CommandSender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+
+class OfflinePlayerIndexTest extends TestCommand {
+
+    private static final UUID ALICE_ID = UUID.randomUUID();
+    private static final UUID BOB_ID = UUID.randomUUID();
+    private static final UUID CAROL_ID = UUID.randomUUID();
+
+    private final OfflinePlayerIndex index = OfflinePlayerIndex.getInstance();
+
+    @TempDir
+    Path directory;
+
+    OfflinePlayerIndexTest() {
+        super("offline-player-index");
+    }
+
+    @CommandExecutor
+    void run(CommandSender sender, OfflinePlayer player) {
+        super.parsedArgs = new Object[] { player };
+    }
+
+    @BeforeEach
+    void loadIndex() throws IOException {
+        this.index.setExecutor(Runnable::run);
+        this.index.load(this.directory);
+    }
+
+    @AfterEach
+    void unloadIndex() {
+        this.index.unload();
+    }
+
+    private void reload() throws IOException {
+        this.index.unload();
+        this.index.load(this.directory);
+    }
+
+    @Test
+    @DisplayName("Test the lookup of logged and compacted players: expect found after reload")
+    void testLookupExpectFoundAfterReload() throws IOException {
+        this.index.add("Alice", ALICE_ID);
+        this.index.compact();
+        this.index.add("Bob", BOB_ID);
+
+        for (int i = 0; i < 2; i++) {
+            Assertions.assertEquals(ALICE_ID, this.index.getUniqueId("aLiCe"));
+            Assertions.assertEquals(BOB_ID, this.index.getUniqueId("BOB"));
+            Assertions.assertNull(this.index.getUniqueId("Carol"));
+            Assertions.assertNull(this.index.getUniqueId("AVeryLongInvalidName"));
+            this.reload();
+        }
+    }
+
+    @Test
+    @DisplayName("Test the lookup of renamed players: expect latest names only")
+    void testLookupOfRenamedPlayersExpectLatestNamesOnly() throws IOException {
+        this.index.add("Alice", ALICE_ID);
+        this.index.add("Bob", BOB_ID);
+        this.index.compact();
+        // Bob is renamed to Carol, then Alice is renamed to Bob
+        this.index.add("Carol", BOB_ID);
+        this.index.add("Bob", ALICE_ID);
+
+        for (int i = 0; i < 2; i++) {
+            Assertions.assertNull(this.index.getUniqueId("Alice"));
+            Assertions.assertEquals(ALICE_ID, this.index.getUniqueId("Bob"));
+            Assertions.assertEquals(BOB_ID, this.index.getUniqueId("Carol"));
+            Assertions.assertEquals(Arrays.asList("Bob", "Carol"), this.index.complete(""));
+            this.index.compact();
+        }
+    }
+
+    @Test
+    @DisplayName("Test the tab-completion of indexed players: expect sorted and limited")
+    void testTabCompletionExpectSortedAndLimited() {
+        for (int i = 0; i < OfflinePlayerIndex.MAX_COMPLETIONS + 20; i++) {
+            this.index.add("player" + i, UUID.randomUUID());
+
+            if (i == OfflinePlayerIndex.MAX_COMPLETIONS / 2) {
+                this.index.compact();
+            }
+        }
+
+        Assertions.assertEquals(Arrays.asList("player1", "player10", "player100"),
+            this.index.complete("Player1").subList(0, 3));
+        Assertions.assertEquals(OfflinePlayerIndex.MAX_COMPLETIONS,
+            this.index.complete("p").size());
+        Assertions.assertEquals(Collections.singletonList("player119"),
+            this.index.complete("PLAYER119"));
+    }
+
+    @Test
+    @DisplayName("Test adding a player: expect logged by a background task only")
+    void testAddExpectLoggedInBackground() throws IOException {
+        Queue<Runnable> tasks = new ArrayDeque<>();
+        this.index.setExecutor(tasks::add);
+        Path logFile = this.directory.resolve(OfflinePlayerIndex.LOG_FILE_NAME);
+
+        this.index.add("Alice", ALICE_ID);
+        this.index.add("Bob", BOB_ID);
+        Assertions.assertEquals(ALICE_ID, this.index.getUniqueId("Alice"));
+        Assertions.assertEquals(0, Files.size(logFile));
+        Assertions.assertEquals(1, tasks.size());
+
+        tasks.remove().run();
+        Assertions.assertEquals(2 * 32, Files.size(logFile));
+        this.index.add("Carol", CAROL_ID);
+        // Written when the index is unloaded, even if the task did not run
+        this.reload();
+        Assertions.assertEquals(CAROL_ID, this.index.getUniqueId("Carol"));
+    }
+
+    @Test
+    @DisplayName("Test compacting the index: expect a new generation replacing the old one")
+    void testCompactionExpectNewGeneration() throws IOException {
+        this.index.add("Alice", ALICE_ID);
+        this.index.compact();
+        Assertions.assertTrue(Files.exists(this.directory.resolve("players.1.idx")));
+
+        this.index.add("Bob", BOB_ID);
+        this.index.compact();
+        Assertions.assertFalse(Files.exists(this.directory.resolve("players.1.idx")));
+        Assertions.assertTrue(Files.exists(this.directory.resolve("players.2.idx")));
+        Assertions.assertEquals(0,
+            Files.size(this.directory.resolve(OfflinePlayerIndex.LOG_FILE_NAME)));
+
+        this.reload();
+        Assertions.assertEquals(Arrays.asList("Alice", "Bob"), this.index.complete(""));
+    }
+
+    @Test
+    @DisplayName("Test the recovery of a partially written log: expect complete records found")
+    void testRecoveryExpectCompleteRecordsFound() throws IOException {
+        this.index.add("Alice", ALICE_ID);
+        this.index.unload();
+        Files.write(this.directory.resolve(OfflinePlayerIndex.LOG_FILE_NAME), new byte[5],
+            StandardOpenOption.APPEND);
+        this.index.load(this.directory);
+        this.index.add("Bob", BOB_ID);
+        this.reload();
+
+        Assertions.assertEquals(ALICE_ID, this.index.getUniqueId("Alice"));
+        Assertions.assertEquals(BOB_ID, this.index.getUniqueId("Bob"));
+    }
+
+    @Test
+    @DisplayName("Test seeding the index: expect players who joined before found once")
+    void testSeedingExpectPreviousPlayersFound() throws IOException {
+        Path userCacheFile = this.directory.resolve("usercache.json");
+        Path playerDataDirectory = Files.createDirectories(this.directory.resolve("playerdata"));
+        Files.write(userCacheFile, ("[{\"name\":\"Alice\",\"uuid\":\"" + ALICE_ID +
+            "\",\"expiresOn\":\"2020-01-01 00:00:00 +0000\"}]").getBytes(StandardCharsets.UTF_8));
+        writePlayerData(playerDataDirectory, ALICE_ID, "OldAlice");
+        writePlayerData(playerDataDirectory, BOB_ID, "Bob");
+        writePlayerData(playerDataDirectory, CAROL_ID, "OldCarol");
+        writePlayerData(playerDataDirectory, UUID.randomUUID(), "Carol");
+        // Joined since the index was enabled
+        this.index.add("Carol", CAROL_ID);
+
+        Assertions.assertFalse(this.index.isSeeded());
+        this.index.seed(userCacheFile, playerDataDirectory);
+        Assertions.assertTrue(this.index.isSeeded());
+
+        this.reload();
+        Assertions.assertEquals(ALICE_ID, this.index.getUniqueId("Alice"));
+        Assertions.assertEquals(BOB_ID, this.index.getUniqueId("bob"));
+        Assertions.assertEquals(CAROL_ID, this.index.getUniqueId("Carol"));
+        Assertions.assertNull(this.index.getUniqueId("OldAlice"));
+        Assertions.assertNull(this.index.getUniqueId("OldCarol"));
+    }
+
+    /**
+     * Writes a player data file with some other tags before the player's last
+     * known name, like the server does.
+     */
+    private static void writePlayerData(Path directory, UUID uniqueId, String name)
+        throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(
+            Files.newOutputStream(directory.resolve(uniqueId + ".dat"))))) {
+            out.writeByte(10);
+            out.writeUTF("");
+            out.writeByte(3);
+            out.writeUTF("DataVersion");
+            out.writeInt(2225);
+            out.writeByte(9);
+            out.writeUTF("Pos");
+            out.writeByte(6);
+            out.writeInt(3);
+
+            for (int i = 0; i < 3; i++) {
+                out.writeDouble(i);
+            }
+
+            out.writeByte(10);
+            out.writeUTF("bukkit");
+            out.writeByte(4);
+            out.writeUTF("firstPlayed");
+            out.writeLong(0);
+            out.writeByte(8);
+            out.writeUTF("lastKnownName");
+            out.writeUTF(name);
+            out.writeByte(0);
+            out.writeByte(0);
+        }
+    }
+
+    @Test
+    @DisplayName("Test the resolution of an offline player by name: expect found")
+    void testResolutionByNameExpectFound() {
+        OfflinePlayer alice = Mockito.mock(OfflinePlayer.class);
+        Mockito.when(Bukkit.getServer().getOfflinePlayer(ALICE_ID)).thenReturn(alice);
+        this.index.add("Alice", ALICE_ID);
+
+        super.execute("alice");
+        Assertions.assertArrayEquals(new Object[] { alice }, super.parsedArgs);
+        Assertions.assertEquals(Collections.singletonList("Alice"), super.tabComplete("A"));
+    }
+
+}
@@ -0,0 +1,148 @@
+package com.github.overmighty.croissant.command.argument;
+
+import com.destroystokyo.paper.event.server.AsyncTabCompleteEvent;
+import com.github.overmighty.croissant.command.CommandExecutor;
+import com.github.overmighty.croissant.command.TestCommand;
+import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+class PlayerIndexTest extends TestCommand {
+
+    private static final UUID ALICE_ID = UUID.fromString("a8f1e5c2-1b3d-4e6f-8a9b-0c1d2e3f4a5b");
+
+    private final PlayerIndex index = PlayerIndex.getInstance();
+    private final Player alice = mockPlayer("Alice", ALICE_ID);
+    private final Player alfred = mockPlayer("alfred", UUID.randomUUID());
+    private final Player bob = mockPlayer("Bob", UUID.randomUUID());
+
+    PlayerIndexTest() {
+        super("player-index");
+    }
+
+    private static Player mockPlayer(String name, UUID uniqueId) {
+        Player player = Mockito.mock(Player.class);
+        Mockito.when(player.getName()).thenReturn(name);
+        Mockito.when(player.getUniqueId()).thenReturn(uniqueId);
+        return player;
+    }
+
+    @CommandExecutor
+    void run(CommandSender sender, Player player) {
+        super.parsedArgs = new Object[] { player };
+    }
+
+    @BeforeEach
+    void joinPlayers() {
+        for (Player player : Arrays.asList(this.alice, this.alfred, this.bob)) {
+            this.index.onPlayerJoin(new PlayerJoinEvent(player, ""));
+        }
+    }
+
+    @AfterEach
+    void quitPlayers() {
+        for (Player player : Arrays.asList(this.alice, this.alfred, this.bob)) {
+            this.index.onPlayerQuit(new PlayerQuitEvent(player, ""));
+        }
+    }
+
+    @Test
+    @DisplayName("Test the resolution of indexed players: expect found by name and UUID")
+    void testResolutionExpectFoundByNameAndUUID() {
+        Assertions.assertTrue(this.index.isEnabled());
+
+        super.execute("aLiCe");
+        Assertions.assertArrayEquals(new Object[] { this.alice }, super.parsedArgs);
+
+        super.execute(ALICE_ID.toString());
+        Assertions.assertArrayEquals(new Object[] { this.alice }, super.parsedArgs);
+    }
+
+    @Test
+    @DisplayName("Test the resolution of a player who quit: expect not found")
+    void testResolutionAfterQuitExpectNotFound() {
+        this.index.onPlayerQuit(new PlayerQuitEvent(this.bob, ""));
+
+        super.execute("Bob");
+        Assertions.assertNull(super.parsedArgs);
+        Assertions.assertTrue(super.tabComplete("b").isEmpty());
+    }
+
+    @ParameterizedTest(name = "Test the tab-completion of indexed players ({index}/4)")
+    @MethodSource
+    void testTabCompletion(String prefix, List<String> expected) {
+        Assertions.assertEquals(expected, super.tabComplete(prefix));
+    }
+
+    @SuppressWarnings("unused")
+    static Stream<Arguments> testTabCompletion() {
+        return Stream.of(
+            Arguments.arguments("",    Arrays.asList("alfred", "Alice", "Bob", "OverMighty")),
+            Arguments.arguments("AL",  Arrays.asList("alfred", "Alice")),
+            Arguments.arguments("bo",  Collections.singletonList("Bob")),
+            Arguments.arguments("alz", Collections.emptyList())
+        );
+    }
+
+    @Test
+    @DisplayName("Test the tab-completion of indexed players by a player: expect visible only")
+    void testTabCompletionByPlayerExpectVisibleOnly() {
+        Player viewer = Mockito.mock(Player.class);
+        Mockito.when(viewer.canSee(Mockito.any())).thenReturn(true);
+        Mockito.when(viewer.canSee(this.alfred)).thenReturn(false);
+        Mockito.when(Bukkit.getServer().isPrimaryThread()).thenReturn(true);
+
+        try {
+            Assertions.assertEquals(Collections.singletonList("Alice"),
+                super.tabComplete(viewer, super.getName(), new String[] { "al" }));
+        } finally {
+            Mockito.when(Bukkit.getServer().isPrimaryThread()).thenReturn(false);
+        }
+    }
+
+    @Test
+    @DisplayName("Test the async tab-completion of players by a player: expect left to main thread")
+    void testAsyncTabCompletionByPlayerExpectLeftToMainThread() {
+        Player viewer = Mockito.mock(Player.class);
+        Bukkit.getCommandMap().register("croissant", this);
+
+        Assertions.assertTrue(super.tabComplete(viewer, super.getName(), new String[] { "al" })
+            .isEmpty());
+        Mockito.verify(viewer, Mockito.never()).canSee(Mockito.any());
+
+        AsyncTabCompleteEvent byPlayer = mockTabCompleteEvent(viewer);
+        super.getHandler().onAsyncTabComplete(byPlayer);
+        Mockito.verify(byPlayer, Mockito.never()).setHandled(true);
+
+        AsyncTabCompleteEvent byConsole = mockTabCompleteEvent(Mockito.mock(CommandSender.class));
+        super.getHandler().onAsyncTabComplete(byConsole);
+        Mockito.verify(byConsole).setCompletions(Arrays.asList("alfred", "Alice"));
+        Mockito.verify(byConsole).setHandled(true);
+    }
+
+    private AsyncTabCompleteEvent mockTabCompleteEvent(CommandSender sender) {
+        AsyncTabCompleteEvent event = Mockito.mock(AsyncTabCompleteEvent.class);
+        Mockito.when(event.getSender()).thenReturn(sender);
+        Mockito.when(event.getBuffer()).thenReturn("/" + super.getName() + " al");
+        Mockito.when(event.isCommand()).thenReturn(true);
+        return event;
+    }
+
+}
@@ -24,7 +24,7 @@ class RegularArgumentsTest extends TestCommand {
         super.parsedArgs = new Object[] { arg1, arg2, arg3 };
     }
 
-    @ParameterizedTest(name = "Test the parsing of regular arguments ({index}/7)")
+    @ParameterizedTest(name = "Test the parsing of regular arguments ({index}/9)")
     @MethodSource
     void testRegularArgumentsParsing(String[] args, Object[] expected) {
         super.execute(args);
@@ -46,6 +46,14 @@ class RegularArgumentsTest extends TestCommand {
             Arguments.arguments(
                 new String[] { "croissant", "123", "false" },
                 new Object[] { "croissant", 123, false }
+            ),
+            Arguments.arguments(
+                new String[] { "\"New", "York\"", "1", "true" },
+                new Object[] { "New York", 1, true }
+            ),
+            Arguments.arguments(
+                new String[] { "\"say", "\\\"hi\\\"\"", "2", "false" },
+                new Object[] { "say \"hi\"", 2, false }
             )
         );
     }
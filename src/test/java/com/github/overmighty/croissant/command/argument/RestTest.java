@@ -23,7 +23,7 @@ class RestTest extends TestCommand {
         super.parsedArgs = new Object[] { message };
     }
 
-    @ParameterizedTest(name = "Test the parsing of @Rest arguments ({index}/4)")
+    @ParameterizedTest(name = "Test the parsing of @Rest arguments ({index}/5)")
     @MethodSource
     void testRestArgumentsParsing(String[] args, Object[] expected) {
         super.execute(args);
@@ -48,6 +48,10 @@ class RestTest extends TestCommand {
             Arguments.arguments(
                 new String[] { "Yet", "another", "JUnit", "test" },
                 new Object[] { "Yet another JUnit test" }
+            ),
+            Arguments.arguments(
+                new String[] { "\"Spaces", "", "and\"", "quotes" },
+                new Object[] { "\"Spaces  and\" quotes" }
             )
         );
     }